@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010, 2012 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2012, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -18,7 +18,6 @@ import org.apache.tapestry5.func.F;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InheritanceSearch;
 import org.apache.tapestry5.ioc.internal.util.InternalCommonsUtils;
-import org.apache.tapestry5.ioc.internal.util.LockSupport;
 import org.apache.tapestry5.ioc.services.Coercion;
 import org.apache.tapestry5.ioc.services.CoercionTuple;
 import org.apache.tapestry5.ioc.services.TypeCoercer;
@@ -28,9 +27,10 @@ import org.apache.tapestry5.plastic.PlasticUtils;
 import org.apache.tapestry5.util.StringToEnumCoercion;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
 @SuppressWarnings("all")
-public class TypeCoercerImpl extends LockSupport implements TypeCoercer
+public class TypeCoercerImpl implements TypeCoercer
 {
     // Constructed from the service's configuration.
 
@@ -43,18 +43,13 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
     {
         private final Class type;
 
-        private final Map<Class, Coercion> cache = CollectionFactory.newConcurrentMap();
+        private final ConcurrentMap<Class, Coercion> cache = CollectionFactory.newConcurrentMap();
 
         TargetCoercion(Class type)
         {
             this.type = type;
         }
 
-        void clearCache()
-        {
-            cache.clear();
-        }
-
         Object coerce(Object input)
         {
             Class sourceType = input != null ? input.getClass() : Void.class;
@@ -87,7 +82,15 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
             if (c == null)
             {
                 c = findOrCreateCoercion(sourceType, type);
-                cache.put(sourceType, c);
+
+                // Some other thread may have beat us to it.
+
+                Coercion existing = cache.putIfAbsent(sourceType, c);
+
+                if (existing != null)
+                {
+                    c = existing;
+                }
             }
 
             return c;
@@ -95,9 +98,11 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
     }
 
     /**
-     * Map from a target type to a TargetCoercion for that type.
+     * Map from a target type to a TargetCoercion for that type. Reading the map does not lock, since a coercion is
+     * looked up for nearly every binding read and parameter access. The map holds its keys strongly, so it is cleared
+     * entirely by {@link #clearCache()} (which is invoked when component classes are reloaded).
      */
-    private final Map<Class, TargetCoercion> typeToTargetCoercion = new WeakHashMap<Class, TargetCoercion>();
+    private final ConcurrentMap<Class, TargetCoercion> typeToTargetCoercion = CollectionFactory.newConcurrentMap();
 
     private static final Coercion NO_COERCION = new Coercion<Object, Object>()
     {
@@ -191,64 +196,32 @@ public class TypeCoercerImpl extends LockSupport implements TypeCoercer
 
     private TargetCoercion getTargetCoercion(Class targetType)
     {
-        try
-        {
-            acquireReadLock();
-
-            TargetCoercion tc = typeToTargetCoercion.get(targetType);
+        TargetCoercion tc = typeToTargetCoercion.get(targetType);
 
-            return tc != null ? tc : createAndStoreNewTargetCoercion(targetType);
-        } finally
+        if (tc == null)
         {
-            releaseReadLock();
-        }
-    }
+            tc = new TargetCoercion(targetType);
 
-    private TargetCoercion createAndStoreNewTargetCoercion(Class targetType)
-    {
-        try
-        {
-            upgradeReadLockToWriteLock();
-
-            // Inner check since some other thread may have beat us to it.
+            // Some other thread may have beat us to it.
 
-            TargetCoercion tc = typeToTargetCoercion.get(targetType);
+            TargetCoercion existing = typeToTargetCoercion.putIfAbsent(targetType, tc);
 
-            if (tc == null)
+            if (existing != null)
             {
-                tc = new TargetCoercion(targetType);
-                typeToTargetCoercion.put(targetType, tc);
+                tc = existing;
             }
-
-            return tc;
-        } finally
-        {
-            downgradeWriteLockToReadLock();
         }
+
+        return tc;
     }
 
     @Override
     public void clearCache()
     {
-        try
-        {
-            acquireReadLock();
+        // Each TargetCoercion's cache likely contains references to unloaded classes, as may the keys of the map;
+        // discard them all.
 
-            // There's no need to clear the typeToTargetCoercion map, as it is a WeakHashMap and
-            // will release the keys for classes that are no longer in existence. On the other hand,
-            // there's likely all sorts of references to unloaded classes inside each TargetCoercion's
-            // individual cache, so clear all those.
-
-            for (TargetCoercion tc : typeToTargetCoercion.values())
-            {
-                // Can tc ever be null?
-
-                tc.clearCache();
-            }
-        } finally
-        {
-            releaseReadLock();
-        }
+        typeToTargetCoercion.clear();
     }
 
     /**
@@ -14,19 +14,18 @@
 
 package org.apache.tapestry5.internal.plastic;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Quick and dirty key/value cache that is subclassed to provide the logic that generates the value for
- * a missing key.
+ * a missing key. Safe for use by multiple threads; the value for a key may occasionally be generated more than once.
  * 
  * @param <S>
  * @param <T>
  */
 public abstract class Cache<S, T>
 {
-    private Map<S, T> innerCache = new HashMap<S, T>();
+    private final Map<S, T> innerCache = PlasticInternalUtils.newConcurrentMap();
 
     public T get(S input)
     {
@@ -0,0 +1,181 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.plastic;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A set of reentrant locks, one per class name, used so that different classes may be loaded and transformed
+ * concurrently. Each lock tracks the thread that owns it, and each thread waiting for a lock is tracked as well;
+ * this allows a wait that would deadlock (because the owner of the lock is, directly or indirectly, waiting for a
+ * lock held by the current thread) to be detected before it occurs.
+ */
+class ClassNameLocks
+{
+    static class NameLock
+    {
+        final String className;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * The thread that holds the lock, or null. Unlike {@link ReentrantLock}'s owner, this is safe to read from
+         * any thread.
+         */
+        private volatile Thread owner;
+
+        NameLock(String className)
+        {
+            this.className = className;
+        }
+
+        boolean isHeldByCurrentThread()
+        {
+            return lock.isHeldByCurrentThread();
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("NameLock[%s]", className);
+        }
+    }
+
+    private final ConcurrentMap<String, NameLock> locks = PlasticInternalUtils.newConcurrentMap();
+
+    /**
+     * Maps a thread to the lock it is currently waiting to acquire.
+     */
+    private final ConcurrentMap<Thread, NameLock> waiting = PlasticInternalUtils.newConcurrentMap();
+
+    NameLock get(String className)
+    {
+        NameLock result = locks.get(className);
+
+        if (result == null)
+        {
+            result = new NameLock(className);
+
+            NameLock existing = locks.putIfAbsent(className, result);
+
+            if (existing != null)
+            {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Acquires the lock for the class name, waiting for it if necessary.
+     *
+     * @throws IllegalStateException
+     *         if waiting for the lock would deadlock
+     */
+    NameLock lock(String className)
+    {
+        NameLock lock = get(className);
+
+        if (!acquire(lock))
+        {
+            throw new IllegalStateException(String.format("Unable to load class %s, as it is being loaded by another thread " +
+                    "that is waiting for a class being loaded by thread %s; there is a cycle among the classes being loaded.",
+                    className, Thread.currentThread().getName()));
+        }
+
+        return lock;
+    }
+
+    /**
+     * Acquires the lock for the class name, unless waiting for the lock would deadlock.
+     *
+     * @return the acquired lock, or null if the lock was not acquired
+     */
+    NameLock lockUnlessDeadlocked(String className)
+    {
+        NameLock lock = get(className);
+
+        return acquire(lock) ? lock : null;
+    }
+
+    void unlock(NameLock lock)
+    {
+        if (lock.lock.getHoldCount() == 1)
+        {
+            lock.owner = null;
+        }
+
+        lock.lock.unlock();
+    }
+
+    private boolean acquire(NameLock lock)
+    {
+        Thread current = Thread.currentThread();
+
+        if (!lock.lock.tryLock())
+        {
+            // Register as waiting before checking for a cycle; of two threads that are about to wait for each
+            // other, at least the second one will see the cycle.
+
+            waiting.put(current, lock);
+
+            try
+            {
+                if (wouldDeadlock(current, lock))
+                {
+                    return false;
+                }
+
+                lock.lock.lock();
+            } finally
+            {
+                waiting.remove(current);
+            }
+        }
+
+        lock.owner = current;
+
+        return true;
+    }
+
+    private boolean wouldDeadlock(Thread current, NameLock lock)
+    {
+        NameLock cursor = lock;
+
+        // The length of a chain of waiting threads is bounded by the number of waiting threads; the bound ensures
+        // termination if the chain is changing while it is being followed.
+
+        for (int i = 0; cursor != null && i <= waiting.size(); i++)
+        {
+            Thread owner = cursor.owner;
+
+            if (owner == null)
+            {
+                return false;
+            }
+
+            if (owner == current)
+            {
+                return true;
+            }
+
+            cursor = waiting.get(owner);
+        }
+
+        return false;
+    }
+}
@@ -29,12 +29,12 @@ class FieldInstrumentations
     /**
      * Map field name to a read method.
      */
-    final Map<String, FieldInstrumentation> read = PlasticInternalUtils.newMap();
+    final Map<String, FieldInstrumentation> read = PlasticInternalUtils.newConcurrentMap();
 
     /**
      * Maps field name to a write method.
      */
-    final Map<String, FieldInstrumentation> write = PlasticInternalUtils.newMap();
+    final Map<String, FieldInstrumentation> write = PlasticInternalUtils.newConcurrentMap();
 
     FieldInstrumentations(String superClassInternalName)
     {
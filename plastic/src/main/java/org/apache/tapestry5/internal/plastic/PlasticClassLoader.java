@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,10 +14,21 @@
 
 package org.apache.tapestry5.internal.plastic;
 
+import java.lang.reflect.Method;
+
+/**
+ * Class loader for transformed classes. On JDK 1.7 and above, the class loader is registered as parallel capable,
+ * and classes with different names are loaded (and transformed) concurrently; each class name has its own lock.
+ * Otherwise, all class loading is synchronized on the class loader instance.
+ */
 public class PlasticClassLoader extends ClassLoader
 {
+    private static final boolean PARALLEL_CAPABLE = registerAsParallelCapableIfSupported();
+
     private final ClassLoaderDelegate delegate;
 
+    final ClassNameLocks locks = new ClassNameLocks();
+
     public PlasticClassLoader(ClassLoader parent, ClassLoaderDelegate delegate)
     {
         super(parent);
@@ -25,30 +36,92 @@ public class PlasticClassLoader extends ClassLoader
         this.delegate = delegate;
     }
 
+    /**
+     * Invokes ClassLoader.registerAsParallelCapable() (added in JDK 1.7) reflectively, as Plastic is compiled for
+     * JDK 1.6.
+     */
+    private static boolean registerAsParallelCapableIfSupported()
+    {
+        try
+        {
+            Method method = ClassLoader.class.getDeclaredMethod("registerAsParallelCapable");
+
+            method.setAccessible(true);
+
+            return (Boolean) method.invoke(null);
+        } catch (Exception ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if the class loader is parallel capable, allowing classes to be transformed concurrently.
+     */
+    public static boolean isParallelCapable()
+    {
+        return PARALLEL_CAPABLE;
+    }
+
     @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    {
+        if (PARALLEL_CAPABLE)
+        {
+            return loadClassWithNameLock(name, resolve);
+        }
+
+        synchronized (this)
+        {
+            return loadClassWithNameLock(name, resolve);
+        }
+    }
+
+    private Class<?> loadClassWithNameLock(String name, boolean resolve) throws ClassNotFoundException
     {
         Class<?> loadedClass = findLoadedClass(name);
 
         if (loadedClass != null)
             return loadedClass;
 
-        if (delegate.shouldInterceptClassLoading(name))
+        if (!delegate.shouldInterceptClassLoading(name))
+        {
+            return super.loadClass(name, resolve);
+        }
+
+        ClassNameLocks.NameLock lock = locks.lock(name);
+
+        try
         {
-            Class<?> c = delegate.loadAndTransformClass(name);
+            // Another thread may have loaded the class while this thread waited for the lock.
+
+            Class<?> c = findLoadedClass(name);
+
+            if (c == null)
+            {
+                c = delegate.loadAndTransformClass(name);
+            }
 
             if (resolve)
                 resolveClass(c);
 
             return c;
-        } else
+        } finally
         {
-            return super.loadClass(name, resolve);
+            locks.unlock(lock);
         }
     }
 
-    public synchronized Class<?> defineClassWithBytecode(String className, byte[] bytecode)
+    public Class<?> defineClassWithBytecode(String className, byte[] bytecode)
     {
-        return defineClass(className, bytecode, 0, bytecode.length);
+        if (PARALLEL_CAPABLE)
+        {
+            return defineClass(className, bytecode, 0, bytecode.length);
+        }
+
+        synchronized (this)
+        {
+            return defineClass(className, bytecode, 0, bytecode.length);
+        }
     }
 }
@@ -1,4 +1,4 @@
-// Copyright 2011-2013 The Apache Software Foundation
+// Copyright 2011-2013, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -33,6 +33,9 @@ import java.util.concurrent.CopyOnWriteArrayList;
 /**
  * Responsible for managing a class loader that allows ASM {@link ClassNode}s
  * to be instantiated as runtime classes.
+ * <p/>
+ * Classes are loaded and transformed while holding a lock specific to the class name (see {@link ClassNameLocks}),
+ * so that unrelated classes may be transformed concurrently by different threads.
  */
 @SuppressWarnings("rawtypes")
 public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticClassListenerHub
@@ -48,13 +51,22 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
 
     // Would use Deque, but that's added in 1.6 and we're still striving for 1.5 code compatibility.
 
-    private final Stack<String> activeInstrumentClassNames = new Stack<String>();
+    /**
+     * Names of the classes being transformed by the current thread, used to detect cycles.
+     */
+    private final ThreadLocal<Stack<String>> activeInstrumentClassNames = new ThreadLocal<Stack<String>>()
+    {
+        @Override
+        protected Stack<String> initialValue()
+        {
+            return new Stack<String>();
+        }
+    };
 
     /**
      * Maps class names to instantiators for that class name.
-     * Synchronized on the loader.
      */
-    private final Map<String, ClassInstantiator> instantiators = PlasticInternalUtils.newMap();
+    private final Map<String, ClassInstantiator> instantiators = PlasticInternalUtils.newConcurrentMap();
 
     private final InheritanceData emptyInheritanceData = new InheritanceData();
 
@@ -87,14 +99,19 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
     }
 
     /**
-     * Map from FQCN to BaseClassDef. Synchronized on the loader.
+     * Map from FQCN to BaseClassDef.
      */
-    private final Map<String, BaseClassDef> baseClassDefs = PlasticInternalUtils.newMap();
+    private final Map<String, BaseClassDef> baseClassDefs = PlasticInternalUtils.newConcurrentMap();
 
 
-    private final Map<String, FieldInstrumentations> instrumentations = PlasticInternalUtils.newMap();
+    /**
+     * Map from internal class name to field instrumentations. The entry for a class is added when
+     * the class starts being transformed, but is only complete once the transformation completes (and
+     * the lock for the class name is released).
+     */
+    private final Map<String, FieldInstrumentations> instrumentations = PlasticInternalUtils.newConcurrentMap();
 
-    private final Map<String, String> transformedClassNameToImplementationClassName = PlasticInternalUtils.newMap();
+    private final Map<String, String> transformedClassNameToImplementationClassName = PlasticInternalUtils.newConcurrentMap();
     
 
     private final FieldInstrumentations placeholder = new FieldInstrumentations(null);
@@ -128,31 +145,24 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
     public Class realizeTransformedClass(ClassNode classNode, InheritanceData inheritanceData,
                                          StaticContext staticContext)
     {
-        synchronized (loader)
-        {
-            Class result = realize(PlasticInternalUtils.toClassName(classNode.name), ClassType.PRIMARY, classNode);
-            baseClassDefs.put(result.getName(), new BaseClassDef(inheritanceData, staticContext));
-
-            return result;
-        }
+        Class result = realize(PlasticInternalUtils.toClassName(classNode.name), ClassType.PRIMARY, classNode);
+        baseClassDefs.put(result.getName(), new BaseClassDef(inheritanceData, staticContext));
 
+        return result;
     }
 
     public Class realize(String primaryClassName, ClassType classType, ClassNode classNode)
     {
-        synchronized (loader)
+        if (!listeners.isEmpty())
         {
-            if (!listeners.isEmpty())
-            {
-                fire(toEvent(primaryClassName, classType, classNode));
-            }
+            fire(toEvent(primaryClassName, classType, classNode));
+        }
 
-            byte[] bytecode = toBytecode(classNode);
+        byte[] bytecode = toBytecode(classNode);
 
-            String className = PlasticInternalUtils.toClassName(classNode.name);
+        String className = PlasticInternalUtils.toClassName(classNode.name);
 
-            return loader.defineClassWithBytecode(className, bytecode);
-        }
+        return loader.defineClassWithBytecode(className, bytecode);
     }
 
     private PlasticClassEvent toEvent(final String primaryClassName, final ClassType classType,
@@ -326,10 +336,11 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
         return false;
     }
 
-    // Hopefully the synchronized will not cause a deadlock
-
+    /**
+     * Invoked by the class loader, which holds the lock for the class name.
+     */
     @Override
-    public synchronized Class<?> loadAndTransformClass(String className) throws ClassNotFoundException
+    public Class<?> loadAndTransformClass(String className) throws ClassNotFoundException
     {
         // Inner classes are not transformed, but they are loaded by the same class loader.
 
@@ -341,6 +352,8 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
         // TODO: What about interfaces, enums, annotations, etc. ... they shouldn't be in the package, but
         // we should generate a reasonable error message.
 
+        Stack<String> activeInstrumentClassNames = this.activeInstrumentClassNames.get();
+
         if (activeInstrumentClassNames.contains(className))
         {
             StringBuilder builder = new StringBuilder("");
@@ -585,60 +598,48 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
 
     public ClassInstantiator getClassInstantiator(String className)
     {
-        synchronized (loader)
-        {
-            if (!instantiators.containsKey(className))
-            {
-                try
-                {
-                    loader.loadClass(className);
-                } catch (ClassNotFoundException ex)
-                {
-                    throw new RuntimeException(ex);
-                }
-            }
-
-            ClassInstantiator result = instantiators.get(className);
+        ClassInstantiator result = instantiators.get(className);
 
-            if (result == null)
-            {
-                // TODO: Verify that the problem is incorrect package, and not any other failure.
-
-                StringBuilder b = new StringBuilder();
-                b.append("Class '")
-                        .append(className)
-                        .append("' is not a transformed class. Transformed classes should be in one of the following packages: ");
+        if (result == null)
+        {
+            result = loadInstantiator(className);
+        }
 
-                String sep = "";
+        if (result == null)
+        {
+            // TODO: Verify that the problem is incorrect package, and not any other failure.
 
-                List<String> names = new ArrayList<String>(controlledPackages);
-                Collections.sort(names);
+            StringBuilder b = new StringBuilder();
+            b.append("Class '")
+                    .append(className)
+                    .append("' is not a transformed class. Transformed classes should be in one of the following packages: ");
 
-                for (String name : names)
-                {
-                    b.append(sep);
-                    b.append(name);
+            String sep = "";
 
-                    sep = ", ";
-                }
+            List<String> names = new ArrayList<String>(controlledPackages);
+            Collections.sort(names);
 
-                String message = b.append(".").toString();
+            for (String name : names)
+            {
+                b.append(sep);
+                b.append(name);
 
-                throw new IllegalArgumentException(message);
+                sep = ", ";
             }
 
-            return result;
+            String message = b.append(".").toString();
+
+            throw new IllegalArgumentException(message);
         }
+
+        return result;
     }
 
     TypeCategory getTypeCategory(String typeName)
     {
-        synchronized (loader)
-        {
-            // TODO: Is this the right place to cache this data?
+        // TODO: Is this the right place to cache this data?
 
-            return typeName2Category.get(typeName);
-        }
+        return typeName2Category.get(typeName);
     }
 
     @Override
@@ -671,13 +672,6 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
 
     private FieldInstrumentations getFieldInstrumentations(String classInternalName)
     {
-        FieldInstrumentations result = instrumentations.get(classInternalName);
-
-        if (result != null)
-        {
-            return result;
-        }
-
         String className = PlasticInternalUtils.toClassName(classInternalName);
 
         // If it is a top-level (not inner) class in a controlled package, then we
@@ -685,17 +679,14 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
         // in it.
         if (!className.contains("$") && shouldInterceptClassLoading(className))
         {
-            try
-            {
-                loadAndTransformClass(className);
+            return getTopLevelFieldInstrumentations(className, classInternalName);
+        }
 
-                // The key is written into the instrumentations map as a side-effect
-                // of loading the class.
-                return instrumentations.get(classInternalName);
-            } catch (Exception ex)
-            {
-                throw new RuntimeException(PlasticInternalUtils.toMessage(ex), ex);
-            }
+        FieldInstrumentations result = instrumentations.get(classInternalName);
+
+        if (result != null)
+        {
+            return result;
         }
 
         // Either a class outside of controlled packages, or an inner class. Use a placeholder
@@ -707,6 +698,101 @@ public class PlasticClassPool implements ClassLoaderDelegate, Opcodes, PlasticCl
         return result;
     }
 
+    private ClassInstantiator loadInstantiator(String className)
+    {
+        if (!PlasticClassLoader.isParallelCapable())
+        {
+            // Class name locks must only be acquired while holding the class loader's lock.
+
+            synchronized (loader)
+            {
+                return loadInstantiatorWithNameLock(className);
+            }
+        }
+
+        return loadInstantiatorWithNameLock(className);
+    }
+
+    private ClassInstantiator loadInstantiatorWithNameLock(String className)
+    {
+        // The instantiator is stored as a side effect of loading the class, but only after the transformed class
+        // has been defined; another thread may already see the class as loaded while its instantiator is not yet
+        // stored. Holding the lock for the class name ensures that no other thread is in the middle of
+        // transforming it.
+
+        ClassNameLocks.NameLock lock = loader.locks.lockUnlessDeadlocked(className);
+
+        try
+        {
+            loader.loadClass(className);
+
+            return instantiators.get(className);
+        } catch (ClassNotFoundException ex)
+        {
+            throw new RuntimeException(ex);
+        } finally
+        {
+            if (lock != null)
+            {
+                loader.locks.unlock(lock);
+            }
+        }
+    }
+
+    private FieldInstrumentations getTopLevelFieldInstrumentations(String className, String classInternalName)
+    {
+        if (!PlasticClassLoader.isParallelCapable())
+        {
+            // Class name locks must only be acquired while holding the class loader's lock.
+
+            synchronized (loader)
+            {
+                return getCompleteFieldInstrumentations(className, classInternalName);
+            }
+        }
+
+        return getCompleteFieldInstrumentations(className, classInternalName);
+    }
+
+    private FieldInstrumentations getCompleteFieldInstrumentations(String className, String classInternalName)
+    {
+        // The instrumentations are only complete once the class has been transformed; holding the lock for the
+        // class name ensures that no other thread is in the middle of transforming it.
+
+        ClassNameLocks.NameLock lock = loader.locks.lockUnlessDeadlocked(className);
+
+        if (lock == null)
+        {
+            // The thread transforming the class is waiting for a class this thread is transforming. Use the
+            // instrumentations as they currently stand, exactly as if this thread had encountered the cycle
+            // on its own.
+
+            return instrumentations.get(classInternalName);
+        }
+
+        try
+        {
+            FieldInstrumentations result = instrumentations.get(classInternalName);
+
+            if (result != null)
+            {
+                return result;
+            }
+
+            loader.loadClass(className);
+
+            // The key is written into the instrumentations map as a side-effect
+            // of loading the class.
+            return instrumentations.get(classInternalName);
+        } catch (Exception ex)
+        {
+            throw new RuntimeException(PlasticInternalUtils.toMessage(ex), ex);
+        } finally
+        {
+            loader.locks.unlock(lock);
+        }
+    }
+
     FieldInstrumentation getFieldInstrumentation(String ownerClassInternalName, String fieldName, boolean forRead)
     {
         String currentName = ownerClassInternalName;
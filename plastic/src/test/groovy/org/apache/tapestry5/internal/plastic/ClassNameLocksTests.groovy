@@ -0,0 +1,99 @@
+package org.apache.tapestry5.internal.plastic
+
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ClassNameLocksTests extends Specification
+{
+    def locks = new ClassNameLocks()
+
+    def "lock is per class name"() {
+        expect:
+        locks.get("foo.Bar").is(locks.get("foo.Bar"))
+        !locks.get("foo.Bar").is(locks.get("foo.Baz"))
+    }
+
+    def "lock is reentrant"() {
+        when:
+        def first = locks.lock("foo.Bar")
+        def second = locks.lock("foo.Bar")
+
+        then:
+        first.is(second)
+        first.heldByCurrentThread
+
+        when:
+        locks.unlock(second)
+
+        then:
+        first.heldByCurrentThread
+
+        when:
+        locks.unlock(first)
+
+        then:
+        !first.heldByCurrentThread
+    }
+
+    def "different class names may be locked by different threads at the same time"() {
+        def bazLocked = new CountDownLatch(1)
+
+        locks.lock("foo.Bar")
+
+        when:
+        def thread = Thread.start {
+            locks.unlock(locks.lock("foo.Baz"))
+            bazLocked.countDown()
+        }
+
+        then:
+        bazLocked.await(5, TimeUnit.SECONDS)
+
+        cleanup:
+        thread.join()
+    }
+
+    def "a wait that would deadlock is detected"() {
+        def bazLocked = new CountDownLatch(1)
+        def result
+
+        locks.lock("foo.Bar")
+
+        def thread = Thread.start {
+            def baz = locks.lock("foo.Baz")
+            bazLocked.countDown()
+
+            // Blocks until the main thread fails to acquire the lock, and unlocks foo.Bar
+
+            locks.unlock(locks.lock("foo.Bar"))
+            locks.unlock(baz)
+        }
+
+        bazLocked.await()
+
+        // Wait for the other thread to start waiting for the lock on foo.Bar
+
+        while (locks.get("foo.Bar").lock.queueLength == 0) {
+            Thread.sleep(10)
+        }
+
+        when:
+        result = locks.lockUnlessDeadlocked("foo.Baz")
+
+        then:
+        result == null
+
+        when:
+        locks.lock("foo.Baz")
+
+        then:
+        def e = thrown(IllegalStateException)
+        e.message.startsWith "Unable to load class foo.Baz, as it is being loaded by another thread"
+
+        cleanup:
+        locks.unlock(locks.get("foo.Bar"))
+        thread.join()
+    }
+}
@@ -0,0 +1,136 @@
+package org.apache.tapestry5.plastic
+
+import org.apache.tapestry5.internal.plastic.StandardDelegate
+import org.apache.tapestry5.internal.plastic.asm.ClassWriter
+import org.apache.tapestry5.internal.plastic.asm.Opcodes
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Many threads obtain instantiators for the same set of generated classes (each extending one of a few base classes),
+ * in different orders, so unrelated classes are transformed at the same time, and the same class is requested by
+ * several threads at once.
+ */
+class ParallelTransformation extends AbstractPlasticSpecification implements Opcodes {
+
+  static final String PACKAGE = "parallel.components"
+
+  static final int BASE_CLASS_COUNT = 4
+
+  static final int CLASS_COUNT = 200
+
+  static final int THREAD_COUNT = 8
+
+  File dir
+
+  def setup() {
+    dir = File.createTempFile("plastic-parallel", "")
+    dir.delete()
+
+    def packageDir = new File(dir, PACKAGE.replace('.', '/'))
+    packageDir.mkdirs()
+
+    BASE_CLASS_COUNT.times { new File(packageDir, "Base${it}.class").bytes = generateClass("Base$it", "java/lang/Object") }
+    CLASS_COUNT.times { new File(packageDir, "Component${it}.class").bytes = generateClass("Component$it", internalName("Base${it % BASE_CLASS_COUNT}")) }
+  }
+
+  def cleanup() {
+    dir.deleteDir()
+  }
+
+  String internalName(String simpleName) {
+    PACKAGE.replace('.', '/') + "/" + simpleName
+  }
+
+  byte[] generateClass(String simpleName, String superName) {
+    def className = internalName(simpleName)
+
+    def cw = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+
+    cw.visit(V1_5, ACC_PUBLIC, className, null, superName, null)
+
+    def mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null)
+    mv.visitCode()
+    mv.visitVarInsn(ALOAD, 0)
+    mv.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "()V")
+    mv.visitInsn(RETURN)
+    mv.visitMaxs(0, 0)
+    mv.visitEnd()
+
+    cw.visitField(ACC_PRIVATE, "value", "Ljava/lang/String;", null, null).visitEnd()
+
+    mv = cw.visitMethod(ACC_PUBLIC, "get${simpleName}", "()Ljava/lang/String;", null, null)
+    mv.visitCode()
+    mv.visitVarInsn(ALOAD, 0)
+    mv.visitFieldInsn(GETFIELD, className, "value", "Ljava/lang/String;")
+    mv.visitInsn(ARETURN)
+    mv.visitMaxs(0, 0)
+    mv.visitEnd()
+
+    cw.visitEnd()
+
+    return cw.toByteArray()
+  }
+
+  def "unrelated classes are transformed in parallel, each exactly once"() {
+    def parent = new URLClassLoader([dir.toURI().toURL()] as URL[], getClass().classLoader)
+
+    def transformations = new ConcurrentHashMap<String, AtomicInteger>()
+
+    def conduit = [get: { instance, context -> "conduit" }, set: { instance, context, value -> }] as FieldConduit
+
+    def delegate = new StandardDelegate({ PlasticClass pc ->
+      transformations.putIfAbsent(pc.className, new AtomicInteger())
+      transformations[pc.className].incrementAndGet()
+
+      pc.unclaimedFields*.setConduit(conduit)
+    } as PlasticClassTransformer)
+
+    def mgr = PlasticManager.withClassLoader(parent).delegate(delegate).packages([PACKAGE] as Set).create()
+
+    def classNames = (0..<CLASS_COUNT).collect { "${PACKAGE}.Component$it".toString() }
+    def instantiated = new ConcurrentHashMap<String, Class>()
+    def failures = new CopyOnWriteArrayList<Throwable>()
+    def start = new CountDownLatch(1)
+
+    when:
+
+    def threads = (1..THREAD_COUNT).collect {
+      def shuffled = new ArrayList(classNames)
+      Collections.shuffle(shuffled)
+
+      Thread.start {
+        try {
+          start.await()
+
+          shuffled.each { className ->
+            def instance = mgr.getClassInstantiator(className).newInstance()
+
+            assert instance."get${className - (PACKAGE + '.')}"() == "conduit"
+
+            def previous = instantiated.putIfAbsent(className, instance.getClass())
+
+            assert previous == null || previous.is(instance.getClass())
+          }
+        } catch (Throwable ex) {
+          failures << ex
+        }
+      }
+    }
+
+    start.countDown()
+
+    threads*.join()
+
+    then:
+
+    failures.empty
+    instantiated.keySet() == classNames as Set
+
+    transformations.size() == CLASS_COUNT + BASE_CLASS_COUNT
+    transformations.values().every { it.get() == 1 }
+  }
+}
@@ -234,4 +234,13 @@ public class EventConstants
      * @since 5.3
      */
     public static final String REFRESH = "refresh";
+
+    /**
+     * Event triggered by the {@link org.apache.tapestry5.corelib.components.Async Async} component as it begins to
+     * render, to obtain the data its body will render. The event handler may return an
+     * {@link org.apache.tapestry5.ioc.Invokable}, to have the data prepared in parallel with the rest of the page.
+     *
+     * @since 5.4
+     */
+    public static final String PREPARE_ASYNC = "prepareAsync";
 }
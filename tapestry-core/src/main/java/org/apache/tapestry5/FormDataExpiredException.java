@@ -0,0 +1,34 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5;
+
+/**
+ * Thrown when a {@link org.apache.tapestry5.corelib.components.Form} is submitted, but its data (kept on the server,
+ * as enabled by {@link SymbolConstants#FORM_DATA_STORE_MIN_SIZE}) has expired or been discarded. An application may
+ * handle this exception (for example, by contributing to the
+ * {@link org.apache.tapestry5.services.RequestExceptionHandler}) to ask the user to resubmit the form.
+ *
+ * @since 5.4
+ */
+public class FormDataExpiredException extends RuntimeException
+{
+    private static final long serialVersionUID = -4357924586133265405L;
+
+    public FormDataExpiredException(String message)
+    {
+        super(message);
+    }
+}
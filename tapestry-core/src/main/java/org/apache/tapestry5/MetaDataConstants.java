@@ -50,4 +50,17 @@ public class MetaDataConstants
      * @since 5.4
      */
     public static final String UNKNOWN_ACTIVATION_CONTEXT_CHECK = "tapestry.unknwon-activation-context-check";
+
+    /**
+     * Meta data key applied to pages that may be rendered using a streaming markup writer, which collapses each
+     * element into markup as soon as the element is ended, rather than building a complete DOM for the page.
+     * The meta-default is "false".
+     * <p/>
+     * Components and mixins that modify elements after those elements have been ended should set this meta data
+     * to "false"; any page containing such a component is always rendered using a complete DOM.
+     *
+     * @see org.apache.tapestry5.services.MarkupWriterFactory#newStreamingMarkupWriter(org.apache.tapestry5.internal.structure.Page)
+     * @since 5.4
+     */
+    public static final String STREAMING_MARKUP = "tapestry.streaming-markup";
 }
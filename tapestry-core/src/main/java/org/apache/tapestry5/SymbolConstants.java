@@ -546,4 +546,206 @@ public class SymbolConstants
      * @since 5.4
      */
     public static final String PRELOADER_MODE = "tapestry.page-preload-mode";
+
+    /**
+     * The number of threads used to preload pages at startup. The default is 1, which loads pages one after another
+     * on the startup thread. Larger values load pages in parallel using a dedicated thread pool (which is shut down
+     * once preloading completes).
+     *
+     * @see org.apache.tapestry5.services.pageload.PagePreloader
+     * @since 5.4
+     */
+    public static final String PRELOADER_THREADS = "tapestry.page-preload-threads";
+
+    /**
+     * A directory in which parsed component templates are stored, in a compact binary form. When set, a template
+     * that was parsed by an earlier execution of the application is read from this directory, rather than parsed
+     * again; this is intended to reduce startup time in production. Each file is named for a digest of the
+     * template's content, so changed templates are parsed normally. The default is blank, meaning that parsed
+     * templates are not stored.
+     *
+     * @since 5.4
+     */
+    public static final String TEMPLATE_CACHE_DIR = "tapestry.template-cache-dir";
+
+    /**
+     * The maximum number of page instances kept in the page cache (a page is cached separately for each locale, or
+     * other {@linkplain org.apache.tapestry5.services.pageload.ComponentResourceSelector selector}, in which it is
+     * used). When the limit is exceeded, the least recently used page is discarded, and must be loaded again when
+     * next needed. Pages loaded by the {@link org.apache.tapestry5.services.pageload.PagePreloader} are never
+     * discarded to enforce a limit. The default is 0, meaning no limit. When no limit or
+     * {@linkplain #PAGE_CACHE_IDLE_TIME idle time} is configured, pages (other than preloaded pages) are only softly
+     * referenced, and may be discarded by the garbage collector when memory is short.
+     *
+     * @since 5.4
+     */
+    public static final String PAGE_CACHE_MAX_PAGES = "tapestry.page-cache-max-pages";
+
+    /**
+     * The maximum total weight of the page instances in the page cache; the weight of a page (as shown on the
+     * T5 Dashboard) is an estimate of the memory it uses, based on its number of components, bindings and
+     * template elements. When the limit is exceeded, the least recently used pages are discarded, as with
+     * {@link #PAGE_CACHE_MAX_PAGES}. The default is 0, meaning no limit.
+     *
+     * @since 5.4
+     */
+    public static final String PAGE_CACHE_MAX_WEIGHT = "tapestry.page-cache-max-weight";
+
+    /**
+     * A {@linkplain org.apache.tapestry5.ioc.util.TimeInterval time interval}; page instances that have not been used
+     * for this long are discarded from the page cache (unless they were preloaded). The default is "0 s", meaning that
+     * pages are never discarded for being idle.
+     *
+     * @since 5.4
+     */
+    public static final String PAGE_CACHE_IDLE_TIME = "tapestry.page-cache-idle-time";
+
+    /**
+     * If true, the time taken by page render requests, component event requests and the rendering of each component
+     * is recorded by the {@link org.apache.tapestry5.services.metrics.RequestMetrics} service, and displayed
+     * on the T5Dashboard. The default is false.
+     *
+     * @since 5.4
+     */
+    public static final String REQUEST_METRICS_ENABLED = "tapestry.request-metrics-enabled";
+
+    /**
+     * If true (and {@link #REQUEST_METRICS_ENABLED} is true), the number of bytes allocated by the request thread is
+     * also recorded, for JVMs that support it. The default is false.
+     *
+     * @since 5.4
+     */
+    public static final String REQUEST_METRICS_TRACK_ALLOCATION = "tapestry.request-metrics-track-allocation";
+
+    /**
+     * Minimum size, in bytes, of an asset file that is streamed directly from the file system, rather than read into
+     * memory and cached there. This applies only to assets that are stored as files (context assets in an exploded
+     * web application, or classpath assets in a directory), that are not transformed or minimized, and that are sent
+     * uncompressed. Such files are transferred from a file channel; when running inside Tomcat (with sendfile
+     * enabled), the transfer is handed to the container. The default is 65536; a negative value disables this.
+     *
+     * @since 5.4
+     */
+    public static final String ASSET_FILE_STREAMING_MIN_SIZE = "tapestry.asset-file-streaming-min-size";
+
+    /**
+     * If non-blank, the directory in which the GZip compressed variants of assets (including aggregated JavaScript
+     * stacks) are stored. Each file is named for a digest of the uncompressed content, so each distinct content is
+     * compressed only once, even across restarts of the application; the directory may be populated ahead of time
+     * (for example, by a smoke test run as part of the build) and deployed with the application. The default is
+     * blank, meaning that compressed variants are only cached in memory.
+     *
+     * @since 5.4
+     */
+    public static final String COMPRESSED_ASSET_DIR = "tapestry.compressed-asset-dir";
+
+    /**
+     * If true, data stored on the client by the {@link org.apache.tapestry5.services.ClientDataEncoder}
+     * (such as the actions of a form, and client-persisted fields) is written in a compact format, which omits the
+     * descriptions of the fields of serialized classes, and is compressed using a dictionary of common class names.
+     * This is smaller, and faster to read, than the original format; however, because the field descriptions are
+     * omitted, data can not be read once the fields (or serialVersionUID) of any class it contains have changed, even
+     * in ways that Java serialization would tolerate. If false (the default), the original format (a GZip compressed
+     * Java serialization stream) is written. Data in either format can always be read.
+     *
+     * @since 5.4
+     */
+    public static final String COMPACT_CLIENT_DATA = "tapestry.compact-client-data";
+
+    /**
+     * If zero or more, the data of a {@link org.apache.tapestry5.corelib.components.Form} (the serialized component
+     * actions that are normally sent to the client in a hidden field, and sent back when the form is submitted) is
+     * kept in memory on the server whenever it is at least this many characters, and only a short random token is sent
+     * to the client. This reduces the size of pages with large forms (such as forms containing loops), and of the
+     * requests that submit them, at the cost of memory on the server; in a cluster, requests must be routed to the
+     * server that rendered the form (sticky sessions). The default is -1, meaning that form data is always sent to the
+     * client.
+     *
+     * @since 5.4
+     * @see #FORM_DATA_STORE_MAX_ENTRIES
+     * @see #FORM_DATA_STORE_MAX_SIZE
+     * @see #FORM_DATA_STORE_TIME_TO_LIVE
+     */
+    public static final String FORM_DATA_STORE_MIN_SIZE = "tapestry.form-data-store-min-size";
+
+    /**
+     * The maximum number of form data entries kept on the server (see {@link #FORM_DATA_STORE_MIN_SIZE}); when the
+     * limit is reached, the oldest entries are discarded. The default is 10000.
+     *
+     * @since 5.4
+     */
+    public static final String FORM_DATA_STORE_MAX_ENTRIES = "tapestry.form-data-store-max-entries";
+
+    /**
+     * The maximum total size, in characters, of the form data kept on the server (see
+     * {@link #FORM_DATA_STORE_MIN_SIZE}); when the limit is reached, the oldest entries are discarded. Form data larger
+     * than this is always sent to the client. The default is 10000000 (about 20 MB of memory).
+     *
+     * @since 5.4
+     */
+    public static final String FORM_DATA_STORE_MAX_SIZE = "tapestry.form-data-store-max-size";
+
+    /**
+     * A {@linkplain org.apache.tapestry5.ioc.util.TimeInterval time interval}; form data kept on the server (see
+     * {@link #FORM_DATA_STORE_MIN_SIZE}) is discarded after this long, after which the form can no longer be
+     * submitted. The default is "30 m".
+     *
+     * @since 5.4
+     */
+    public static final String FORM_DATA_STORE_TIME_TO_LIVE = "tapestry.form-data-store-time-to-live";
+
+    /**
+     * If true (and not in production mode), Tapestry registers the directories containing component classes,
+     * templates, message catalogs and assets with the file system's watch service (on Java 7 and above), and
+     * only re-reads the timestamps of files in directories with reported changes when checking for updates, rather
+     * than those of every tracked file. When the watch service is not available, or a directory can not be watched,
+     * Tapestry falls back to checking each file. The default is false.
+     *
+     * @since 5.4
+     * @see #FILE_CHECK_INTERVAL
+     */
+    public static final String WATCH_FILE_CHANGES = "tapestry.watch-file-changes";
+
+    /**
+     * If true, runs of complete static elements in templates (elements that contain no components, expansions or
+     * namespace prefixes, that have no id, and that are not {@code <html>}, {@code <head>} or {@code <body>}) are
+     * written as pre-rendered markup, rather than as individual DOM elements; this greatly reduces the number of
+     * render commands and DOM nodes for each request. Such elements can not be located (for example, using
+     * {@link org.apache.tapestry5.dom.Document#find(String)}) or modified in the DOM once rendered. The default is
+     * false.
+     *
+     * @since 5.4
+     */
+    public static final String FUSE_STATIC_MARKUP = "tapestry.fuse-static-markup";
+
+    /**
+     * Controls in what environment the JavaScript stacks are assembled, minimized and compressed at startup, rather
+     * than on first request. The default is "NEVER".
+     *
+     * @see org.apache.tapestry5.services.assets.AssetPreloader
+     * @see org.apache.tapestry5.services.pageload.PreloaderMode
+     * @since 5.4
+     */
+    public static final String ASSET_PRELOADER_MODE = "tapestry.asset-preload-mode";
+
+    /**
+     * The number of threads used to prepare JavaScript stacks at startup. The default is the number of
+     * available processors.
+     *
+     * @see #ASSET_PRELOADER_MODE
+     * @since 5.4
+     */
+    public static final String ASSET_PRELOADER_THREADS = "tapestry.asset-preload-threads";
+
+    /**
+     * If true, full page renders add a {@code Link} response header with a "preload" link for each stylesheet and
+     * JavaScript library (including combined JavaScript stacks) linked into the page, so that the client (or a
+     * proxy, using HTTP/2 server push) can start to load them before the document has been parsed. The links common
+     * to every render of a page are added before rendering starts (once the page has been rendered twice); any others
+     * are added once rendering completes. The
+     * default is false.
+     *
+     * @since 5.4
+     */
+    public static final String PRELOAD_LINK_HEADERS = "tapestry.preload-link-headers";
 }
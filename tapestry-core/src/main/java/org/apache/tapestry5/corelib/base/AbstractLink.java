@@ -15,6 +15,7 @@
 package org.apache.tapestry5.corelib.base;
 
 import org.apache.tapestry5.*;
+import org.apache.tapestry5.annotations.Meta;
 import org.apache.tapestry5.annotations.Parameter;
 import org.apache.tapestry5.annotations.SetupRender;
 import org.apache.tapestry5.annotations.SupportsInformalParameters;
@@ -28,6 +29,7 @@ import java.util.Map;
  * Provides base utilities for classes that generate clickable links.
  */
 @SupportsInformalParameters
+@Meta(MetaDataConstants.STREAMING_MARKUP + "=false")
 public abstract class AbstractLink implements ClientElement
 {
     /**
@@ -16,7 +16,9 @@ package org.apache.tapestry5.corelib.base;
 
 import org.apache.tapestry5.ClientElement;
 import org.apache.tapestry5.ComponentResources;
+import org.apache.tapestry5.MetaDataConstants;
 import org.apache.tapestry5.annotations.Environmental;
+import org.apache.tapestry5.annotations.Meta;
 import org.apache.tapestry5.dom.Element;
 import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.services.javascript.JavaScriptSupport;
@@ -28,6 +30,7 @@ import org.apache.tapestry5.services.javascript.JavaScriptSupport;
  *
  * @since 5.4
  */
+@Meta(MetaDataConstants.STREAMING_MARKUP + "=false")
 public abstract class BaseClientElement implements ClientElement
 {
     private Element element;
@@ -15,6 +15,7 @@
 package org.apache.tapestry5.corelib.components;
 
 import org.apache.tapestry5.*;
+import org.apache.tapestry5.annotations.Meta;
 import org.apache.tapestry5.annotations.Parameter;
 import org.apache.tapestry5.annotations.SupportsInformalParameters;
 import org.apache.tapestry5.dom.Element;
@@ -80,6 +81,7 @@ import org.apache.tapestry5.services.javascript.JavaScriptSupport;
  * @tapestrydoc
  */
 @SupportsInformalParameters
+@Meta(MetaDataConstants.STREAMING_MARKUP + "=false")
 public class Any implements ClientElement
 {
     /**
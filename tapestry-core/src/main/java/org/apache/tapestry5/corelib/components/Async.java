@@ -0,0 +1,192 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.corelib.components;
+
+import org.apache.tapestry5.*;
+import org.apache.tapestry5.annotations.Environmental;
+import org.apache.tapestry5.annotations.Events;
+import org.apache.tapestry5.annotations.Meta;
+import org.apache.tapestry5.annotations.Parameter;
+import org.apache.tapestry5.annotations.SupportsInformalParameters;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.internal.services.AsyncRegionSupport;
+import org.apache.tapestry5.internal.util.Holder;
+import org.apache.tapestry5.ioc.Invokable;
+import org.apache.tapestry5.ioc.annotations.Inject;
+import org.apache.tapestry5.ioc.internal.util.TapestryException;
+import org.apache.tapestry5.ioc.services.ParallelExecutor;
+import org.apache.tapestry5.ioc.services.TypeCoercer;
+import org.apache.tapestry5.ioc.util.ExceptionUtils;
+import org.apache.tapestry5.runtime.RenderCommand;
+import org.apache.tapestry5.runtime.RenderQueue;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Renders its body using data that is prepared in parallel with the rest of the page. This is useful for pages composed
+ * of several independent blocks, each of which must wait on a slow data source (a database query, a remote service).
+ * <p/>
+ * As it begins to render, the component fires a {@link org.apache.tapestry5.EventConstants#PREPARE_ASYNC} event. If
+ * the event handler returns an {@link Invokable}, the Invokable is passed to the {@link ParallelExecutor}; a
+ * {@link Future} is used as is; any other value is used directly. The component writes an empty placeholder element
+ * (a &lt;div&gt; by default, with any informal parameters) and the rest of the page continues to render while the data
+ * is prepared. Once the rest of the page has rendered, the body of each Async component is rendered into its
+ * placeholder, in document order; the prepared data is first assigned to the value parameter.
+ * <p/>
+ * Because the body renders after the rest of the page:
+ * <ul>
+ * <li>The Invokable runs on another thread, and must not read or update the fields of any component; collect what it
+ * needs into final local variables in the event handler method.</li>
+ * <li>Environmental services provided by enclosing components (such as a {@link Form}'s
+ * {@link org.apache.tapestry5.services.FormSupport}) are not available to the body.</li>
+ * <li>Properties of the container that change as the page renders (such as the value of an enclosing {@link Loop}) will
+ * have their final values when the body renders; pass what the body needs through the value parameter instead.</li>
+ * </ul>
+ * When rendered as part of an Ajax partial page render, the data is still prepared by the event handler, but the body
+ * is rendered immediately, in place.
+ *
+ * @tapestrydoc
+ * @since 5.4
+ */
+@SupportsInformalParameters
+@Events(EventConstants.PREPARE_ASYNC)
+@Meta(MetaDataConstants.STREAMING_MARKUP + "=false")
+public class Async
+{
+    /**
+     * If provided, this is the event context, which will be provided via the
+     * {@link org.apache.tapestry5.EventConstants#PREPARE_ASYNC event}.
+     */
+    @Parameter
+    private Object[] context;
+
+    /**
+     * Receives the data prepared by the event handler, just before the body renders.
+     */
+    @Parameter
+    private Object value;
+
+    @Inject
+    private ComponentResources resources;
+
+    @Inject
+    private ParallelExecutor executor;
+
+    @Inject
+    private TypeCoercer typeCoercer;
+
+    @Environmental(false)
+    private AsyncRegionSupport regionSupport;
+
+    boolean beginRender(MarkupWriter writer)
+    {
+        final Object prepared = prepare();
+
+        Element placeholder = writer.element(resources.getElementName("div"));
+
+        resources.renderInformalParameters(writer);
+
+        if (regionSupport == null)
+        {
+            value = resolve(prepared);
+
+            return true;
+        }
+
+        writer.end();
+
+        regionSupport.addRegion(placeholder, new RenderCommand()
+        {
+            public void render(MarkupWriter writer, RenderQueue queue)
+            {
+                renderRegion(prepared, queue);
+            }
+
+            @Override
+            public String toString()
+            {
+                return String.format("Async[%s]", resources.getCompleteId());
+            }
+        });
+
+        return false;
+    }
+
+    void afterRender(MarkupWriter writer)
+    {
+        if (regionSupport == null)
+        {
+            writer.end();
+        }
+    }
+
+    private Object prepare()
+    {
+        final Holder<Object> holder = Holder.create();
+
+        resources.triggerEvent(EventConstants.PREPARE_ASYNC, context, new ComponentEventCallback()
+        {
+            public boolean handleResult(Object result)
+            {
+                holder.put(result);
+
+                return true;
+            }
+        });
+
+        Object result = holder.get();
+
+        if (result instanceof Invokable)
+        {
+            return executor.invoke((Invokable<?>) result);
+        }
+
+        return result;
+    }
+
+    private void renderRegion(Object prepared, RenderQueue queue)
+    {
+        value = resolve(prepared);
+
+        queue.push(typeCoercer.coerce(resources.getBody(), RenderCommand.class));
+    }
+
+    private Object resolve(Object prepared)
+    {
+        if (!(prepared instanceof Future))
+        {
+            return prepared;
+        }
+
+        try
+        {
+            return ((Future<?>) prepared).get();
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new TapestryException(String.format("Interrupted while waiting for the data for %s.",
+                    resources.getCompleteId()), resources.getLocation(), ex);
+        } catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            throw new TapestryException(String.format("Exception preparing the data for %s: %s",
+                    resources.getCompleteId(), ExceptionUtils.toMessage(cause)), resources.getLocation(), cause);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.tapestry5.internal.BeanValidationContext;
 import org.apache.tapestry5.internal.BeanValidationContextImpl;
 import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.internal.services.FormControlNameManager;
+import org.apache.tapestry5.internal.services.FormDataStore;
 import org.apache.tapestry5.internal.services.HeartbeatImpl;
 import org.apache.tapestry5.internal.util.AutofocusValidationDecorator;
 import org.apache.tapestry5.ioc.Location;
@@ -254,6 +255,9 @@ public class Form implements ClientElement, FormValidationControl
     @Inject
     private ClientDataEncoder clientDataEncoder;
 
+    @Inject
+    private FormDataStore formDataStore;
+
     @Inject
     private PropertyAccess propertyAccess;
 
@@ -321,7 +325,7 @@ public class Form implements ClientElement, FormValidationControl
 
         String actionURL = secure && secureEnabled ? link.toAbsoluteURI(true) : link.toURI();
 
-        actionSink = new ComponentActionSink(logger, clientDataEncoder);
+        actionSink = new ComponentActionSink(logger, clientDataEncoder, formDataStore);
 
         clientId = javascriptSupport.allocateClientId(resources);
 
@@ -716,7 +720,7 @@ public class Form implements ClientElement, FormValidationControl
 
             try
             {
-                ois = clientDataEncoder.decodeClientData(clientEncodedActions);
+                ois = clientDataEncoder.decodeClientData(formDataStore.retrieve(clientEncodedActions));
 
                 while (!eventCallback.isAborted())
                 {
@@ -742,6 +746,10 @@ public class Form implements ClientElement, FormValidationControl
             } catch (EOFException ex)
             {
                 // Expected
+            } catch (FormDataExpiredException ex)
+            {
+                // Passed through unwrapped, so that applications can easily handle it.
+                throw ex;
             } catch (Exception ex)
             {
                 Location location = component == null ? null : component.getComponentResources().getLocation();
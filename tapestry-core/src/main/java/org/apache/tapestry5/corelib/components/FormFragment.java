@@ -1,4 +1,4 @@
-// Copyright 2008-2014 The Apache Software Foundation
+// Copyright 2008-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import org.apache.tapestry5.corelib.internal.FormSupportAdapter;
 import org.apache.tapestry5.corelib.internal.HiddenFieldPositioner;
 import org.apache.tapestry5.corelib.mixins.TriggerFragment;
 import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.internal.services.FormDataStore;
 import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.services.ClientDataEncoder;
 import org.apache.tapestry5.services.Environment;
@@ -145,6 +146,9 @@ public class FormFragment implements ClientElement
     @Inject
     private ClientDataEncoder clientDataEncoder;
 
+    @Inject
+    private FormDataStore formDataStore;
+
     String defaultElement()
     {
         return resources.getElementName("div");
@@ -173,7 +177,7 @@ public class FormFragment implements ClientElement
             element.attribute("style", "display: none;");
         }
 
-        componentActions = new ComponentActionSink(logger, clientDataEncoder);
+        componentActions = new ComponentActionSink(logger, clientDataEncoder, formDataStore);
 
         // Here's the magic of environmentals ... we can create a wrapper around
         // the normal FormSupport environmental that intercepts some of the behavior.
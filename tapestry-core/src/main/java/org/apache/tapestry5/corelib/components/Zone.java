@@ -18,6 +18,7 @@ import org.apache.tapestry5.corelib.internal.ComponentActionSink;
 import org.apache.tapestry5.corelib.internal.FormSupportAdapter;
 import org.apache.tapestry5.corelib.internal.HiddenFieldPositioner;
 import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.internal.services.FormDataStore;
 import org.apache.tapestry5.internal.services.RequestConstants;
 import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.annotations.Symbol;
@@ -137,6 +138,9 @@ public class Zone implements ClientBodyElement
     @Inject
     private ClientDataEncoder clientDataEncoder;
 
+    @Inject
+    private FormDataStore formDataStore;
+
     @Inject
     private HiddenFieldLocationRules rules;
 
@@ -195,7 +199,7 @@ public class Zone implements ClientBodyElement
 
             hiddenFieldPositioner = new HiddenFieldPositioner(writer, rules);
 
-            actionSink = new ComponentActionSink(logger, clientDataEncoder);
+            actionSink = new ComponentActionSink(logger, clientDataEncoder, formDataStore);
 
             environment.push(FormSupport.class, new FormSupportAdapter(formSupport)
             {
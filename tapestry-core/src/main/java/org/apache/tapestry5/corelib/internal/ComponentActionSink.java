@@ -1,4 +1,4 @@
-// Copyright 2008-2014 The Apache Software Foundation
+// Copyright 2008-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 
 import org.apache.tapestry5.ComponentAction;
+import org.apache.tapestry5.internal.services.FormDataStore;
 import org.apache.tapestry5.runtime.Component;
 import org.apache.tapestry5.services.ClientDataEncoder;
 import org.apache.tapestry5.services.ClientDataSink;
@@ -35,11 +36,24 @@ public class ComponentActionSink
 
     private final ClientDataSink sink;
 
+    private final FormDataStore store;
+
     private boolean empty = true;
 
     public ComponentActionSink(Logger logger, ClientDataEncoder encoder)
+    {
+        this(logger, encoder, null);
+    }
+
+    /**
+     * @param store
+     *         if not null, used to keep the client data on the server, and send a token to the client instead
+     * @since 5.4
+     */
+    public ComponentActionSink(Logger logger, ClientDataEncoder encoder, FormDataStore store)
     {
         this.logger = logger;
+        this.store = store;
 
         sink = encoder.createSink();
 
@@ -89,6 +103,8 @@ public class ComponentActionSink
 
     public String getClientData()
     {
-        return sink.getClientData();
+        String clientData = sink.getClientData();
+
+        return store == null ? clientData : store.store(clientData);
     }
 }
@@ -15,6 +15,8 @@
 package org.apache.tapestry5.corelib.mixins;
 
 import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.MetaDataConstants;
+import org.apache.tapestry5.annotations.Meta;
 import org.apache.tapestry5.annotations.MixinAfter;
 import org.apache.tapestry5.dom.Element;
 
@@ -29,6 +31,7 @@ import org.apache.tapestry5.dom.Element;
  * @tapestrydoc
  */
 @MixinAfter
+@Meta(MetaDataConstants.STREAMING_MARKUP + "=false")
 public class NotEmpty
 {
     private Element element;
@@ -0,0 +1,66 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.corelib.pages;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.annotations.Property;
+import org.apache.tapestry5.annotations.UnknownActivationContextCheck;
+import org.apache.tapestry5.annotations.WhitelistAccessOnly;
+import org.apache.tapestry5.internal.services.ComponentDependencyGraph;
+import org.apache.tapestry5.ioc.annotations.Inject;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+
+import java.util.Set;
+
+/**
+ * Displays the {@link ComponentDependencyGraph}: for each component assembled since the last change to component
+ * classes, the components it depends on, and the components that depend on it. A change to the template or message
+ * catalog of a component discards the component, and everything that depends on it.
+ *
+ * @since 5.4
+ */
+@UnknownActivationContextCheck(false)
+@WhitelistAccessOnly
+public class ComponentDependencies
+{
+    @Inject
+    private ComponentDependencyGraph graph;
+
+    @Property
+    @Inject
+    @Symbol(SymbolConstants.PRODUCTION_MODE)
+    private boolean productionMode;
+
+    @Property
+    private String componentClassName;
+
+    @Property
+    private String dependency;
+
+    public Set<String> getComponentClassNames()
+    {
+        return graph.getComponentClassNames();
+    }
+
+    public Set<String> getDependencies()
+    {
+        return graph.getDependencies(componentClassName);
+    }
+
+    public Set<String> getDependents()
+    {
+        return graph.getDependents(componentClassName);
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2011-2013 The Apache Software Foundation
+// Copyright 2011-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import org.apache.tapestry5.beaneditor.Validate;
 import org.apache.tapestry5.corelib.components.Zone;
 import org.apache.tapestry5.func.*;
 import org.apache.tapestry5.internal.PageCatalogTotals;
+import org.apache.tapestry5.internal.services.PageCacheStatistics;
 import org.apache.tapestry5.internal.services.PageSource;
 import org.apache.tapestry5.internal.services.ReloadHelper;
 import org.apache.tapestry5.internal.structure.Page;
@@ -142,6 +143,12 @@ public class PageCatalog
         }).toSet();
 
         totals.selectors = InternalUtils.joinSorted(selectorIds);
+
+        PageCacheStatistics statistics = pageSource.getCacheStatistics();
+
+        totals.cacheHits = statistics.hits;
+        totals.cacheMisses = statistics.misses;
+        totals.cacheEvictions = statistics.evictions;
     }
 
     public List<String> getPageNames()
@@ -0,0 +1,121 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.corelib.pages;
+
+import org.apache.tapestry5.annotations.*;
+import org.apache.tapestry5.corelib.components.Zone;
+import org.apache.tapestry5.internal.services.FormDataStore;
+import org.apache.tapestry5.internal.services.FormDataStoreStatistics;
+import org.apache.tapestry5.ioc.annotations.Inject;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
+import org.apache.tapestry5.services.metrics.TimingSummary;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Displays the times collected by the {@link RequestMetrics} service: for page render requests, component event
+ * requests, and (the slowest) component renders. Also displays the activity of the {@link FormDataStore}, when
+ * enabled.
+ *
+ * @since 5.4
+ */
+@UnknownActivationContextCheck(false)
+@WhitelistAccessOnly
+public class PageMetrics
+{
+    /**
+     * Only the components with the largest total render time are displayed.
+     */
+    private static final int MAX_COMPONENTS = 50;
+
+    @Inject
+    private RequestMetrics metrics;
+
+    @Inject
+    private FormDataStore formDataStore;
+
+    @InjectComponent
+    private Zone metricsZone;
+
+    @Property
+    private Map.Entry<String, List<TimingSummary>> section;
+
+    @Property
+    private TimingSummary row;
+
+    public boolean isEnabled()
+    {
+        return metrics.isEnabled();
+    }
+
+    public boolean isFormDataStoreEnabled()
+    {
+        return formDataStore.isEnabled();
+    }
+
+    @Cached
+    public FormDataStoreStatistics getFormDataStatistics()
+    {
+        return formDataStore.getStatistics();
+    }
+
+    public String getFormDataHitRate()
+    {
+        double hitRate = getFormDataStatistics().getHitRate();
+
+        return hitRate < 0 ? "-" : String.format("%.1f%%", hitRate);
+    }
+
+    @Cached
+    public Map<String, List<TimingSummary>> getSections()
+    {
+        Map<String, List<TimingSummary>> result = new LinkedHashMap<String, List<TimingSummary>>();
+
+        result.put("Page Render Requests", metrics.getPageRenderTimings());
+        result.put("Component Event Requests", metrics.getComponentEventTimings());
+
+        List<TimingSummary> components = metrics.getComponentRenderTimings();
+
+        result.put("Component Renders", components.subList(0, Math.min(MAX_COMPONENTS, components.size())));
+
+        return result;
+    }
+
+    public String format(double millis)
+    {
+        return String.format("%,.3f", millis);
+    }
+
+    public String getAllocated()
+    {
+        long bytes = row.getAllocatedBytesPerRequest();
+
+        return bytes < 0 ? "-" : String.format("%,d", bytes);
+    }
+
+    Object onActionFromReset()
+    {
+        metrics.reset();
+
+        return metricsZone.getBody();
+    }
+
+    Object onActionFromRefresh()
+    {
+        return metricsZone.getBody();
+    }
+}
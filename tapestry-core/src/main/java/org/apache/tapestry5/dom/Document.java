@@ -94,7 +94,9 @@ public final class Document extends Node
     }
 
     /**
-     * Finds an element based on a path of element names.
+     * Finds an element based on a path of element names. When the document is built by a streaming markup writer,
+     * only the root element, its children, and elements inside {@code <head>} or {@code <form>} elements can be
+     * found; other elements are converted to markup once ended.
      *
      * @param path slash separated series of element names
      * @return the matching element, or null if not found
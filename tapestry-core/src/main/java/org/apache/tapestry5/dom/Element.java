@@ -14,6 +14,7 @@
 
 package org.apache.tapestry5.dom;
 
+import org.apache.tapestry5.MetaDataConstants;
 import org.apache.tapestry5.func.Predicate;
 import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.internal.util.PrintOutCollector;
@@ -57,6 +58,11 @@ public final class Element extends Node
 
     private Map<String, String> namespaceToPrefix;
 
+    /**
+     * Set once the element has been {@linkplain #stream() streamed}; a streamed element may no longer be modified.
+     */
+    private boolean streamed;
+
     /**
      * Constructor for a root element.
      */
@@ -128,6 +134,8 @@ public final class Element extends Node
 
     private void updateAttribute(String namespace, String name, String value, boolean force)
     {
+        checkNotStreamed();
+
         if (!force && value == null)
         {
             return;
@@ -380,10 +388,139 @@ public final class Element extends Node
 
         MarkupModel markupModel = document.getMarkupModel();
 
-        StringBuilder builder = new StringBuilder();
+        String prefixedElementName = toPrefixedName(localNamespacePrefixToURI, namespace, name);
+
+        boolean hasChildren = hasChildren();
+
+        writer.print(startTag(markupModel, localNamespacePrefixToURI, prefixedElementName, hasChildren));
+
+        if (hasChildren)
+            writeChildMarkup(document, writer, localNamespacePrefixToURI);
+
+        if (needsEndTag(markupModel, hasChildren))
+        {
+            // TAP5-471: Avoid use of printf().
+            writer.print("</");
+            writer.print(prefixedElementName);
+            writer.print(">");
+        }
+    }
+
+    /**
+     * Renders this element, which must be complete (no further children or attributes will be added), into the
+     * {@link StreamedContent} at the end of its container, then removes it from the DOM. Any streamed content
+     * within this element is linked, rather than copied, into the container's streamed content.
+     * Once streamed, the element may no longer be modified: attempts to add attributes or children will throw
+     * an exception.
+     * <p/>
+     * This is used by streaming markup writers, which collapse each element into markup as soon as it is ended, so
+     * that only the currently open elements need to be retained as DOM nodes.
+     *
+     * @since 5.4
+     */
+    public void stream()
+    {
+        checkNotStreamed();
+
+        assert container != null;
+
+        Element parent = container;
+
+        Map<String, String> localNamespacePrefixToURI = createNamespaceURIToPrefix(parent.getNamespaceURIToPrefix());
+
+        Document document = getDocument();
+
+        remove();
+
+        StreamedContent target = parent.streamedContent();
+
+        MarkupModel markupModel = document.getMarkupModel();
 
         String prefixedElementName = toPrefixedName(localNamespacePrefixToURI, namespace, name);
 
+        boolean hasChildren = hasChildren();
+
+        target.raw(startTag(markupModel, localNamespacePrefixToURI, prefixedElementName, hasChildren));
+
+        Node cursor = firstChild;
+
+        while (cursor != null)
+        {
+            if (cursor instanceof StreamedContent)
+            {
+                target.append((StreamedContent) cursor);
+            } else
+            {
+                PrintOutCollector collector = new PrintOutCollector();
+
+                cursor.toMarkup(document, collector.getPrintWriter(), localNamespacePrefixToURI);
+
+                target.raw(collector.getPrintOut());
+            }
+
+            cursor = cursor.nextSibling;
+        }
+
+        if (needsEndTag(markupModel, hasChildren))
+        {
+            target.raw("</" + prefixedElementName + ">");
+        }
+
+        firstChild = null;
+        lastChild = null;
+        firstAttribute = null;
+
+        streamed = true;
+    }
+
+    /**
+     * Returns true if this element has been {@linkplain #stream() streamed} into its container.
+     *
+     * @since 5.4
+     */
+    public boolean isStreamed()
+    {
+        return streamed;
+    }
+
+    /**
+     * Returns the {@link StreamedContent} node that is the last child of this element, creating and adding a new one
+     * if the last child is some other type of node (or if the element has no children).
+     *
+     * @return the streamed content node, to which further markup may be written
+     * @since 5.4
+     */
+    public StreamedContent streamedContent()
+    {
+        if (lastChild instanceof StreamedContent)
+        {
+            return (StreamedContent) lastChild;
+        }
+
+        return newChild(new StreamedContent(this));
+    }
+
+    private void checkNotStreamed()
+    {
+        if (streamed)
+        {
+            throw new IllegalStateException(String.format("Element <%s> has already been streamed and may no longer be modified. " +
+                    "Components that modify elements after the elements have been ended must mark themselves with meta data '%s' set to false, " +
+                    "so that the containing page is not rendered using a streaming markup writer.",
+                    name, MetaDataConstants.STREAMING_MARKUP));
+        }
+    }
+
+    private boolean needsEndTag(MarkupModel markupModel, boolean hasChildren)
+    {
+        return hasChildren || markupModel.getEndTagStyle(name) == EndTagStyle.REQUIRE;
+    }
+
+    private String startTag(MarkupModel markupModel, Map<String, String> localNamespacePrefixToURI,
+                            String prefixedElementName, boolean hasChildren)
+    {
+        StringBuilder builder = new StringBuilder();
+
         builder.append("<").append(prefixedElementName);
 
         // Output order used to be alpha sorted, but now it tends to be the inverse
@@ -422,24 +559,11 @@ public final class Element extends Node
 
         EndTagStyle style = markupModel.getEndTagStyle(name);
 
-        boolean hasChildren = hasChildren();
-
         String close = (!hasChildren && style == EndTagStyle.ABBREVIATE) ? "/>" : ">";
 
         builder.append(close);
 
-        writer.print(builder.toString());
-
-        if (hasChildren)
-            writeChildMarkup(document, writer, localNamespacePrefixToURI);
-
-        if (hasChildren || style == EndTagStyle.REQUIRE)
-        {
-            // TAP5-471: Avoid use of printf().
-            writer.print("</");
-            writer.print(prefixedElementName);
-            writer.print(">");
-        }
+        return builder.toString();
     }
 
     String toPrefixedName(Map<String, String> namespaceURIToPrefix, String namespace, String name)
@@ -669,6 +793,9 @@ public final class Element extends Node
     {
         assert namespace != null;
         assert namespacePrefix != null;
+
+        checkNotStreamed();
+
         if (namespace.equals(Document.XML_NAMESPACE_URI))
             return this;
 
@@ -713,6 +840,8 @@ public final class Element extends Node
      */
     public Element removeChildren()
     {
+        checkNotStreamed();
+
         firstChild = null;
         lastChild = null;
 
@@ -887,6 +1016,8 @@ public final class Element extends Node
 
     void addChild(Node child)
     {
+        checkNotStreamed();
+
         child.container = this;
 
         if (lastChild == null)
@@ -902,6 +1033,8 @@ public final class Element extends Node
 
     void insertChildAt(int index, Node newChild)
     {
+        checkNotStreamed();
+
         newChild.container = this;
 
         if (index < 1)
@@ -1025,6 +1158,8 @@ public final class Element extends Node
 
     void insertChildAfter(Node existing, Node node)
     {
+        checkNotStreamed();
+
         Node oldAfter = existing.nextSibling;
 
         existing.nextSibling = node;
@@ -0,0 +1,167 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.dom;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * A node containing markup that has already been rendered, used by streaming markup writers in place of
+ * individual {@link Element}, {@link Text} and {@link Comment} nodes. The markup is stored as a chain of
+ * character buffers; when an enclosing element is {@linkplain Element#stream() streamed}, large buffers are linked
+ * into the container's content rather than copied.
+ *
+ * @since 5.4
+ */
+public final class StreamedContent extends Node
+{
+    /**
+     * Content smaller than this is copied, rather than linked, when appended to another StreamedContent; this keeps
+     * the number of buffers low without repeatedly copying large runs of markup.
+     */
+    private static final int LINK_THRESHOLD = 1024;
+
+    private static final class Chunk
+    {
+        final StringBuilder buffer;
+
+        Chunk next;
+
+        Chunk(StringBuilder buffer)
+        {
+            this.buffer = buffer;
+        }
+    }
+
+    private Chunk first, last;
+
+    private int length;
+
+    StreamedContent(Element container)
+    {
+        super(container);
+    }
+
+    /**
+     * Appends markup exactly as is, no translations, filtering, etc.
+     *
+     * @param markup
+     *         markup to append
+     * @return this node, for further construction
+     */
+    public StreamedContent raw(String markup)
+    {
+        if (last == null)
+        {
+            first = last = new Chunk(new StringBuilder(Math.max(markup.length(), 64)));
+        }
+
+        last.buffer.append(markup);
+
+        length += markup.length();
+
+        return this;
+    }
+
+    /**
+     * Appends text, encoding it as necessary according to the document's {@link MarkupModel}.
+     *
+     * @param text
+     *         text to append
+     * @return this node, for further construction
+     */
+    public StreamedContent text(String text)
+    {
+        return raw(getDocument().getMarkupModel().encode(text));
+    }
+
+    /**
+     * Appends an XML comment; the text should be just the comment content, the comment delimiters are provided.
+     *
+     * @param text
+     *         comment content
+     * @return this node, for further construction
+     */
+    public StreamedContent comment(String text)
+    {
+        return raw("<!--" + text + "-->");
+    }
+
+    /**
+     * Appends parsed character content, enclosed in a CDATA block if supported by the document's {@link MarkupModel}.
+     *
+     * @param content
+     *         pre-parsed content
+     * @return this node, for further construction
+     */
+    public StreamedContent cdata(String content)
+    {
+        MarkupModel model = getDocument().getMarkupModel();
+
+        return raw(model.isXML() ? "<![CDATA[" + content + "]]>" : model.encode(content));
+    }
+
+    /**
+     * Returns the number of characters of markup collected by this node.
+     */
+    public int getLength()
+    {
+        return length;
+    }
+
+    /**
+     * Moves all the content of the other node to the end of this node; the other node should be discarded afterwards.
+     */
+    void append(StreamedContent other)
+    {
+        if (other.first == null)
+        {
+            return;
+        }
+
+        if (last == null || other.length >= LINK_THRESHOLD)
+        {
+            if (last == null)
+            {
+                first = other.first;
+            } else
+            {
+                last.next = other.first;
+            }
+
+            last = other.last;
+        } else
+        {
+            for (Chunk cursor = other.first; cursor != null; cursor = cursor.next)
+            {
+                last.buffer.append(cursor.buffer);
+            }
+        }
+
+        length += other.length;
+
+        other.first = other.last = null;
+        other.length = 0;
+    }
+
+    @Override
+    void toMarkup(Document document, PrintWriter writer, Map<String, String> namespaceURIToPrefix)
+    {
+        for (Chunk cursor = first; cursor != null; cursor = cursor.next)
+        {
+            writer.append(cursor.buffer);
+        }
+    }
+}
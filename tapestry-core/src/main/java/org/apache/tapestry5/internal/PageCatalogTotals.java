@@ -1,4 +1,4 @@
-// Copyright 2011, 2013 The Apache Software Foundation
+// Copyright 2011, 2013, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,7 +19,7 @@ import org.apache.tapestry5.beaneditor.ReorderProperties;
 /**
  * @see org.apache.tapestry5.corelib.pages.PageCatalog
  */
-@ReorderProperties("definedPages,loadedPages,uniquePageNames,selectors,components")
+@ReorderProperties("definedPages,loadedPages,uniquePageNames,selectors,components,cacheHits,cacheMisses,cacheEvictions")
 public class PageCatalogTotals
 {
     /**
@@ -44,4 +44,19 @@ public class PageCatalogTotals
      * All selectors represented in the pool, often just 'en'.
      */
     public String selectors;
+
+    /**
+     * Number of requests for a page satisfied from the page cache.
+     */
+    public long cacheHits;
+
+    /**
+     * Number of requests for a page that required the page to be loaded.
+     */
+    public long cacheMisses;
+
+    /**
+     * Number of pages discarded from the page cache because of its limits, or because they were idle.
+     */
+    public long cacheEvictions;
 }
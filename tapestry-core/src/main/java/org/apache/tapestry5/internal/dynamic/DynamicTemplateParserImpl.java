@@ -1,4 +1,4 @@
-// Copyright 2011 The Apache Software Foundation
+// Copyright 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -22,14 +22,14 @@ import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
 import org.apache.tapestry5.services.BindingSource;
-import org.apache.tapestry5.services.UpdateListener;
+import org.apache.tapestry5.services.UpdateDetector;
 import org.apache.tapestry5.services.UpdateListenerHub;
 import org.apache.tapestry5.services.dynamic.DynamicTemplate;
 import org.apache.tapestry5.services.dynamic.DynamicTemplateParser;
 
 import java.util.Map;
 
-public class DynamicTemplateParserImpl implements DynamicTemplateParser, UpdateListener
+public class DynamicTemplateParserImpl implements DynamicTemplateParser, UpdateDetector
 {
     private final Map<Resource, DynamicTemplate> cache = CollectionFactory.newConcurrentMap();
 
@@ -76,6 +76,11 @@ public class DynamicTemplateParserImpl implements DynamicTemplateParser, UpdateL
         return new DynamicTemplateSaxParser(resource, bindingSource, componentTemplateParser.getDTDURLMappings()).parse();
     }
 
+    public boolean hasUpdates()
+    {
+        return tracker.peekForChanges();
+    }
+
     public void checkForUpdates()
     {
         if (tracker.containsChanges())
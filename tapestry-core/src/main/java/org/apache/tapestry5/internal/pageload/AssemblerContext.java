@@ -12,12 +12,14 @@
 
 package org.apache.tapestry5.internal.pageload;
 
-import org.apache.tapestry5.internal.parser.TemplateToken;
-import org.apache.tapestry5.internal.parser.TokenType;
+import org.apache.tapestry5.internal.parser.*;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.runtime.RenderCommand;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Used when constructing a {@link org.apache.tapestry5.internal.pageload.AssemblerContext}, encapsulating the
@@ -25,9 +27,19 @@ import java.util.List;
  * to consolidate composable render commands (that is, a series of render commands that are not components can be
  * replaced with a single {@link org.apache.tapestry5.internal.pageload.CompositeRenderCommand} which reduces the number
  * of render operations for the page).
+ * <p/>
+ * In addition, when enabled, runs of complete static elements within the composable commands are replaced with a
+ * {@link org.apache.tapestry5.internal.pageload.StaticMarkupRenderCommand}, which writes pre-rendered markup rather than
+ * creating the individual DOM nodes.
  */
 class AssemblerContext implements TokenStream
 {
+    /**
+     * Elements that are never rendered as static markup, as they are located and modified once the page has
+     * rendered (for example, by the {@link org.apache.tapestry5.internal.services.DocumentLinker}).
+     */
+    private static final Set<String> DOM_ELEMENT_NAMES = CollectionFactory.newSet("html", "head", "body");
+
     final ComponentAssembler assembler;
 
     final TokenStream stream;
@@ -35,13 +47,23 @@ class AssemblerContext implements TokenStream
     // Set based on the use of the 5.4 DTD (or better) in the template.
     final boolean strictMixinParameters;
 
+    private final boolean fuseStaticMarkup;
+
     private final List<RenderCommand> composable = CollectionFactory.newList();
 
-    AssemblerContext(ComponentAssembler assembler, TokenStream stream, boolean strictMixinParameters)
+    /**
+     * Namespaces mapped to a (non-default) prefix within the template; elements in these namespaces are not rendered
+     * as static markup.
+     */
+    private final Set<String> prefixedNamespaces = CollectionFactory.newSet();
+
+    AssemblerContext(ComponentAssembler assembler, TokenStream stream, boolean strictMixinParameters,
+                     boolean fuseStaticMarkup)
     {
         this.assembler = assembler;
         this.stream = stream;
         this.strictMixinParameters = strictMixinParameters;
+        this.fuseStaticMarkup = fuseStaticMarkup;
     }
 
     public boolean more()
@@ -66,11 +88,26 @@ class AssemblerContext implements TokenStream
 
     void addComposable(RenderCommand command)
     {
+        if (command instanceof DefineNamespacePrefixToken)
+        {
+            DefineNamespacePrefixToken token = (DefineNamespacePrefixToken) command;
+
+            if (token.namespacePrefix.length() > 0)
+            {
+                prefixedNamespaces.add(token.namespaceURI);
+            }
+        }
+
         composable.add(command);
     }
 
     void flushComposable()
     {
+        if (fuseStaticMarkup)
+        {
+            fuseStaticMarkup();
+        }
+
         switch (composable.size())
         {
             case 0:
@@ -88,6 +125,177 @@ class AssemblerContext implements TokenStream
         composable.clear();
     }
 
+    /**
+     * Replaces each run of complete static elements (along with text, comments and CDATA before and between them)
+     * with a {@link StaticMarkupRenderCommand}.
+     */
+    private void fuseStaticMarkup()
+    {
+        List<RenderCommand> fused = CollectionFactory.newList();
+
+        int count = composable.size();
+
+        int i = 0;
+
+        while (i < count)
+        {
+            int end = findStaticRunEnd(i);
+
+            if (end < 0)
+            {
+                fused.add(composable.get(i++));
+                continue;
+            }
+
+            List<RenderCommand> run = composable.subList(i, end);
+
+            fused.add(new StaticMarkupRenderCommand(findNamespace(run), run.toArray(new RenderCommand[run.size()])));
+
+            i = end;
+        }
+
+        composable.clear();
+        composable.addAll(fused);
+    }
+
+    /**
+     * Returns the index just past the last complete static element of a run starting at the index, or -1 if the run
+     * does not contain a complete static element. All the elements of the run must be in the same namespace.
+     */
+    private int findStaticRunEnd(int start)
+    {
+        String namespace = null;
+
+        int end = -1;
+
+        int i = start;
+
+        while (i < composable.size())
+        {
+            RenderCommand command = composable.get(i);
+
+            if (isStaticContent(command))
+            {
+                i++;
+                continue;
+            }
+
+            if (!(command instanceof StartElementToken))
+            {
+                break;
+            }
+
+            String elementNamespace = namespaceOf((StartElementToken) command);
+
+            if (elementNamespace == null || (namespace != null && !namespace.equals(elementNamespace)))
+            {
+                break;
+            }
+
+            int elementEnd = findStaticElementEnd(i, elementNamespace);
+
+            if (elementEnd < 0)
+            {
+                break;
+            }
+
+            namespace = elementNamespace;
+            end = elementEnd;
+            i = elementEnd;
+        }
+
+        return end;
+    }
+
+    /**
+     * Returns the index just past the end of the element that starts at the index, or -1 if the element is not
+     * complete, or contains anything other than static content and static elements (without an id) in the
+     * namespace.
+     */
+    private int findStaticElementEnd(int start, String namespace)
+    {
+        int depth = 0;
+
+        for (int i = start; i < composable.size(); i++)
+        {
+            RenderCommand command = composable.get(i);
+
+            if (command instanceof StartElementToken)
+            {
+                StartElementToken token = (StartElementToken) command;
+
+                if (!namespace.equals(namespaceOf(token)) ||
+                        DOM_ELEMENT_NAMES.contains(token.name.toLowerCase(Locale.ENGLISH)))
+                {
+                    return -1;
+                }
+
+                depth++;
+                continue;
+            }
+
+            if (command == PageLoaderImpl.END_ELEMENT)
+            {
+                if (--depth == 0)
+                {
+                    return i + 1;
+                }
+
+                continue;
+            }
+
+            if (command instanceof AttributeToken)
+            {
+                AttributeToken token = (AttributeToken) command;
+
+                // Elements with an id are likely to be located in the DOM once rendered.
+
+                if (InternalUtils.isNonBlank(token.namespaceURI) || token.name.equals("id"))
+                {
+                    return -1;
+                }
+
+                continue;
+            }
+
+            if (!isStaticContent(command))
+            {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    private String namespaceOf(StartElementToken token)
+    {
+        String namespace = token.namespaceURI == null ? "" : token.namespaceURI;
+
+        // An element that may be rendered with a prefix is treated as if it were in another namespace.
+
+        return prefixedNamespaces.contains(namespace) ? null : namespace;
+    }
+
+    private static String findNamespace(List<RenderCommand> run)
+    {
+        for (RenderCommand command : run)
+        {
+            if (command instanceof StartElementToken)
+            {
+                StartElementToken token = (StartElementToken) command;
+
+                return token.namespaceURI == null ? "" : token.namespaceURI;
+            }
+        }
+
+        return "";
+    }
+
+    private static boolean isStaticContent(RenderCommand command)
+    {
+        return command instanceof TextToken || command instanceof CommentToken || command instanceof CDATAToken;
+    }
+
     void add(PageAssemblyAction action)
     {
         flushComposable();
@@ -1,4 +1,4 @@
-// Copyright 2009, 2011 The Apache Software Foundation
+// Copyright 2009, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
 package org.apache.tapestry5.internal.pageload;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.tapestry5.internal.structure.ComponentPageElement;
 import org.apache.tapestry5.internal.structure.Page;
@@ -120,4 +121,12 @@ interface ComponentAssembler
      * @since 5.3
      */
     ComponentResourceSelector getSelector();
+
+    /**
+     * Returns the class names of the components this component depends upon: its base classes, its mixins, and its
+     * embedded components (and their mixins).
+     *
+     * @since 5.4
+     */
+    Set<String> getDependencies();
 }
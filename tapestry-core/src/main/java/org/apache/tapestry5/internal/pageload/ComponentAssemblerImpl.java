@@ -33,6 +33,7 @@ import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 class ComponentAssemblerImpl implements ComponentAssembler
 {
@@ -409,4 +410,28 @@ class ComponentAssemblerImpl implements ComponentAssembler
     {
         return String.format("ComponentAssembler[%s %s]", instantiator.getModel().getComponentClassName(), getSelector());
     }
+
+    public Set<String> getDependencies()
+    {
+        Set<String> result = CollectionFactory.newSet();
+
+        ComponentModel model = instantiator.getModel();
+
+        result.addAll(model.getMixinClassNames());
+
+        for (ComponentModel parent = model.getParentModel(); parent != null; parent = parent.getParentModel())
+        {
+            result.add(parent.getComponentClassName());
+        }
+
+        if (embeddedIdToAssembler != null)
+        {
+            for (EmbeddedComponentAssembler embedded : embeddedIdToAssembler.values())
+            {
+                result.addAll(embedded.getComponentClassNames());
+            }
+        }
+
+        return result;
+    }
 }
@@ -1,4 +1,4 @@
-// Copyright 2009, 2011 The Apache Software Foundation
+// Copyright 2009, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -74,4 +74,11 @@ interface EmbeddedComponentAssembler extends Locatable
      * @since 5.3
      */
     Set<String> getFormalParameterNames();
+
+    /**
+     * Returns the class names of the embedded component and of its mixins.
+     *
+     * @since 5.4
+     */
+    Set<String> getComponentClassNames();
 }
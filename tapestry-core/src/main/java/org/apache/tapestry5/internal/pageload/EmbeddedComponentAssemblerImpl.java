@@ -348,4 +348,18 @@ public class EmbeddedComponentAssemblerImpl implements EmbeddedComponentAssemble
     {
         return new HashSet<String>(componentModel.getParameterNames());
     }
+
+    public Set<String> getComponentClassNames()
+    {
+        Set<String> result = CollectionFactory.newSet();
+
+        result.add(componentModel.getComponentClassName());
+
+        for (Instantiator mixinInstantiator : mixinIdToInstantiator.values())
+        {
+            result.add(mixinInstantiator.getModel().getComponentClassName());
+        }
+
+        return result;
+    }
 }
@@ -16,6 +16,7 @@ import org.apache.tapestry5.Binding;
 import org.apache.tapestry5.BindingConstants;
 import org.apache.tapestry5.ComponentResources;
 import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.InternalComponentResources;
 import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.internal.bindings.LiteralBinding;
@@ -26,6 +27,7 @@ import org.apache.tapestry5.ioc.Invokable;
 import org.apache.tapestry5.ioc.Location;
 import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.ioc.internal.util.TapestryException;
@@ -42,8 +44,10 @@ import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 import org.slf4j.Logger;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * There's still a lot of room to beef up {@link org.apache.tapestry5.internal.pageload.ComponentAssembler} and
@@ -105,7 +109,7 @@ public class PageLoaderImpl implements PageLoader, ComponentAssemblerSource
         }
     };
 
-    private static final RenderCommand END_ELEMENT = new RenderCommand()
+    static final RenderCommand END_ELEMENT = new RenderCommand()
     {
         public void render(MarkupWriter writer, RenderQueue queue)
         {
@@ -145,11 +149,17 @@ public class PageLoaderImpl implements PageLoader, ComponentAssemblerSource
 
     private final RequestGlobals requestGlobals;
 
+    private final ComponentDependencyGraph dependencyGraph;
+
+    private final boolean fuseStaticMarkup;
+
     public PageLoaderImpl(ComponentInstantiatorSource instantiatorSource, ComponentTemplateSource templateSource,
                           PageElementFactory elementFactory, ComponentPageElementResourcesSource resourcesSource,
                           ComponentClassResolver componentClassResolver, PersistentFieldManager persistentFieldManager,
                           StringInterner interner, OperationTracker tracker, PerthreadManager perThreadManager,
-                          Logger logger, MetaDataLocator metaDataLocator, RequestGlobals requestGlobals)
+                          Logger logger, MetaDataLocator metaDataLocator, RequestGlobals requestGlobals,
+                          ComponentDependencyGraph dependencyGraph,
+                          @Symbol(SymbolConstants.FUSE_STATIC_MARKUP) boolean fuseStaticMarkup)
     {
         this.instantiatorSource = instantiatorSource;
         this.templateSource = templateSource;
@@ -163,16 +173,38 @@ public class PageLoaderImpl implements PageLoader, ComponentAssemblerSource
         this.logger = logger;
         this.metaDataLocator = metaDataLocator;
         this.requestGlobals = requestGlobals;
+        this.dependencyGraph = dependencyGraph;
+        this.fuseStaticMarkup = fuseStaticMarkup;
     }
 
     @PostInjection
-    public void setupInvalidation(@ComponentClasses InvalidationEventHub classesHub,
-                                  @ComponentTemplates InvalidationEventHub templatesHub,
-                                  @ComponentMessages InvalidationEventHub messagesHub)
+    public void setupInvalidation(@ComponentClasses InvalidationEventHub classesHub)
     {
         classesHub.clearOnInvalidation(cache);
-        templatesHub.clearOnInvalidation(cache);
-        messagesHub.clearOnInvalidation(cache);
+
+        // Changes to templates and message catalogs only discard the assemblers for the affected components.
+
+        dependencyGraph.addInvalidationListener(new ComponentInvalidationListener()
+        {
+            public void componentsInvalidated(Set<String> componentClassNames)
+            {
+                if (componentClassNames == null)
+                {
+                    cache.clear();
+                    return;
+                }
+
+                Iterator<Key> keys = cache.keySet().iterator();
+
+                while (keys.hasNext())
+                {
+                    if (componentClassNames.contains(keys.next().className))
+                    {
+                        keys.remove();
+                    }
+                }
+            }
+        });
     }
 
     public void clearCache()
@@ -267,6 +299,8 @@ public class PageLoaderImpl implements PageLoader, ComponentAssemblerSource
 
                 programAssembler(assembler, template);
 
+                dependencyGraph.register(className, assembler.getDependencies());
+
                 return assembler;
             }
         });
@@ -280,7 +314,8 @@ public class PageLoaderImpl implements PageLoader, ComponentAssemblerSource
     {
         TokenStream stream = createTokenStream(assembler, template);
 
-        AssemblerContext context = new AssemblerContext(assembler, stream, template.usesStrictMixinParameters());
+        AssemblerContext context = new AssemblerContext(assembler, stream, template.usesStrictMixinParameters(),
+                fuseStaticMarkup);
 
         if (template.isMissing())
         {
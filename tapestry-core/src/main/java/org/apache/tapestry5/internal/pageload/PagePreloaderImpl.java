@@ -13,44 +13,95 @@
 package org.apache.tapestry5.internal.pageload;
 
 import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.services.PageSource;
 import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
 import org.apache.tapestry5.ioc.services.ThreadLocale;
 import org.apache.tapestry5.ioc.util.ExceptionUtils;
-import org.apache.tapestry5.services.ComponentSource;
+import org.apache.tapestry5.services.ComponentClassResolver;
 import org.apache.tapestry5.services.LocalizationSetter;
 import org.apache.tapestry5.services.pageload.PagePreloader;
 import org.slf4j.Logger;
 
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class PagePreloaderImpl implements PagePreloader
 {
+    /**
+     * The number of slowest pages identified in the summary logged at the end of preloading.
+     */
+    private static final int SLOWEST_PAGE_COUNT = 10;
+
     private final Logger logger;
 
     private final List<String> pageNames = CollectionFactory.newList();
 
     private final OperationTracker tracker;
 
-    private final ComponentSource componentSource;
+    private final ComponentClassResolver resolver;
+
+    private final PageSource pageSource;
 
     private final ThreadLocale threadLocale;
 
     private final LocalizationSetter localizationSetter;
 
+    private final PerthreadManager perthreadManager;
+
+    private final int threadCount;
+
+    /**
+     * Time taken to load a single page.
+     */
+    private static final class PageTiming implements Comparable<PageTiming>
+    {
+        final String pageName;
+
+        final long elapsedNanos;
+
+        PageTiming(String pageName, long elapsedNanos)
+        {
+            this.pageName = pageName;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public int compareTo(PageTiming o)
+        {
+            // Slowest first
+
+            return elapsedNanos > o.elapsedNanos ? -1 : elapsedNanos == o.elapsedNanos ? 0 : 1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s (%,.0f ms)", pageName, elapsedNanos * 10E-7d);
+        }
+    }
+
     public PagePreloaderImpl(Logger logger,
                              OperationTracker tracker,
-                             ComponentSource componentSource, Collection<String> configuration,
+                             ComponentClassResolver resolver, PageSource pageSource,
+                             Collection<String> configuration,
                              ThreadLocale threadLocale,
-                             LocalizationSetter localizationSetter)
+                             LocalizationSetter localizationSetter,
+                             PerthreadManager perthreadManager,
+                             @Symbol(SymbolConstants.PRELOADER_THREADS)
+                             int threadCount)
     {
         this.tracker = tracker;
-        this.componentSource = componentSource;
+        this.resolver = resolver;
+        this.pageSource = pageSource;
         this.logger = logger;
         this.threadLocale = threadLocale;
         this.localizationSetter = localizationSetter;
+        this.perthreadManager = perthreadManager;
+        this.threadCount = Math.max(1, threadCount);
 
         pageNames.addAll(configuration);
     }
@@ -63,26 +114,21 @@ public class PagePreloaderImpl implements PagePreloader
             return;
         }
 
-        logger.info(String.format("Preloading %,d pages.", pageNames.size()));
+        int threads = Math.min(threadCount, pageNames.size());
+
+        logger.info(threads == 1
+                ? String.format("Preloading %,d pages.", pageNames.size())
+                : String.format("Preloading %,d pages using %d threads.", pageNames.size(), threads));
 
-        threadLocale.setLocale(localizationSetter.getSupportedLocales().get(0));
+        Locale locale = localizationSetter.getSupportedLocales().get(0);
 
         final long startNanos = System.nanoTime();
 
+        List<PageTiming> timings;
+
         try
         {
-            for (final String pageName : pageNames)
-            {
-                tracker.run(String.format("Preloading page '%s'.", pageName), new Runnable()
-                        {
-                            @Override
-                            public void run()
-                            {
-                                componentSource.getPage(pageName);
-                            }
-                        }
-                );
-            }
+            timings = threads == 1 ? preloadSequentially(locale) : preloadInParallel(locale, threads);
         } catch (Exception ex)
         {
             // Report the exception, and just give up at this point.
@@ -96,5 +142,125 @@ public class PagePreloaderImpl implements PagePreloader
         logger.info(String.format("Preloaded %,d pages in %.2f seconds.",
                 pageNames.size(),
                 elapsedNanos * 10E-10d));
+
+        logTimings(timings);
+    }
+
+    private List<PageTiming> preloadSequentially(Locale locale)
+    {
+        threadLocale.setLocale(locale);
+
+        List<PageTiming> result = CollectionFactory.newList();
+
+        for (String pageName : pageNames)
+        {
+            result.add(preloadPage(pageName));
+        }
+
+        return result;
+    }
+
+    private List<PageTiming> preloadInParallel(final Locale locale, int threads) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "Tapestry page preloader " + counter.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        try
+        {
+            List<Future<PageTiming>> futures = CollectionFactory.newList();
+
+            for (final String pageName : pageNames)
+            {
+                futures.add(executor.submit(new Callable<PageTiming>()
+                {
+                    @Override
+                    public PageTiming call() throws Exception
+                    {
+                        // Each worker is a new thread, so the locale (and any other per-thread state)
+                        // must be established for each page, and discarded afterwards.
+
+                        try
+                        {
+                            threadLocale.setLocale(locale);
+
+                            return preloadPage(pageName);
+                        } finally
+                        {
+                            perthreadManager.cleanup();
+                        }
+                    }
+                }));
+            }
+
+            List<PageTiming> result = CollectionFactory.newList();
+
+            for (Future<PageTiming> future : futures)
+            {
+                try
+                {
+                    result.add(future.get());
+                } catch (ExecutionException ex)
+                {
+                    Throwable cause = ex.getCause();
+
+                    throw cause instanceof Exception ? (Exception) cause : ex;
+                }
+            }
+
+            return result;
+        } finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private PageTiming preloadPage(final String pageName)
+    {
+        long startNanos = System.nanoTime();
+
+        tracker.run(String.format("Preloading page '%s'.", pageName), new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        // Preloaded pages are pinned, so that they are never discarded from the page cache.
+
+                        pageSource.pinPage(resolver.canonicalizePageName(pageName));
+                    }
+                }
+        );
+
+        return new PageTiming(pageName, System.nanoTime() - startNanos);
+    }
+
+    private void logTimings(List<PageTiming> timings)
+    {
+        Collections.sort(timings);
+
+        if (logger.isDebugEnabled())
+        {
+            for (PageTiming timing : timings)
+            {
+                logger.debug(String.format("Preloaded page %s.", timing));
+            }
+
+            return;
+        }
+
+        List<PageTiming> slowest = timings.subList(0, Math.min(SLOWEST_PAGE_COUNT, timings.size()));
+
+        logger.info(String.format("Slowest pages to preload: %s.", slowest.toString().replaceAll("^\\[|\\]$", "")));
     }
 }
@@ -0,0 +1,159 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.pageload;
+
+import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.dom.MarkupModel;
+import org.apache.tapestry5.internal.services.ListenerAwareMarkupWriter;
+import org.apache.tapestry5.internal.services.MarkupWriterImpl;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.runtime.RenderCommand;
+import org.apache.tapestry5.runtime.RenderQueue;
+
+import java.util.Map;
+
+/**
+ * Renders a run of complete, static elements (along with any text, comments and CDATA around them) from a template as
+ * a single block of pre-rendered markup, rather than as individual DOM nodes. The markup is rendered once for each
+ * {@link MarkupModel}, by executing the original render commands against a scratch {@link MarkupWriter}, so the result
+ * is identical to what the DOM would produce.
+ * <p/>
+ * The pre-rendered markup is only used when it would be correct to do so: when the writer has no
+ * {@link org.apache.tapestry5.MarkupWriterListener}s (which expect to be notified of each element), and when the
+ * elements' namespace is the namespace of the element being written into (so that no namespace declarations are
+ * needed). Otherwise, the original render commands are executed.
+ *
+ * @since 5.4
+ */
+class StaticMarkupRenderCommand implements RenderCommand
+{
+    /**
+     * Name of the element that contains the commands' output inside the scratch document; it is stripped from the
+     * result.
+     */
+    private static final String CONTAINER = "static-markup";
+
+    private final RenderCommand[] commands;
+
+    /**
+     * The namespace of the elements, or the empty string for no namespace.
+     */
+    private final String namespace;
+
+    private final Map<MarkupModel, String> markupForModel = CollectionFactory.newConcurrentMap();
+
+    /**
+     * @param namespace
+     *         the namespace of the (static) elements rendered by the commands, or the empty string
+     * @param commands
+     *         the commands to render, which must only be template tokens for complete static elements, text,
+     *         comments and CDATA
+     */
+    StaticMarkupRenderCommand(String namespace, RenderCommand[] commands)
+    {
+        this.namespace = namespace;
+        this.commands = commands;
+    }
+
+    public void render(MarkupWriter writer, RenderQueue queue)
+    {
+        if (!canWriteMarkup(writer))
+        {
+            for (RenderCommand c : commands)
+            {
+                c.render(writer, queue);
+            }
+
+            return;
+        }
+
+        writer.writeRaw(getMarkup(writer.getDocument().getMarkupModel()));
+    }
+
+    private boolean canWriteMarkup(MarkupWriter writer)
+    {
+        if (!(writer instanceof ListenerAwareMarkupWriter) || ((ListenerAwareMarkupWriter) writer).hasListeners())
+        {
+            return false;
+        }
+
+        if (namespace.length() == 0)
+        {
+            return true;
+        }
+
+        Element current = writer.getElement();
+
+        return current != null && namespace.equals(current.getNamespace());
+    }
+
+    private String getMarkup(MarkupModel model)
+    {
+        String result = markupForModel.get(model);
+
+        if (result == null)
+        {
+            // Multiple threads may render the same markup concurrently, but the results are the same.
+
+            result = renderMarkup(model);
+
+            markupForModel.put(model, result);
+        }
+
+        return result;
+    }
+
+    private String renderMarkup(MarkupModel model)
+    {
+        MarkupWriter scratch = new MarkupWriterImpl(model);
+
+        // Rendering inside a container in the same namespace keeps the namespace declaration on the container.
+
+        scratch.elementNS(namespace, CONTAINER);
+
+        for (RenderCommand c : commands)
+        {
+            // Template tokens do not use the queue.
+
+            c.render(scratch, null);
+        }
+
+        scratch.end();
+
+        String markup = scratch.getDocument().getRootElement().toString();
+
+        return markup.substring(markup.indexOf('>') + 1, markup.lastIndexOf("</"));
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("StaticMarkupRenderCommand[");
+
+        boolean comma = false;
+
+        for (RenderCommand c : commands)
+        {
+            if (comma) builder.append(", ");
+
+            builder.append(c);
+
+            comma = true;
+        }
+
+        return builder.append("]").toString();
+    }
+}
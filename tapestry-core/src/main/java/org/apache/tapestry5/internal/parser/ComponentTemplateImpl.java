@@ -98,4 +98,15 @@ public class ComponentTemplateImpl implements ComponentTemplate
     {
         return extension;
     }
+
+    /**
+     * Returns the token lists for the extension points defined or overridden by this template, keyed on
+     * extension point id; may be null.
+     *
+     * @since 5.4
+     */
+    public Map<String, List<TemplateToken>> getOverrides()
+    {
+        return overrides;
+    }
 }
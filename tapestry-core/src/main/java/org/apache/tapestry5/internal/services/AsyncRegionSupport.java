@@ -0,0 +1,41 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.runtime.RenderCommand;
+
+/**
+ * An environmental used by the {@link org.apache.tapestry5.corelib.components.Async} component to defer rendering of
+ * its body until the rest of the document has rendered, so that the data the body depends on can be prepared in
+ * parallel. Regions are rendered, in the order they are added, by the "AsyncRegions" filter of the
+ * {@link org.apache.tapestry5.services.MarkupRenderer} pipeline. This environmental is not available during partial
+ * (Ajax) renders.
+ *
+ * @since 5.4
+ */
+public interface AsyncRegionSupport
+{
+    /**
+     * Adds a region to be rendered later.
+     *
+     * @param placeholder
+     *         an (empty) element already written into the document; the content is rendered inside it
+     * @param content
+     *         the command that renders the region's content
+     */
+    void addRegion(Element placeholder, RenderCommand content);
+}
@@ -0,0 +1,88 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.dom.Node;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.runtime.RenderCommand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Collects the regions added during a render and renders them, each into its placeholder, once the main render has
+ * completed.
+ *
+ * @since 5.4
+ */
+public class AsyncRegionSupportImpl implements AsyncRegionSupport
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRegionSupportImpl.class);
+
+    private final List<Region> regions = CollectionFactory.newList();
+
+    private static class Region
+    {
+        final Element placeholder;
+
+        final RenderCommand content;
+
+        Region(Element placeholder, RenderCommand content)
+        {
+            this.placeholder = placeholder;
+            this.content = content;
+        }
+    }
+
+    public void addRegion(Element placeholder, RenderCommand content)
+    {
+        regions.add(new Region(placeholder, content));
+    }
+
+    /**
+     * Renders each region, in the order the regions were added. Regions added while rendering (by nested Async
+     * components) are also rendered. Each region is rendered by a new {@link RenderQueueImpl} into a scratch document,
+     * and the result is then moved into the placeholder element.
+     */
+    public void renderRegions()
+    {
+        // The list may grow as we go, so no iterator here.
+        for (int i = 0; i < regions.size(); i++)
+        {
+            Region region = regions.get(i);
+
+            MarkupWriter writer = new MarkupWriterImpl(region.placeholder.getDocument().getMarkupModel());
+
+            Element root = writer.element("async-region");
+
+            RenderQueueImpl queue = new RenderQueueImpl(LOGGER);
+
+            queue.push(region.content);
+
+            queue.run(writer);
+
+            for (Node child : root.getChildren())
+            {
+                child.moveToBottom(region.placeholder);
+            }
+        }
+
+        regions.clear();
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,21 +15,30 @@
 package org.apache.tapestry5.internal.services;
 
 import org.apache.tapestry5.SymbolConstants;
-import org.apache.tapestry5.internal.util.Holder;
-import org.apache.tapestry5.ioc.Invokable;
 import org.apache.tapestry5.ioc.annotations.IntermediateType;
+import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
-import org.apache.tapestry5.ioc.internal.util.ConcurrentBarrier;
+import org.apache.tapestry5.ioc.services.cron.IntervalSchedule;
+import org.apache.tapestry5.ioc.services.cron.PeriodicExecutor;
 import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.services.*;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Implements a barrier that periodically asks the {@link org.apache.tapestry5.services.UpdateListenerHub} to check for
- * updates to files. The UpdateListenerHub is invoked from a write method, meaning that when it is called, all other
- * threads will be blocked.
+ * Periodically asks the {@link org.apache.tapestry5.services.UpdateListenerHub} to check for updates to files.
+ * <p/>
+ * Checking whether there are any updates ({@link UpdateListenerHub#hasUpdates()}) is done while requests continue to
+ * be processed, either by a job scheduled with the {@link PeriodicExecutor}, or by the first request to arrive once the
+ * check is due. Only when there are updates does request processing lock down: new requests wait while the requests
+ * already in progress complete, then {@link UpdateListenerHub#fireCheckForUpdates()} is invoked, then the waiting
+ * requests continue. Requests otherwise never wait, either for each other or for the check.
  */
 public class CheckForUpdatesFilter implements RequestFilter
 {
@@ -39,88 +48,236 @@ public class CheckForUpdatesFilter implements RequestFilter
 
     private final UpdateListenerHub updateListenerHub;
 
-    private final ConcurrentBarrier barrier = new ConcurrentBarrier();
-
-    private final Runnable checker = new Runnable()
-    {
-        public void run()
-        {
-            // On a race condition, multiple threads may hit this method briefly. If we've
-            // already done a check, don't run it again.
+    /**
+     * Number of requests currently being processed.
+     */
+    private final AtomicInteger activeRequests = new AtomicInteger();
 
-            if (System.currentTimeMillis() - lastCheck >= checkInterval)
-            {
+    /**
+     * Ensures that only one thread at a time checks for updates.
+     */
+    private final AtomicBoolean checking = new AtomicBoolean();
 
-                // Fire the update event which will force a number of checks and then
-                // corresponding invalidation events.
+    /**
+     * Set while the listeners are updated; new requests wait on the condition until it is cleared. The updating thread
+     * waits on the condition for the active requests to complete. A {@link Lock} is used, rather than a monitor, so that
+     * waiting requests do not pin their carrier thread when running as virtual threads.
+     */
+    private volatile boolean updating;
 
-                updateListenerHub.fireCheckForUpdates();
+    private final Lock lock = new ReentrantLock();
 
-                lastCheck = System.currentTimeMillis();
-            }
-        }
-    };
+    private final Condition changed = lock.newCondition();
 
-    private long lastCheck = 0;
+    private volatile long lastCheck;
 
     /**
      * @param updateListenerHub
-     *            invoked, at intervals, to spur the process of detecting changes
+     *         invoked, at intervals, to spur the process of detecting changes
      * @param checkInterval
-     *            interval, in milliseconds, between checks
+     *         interval, in milliseconds, between checks
      * @param updateTimeout
-     *            time, in milliseconds, to wait to obtain update lock.
+     *         time, in milliseconds, to wait for active requests to complete before updating
      */
     public CheckForUpdatesFilter(UpdateListenerHub updateListenerHub,
 
-    @Symbol(SymbolConstants.FILE_CHECK_INTERVAL)
-    @IntermediateType(TimeInterval.class)
-    long checkInterval,
+                                 @Symbol(SymbolConstants.FILE_CHECK_INTERVAL)
+                                 @IntermediateType(TimeInterval.class)
+                                 long checkInterval,
 
-    @Symbol(SymbolConstants.FILE_CHECK_UPDATE_TIMEOUT)
-    @IntermediateType(TimeInterval.class)
-    long updateTimeout)
+                                 @Symbol(SymbolConstants.FILE_CHECK_UPDATE_TIMEOUT)
+                                 @IntermediateType(TimeInterval.class)
+                                 long updateTimeout)
     {
         this.updateListenerHub = updateListenerHub;
         this.checkInterval = checkInterval;
         this.updateTimeout = updateTimeout;
     }
 
-    public boolean service(final Request request, final Response response, final RequestHandler handler)
-            throws IOException
+    @PostInjection
+    public void scheduleChecks(PeriodicExecutor executor)
+    {
+        // With no interval, every request checks.
+
+        if (checkInterval > 0)
+        {
+            executor.addJob(new IntervalSchedule(checkInterval), "Check for updates", new Runnable()
+            {
+                public void run()
+                {
+                    checkIfDue();
+                }
+            });
+        }
+    }
+
+    public boolean service(Request request, Response response, RequestHandler handler) throws IOException
+    {
+        checkIfDue();
+
+        enter();
+
+        try
+        {
+            return handler.service(request, response);
+        } finally
+        {
+            exit();
+        }
+    }
+
+    private void checkIfDue()
     {
-        final Holder<IOException> exceptionHolder = new Holder<IOException>();
+        if (System.currentTimeMillis() - lastCheck < checkInterval)
+        {
+            return;
+        }
+
+        // If some other thread is already checking, then there's no need to wait for it.
+
+        if (!checking.compareAndSet(false, true))
+        {
+            return;
+        }
 
-        Invokable<Boolean> invokable = new Invokable<Boolean>()
+        try
         {
-            public Boolean invoke()
+            // Check again, in case a check completed just before this thread started its own.
+
+            if (System.currentTimeMillis() - lastCheck < checkInterval)
             {
-                if (System.currentTimeMillis() - lastCheck >= checkInterval)
-                    barrier.tryWithWrite(checker, updateTimeout, TimeUnit.MILLISECONDS);
+                return;
+            }
 
-                // And, now, back to code within the read lock.
+            if (updateListenerHub.hasUpdates())
+            {
+                // If the active requests do not complete in time, the check is repeated later.
 
-                try
+                if (!update())
                 {
-                    return handler.service(request, response);
+                    return;
                 }
-                catch (IOException ex)
+            }
+
+            lastCheck = System.currentTimeMillis();
+        } finally
+        {
+            checking.set(false);
+        }
+    }
+
+    /**
+     * Invoked from the checking thread (which is never itself an active request).
+     *
+     * @return true if the listeners were updated
+     */
+    private boolean update()
+    {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(updateTimeout);
+
+        updating = true;
+
+        try
+        {
+            lock.lock();
+
+            try
+            {
+                while (activeRequests.get() > 0)
                 {
-                    exceptionHolder.put(ex);
-                    return false;
+                    long remaining = deadline - System.nanoTime();
+
+                    if (remaining <= 0)
+                    {
+                        return false;
+                    }
+
+                    try
+                    {
+                        changed.awaitNanos(remaining);
+                    } catch (InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+
+                        return false;
+                    }
                 }
+            } finally
+            {
+                lock.unlock();
+            }
+
+            updateListenerHub.fireCheckForUpdates();
+
+            return true;
+        } finally
+        {
+            lock.lock();
+
+            try
+            {
+                updating = false;
+
+                changed.signalAll();
+            } finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void enter()
+    {
+        while (true)
+        {
+            if (updating)
+            {
+                awaitUpdate();
             }
-        };
 
-        // Obtain a read lock while handling the request. This will not impair parallel operations, except when a file
-        // check
-        // is needed (the exclusive write lock will block threads attempting to get a read lock).
+            activeRequests.incrementAndGet();
+
+            // The updating thread sets updating, then checks activeRequests; this thread does the opposite. Either the
+            // updating thread sees this request as active, or this thread sees the update in progress, and backs out.
+
+            if (!updating)
+            {
+                return;
+            }
 
-        boolean result = barrier.withRead(invokable);
+            exit();
+        }
+    }
 
-        if (exceptionHolder.hasValue())
-            throw exceptionHolder.get();
+    private void exit()
+    {
+        if (activeRequests.decrementAndGet() == 0 && updating)
+        {
+            lock.lock();
 
-        return result;
+            try
+            {
+                changed.signalAll();
+            } finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void awaitUpdate()
+    {
+        lock.lock();
+
+        try
+        {
+            while (updating)
+            {
+                changed.awaitUninterruptibly();
+            }
+        } finally
+        {
+            lock.unlock();
+        }
     }
 }
@@ -1,4 +1,4 @@
-// Copyright 2009, 2012 The Apache Software Foundation
+// Copyright 2009, 2012, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,33 +19,55 @@ import org.apache.tapestry5.alerts.AlertManager;
 import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.internal.util.Base64InputStream;
+import org.apache.tapestry5.internal.util.CompactObjectInputStream;
 import org.apache.tapestry5.internal.util.MacOutputStream;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.services.PlasticProxyFactory;
 import org.apache.tapestry5.services.ClientDataEncoder;
 import org.apache.tapestry5.services.ClientDataSink;
+import org.apache.tapestry5.services.ComponentLayer;
 import org.apache.tapestry5.services.URLEncoder;
 import org.slf4j.Logger;
 
 import javax.crypto.spec.SecretKeySpec;
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.UnsupportedEncodingException;
 import java.security.Key;
 import java.util.zip.GZIPInputStream;
-
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes client data in the compact format (when {@link SymbolConstants#COMPACT_CLIENT_DATA} is true), or the original
+ * format; data in either format can be decoded.
+ *
+ * @see ClientDataSinkImpl
+ */
 public class ClientDataEncoderImpl implements ClientDataEncoder
 {
     private final URLEncoder urlEncoder;
 
     private final Key hmacKey;
 
+    private final boolean compact;
+
+    private final PlasticProxyFactory componentProxyFactory;
+
     public ClientDataEncoderImpl(URLEncoder urlEncoder, @Symbol(SymbolConstants.HMAC_PASSPHRASE) String passphrase,
                                  Logger logger,
                                  @Symbol(InternalConstants.TAPESTRY_APP_PACKAGE_PARAM)
-                                 String applicationPackageName, AlertManager alertManager) throws UnsupportedEncodingException
+                                 String applicationPackageName, AlertManager alertManager,
+                                 @Symbol(SymbolConstants.COMPACT_CLIENT_DATA)
+                                 boolean compact,
+                                 @ComponentLayer
+                                 PlasticProxyFactory componentProxyFactory) throws UnsupportedEncodingException
     {
         this.urlEncoder = urlEncoder;
+        this.compact = compact;
+        this.componentProxyFactory = componentProxyFactory;
 
         if (passphrase.equals(""))
         {
@@ -72,7 +94,7 @@ public class ClientDataEncoderImpl implements ClientDataEncoder
     {
         try
         {
-            return new ClientDataSinkImpl(urlEncoder, hmacKey);
+            return new ClientDataSinkImpl(urlEncoder, hmacKey, compact);
         } catch (IOException ex)
         {
             throw new RuntimeException(ex);
@@ -103,7 +125,14 @@ public class ClientDataEncoderImpl implements ClientDataEncoder
 
             validateHMAC(storedHmacResult, b64in);
 
-            // After reading it once to validate, reset it for the actual read (which includes the GZip decompression).
+            // After reading it once to validate, reset it for the actual read (which includes the decompression).
+
+            b64in.reset();
+
+            if (b64in.read() == ClientDataSinkImpl.COMPACT_FORMAT)
+            {
+                return openCompactStream(b64in);
+            }
 
             b64in.reset();
 
@@ -116,6 +145,34 @@ public class ClientDataEncoderImpl implements ClientDataEncoder
         }
     }
 
+    private ObjectInputStream openCompactStream(InputStream stream) throws IOException
+    {
+        final Inflater inflater = ClientDataSinkImpl.newInflater();
+
+        InputStream inflated = new InflaterInputStream(stream, inflater)
+        {
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                } finally
+                {
+                    inflater.end();
+                }
+            }
+        };
+
+        // The data may include inner classes of components, which are loaded by the component class loader.
+
+        ClassLoader classLoader = componentProxyFactory == null
+                ? Thread.currentThread().getContextClassLoader()
+                : componentProxyFactory.getClassLoader();
+
+        return new CompactObjectInputStream(new BufferedInputStream(inflated), classLoader);
+    }
+
     private void validateHMAC(String storedHmacResult, Base64InputStream b64in) throws IOException
     {
         MacOutputStream macOs = MacOutputStream.streamFor(hmacKey);
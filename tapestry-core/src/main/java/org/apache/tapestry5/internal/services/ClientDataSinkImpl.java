@@ -1,4 +1,4 @@
-// Copyright 2009, 2012 The Apache Software Foundation
+// Copyright 2009, 2012, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
 package org.apache.tapestry5.internal.services;
 
 import org.apache.tapestry5.internal.util.Base64OutputStream;
+import org.apache.tapestry5.internal.util.CompactObjectOutputStream;
 import org.apache.tapestry5.internal.util.MacOutputStream;
 import org.apache.tapestry5.internal.util.TeeOutputStream;
 import org.apache.tapestry5.services.ClientDataSink;
@@ -24,11 +25,50 @@ import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.security.Key;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPOutputStream;
-
+import java.util.zip.Inflater;
+
+/**
+ * Writes client data in one of two formats. The original format is a GZip compressed Java serialization stream. The
+ * compact format is a single {@linkplain #COMPACT_FORMAT format byte}, followed by a {@link CompactObjectOutputStream}
+ * (which omits field descriptions), compressed as raw deflate data using a {@linkplain #DICTIONARY preset dictionary}
+ * of common class names (which helps most with the short streams typical of forms).
+ */
 public class ClientDataSinkImpl implements ClientDataSink
 {
+    /**
+     * The first byte of data in the compact format. Data in the original format starts with the GZip magic number
+     * (0x1f).
+     */
+    public static final int COMPACT_FORMAT = 1;
+
+    /**
+     * The preset dictionary used to compress data in the compact format; changing this requires a new
+     * {@link #COMPACT_FORMAT}. Deflate favors matches with the end of the dictionary, so the most common strings
+     * are last.
+     */
+    private static final byte[] DICTIONARY = toBytes(
+            "java.util.ArrayListjava.util.HashMapjava.lang.Booleanjava.lang.Longjava.lang.Number" +
+                    "java.lang.Integerjava.lang.String" +
+                    "org.apache.tapestry5.corelib.components.GridRows$SetupForRowWithClientValue" +
+                    "org.apache.tapestry5.corelib.components.GridRows$SetupForRowByIndex" +
+                    "org.apache.tapestry5.corelib.components.BeanEditor$CleanupEnvironment" +
+                    "org.apache.tapestry5.corelib.components.BeanEditor$Prepare" +
+                    "org.apache.tapestry5.corelib.components.PropertyEditor$CleanupEnvironment" +
+                    "org.apache.tapestry5.corelib.components.PropertyEditor$SetupEnvironment" +
+                    "org.apache.tapestry5.corelib.components.RadioGroup$Setup" +
+                    "org.apache.tapestry5.corelib.components.Hidden$ProcessSubmission" +
+                    "org.apache.tapestry5.corelib.components.Submit$ProcessSubmission" +
+                    "org.apache.tapestry5.corelib.components.AjaxFormLoop$SyncValue" +
+                    "org.apache.tapestry5.corelib.components.Loop$RestoreState" +
+                    "org.apache.tapestry5.corelib.components.Loop$RestoreStateFromStoredClientValue" +
+                    "org.apache.tapestry5.corelib.base.AbstractField$Setup" +
+                    "org.apache.tapestry5.corelib.base.AbstractField$ProcessSubmission");
+
     private final Base64OutputStream base64OutputStream;
 
     private final ObjectOutputStream objectOutputStream;
@@ -39,15 +79,25 @@ public class ClientDataSinkImpl implements ClientDataSink
 
     private final MacOutputStream macOutputStream;
 
-    public ClientDataSinkImpl(URLEncoder urlEncoder, Key hmacKey) throws IOException
+    public ClientDataSinkImpl(URLEncoder urlEncoder, Key hmacKey, boolean compact) throws IOException
     {
         this.urlEncoder = urlEncoder;
 
         base64OutputStream = new Base64OutputStream();
         macOutputStream =  MacOutputStream.streamFor(hmacKey);
 
-        final BufferedOutputStream pipeline = new BufferedOutputStream(new GZIPOutputStream(
-                new TeeOutputStream(macOutputStream, base64OutputStream)));
+        OutputStream tee = new TeeOutputStream(macOutputStream, base64OutputStream);
+
+        final Deflater deflater = compact ? newDeflater() : null;
+
+        if (compact)
+        {
+            tee.write(COMPACT_FORMAT);
+        }
+
+        final BufferedOutputStream pipeline = new BufferedOutputStream(compact
+                ? new DeflaterOutputStream(tee, deflater)
+                : new GZIPOutputStream(tee));
 
         OutputStream guard = new OutputStream()
         {
@@ -62,7 +112,18 @@ public class ClientDataSinkImpl implements ClientDataSink
             {
                 closed = true;
 
-                pipeline.close();
+                try
+                {
+                    pipeline.close();
+                } finally
+                {
+                    // A Deflater provided to a DeflaterOutputStream is not released when the stream is closed.
+
+                    if (deflater != null)
+                    {
+                        deflater.end();
+                    }
+                }
             }
 
             @Override
@@ -85,7 +146,42 @@ public class ClientDataSinkImpl implements ClientDataSink
         };
 
 
-        objectOutputStream = new ObjectOutputStream(guard);
+        objectOutputStream = compact ? new CompactObjectOutputStream(guard) : new ObjectOutputStream(guard);
+    }
+
+    /**
+     * Returns a new inflater for data in the compact format (after the format byte), which must be
+     * {@linkplain Inflater#end() ended} once the data is read.
+     */
+    public static Inflater newInflater()
+    {
+        Inflater inflater = new Inflater(true);
+
+        inflater.setDictionary(DICTIONARY);
+
+        return inflater;
+    }
+
+    private static Deflater newDeflater()
+    {
+        // With repeated strings already eliminated, higher levels barely reduce the size, but take several times longer.
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+
+        deflater.setDictionary(DICTIONARY);
+
+        return deflater;
+    }
+
+    private static byte[] toBytes(String string)
+    {
+        try
+        {
+            return string.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException ex)
+        {
+            throw new RuntimeException(ex);
+        }
     }
 
     public ObjectOutputStream getObjectOutputStream()
@@ -0,0 +1,72 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Records the components that each component depends on: its base classes, its mixins, and its embedded components
+ * (and their mixins). Dependencies are registered by the {@link PageLoader} as it creates the assembler for each
+ * component. When a template or message catalog changes, only the components that depend (directly or indirectly)
+ * on the changed components, and the pages containing them, need to be discarded.
+ * <p/>
+ * Changes to component classes still invalidate all components, as the component class loader is discarded. In
+ * production mode, dependencies are not recorded.
+ *
+ * @since 5.4
+ */
+public interface ComponentDependencyGraph
+{
+    /**
+     * Records the dependencies of a component, replacing any previously recorded.
+     *
+     * @param componentClassName
+     *         the component
+     * @param dependencies
+     *         class names of the components it depends upon
+     */
+    void register(String componentClassName, Set<String> dependencies);
+
+    /**
+     * Invalidates the components, and every component that depends upon them, and notifies the listeners. The
+     * dependencies of the invalidated components are discarded (they are registered again as the components are
+     * re-assembled).
+     *
+     * @param componentClassNames
+     *         class names of the changed components, or null to invalidate all components
+     */
+    void invalidate(Collection<String> componentClassNames);
+
+    /**
+     * Adds a listener notified by {@link #invalidate(Collection)}.
+     */
+    void addInvalidationListener(ComponentInvalidationListener listener);
+
+    /**
+     * Returns the class names of all components with registered dependencies, sorted.
+     */
+    Set<String> getComponentClassNames();
+
+    /**
+     * Returns the (direct) dependencies of the component, sorted.
+     */
+    Set<String> getDependencies(String componentClassName);
+
+    /**
+     * Returns the components that (directly) depend on the component, sorted.
+     */
+    Set<String> getDependents(String componentClassName);
+}
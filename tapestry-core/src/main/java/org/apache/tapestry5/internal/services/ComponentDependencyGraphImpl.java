@@ -0,0 +1,198 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.ComponentClasses;
+import org.apache.tapestry5.services.InvalidationEventHub;
+
+import java.util.*;
+
+public class ComponentDependencyGraphImpl implements ComponentDependencyGraph
+{
+    private final boolean productionMode;
+
+    /**
+     * Component class name to the class names of the components it depends on.
+     */
+    private final Map<String, Set<String>> dependencies = CollectionFactory.newMap();
+
+    /**
+     * The reverse of dependencies: component class name to the class names of the components that depend on it.
+     */
+    private final Map<String, Set<String>> dependents = CollectionFactory.newMap();
+
+    private final List<ComponentInvalidationListener> listeners = CollectionFactory.newThreadSafeList();
+
+    public ComponentDependencyGraphImpl(@Symbol(SymbolConstants.PRODUCTION_MODE)
+                                        boolean productionMode)
+    {
+        this.productionMode = productionMode;
+    }
+
+    @PostInjection
+    public void setupInvalidation(@ComponentClasses InvalidationEventHub classesHub)
+    {
+        // The component class loader is discarded, and every component is re-assembled; the classes hub
+        // notifies the interested services directly.
+
+        classesHub.addInvalidationCallback(new Runnable()
+        {
+            public void run()
+            {
+                clear();
+            }
+        });
+    }
+
+    public synchronized void register(String componentClassName, Set<String> componentDependencies)
+    {
+        if (productionMode)
+        {
+            return;
+        }
+
+        removeDependencies(componentClassName);
+
+        Set<String> copy = CollectionFactory.newSet(componentDependencies);
+
+        copy.remove(componentClassName);
+
+        dependencies.put(componentClassName, copy);
+
+        for (String dependency : copy)
+        {
+            Set<String> set = dependents.get(dependency);
+
+            if (set == null)
+            {
+                set = CollectionFactory.newSet();
+                dependents.put(dependency, set);
+            }
+
+            set.add(componentClassName);
+        }
+    }
+
+    private void removeDependencies(String componentClassName)
+    {
+        Set<String> existing = dependencies.remove(componentClassName);
+
+        if (existing == null)
+        {
+            return;
+        }
+
+        for (String dependency : existing)
+        {
+            Set<String> set = dependents.get(dependency);
+
+            set.remove(componentClassName);
+
+            if (set.isEmpty())
+            {
+                dependents.remove(dependency);
+            }
+        }
+    }
+
+    private synchronized void clear()
+    {
+        dependencies.clear();
+        dependents.clear();
+    }
+
+    public void invalidate(Collection<String> componentClassNames)
+    {
+        Set<String> invalidated = null;
+
+        if (componentClassNames == null)
+        {
+            clear();
+        } else
+        {
+            invalidated = collectDependents(componentClassNames);
+        }
+
+        for (ComponentInvalidationListener listener : listeners)
+        {
+            listener.componentsInvalidated(invalidated);
+        }
+    }
+
+    /**
+     * Returns the components and everything that depends upon them, discarding their dependencies.
+     */
+    private synchronized Set<String> collectDependents(Collection<String> componentClassNames)
+    {
+        Set<String> result = CollectionFactory.newSet();
+
+        LinkedList<String> queue = new LinkedList<String>(componentClassNames);
+
+        while (!queue.isEmpty())
+        {
+            String componentClassName = queue.removeFirst();
+
+            if (!result.add(componentClassName))
+            {
+                continue;
+            }
+
+            Set<String> set = dependents.get(componentClassName);
+
+            if (set != null)
+            {
+                queue.addAll(set);
+            }
+        }
+
+        for (String componentClassName : result)
+        {
+            removeDependencies(componentClassName);
+        }
+
+        return result;
+    }
+
+    public void addInvalidationListener(ComponentInvalidationListener listener)
+    {
+        assert listener != null;
+
+        listeners.add(listener);
+    }
+
+    public synchronized Set<String> getComponentClassNames()
+    {
+        return new TreeSet<String>(dependencies.keySet());
+    }
+
+    public synchronized Set<String> getDependencies(String componentClassName)
+    {
+        return sorted(dependencies.get(componentClassName));
+    }
+
+    public synchronized Set<String> getDependents(String componentClassName)
+    {
+        return sorted(dependents.get(componentClassName));
+    }
+
+    private static Set<String> sorted(Set<String> set)
+    {
+        return set == null ? new TreeSet<String>() : new TreeSet<String>(set);
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.tapestry5.ioc.internal.services.PlasticProxyFactoryImpl;
 import org.apache.tapestry5.ioc.internal.util.ClasspathResource;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.internal.util.DirectoryWatcher;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.Builtin;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
@@ -51,11 +52,12 @@ import org.slf4j.Logger;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A wrapper around a {@link PlasticManager} that allows certain classes to be modified as they are loaded.
  */
-public final class ComponentInstantiatorSourceImpl implements ComponentInstantiatorSource, UpdateListener,
+public final class ComponentInstantiatorSourceImpl implements ComponentInstantiatorSource, UpdateDetector,
         Runnable, PlasticManagerDelegate, PlasticClassListener
 {
     private final Set<String> controlledPackageNames = CollectionFactory.newSet();
@@ -85,9 +87,9 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
     /**
      * Map from class name to Instantiator.
      */
-    private final Map<String, Instantiator> classToInstantiator = CollectionFactory.newMap();
+    private final ConcurrentMap<String, Instantiator> classToInstantiator = CollectionFactory.newConcurrentMap();
 
-    private final Map<String, ComponentModel> classToModel = CollectionFactory.newMap();
+    private final Map<String, ComponentModel> classToModel = CollectionFactory.newConcurrentMap();
 
     private final MethodDescription GET_COMPONENT_RESOURCES = PlasticUtils.getMethodDescription(
             ComponentResourcesAware.class, "getComponentResources");
@@ -123,13 +125,15 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
 
                                            ComponentClassResolver resolver,
 
-                                           InternalComponentInvalidationEventHub invalidationHub)
+                                           InternalComponentInvalidationEventHub invalidationHub,
+
+                                           DirectoryWatcher directoryWatcher)
     {
         this.parent = proxyFactory.getClassLoader();
         this.transformerChain = transformerChain;
         this.logger = logger;
         this.loggerSource = loggerSource;
-        this.changeTracker = new URLChangeTracker(classpathURLConverter);
+        this.changeTracker = new URLChangeTracker(classpathURLConverter, false, true, directoryWatcher);
         this.tracker = tracker;
         this.invalidationHub = invalidationHub;
         this.productionMode = productionMode;
@@ -150,6 +154,11 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
         hub.addUpdateListener(this);
     }
 
+    public boolean hasUpdates()
+    {
+        return changeTracker.peekForChanges();
+    }
+
     public synchronized void checkForUpdates()
     {
         if (changeTracker.containsChanges())
@@ -200,15 +209,24 @@ public final class ComponentInstantiatorSourceImpl implements ComponentInstantia
         classToModel.clear();
     }
 
-    public synchronized Instantiator getInstantiator(final String className)
+    public Instantiator getInstantiator(final String className)
     {
         Instantiator result = classToInstantiator.get(className);
 
         if (result == null)
         {
+            // Plastic loads and transforms classes holding a lock specific to the class name, so
+            // instantiators for different classes may be created concurrently (i.e., by parallel page preloading).
+            // If two threads create an instantiator for the same class, the first one stored wins.
+
             result = createInstantiatorForClass(className);
 
-            classToInstantiator.put(className, result);
+            Instantiator existing = classToInstantiator.putIfAbsent(className, result);
+
+            if (existing != null)
+            {
+                result = existing;
+            }
         }
 
         return result;
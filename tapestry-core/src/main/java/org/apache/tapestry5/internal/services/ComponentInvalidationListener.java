@@ -0,0 +1,35 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import java.util.Set;
+
+/**
+ * Notified by the {@link ComponentDependencyGraph} when components are invalidated.
+ *
+ * @since 5.4
+ */
+public interface ComponentInvalidationListener
+{
+    /**
+     * Invoked after components are invalidated; any cached data (such as component assemblers or pages) for the
+     * components should be discarded.
+     *
+     * @param componentClassNames
+     *         the invalidated components, including all components that depend on the changed components, or null if
+     *         all components are invalidated
+     */
+    void componentsInvalidated(Set<String> componentClassNames);
+}
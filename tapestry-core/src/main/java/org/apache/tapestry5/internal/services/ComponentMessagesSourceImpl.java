@@ -1,4 +1,4 @@
-// Copyright 2006-2013 The Apache Software Foundation
+// Copyright 2006-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,11 +19,13 @@ import org.apache.tapestry5.ioc.Messages;
 import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.DirectoryWatcher;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
 import org.apache.tapestry5.model.ComponentModel;
 import org.apache.tapestry5.services.InvalidationEventHub;
-import org.apache.tapestry5.services.UpdateListener;
+import org.apache.tapestry5.services.UpdateDetector;
 import org.apache.tapestry5.services.messages.ComponentMessagesSource;
 import org.apache.tapestry5.services.messages.PropertiesFileParser;
 import org.apache.tapestry5.services.pageload.ComponentResourceLocator;
@@ -32,13 +34,16 @@ import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
-public class ComponentMessagesSourceImpl implements ComponentMessagesSource, UpdateListener
+public class ComponentMessagesSourceImpl implements ComponentMessagesSource, UpdateDetector
 {
     private final MessagesSourceImpl messagesSource;
 
     private final MessagesBundle appCatalogBundle;
 
+    private ComponentDependencyGraph dependencyGraph;
+
     private class ComponentModelBundle implements MessagesBundle
     {
         private final ComponentModel model;
@@ -71,9 +76,11 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Upd
 
     public ComponentMessagesSourceImpl(@Symbol(SymbolConstants.PRODUCTION_MODE)
                                        boolean productionMode, List<Resource> appCatalogResources, PropertiesFileParser parser,
-                                       ComponentResourceLocator resourceLocator, ClasspathURLConverter classpathURLConverter)
+                                       ComponentResourceLocator resourceLocator, ClasspathURLConverter classpathURLConverter,
+                                       DirectoryWatcher directoryWatcher)
     {
-        this(productionMode, appCatalogResources, resourceLocator, parser, new URLChangeTracker(classpathURLConverter));
+        this(productionMode, appCatalogResources, resourceLocator, parser,
+                new URLChangeTracker(classpathURLConverter, false, true, directoryWatcher));
     }
 
     ComponentMessagesSourceImpl(boolean productionMode, Resource appCatalogResource,
@@ -91,6 +98,12 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Upd
         appCatalogBundle = createAppCatalogBundle(appCatalogResources);
     }
 
+    @PostInjection
+    public void setupDependencies(ComponentDependencyGraph dependencyGraph)
+    {
+        this.dependencyGraph = dependencyGraph;
+    }
+
     @PostInjection
     public void setupReload(ReloadHelper reloadHelper)
     {
@@ -99,13 +112,54 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Upd
             public void run()
             {
                 messagesSource.invalidate();
+
+                invalidateComponents(null);
             }
         });
     }
 
+    public boolean hasUpdates()
+    {
+        return messagesSource.hasUpdates();
+    }
+
     public void checkForUpdates()
     {
-        messagesSource.checkForUpdates();
+        Set<Object> bundleIds = messagesSource.checkForChangedBundles();
+
+        if (bundleIds == null || !bundleIds.isEmpty())
+        {
+            invalidateComponents(bundleIds);
+        }
+    }
+
+    /**
+     * The ids of the bundles for components are the component class names.
+     */
+    private void invalidateComponents(Set<Object> bundleIds)
+    {
+        if (dependencyGraph == null)
+        {
+            return;
+        }
+
+        if (bundleIds == null)
+        {
+            dependencyGraph.invalidate(null);
+            return;
+        }
+
+        Set<String> componentClassNames = CollectionFactory.newSet();
+
+        for (Object bundleId : bundleIds)
+        {
+            if (bundleId instanceof String)
+            {
+                componentClassNames.add((String) bundleId);
+            }
+        }
+
+        dependencyGraph.invalidate(componentClassNames);
     }
 
     public Messages getMessages(ComponentModel componentModel, Locale locale)
@@ -24,27 +24,33 @@ import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.DirectoryWatcher;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
 import org.apache.tapestry5.model.ComponentModel;
 import org.apache.tapestry5.services.InvalidationEventHub;
-import org.apache.tapestry5.services.UpdateListener;
+import org.apache.tapestry5.services.UpdateDetector;
 import org.apache.tapestry5.services.UpdateListenerHub;
 import org.apache.tapestry5.services.pageload.ComponentResourceLocator;
 import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 import org.apache.tapestry5.services.templates.ComponentTemplateLocator;
 
+import java.io.File;
+import java.net.URL;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Service implementation that manages a cache of parsed component templates.
  */
 public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl implements ComponentTemplateSource,
-        UpdateListener
+        UpdateDetector
 {
+    private final boolean productionMode;
+
     private final TemplateParser parser;
 
     private final URLChangeTracker tracker;
@@ -63,6 +69,56 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
      */
     private final Map<Resource, ComponentTemplate> templates = CollectionFactory.newConcurrentMap();
 
+    /**
+     * For each key in templateResources, the files that identify the changes that affect the template.
+     */
+    private final Map<MultiKey, TemplateFiles> templateFiles = CollectionFactory.newConcurrentMap();
+
+    private ComponentDependencyGraph dependencyGraph;
+
+    /**
+     * The template for a component may change when the template file changes, or when the directory containing the
+     * template or the component's class changes (as a template, or a more specific localization of the template, may
+     * have been added).
+     */
+    private static final class TemplateFiles
+    {
+        final String componentName;
+
+        final Resource resource;
+
+        final List<File> files;
+
+        TemplateFiles(String componentName, Resource resource, List<File> files)
+        {
+            this.componentName = componentName;
+            this.resource = resource;
+            this.files = files;
+        }
+
+        /**
+         * Returns true if any of the changes affect the template, adding the matching changes to matched.
+         */
+        boolean isAffectedBy(Set<File> changes, Set<File> matched)
+        {
+            boolean result = false;
+
+            for (File file : files)
+            {
+                for (File candidate : new File[]{file, file.getParentFile()})
+                {
+                    if (changes.contains(candidate))
+                    {
+                        matched.add(candidate);
+                        result = true;
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+
     private final ComponentTemplate missingTemplate = new ComponentTemplate()
     {
         public Map<String, Location> getComponentIds()
@@ -104,9 +160,9 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
     public ComponentTemplateSourceImpl(@Inject
                                        @Symbol(SymbolConstants.PRODUCTION_MODE)
                                        boolean productionMode, TemplateParser parser, ComponentResourceLocator locator,
-                                       ClasspathURLConverter classpathURLConverter)
+                                       ClasspathURLConverter classpathURLConverter, DirectoryWatcher directoryWatcher)
     {
-        this(productionMode, parser, locator, new URLChangeTracker(classpathURLConverter));
+        this(productionMode, parser, locator, new URLChangeTracker(classpathURLConverter, false, true, directoryWatcher));
     }
 
     ComponentTemplateSourceImpl(boolean productionMode, TemplateParser parser, ComponentResourceLocator locator,
@@ -114,6 +170,7 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
     {
         super(productionMode);
 
+        this.productionMode = productionMode;
         this.parser = parser;
         this.locator = locator;
         this.tracker = tracker;
@@ -125,6 +182,12 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
         hub.addUpdateListener(this);
     }
 
+    @PostInjection
+    public void setupDependencies(ComponentDependencyGraph dependencyGraph)
+    {
+        this.dependencyGraph = dependencyGraph;
+    }
+
     @PostInjection
     public void setupReload(ReloadHelper helper)
     {
@@ -151,6 +214,11 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
         {
             resource = locateTemplateResource(componentModel, selector);
             templateResources.put(key, resource);
+
+            if (!productionMode)
+            {
+                templateFiles.put(key, new TemplateFiles(componentName, resource, findFiles(componentModel, resource)));
+            }
         }
 
         // If we haven't yet parsed the template into the cache, do so now.
@@ -177,6 +245,23 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
         return getTemplate(componentModel, new ComponentResourceSelector(locale));
     }
 
+    private List<File> findFiles(ComponentModel componentModel, Resource resource)
+    {
+        List<File> result = CollectionFactory.newList();
+
+        for (URL url : new URL[]{resource.toURL(), componentModel.getBaseResource().toURL()})
+        {
+            File file = tracker.toFile(url);
+
+            if (file != null)
+            {
+                result.add(file);
+            }
+        }
+
+        return result;
+    }
+
     private ComponentTemplate parseTemplate(Resource r)
     {
         // In a race condition, we may parse the same template more than once. This will likely add
@@ -213,16 +298,54 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
     }
 
     /**
-     * Checks to see if any parsed resource has changed. If so, then all internal caches are cleared, and an
-     * invalidation event is fired. This is brute force ... a more targeted dependency management strategy may come
-     * later.
+     * Checks to see if any parsed resource has changed. If so, the templates affected by the changes are discarded,
+     * and an invalidation event is fired; the {@link ComponentDependencyGraph} is informed of the affected components.
      */
+    public boolean hasUpdates()
+    {
+        return tracker.peekForChanges();
+    }
+
     public void checkForUpdates()
     {
-        if (tracker.containsChanges())
+        Set<File> changes = tracker.findChanges();
+
+        if (!changes.isEmpty())
+        {
+            invalidate(changes);
+        }
+    }
+
+    private void invalidate(Set<File> changes)
+    {
+        Set<String> componentNames = CollectionFactory.newSet();
+        Set<File> matched = CollectionFactory.newSet();
+
+        for (Map.Entry<MultiKey, TemplateFiles> entry : templateFiles.entrySet())
+        {
+            TemplateFiles files = entry.getValue();
+
+            if (files.isAffectedBy(changes, matched))
+            {
+                componentNames.add(files.componentName);
+
+                templateResources.remove(entry.getKey());
+                templateFiles.remove(entry.getKey());
+                templates.remove(files.resource);
+            }
+        }
+
+        // Be safe when a change can't be attributed to particular components.
+
+        if (dependencyGraph == null || !matched.containsAll(changes))
         {
             invalidate();
+            return;
         }
+
+        fireInvalidationEvent();
+
+        dependencyGraph.invalidate(componentNames);
     }
 
     private void invalidate()
@@ -230,7 +353,13 @@ public final class ComponentTemplateSourceImpl extends InvalidationEventHubImpl
         tracker.clear();
         templateResources.clear();
         templates.clear();
+        templateFiles.clear();
         fireInvalidationEvent();
+
+        if (dependencyGraph != null)
+        {
+            dependencyGraph.invalidate(null);
+        }
     }
 
     public InvalidationEventHub getInvalidationEventHub()
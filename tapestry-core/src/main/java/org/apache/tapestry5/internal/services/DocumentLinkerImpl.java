@@ -48,6 +48,9 @@ public class DocumentLinkerImpl implements DocumentLinker
     // Initially false; set to true when a scriptURL or any kind of initialization is added.
     private boolean hasScriptsOrInitializations;
 
+    // Set by updateDocument(), when the document is an HTML document that stylesheets and scripts are linked into.
+    private boolean htmlDocument;
+
     /**
      * @param moduleManager
      *         used to identify the root folder for dynamically loaded modules
@@ -122,13 +125,13 @@ public class DocumentLinkerImpl implements DocumentLinker
             return;
         }
 
+        htmlDocument = root.getName().equals("html");
+
         addStylesheetsToHead(root, includedStylesheets);
 
         // only add the generator meta only to html documents
 
-        boolean isHtmlRoot = root.getName().equals("html");
-
-        if (!omitGeneratorMetaTag && isHtmlRoot)
+        if (!omitGeneratorMetaTag && htmlDocument)
         {
             Element head = findOrCreateElement(root, "head", true);
 
@@ -306,4 +309,54 @@ public class DocumentLinkerImpl implements DocumentLinker
         moduleConfigurationCallbacks.add(callback);
     }
 
+    /**
+     * Returns values for the {@code Link} response header, one for each stylesheet and JavaScript library linked into
+     * the document, that allow the client to start loading them before it has parsed the document. Invoked after
+     * {@link #updateDocument(Document)}.
+     *
+     * @return preload links, possibly empty
+     * @since 5.4
+     */
+    public List<String> getPreloadLinks()
+    {
+        List<String> result = CollectionFactory.newList();
+
+        if (!htmlDocument)
+        {
+            return result;
+        }
+
+        for (StylesheetLink sheet : includedStylesheets)
+        {
+            // Conditional stylesheets are only loaded by some clients.
+
+            if (sheet.getOptions().condition == null)
+            {
+                result.add(toPreloadLink(sheet.getURL(), "style"));
+            }
+        }
+
+        // Scripts are only written into the document when there is something to initialize.
+
+        if (hasScriptsOrInitializations)
+        {
+            for (String url : coreLibraryURLs)
+            {
+                result.add(toPreloadLink(url, "script"));
+            }
+
+            for (String url : libraryURLs)
+            {
+                result.add(toPreloadLink(url, "script"));
+            }
+        }
+
+        return result;
+    }
+
+    private static String toPreloadLink(String url, String type)
+    {
+        return String.format("<%s>; rel=preload; as=%s", url, type);
+    }
+
 }
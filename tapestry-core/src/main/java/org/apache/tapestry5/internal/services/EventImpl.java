@@ -30,11 +30,11 @@ public class EventImpl implements Event
 
     private final ComponentEventCallback handler;
 
-    private final Logger logger;
+    private Logger logger;
 
-    private final boolean debugEnabled;
+    private boolean debugEnabled;
 
-    protected final OperationTracker tracker;
+    protected OperationTracker tracker;
 
     /**
      * @param handler informed of return values from methods, deems when the event is aborted
@@ -52,6 +52,31 @@ public class EventImpl implements Event
         debugEnabled = logger.isDebugEnabled();
     }
 
+    /**
+     * Prepares the event to be reused (with the same handler), as if newly constructed.
+     *
+     * @since 5.4
+     */
+    protected void reset(Logger logger, OperationTracker tracker)
+    {
+        this.logger = logger;
+        this.tracker = tracker;
+
+        debugEnabled = logger.isDebugEnabled();
+        aborted = false;
+        methodDescription = null;
+    }
+
+    /**
+     * Marks the event as aborted, for subclasses that handle some results directly.
+     *
+     * @since 5.4
+     */
+    protected void abort()
+    {
+        aborted = true;
+    }
+
     public boolean isAborted()
     {
         return aborted;
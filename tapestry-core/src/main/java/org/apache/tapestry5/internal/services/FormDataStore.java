@@ -0,0 +1,60 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+/**
+ * Optionally keeps the data written by a {@link org.apache.tapestry5.corelib.components.Form} (the serialized
+ * component actions, normally sent to the client in the hidden <code>t:formdata</code> field) on the server, so that
+ * only a short token is sent to the client, and sent back when the form is submitted. This is enabled by the
+ * {@link org.apache.tapestry5.SymbolConstants#FORM_DATA_STORE_MIN_SIZE} symbol.
+ *
+ * @since 5.4
+ */
+public interface FormDataStore
+{
+    /**
+     * Returns true if form data may be kept on the server.
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the value to send to the client in place of the client data: either a token identifying the data (now
+     * stored on the server), or the client data itself (when the store is disabled, or the data is too small to be
+     * worth storing).
+     *
+     * @param clientData
+     *         encoded data, as from {@link org.apache.tapestry5.services.ClientDataSink#getClientData()}
+     * @return token or client data
+     */
+    String store(String clientData);
+
+    /**
+     * Converts a value sent by the client back into client data: a token is replaced by the stored data; any other value
+     * is returned unchanged.
+     *
+     * @param value
+     *         value provided by the client
+     * @return client data, suitable for {@link org.apache.tapestry5.services.ClientDataEncoder#decodeClientData(String)}
+     * @throws org.apache.tapestry5.FormDataExpiredException
+     *         if the value is a token, but the data is no longer stored (it has expired, or has been discarded
+     *         to stay within the limits on the number of entries and their total size)
+     */
+    String retrieve(String value);
+
+    /**
+     * Returns a snapshot of the activity of the store.
+     */
+    FormDataStoreStatistics getStatistics();
+}
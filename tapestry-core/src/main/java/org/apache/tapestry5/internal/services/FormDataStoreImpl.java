@@ -0,0 +1,208 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.FormDataExpiredException;
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.annotations.IntermediateType;
+import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.services.cron.IntervalSchedule;
+import org.apache.tapestry5.ioc.services.cron.PeriodicExecutor;
+import org.apache.tapestry5.ioc.util.TimeInterval;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps form data in memory. Entries are kept in the order in which they were stored, so the oldest entry (the next
+ * to expire) is the one discarded when the limit on the number of entries, or on their total size, is reached. Tokens are 128 bit random
+ * numbers, so they can not be guessed by a client; the form data itself never leaves the server.
+ *
+ * @since 5.4
+ */
+public class FormDataStoreImpl implements FormDataStore
+{
+    /**
+     * Client data (which is Base64 encoded) never starts with this character.
+     */
+    private static final String TOKEN_PREFIX = "@";
+
+    private static final class Entry
+    {
+        final String clientData;
+
+        final long expiration;
+
+        Entry(String clientData, long expiration)
+        {
+            this.clientData = clientData;
+            this.expiration = expiration;
+        }
+    }
+
+    private final int minSize;
+
+    private final int maxEntries;
+
+    private final long maxSize;
+
+    private final long timeToLive;
+
+    private final SecureRandom random = new SecureRandom();
+
+    // Guarded by this
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+
+    private long size, stores, hits, misses, evictions;
+
+    public FormDataStoreImpl(@Symbol(SymbolConstants.FORM_DATA_STORE_MIN_SIZE)
+                             int minSize,
+
+                             @Symbol(SymbolConstants.FORM_DATA_STORE_MAX_ENTRIES)
+                             int maxEntries,
+
+                             @Symbol(SymbolConstants.FORM_DATA_STORE_MAX_SIZE)
+                             long maxSize,
+
+                             @Symbol(SymbolConstants.FORM_DATA_STORE_TIME_TO_LIVE)
+                             @IntermediateType(TimeInterval.class)
+                             long timeToLive)
+    {
+        this.minSize = minSize;
+        this.maxEntries = maxEntries;
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+    }
+
+    @PostInjection
+    public void scheduleExpiration(PeriodicExecutor executor)
+    {
+        if (isEnabled())
+        {
+            executor.addJob(new IntervalSchedule(timeToLive), "Expire stored form data", new Runnable()
+            {
+                public void run()
+                {
+                    expire(System.currentTimeMillis());
+                }
+            });
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return minSize >= 0;
+    }
+
+    public String store(String clientData)
+    {
+        // Data too large to ever fit in the store is always sent to the client.
+
+        if (!isEnabled() || clientData.length() < minSize || clientData.length() > maxSize)
+        {
+            return clientData;
+        }
+
+        byte[] bytes = new byte[16];
+
+        random.nextBytes(bytes);
+
+        String token = TOKEN_PREFIX + String.format("%032x", new BigInteger(1, bytes));
+
+        long now = System.currentTimeMillis();
+
+        synchronized (this)
+        {
+            expire(now);
+
+            entries.put(token, new Entry(clientData, now + timeToLive));
+
+            size += clientData.length();
+            stores++;
+
+            Iterator<Entry> iterator = entries.values().iterator();
+
+            while (entries.size() > maxEntries || size > maxSize)
+            {
+                remove(iterator);
+            }
+        }
+
+        return token;
+    }
+
+    public String retrieve(String value)
+    {
+        if (!value.startsWith(TOKEN_PREFIX))
+        {
+            return value;
+        }
+
+        synchronized (this)
+        {
+            Entry entry = entries.get(value);
+
+            if (entry == null || entry.expiration < System.currentTimeMillis())
+            {
+                misses++;
+
+                throw new FormDataExpiredException("The data for this form has expired, or is no longer available on the server. Please reload the page and submit the form again.");
+            }
+
+            hits++;
+
+            return entry.clientData;
+        }
+    }
+
+    public synchronized FormDataStoreStatistics getStatistics()
+    {
+        return new FormDataStoreStatistics(stores, hits, misses, evictions, entries.size(), size);
+    }
+
+    synchronized void expire(long now)
+    {
+        Iterator<Entry> iterator = entries.values().iterator();
+
+        while (iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+
+            // Entries are in order of expiration
+
+            if (entry.expiration >= now)
+            {
+                break;
+            }
+
+            size -= entry.clientData.length();
+            evictions++;
+
+            iterator.remove();
+        }
+    }
+
+    private void remove(Iterator<Entry> iterator)
+    {
+        size -= iterator.next().clientData.length();
+        evictions++;
+
+        iterator.remove();
+    }
+}
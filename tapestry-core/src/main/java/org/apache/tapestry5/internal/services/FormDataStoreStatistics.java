@@ -0,0 +1,81 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+/**
+ * A snapshot of the activity of the {@link FormDataStore}.
+ *
+ * @since 5.4
+ */
+public final class FormDataStoreStatistics
+{
+    /**
+     * Number of times form data was stored, and a token sent to the client in its place.
+     */
+    public final long stores;
+
+    /**
+     * Number of times a token submitted by the client was replaced with the stored form data.
+     */
+    public final long hits;
+
+    /**
+     * Number of times a token submitted by the client did not match any stored form data.
+     */
+    public final long misses;
+
+    /**
+     * Number of entries discarded, because they expired or to stay within the limit on the number of entries.
+     */
+    public final long evictions;
+
+    /**
+     * Number of entries currently stored.
+     */
+    public final int entries;
+
+    /**
+     * Total length, in characters, of the form data currently stored.
+     */
+    public final long size;
+
+    public FormDataStoreStatistics(long stores, long hits, long misses, long evictions, int entries, long size)
+    {
+        this.stores = stores;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.entries = entries;
+        this.size = size;
+    }
+
+    /**
+     * Returns the percentage of submitted tokens that were replaced with stored form data, or -1 if no tokens have
+     * been submitted.
+     */
+    public double getHitRate()
+    {
+        long total = hits + misses;
+
+        return total == 0 ? -1 : hits * 100d / total;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("FormDataStoreStatistics[%,d stores, %,d hits, %,d misses, %,d evictions, %,d entries, size %,d]",
+                stores, hits, misses, evictions, entries, size);
+    }
+}
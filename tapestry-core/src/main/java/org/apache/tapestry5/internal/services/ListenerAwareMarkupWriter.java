@@ -0,0 +1,32 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.MarkupWriter;
+
+/**
+ * Implemented by Tapestry's {@link MarkupWriter}s, so that code that writes pre-rendered markup (in place of
+ * individual elements) can tell whether any {@link org.apache.tapestry5.MarkupWriterListener}s are registered that
+ * expect to be notified about those elements.
+ *
+ * @since 5.4
+ */
+public interface ListenerAwareMarkupWriter extends MarkupWriter
+{
+    /**
+     * Returns true if any listeners are currently registered with the writer.
+     */
+    boolean hasListeners();
+}
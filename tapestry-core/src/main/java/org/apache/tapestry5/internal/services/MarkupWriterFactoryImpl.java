@@ -74,6 +74,11 @@ public class MarkupWriterFactoryImpl implements MarkupWriterFactory
     }
 
     private MarkupWriter constructMarkupWriter(ContentType contentType, boolean partial, boolean HTML5)
+    {
+        return constructMarkupWriter(contentType, partial, HTML5, false);
+    }
+
+    private MarkupWriter constructMarkupWriter(ContentType contentType, boolean partial, boolean HTML5, boolean streaming)
     {
         final String mimeType = contentType.getMimeType();
         boolean isHTML = mimeType.equalsIgnoreCase("text/html");
@@ -87,7 +92,9 @@ public class MarkupWriterFactoryImpl implements MarkupWriterFactory
         // The charset parameter sets the encoding attribute of the XML declaration, if
         // not null and if using the XML model.
 
-        return new MarkupWriterImpl(model, contentType.getCharset(), mimeType);
+        return streaming
+                ? new StreamingMarkupWriterImpl(model, contentType.getCharset(), mimeType)
+                : new MarkupWriterImpl(model, contentType.getCharset(), mimeType);
     }
 
     public MarkupWriter newMarkupWriter(String pageName)
@@ -128,6 +135,15 @@ public class MarkupWriterFactoryImpl implements MarkupWriterFactory
         return constructMarkupWriter(contentType, false, isHTML5);
     }
 
+    public MarkupWriter newStreamingMarkupWriter(Page page)
+    {
+        boolean isHTML5 = hasHTML5Doctype(page);
+
+        ContentType contentType = pageContentTypeAnalyzer.findContentType(page);
+
+        return constructMarkupWriter(contentType, false, isHTML5, page.isStreamingMarkupEnabled());
+    }
+
     public MarkupWriter newPartialMarkupWriter(Page page)
     {
         boolean isHTML5 = hasHTML5Doctype(page);
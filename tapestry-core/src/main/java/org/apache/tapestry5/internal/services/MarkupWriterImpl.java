@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2010, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2010, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -25,7 +25,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
-public class MarkupWriterImpl implements MarkupWriter
+public class MarkupWriterImpl implements ListenerAwareMarkupWriter
 {
     private final Document document;
 
@@ -254,6 +254,11 @@ public class MarkupWriterImpl implements MarkupWriter
         listeners.add(listener);
     }
 
+    public boolean hasListeners()
+    {
+        return !isEmpty(listeners);
+    }
+
     public void removeListener(MarkupWriterListener listener)
     {
         if (listeners != null)
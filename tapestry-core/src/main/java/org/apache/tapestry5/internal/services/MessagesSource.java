@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,10 +16,10 @@ package org.apache.tapestry5.internal.services;
 
 import org.apache.tapestry5.ioc.Messages;
 import org.apache.tapestry5.services.InvalidationEventHub;
-import org.apache.tapestry5.services.UpdateListener;
+import org.apache.tapestry5.services.UpdateDetector;
 import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 
-public interface MessagesSource extends InvalidationEventHub, UpdateListener
+public interface MessagesSource extends InvalidationEventHub, UpdateDetector
 {
     /**
      * Used to obtain a {@link Messages} instance for a particular component, within a particular locale. If the
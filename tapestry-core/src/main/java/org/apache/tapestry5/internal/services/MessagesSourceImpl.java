@@ -1,4 +1,4 @@
-// Copyright 2006-2013 The Apache Software Foundation
+// Copyright 2006-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -26,9 +26,11 @@ import org.apache.tapestry5.services.messages.PropertiesFileParser;
 import org.apache.tapestry5.services.pageload.ComponentResourceLocator;
 import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A utility class that encapsulates all the logic for reading properties files and assembling {@link Messages} from
@@ -67,8 +69,49 @@ public class MessagesSourceImpl extends InvalidationEventHubImpl implements Mess
      */
     private final Map<Resource, Map<String, String>> rawProperties = CollectionFactory.newConcurrentMap();
 
+    /**
+     * Keyed on bundle id, used to identify the bundles affected by changed files.
+     */
+    private final Map<Object, BundleDependencies> bundleDependencies = CollectionFactory.newConcurrentMap();
+
     private final Map<String, String> emptyMap = Collections.emptyMap();
 
+    /**
+     * The selectors for which a bundle's properties have been cooked, and the files they depend upon: the properties
+     * files (including those of parent bundles) and the bundle's base resource, whose directories may gain new
+     * properties files.
+     */
+    private static final class BundleDependencies
+    {
+        final Set<ComponentResourceSelector> selectors = Collections.newSetFromMap(
+                CollectionFactory.<ComponentResourceSelector, Boolean>newConcurrentMap());
+
+        final Set<File> files = Collections.newSetFromMap(CollectionFactory.<File, Boolean>newConcurrentMap());
+
+        /**
+         * Returns true if any of the changes (to a file, or to its directory) affect the bundle, adding the matching
+         * changes to matched.
+         */
+        boolean isAffectedBy(Set<File> changes, Set<File> matched)
+        {
+            boolean result = false;
+
+            for (File file : files)
+            {
+                for (File candidate : new File[]{file, file.getParentFile()})
+                {
+                    if (changes.contains(candidate))
+                    {
+                        matched.add(candidate);
+                        result = true;
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+
     public MessagesSourceImpl(boolean productionMode, URLChangeTracker tracker,
                               ComponentResourceLocator resourceLocator, PropertiesFileParser propertiesFileParser)
     {
@@ -79,12 +122,77 @@ public class MessagesSourceImpl extends InvalidationEventHubImpl implements Mess
         this.resourceLocator = resourceLocator;
     }
 
+    public boolean hasUpdates()
+    {
+        return tracker != null && tracker.peekForChanges();
+    }
+
     public void checkForUpdates()
     {
-        if (tracker != null && tracker.containsChanges())
+        checkForChangedBundles();
+    }
+
+    /**
+     * Checks for changed properties files; the message catalogs for the bundles affected by the changes (and the
+     * bundles that extend them) are discarded, and an invalidation event is fired.
+     *
+     * @return the ids of the affected bundles (empty if nothing has changed), or null if all bundles were invalidated
+     * @since 5.4
+     */
+    public Set<Object> checkForChangedBundles()
+    {
+        if (tracker == null)
+        {
+            return Collections.emptySet();
+        }
+
+        Set<File> changes = tracker.findChanges();
+
+        if (changes.isEmpty())
+        {
+            return Collections.emptySet();
+        }
+
+        Set<Object> bundleIds = CollectionFactory.newSet();
+        Set<File> matched = CollectionFactory.newSet();
+
+        for (Map.Entry<Object, BundleDependencies> entry : bundleDependencies.entrySet())
+        {
+            if (entry.getValue().isAffectedBy(changes, matched))
+            {
+                bundleIds.add(entry.getKey());
+            }
+        }
+
+        // Be safe when a change can't be attributed to particular bundles.
+
+        if (!matched.containsAll(changes))
         {
             invalidate();
+
+            return null;
         }
+
+        for (Object bundleId : bundleIds)
+        {
+            BundleDependencies dependencies = bundleDependencies.remove(bundleId);
+
+            for (ComponentResourceSelector selector : dependencies.selectors)
+            {
+                MultiKey key = new MultiKey(bundleId, selector);
+
+                messagesByBundleIdAndSelector.remove(key);
+                cookedProperties.remove(key);
+            }
+        }
+
+        // Only the properties files of the affected bundles will be read again.
+
+        rawProperties.clear();
+
+        fireInvalidationEvent();
+
+        return bundleIds;
     }
 
     public void invalidate()
@@ -92,6 +200,7 @@ public class MessagesSourceImpl extends InvalidationEventHubImpl implements Mess
         messagesByBundleIdAndSelector.clear();
         cookedProperties.clear();
         rawProperties.clear();
+        bundleDependencies.clear();
 
         tracker.clear();
 
@@ -161,9 +270,55 @@ public class MessagesSourceImpl extends InvalidationEventHubImpl implements Mess
 
         cookedProperties.put(key, previous);
 
+        if (tracker != null)
+        {
+            trackDependencies(bundle, selector, localizations);
+        }
+
         return previous;
     }
 
+    private void trackDependencies(MessagesBundle bundle, ComponentResourceSelector selector, List<Resource> localizations)
+    {
+        BundleDependencies dependencies = bundleDependencies.get(bundle.getId());
+
+        if (dependencies == null)
+        {
+            dependencies = new BundleDependencies();
+            bundleDependencies.put(bundle.getId(), dependencies);
+        }
+
+        dependencies.selectors.add(selector);
+
+        addFile(dependencies, bundle.getBaseResource());
+
+        for (Resource localization : localizations)
+        {
+            addFile(dependencies, localization);
+        }
+
+        // The parent's properties were cooked first.
+
+        MessagesBundle parent = bundle.getParent();
+
+        BundleDependencies parentDependencies = parent == null ? null : bundleDependencies.get(parent.getId());
+
+        if (parentDependencies != null)
+        {
+            dependencies.files.addAll(parentDependencies.files);
+        }
+    }
+
+    private void addFile(BundleDependencies dependencies, Resource resource)
+    {
+        File file = tracker.toFile(resource.toURL());
+
+        if (file != null)
+        {
+            dependencies.files.add(file);
+        }
+    }
+
     /**
      * Returns a new map consisting of all the properties in previous overlayed with all the properties in
      * rawProperties. If rawProperties is empty, returns just the base map.
@@ -0,0 +1,65 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+/**
+ * A snapshot of the activity of the page cache inside the {@link PageSource}.
+ *
+ * @since 5.4
+ */
+public final class PageCacheStatistics
+{
+    /**
+     * Number of times a request for a page was satisfied from the cache.
+     */
+    public final long hits;
+
+    /**
+     * Number of times a page had to be loaded because it was not in the cache.
+     */
+    public final long misses;
+
+    /**
+     * Number of pages discarded from the cache to enforce the cache limits, or because they were idle. This does not
+     * include pages discarded when the cache is cleared.
+     */
+    public final long evictions;
+
+    /**
+     * Number of pages currently in the cache.
+     */
+    public final int pages;
+
+    /**
+     * Total weight of the pages currently in the cache.
+     */
+    public final long weight;
+
+    public PageCacheStatistics(long hits, long misses, long evictions, int pages, long weight)
+    {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.pages = pages;
+        this.weight = weight;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("PageCacheStatistics[%,d hits, %,d misses, %,d evictions, %,d pages, weight %,d]",
+                hits, misses, evictions, pages, weight);
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.tapestry5.json.JSONObject;
 import org.apache.tapestry5.runtime.RenderCommand;
 import org.apache.tapestry5.services.PartialMarkupRenderer;
 import org.apache.tapestry5.services.PartialMarkupRendererFilter;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
 import org.slf4j.Logger;
 
 /**
@@ -35,6 +36,8 @@ public class PageRenderQueueImpl implements PageRenderQueue
 {
     private final LoggerSource loggerSource;
 
+    private final RequestMetrics metrics;
+
     private Page page;
 
     private boolean partialRenderInitialized;
@@ -61,9 +64,10 @@ public class PageRenderQueueImpl implements PageRenderQueue
         }
     }
 
-    public PageRenderQueueImpl(LoggerSource loggerSource)
+    public PageRenderQueueImpl(LoggerSource loggerSource, RequestMetrics metrics)
     {
         this.loggerSource = loggerSource;
+        this.metrics = metrics.isEnabled() ? metrics : null;
     }
 
     public void initializeForCompletePage(Page page)
@@ -83,7 +87,7 @@ public class PageRenderQueueImpl implements PageRenderQueue
 
         Logger logger = loggerSource.getLogger(name);
 
-        queue = new RenderQueueImpl(logger);
+        queue = new RenderQueueImpl(logger, metrics);
     }
 
     public boolean isPartialRenderInitialized()
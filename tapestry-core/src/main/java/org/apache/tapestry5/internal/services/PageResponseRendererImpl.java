@@ -59,7 +59,7 @@ public class PageResponseRendererImpl implements PageResponseRenderer
 
         ContentType contentType = pageContentTypeAnalyzer.findContentType(page);
         
-        MarkupWriter writer = markupWriterFactory.newMarkupWriter(page);
+        MarkupWriter writer = markupWriterFactory.newStreamingMarkupWriter(page);
 
         markupRenderer.renderPageMarkup(page, writer);
 
@@ -1,4 +1,4 @@
-// Copyright 2010-2013 The Apache Software Foundation
+// Copyright 2010-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -49,12 +49,29 @@ public interface PageSource
     Page getPage(String canonicalPageName);
 
     /**
-     * Returns all currently loaded pages. This will include any previously loaded pages not yet reclaimed by the
-     * garbage collector, and may include the same page loaded for different {@link ComponentResourceSelector}s. This is needed
-     * for reporting purposes only.
+     * Returns all pages currently in the cache. This may include the same page loaded for different
+     * {@link ComponentResourceSelector}s. This is needed for reporting purposes only.
      *
      * @see org.apache.tapestry5.corelib.pages.PageCatalog
      * @since 5.3
      */
     Set<Page> getAllPages();
+
+    /**
+     * Loads the page, for the current selector, if it is not already loaded, and pins it into the cache: it will not
+     * be discarded to enforce the cache limits, or for being idle. It will still be discarded when the cache is
+     * {@linkplain #clearCache() cleared}.
+     *
+     * @param canonicalPageName
+     * @see org.apache.tapestry5.services.pageload.PagePreloader
+     * @since 5.4
+     */
+    void pinPage(String canonicalPageName);
+
+    /**
+     * Returns the current statistics for the page cache.
+     *
+     * @since 5.4
+     */
+    PageCacheStatistics getCacheStatistics();
 }
@@ -1,4 +1,4 @@
-// Copyright 2010, 2011, 2012 The Apache Software Foundation
+// Copyright 2010, 2011, 2012, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,15 +14,17 @@
 
 package org.apache.tapestry5.internal.services;
 
-import org.apache.tapestry5.func.F;
-import org.apache.tapestry5.func.Mapper;
+import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.services.assets.ResourceChangeTracker;
 import org.apache.tapestry5.internal.structure.Page;
+import org.apache.tapestry5.ioc.annotations.IntermediateType;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.cron.IntervalSchedule;
+import org.apache.tapestry5.ioc.services.cron.PeriodicExecutor;
+import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.services.ComponentClasses;
-import org.apache.tapestry5.services.ComponentMessages;
-import org.apache.tapestry5.services.ComponentTemplates;
 import org.apache.tapestry5.services.InvalidationEventHub;
 import org.apache.tapestry5.services.pageload.ComponentRequestSelectorAnalyzer;
 import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
@@ -30,13 +32,37 @@ import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
 import java.lang.ref.SoftReference;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Caches loaded pages, optionally limited by the number of pages, by their total weight, and by how long they have been
+ * idle (see {@link SymbolConstants#PAGE_CACHE_MAX_PAGES}, {@link SymbolConstants#PAGE_CACHE_MAX_WEIGHT} and {@link
+ * SymbolConstants#PAGE_CACHE_IDLE_TIME}). When a limit is exceeded, the least recently used pages that are not pinned
+ * are discarded.
+ */
 public class PageSourceImpl implements PageSource
 {
+    /**
+     * The time of last access to a page is only updated when it changes by at least this many milliseconds; this
+     * avoids a write to shared memory on every access to a frequently used page.
+     */
+    private static final long ACCESS_RESOLUTION = 1000;
+
     private final ComponentRequestSelectorAnalyzer selectorAnalyzer;
 
     private final PageLoader pageLoader;
 
+    private final int maxPages;
+
+    private final long maxWeight;
+
+    private final long idleTime;
+
+    // When no limit is configured, pages are softly referenced, so that the garbage collector can reclaim them
+    // when memory is short.
+    private final boolean softReferences;
+
     private static final class CachedPageKey
     {
         final String pageName;
@@ -68,56 +94,263 @@ public class PageSourceImpl implements PageSource
         }
     }
 
-    private final Map<CachedPageKey, SoftReference<Page>> pageCache = CollectionFactory.newConcurrentMap();
+    private static final class CachedPage
+    {
+        // Exactly one of page and reference is non-null until the page is pinned; pinned pages are always
+        // strongly referenced.
+        volatile Page page;
+
+        final SoftReference<Page> reference;
+
+        final int weight;
+
+        volatile long lastAccess = System.currentTimeMillis();
+
+        volatile boolean pinned;
+
+        CachedPage(Page page, boolean soft)
+        {
+            this.page = soft ? null : page;
+            this.reference = soft ? new SoftReference<Page>(page) : null;
+
+            Page.Stats stats = page.getStats();
+
+            weight = stats == null ? 0 : stats.weight;
+        }
+
+        /**
+         * Returns the page, or null if it was softly referenced and has been reclaimed.
+         */
+        Page get()
+        {
+            Page result = page;
+
+            return result != null ? result : reference.get();
+        }
+
+        void pin(Page page)
+        {
+            this.page = page;
+
+            pinned = true;
+        }
+
+        void touch(long now)
+        {
+            if (now - lastAccess >= ACCESS_RESOLUTION)
+            {
+                lastAccess = now;
+            }
+        }
+    }
+
+    private final ConcurrentMap<CachedPageKey, CachedPage> pageCache = CollectionFactory.newConcurrentMap();
 
-    public PageSourceImpl(PageLoader pageLoader, ComponentRequestSelectorAnalyzer selectorAnalyzer)
+    private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong();
+
+    public PageSourceImpl(PageLoader pageLoader, ComponentRequestSelectorAnalyzer selectorAnalyzer,
+
+                          @Symbol(SymbolConstants.PAGE_CACHE_MAX_PAGES)
+                          int maxPages,
+
+                          @Symbol(SymbolConstants.PAGE_CACHE_MAX_WEIGHT)
+                          long maxWeight,
+
+                          @Symbol(SymbolConstants.PAGE_CACHE_IDLE_TIME)
+                          @IntermediateType(TimeInterval.class)
+                          long idleTime)
     {
         this.pageLoader = pageLoader;
         this.selectorAnalyzer = selectorAnalyzer;
+        this.maxPages = maxPages;
+        this.maxWeight = maxWeight;
+        this.idleTime = idleTime;
+
+        softReferences = maxPages <= 0 && maxWeight <= 0 && idleTime <= 0;
     }
 
     public Page getPage(String canonicalPageName)
+    {
+        return getPage(canonicalPageName, false);
+    }
+
+    public void pinPage(String canonicalPageName)
+    {
+        getPage(canonicalPageName, true);
+    }
+
+    private Page getPage(String canonicalPageName, boolean pin)
     {
         ComponentResourceSelector selector = selectorAnalyzer.buildSelectorForRequest();
 
         CachedPageKey key = new CachedPageKey(canonicalPageName, selector);
 
-        // The while loop looks superfluous, but it helps to ensure that the Page instance,
-        // with all of its mutable construction-time state, is properly published to other
-        // threads (at least, as I understand Brian Goetz's explanation, it should be).
+        CachedPage cached = pageCache.get(key);
 
-        while (true)
+        if (cached != null)
         {
-            SoftReference<Page> ref = pageCache.get(key);
-
-            Page page = ref == null ? null : ref.get();
+            Page page = cached.get();
 
             if (page != null)
             {
+                hits.incrementAndGet();
+
+                cached.touch(System.currentTimeMillis());
+
+                if (pin)
+                {
+                    cached.pin(page);
+                }
+
                 return page;
             }
 
-            // In rare race conditions, we may see the same page loaded multiple times across
-            // different threads. The last built one will "evict" the others from the page cache,
-            // and the earlier ones will be GCed.
+            // Reclaimed by the garbage collector.
+
+            evict(key, cached);
+        }
+
+        misses.incrementAndGet();
+
+        // In rare race conditions, we may see the same page loaded multiple times across
+        // different threads. The last built one will "evict" the others from the page cache,
+        // and the earlier ones will be GCed. Other threads obtain the page from the
+        // concurrent map, which ensures that the Page instance, with all of its mutable
+        // construction-time state, is properly published to them.
+
+        Page page = pageLoader.loadPage(canonicalPageName, selector);
+
+        cached = new CachedPage(page, softReferences);
+
+        CachedPage previous = pageCache.put(key, cached);
+
+        if (pin || (previous != null && previous.pinned))
+        {
+            cached.pin(page);
+        }
+
+        if (maxPages > 0 || maxWeight > 0)
+        {
+            enforceLimits(cached);
+        }
+
+        return page;
+    }
+
+    /**
+     * Discards least recently used pages until the cache is within its limits. This scans the entire cache for each
+     * page discarded, but is only invoked after a page is loaded (which is far more expensive).
+     *
+     * @param added
+     *         the page just added, which is never discarded
+     */
+    private synchronized void enforceLimits(CachedPage added)
+    {
+        while ((maxPages > 0 && pageCache.size() > maxPages) || (maxWeight > 0 && getTotalWeight() > maxWeight))
+        {
+            Map.Entry<CachedPageKey, CachedPage> leastRecentlyUsed = null;
+
+            for (Map.Entry<CachedPageKey, CachedPage> entry : pageCache.entrySet())
+            {
+                CachedPage cached = entry.getValue();
+
+                if (cached == added || cached.pinned)
+                {
+                    continue;
+                }
+
+                if (leastRecentlyUsed == null || cached.lastAccess < leastRecentlyUsed.getValue().lastAccess)
+                {
+                    leastRecentlyUsed = entry;
+                }
+            }
+
+            // Only pinned pages (and the added page) remain.
+
+            if (leastRecentlyUsed == null)
+            {
+                return;
+            }
+
+            evict(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue());
+        }
+    }
+
+    void evictIdlePages()
+    {
+        long cutoff = System.currentTimeMillis() - idleTime;
+
+        for (Map.Entry<CachedPageKey, CachedPage> entry : pageCache.entrySet())
+        {
+            CachedPage cached = entry.getValue();
+
+            if (!cached.pinned && cached.lastAccess < cutoff)
+            {
+                evict(entry.getKey(), cached);
+            }
+        }
+    }
+
+    /**
+     * Discards the pages whose root components are among the components (these include every component that
+     * depends on a changed component).
+     */
+    void discardPages(Set<String> componentClassNames)
+    {
+        for (Map.Entry<CachedPageKey, CachedPage> entry : pageCache.entrySet())
+        {
+            Page page = entry.getValue().get();
+
+            if (page == null
+                    || componentClassNames.contains(page.getRootElement().getComponentResources().getComponentModel().getComponentClassName()))
+            {
+                evict(entry.getKey(), entry.getValue());
+            }
+        }
+    }
 
-            page = pageLoader.loadPage(canonicalPageName, selector);
+    private void evict(CachedPageKey key, CachedPage cached)
+    {
+        if (pageCache.remove(key, cached))
+        {
+            evictions.incrementAndGet();
+        }
+    }
 
-            ref = new SoftReference<Page>(page);
+    private long getTotalWeight()
+    {
+        long result = 0;
 
-            pageCache.put(key, ref);
+        for (CachedPage cached : pageCache.values())
+        {
+            result += cached.weight;
         }
+
+        return result;
     }
 
     @PostInjection
     public void setupInvalidation(@ComponentClasses InvalidationEventHub classesHub,
-                                  @ComponentTemplates InvalidationEventHub templatesHub,
-                                  @ComponentMessages InvalidationEventHub messagesHub,
+                                  ComponentDependencyGraph dependencyGraph,
                                   ResourceChangeTracker resourceChangeTracker)
     {
         classesHub.clearOnInvalidation(pageCache);
-        templatesHub.clearOnInvalidation(pageCache);
-        messagesHub.clearOnInvalidation(pageCache);
+
+        // Changes to templates and message catalogs only discard the pages containing the affected components.
+
+        dependencyGraph.addInvalidationListener(new ComponentInvalidationListener()
+        {
+            public void componentsInvalidated(Set<String> componentClassNames)
+            {
+                if (componentClassNames == null)
+                {
+                    pageCache.clear();
+                    return;
+                }
+
+                discardPages(componentClassNames);
+            }
+        });
 
         // Because Assets can be injected into pages, and Assets are invalidated when
         // an Asset's value is changed (partly due to the change, in 5.4, to include the asset's
@@ -126,6 +359,21 @@ public class PageSourceImpl implements PageSource
         resourceChangeTracker.clearOnInvalidation(pageCache);
     }
 
+    @PostInjection
+    public void scheduleIdlePageEviction(PeriodicExecutor executor)
+    {
+        if (idleTime > 0)
+        {
+            executor.addJob(new IntervalSchedule(idleTime), "Evict idle pages", new Runnable()
+            {
+                public void run()
+                {
+                    evictIdlePages();
+                }
+            });
+        }
+    }
+
     public void clearCache()
     {
         pageCache.clear();
@@ -133,12 +381,23 @@ public class PageSourceImpl implements PageSource
 
     public Set<Page> getAllPages()
     {
-        return F.flow(pageCache.values()).map(new Mapper<SoftReference<Page>, Page>()
+        Set<Page> result = CollectionFactory.newSet();
+
+        for (CachedPage cached : pageCache.values())
         {
-            public Page map(SoftReference<Page> element)
+            Page page = cached.get();
+
+            if (page != null)
             {
-                return element.get();
+                result.add(page);
             }
-        }).removeNulls().toSet();
+        }
+
+        return result;
+    }
+
+    public PageCacheStatistics getCacheStatistics()
+    {
+        return new PageCacheStatistics(hits.get(), misses.get(), evictions.get(), pageCache.size(), getTotalWeight());
     }
 }
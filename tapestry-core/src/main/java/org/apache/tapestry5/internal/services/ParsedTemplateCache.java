@@ -0,0 +1,460 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.parser.*;
+import org.apache.tapestry5.internal.util.CacheFileUtils;
+import org.apache.tapestry5.ioc.Location;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.internal.util.LocationImpl;
+
+import java.io.*;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A directory of parsed {@linkplain ComponentTemplate templates}, stored in a compact binary form, so that templates
+ * parsed by an earlier execution of the application do not need to be parsed again. Each file is named for a digest of
+ * the template's content (and of a version string, which captures anything else that affects the parse); changing a
+ * template simply results in a new file.
+ *
+ * @see org.apache.tapestry5.SymbolConstants#TEMPLATE_CACHE_DIR
+ * @since 5.4
+ */
+public class ParsedTemplateCache
+{
+    /**
+     * Changed whenever the format of the file changes.
+     */
+    private static final int FORMAT = 1;
+
+    private static final int NULL_STRING = -1, NEW_STRING = -2;
+
+    private static final String UTF8 = "UTF-8";
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private final File directory;
+
+    private final byte[] version;
+
+    public ParsedTemplateCache(File directory, String version)
+    {
+        this.directory = directory;
+
+        try
+        {
+            this.version = (FORMAT + ":" + version).getBytes(UTF8);
+        } catch (UnsupportedEncodingException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Returns the name of the file, within the cache directory, for the template stored in the resource. This
+     * requires reading the content of the resource.
+     */
+    public String toFileName(Resource resource) throws IOException
+    {
+        return CacheFileUtils.toFileName(version, resource.openStream(), ".tt");
+    }
+
+    /**
+     * Reads a previously stored template.
+     *
+     * @param fileName
+     *         from {@link #toFileName(org.apache.tapestry5.ioc.Resource)}
+     * @param resource
+     *         the template resource, which becomes the resource of the template and of every location within it
+     * @return the template, or null if the template has not been stored
+     */
+    public ComponentTemplate read(String fileName, Resource resource) throws IOException
+    {
+        File file = new File(directory, fileName);
+
+        if (!file.isFile())
+        {
+            return null;
+        }
+
+        DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+        try
+        {
+            return new Reader(stream, resource).readTemplate();
+        } catch (RuntimeException ex)
+        {
+            // Typically, a damaged file.
+
+            throw new IOException(String.format("File %s is not valid: %s", file, ex), ex);
+        } finally
+        {
+            InternalUtils.close(stream);
+        }
+    }
+
+    /**
+     * Stores a parsed template. The file is written under a temporary name, then renamed, so that a partially written
+     * file is never read (by this or another thread or process).
+     */
+    public void write(String fileName, final ComponentTemplate template) throws IOException
+    {
+        directory.mkdirs();
+
+        CacheFileUtils.store(new File(directory, fileName), "template", new CacheFileUtils.ContentWriter()
+        {
+            public void write(OutputStream stream) throws IOException
+            {
+                DataOutputStream dataStream = new DataOutputStream(new BufferedOutputStream(stream));
+
+                new Writer(dataStream).writeTemplate(template);
+
+                dataStream.flush();
+            }
+        });
+    }
+
+    /**
+     * Strings are written as UTF-8; each distinct string is written just once, and afterwards referenced by index.
+     */
+    private static final class Writer
+    {
+        private final DataOutputStream stream;
+
+        private final Map<String, Integer> strings = CollectionFactory.newMap();
+
+        Writer(DataOutputStream stream)
+        {
+            this.stream = stream;
+        }
+
+        void writeTemplate(ComponentTemplate template) throws IOException
+        {
+            stream.writeBoolean(template.isExtension());
+            stream.writeBoolean(template.usesStrictMixinParameters());
+
+            writeTokens(template.getTokens());
+
+            Map<String, Location> componentIds = template.getComponentIds();
+
+            stream.writeInt(componentIds.size());
+
+            for (Map.Entry<String, Location> e : componentIds.entrySet())
+            {
+                writeString(e.getKey());
+                writeLocation(e.getValue());
+            }
+
+            Map<String, List<TemplateToken>> overrides = ((ComponentTemplateImpl) template).getOverrides();
+
+            stream.writeInt(overrides == null ? -1 : overrides.size());
+
+            if (overrides != null)
+            {
+                for (Map.Entry<String, List<TemplateToken>> e : overrides.entrySet())
+                {
+                    writeString(e.getKey());
+                    writeTokens(e.getValue());
+                }
+            }
+        }
+
+        private void writeTokens(List<TemplateToken> tokens) throws IOException
+        {
+            stream.writeInt(tokens.size());
+
+            for (TemplateToken token : tokens)
+            {
+                writeToken(token);
+            }
+        }
+
+        private void writeToken(TemplateToken token) throws IOException
+        {
+            stream.writeByte(token.getTokenType().ordinal());
+
+            writeLocation(token.getLocation());
+
+            switch (token.getTokenType())
+            {
+                case ATTRIBUTE:
+                    AttributeToken attribute = (AttributeToken) token;
+                    writeString(attribute.namespaceURI);
+                    writeString(attribute.name);
+                    writeString(attribute.value);
+                    break;
+
+                case CDATA:
+                    writeString(((CDATAToken) token).content);
+                    break;
+
+                case COMMENT:
+                    writeString(((CommentToken) token).comment);
+                    break;
+
+                case START_COMPONENT:
+                    StartComponentToken component = (StartComponentToken) token;
+                    writeString(component.getElementName());
+                    writeString(component.getId());
+                    writeString(component.getComponentType());
+                    writeString(component.getMixins());
+                    break;
+
+                case START_ELEMENT:
+                    StartElementToken element = (StartElementToken) token;
+                    writeString(element.namespaceURI);
+                    writeString(element.name);
+                    break;
+
+                case TEXT:
+                    writeString(((TextToken) token).text);
+                    break;
+
+                case EXPANSION:
+                    writeString(((ExpansionToken) token).getExpression());
+                    break;
+
+                case PARAMETER:
+                    writeString(((ParameterToken) token).name);
+                    break;
+
+                case BLOCK:
+                    writeString(((BlockToken) token).getId());
+                    break;
+
+                case DTD:
+                    DTDToken dtd = (DTDToken) token;
+                    writeString(dtd.name);
+                    writeString(dtd.publicId);
+                    writeString(dtd.systemId);
+                    break;
+
+                case DEFINE_NAMESPACE_PREFIX:
+                    DefineNamespacePrefixToken prefix = (DefineNamespacePrefixToken) token;
+                    writeString(prefix.namespaceURI);
+                    writeString(prefix.namespacePrefix);
+                    break;
+
+                case EXTENSION_POINT:
+                    writeString(((ExtensionPointToken) token).getExtensionPointId());
+                    break;
+
+                default:
+                    // END_ELEMENT and BODY have no content beyond the location
+                    break;
+            }
+        }
+
+        /**
+         * Locations always refer to the template resource, so only the line and column are written.
+         */
+        private void writeLocation(Location location) throws IOException
+        {
+            stream.writeInt(location.getLine());
+            stream.writeInt(location.getColumn());
+        }
+
+        private void writeString(String value) throws IOException
+        {
+            if (value == null)
+            {
+                stream.writeInt(NULL_STRING);
+                return;
+            }
+
+            Integer index = strings.get(value);
+
+            if (index != null)
+            {
+                stream.writeInt(index);
+                return;
+            }
+
+            strings.put(value, strings.size());
+
+            byte[] bytes = value.getBytes(UTF8);
+
+            stream.writeInt(NEW_STRING);
+            stream.writeInt(bytes.length);
+            stream.write(bytes);
+        }
+    }
+
+    private static final class Reader
+    {
+        private final DataInputStream stream;
+
+        private final Resource resource;
+
+        private final List<String> strings = CollectionFactory.newList();
+
+        private Location location;
+
+        Reader(DataInputStream stream, Resource resource)
+        {
+            this.stream = stream;
+            this.resource = resource;
+        }
+
+        ComponentTemplate readTemplate() throws IOException
+        {
+            boolean extension = stream.readBoolean();
+            boolean strictMixinParameters = stream.readBoolean();
+
+            List<TemplateToken> tokens = readTokens();
+
+            Map<String, Location> componentIds = CollectionFactory.newCaseInsensitiveMap();
+
+            int count = stream.readInt();
+
+            for (int i = 0; i < count; i++)
+            {
+                String id = readString();
+
+                componentIds.put(id, readLocation());
+            }
+
+            Map<String, List<TemplateToken>> overrides = null;
+
+            count = stream.readInt();
+
+            if (count >= 0)
+            {
+                overrides = CollectionFactory.newCaseInsensitiveMap();
+
+                for (int i = 0; i < count; i++)
+                {
+                    String id = readString();
+
+                    overrides.put(id, readTokens());
+                }
+            }
+
+            return new ComponentTemplateImpl(resource, tokens, componentIds, extension, strictMixinParameters, overrides);
+        }
+
+        private List<TemplateToken> readTokens() throws IOException
+        {
+            int count = stream.readInt();
+
+            List<TemplateToken> result = CollectionFactory.newList();
+
+            for (int i = 0; i < count; i++)
+            {
+                result.add(readToken());
+            }
+
+            return result;
+        }
+
+        private TemplateToken readToken() throws IOException
+        {
+            TokenType type = TOKEN_TYPES[stream.readByte()];
+
+            Location location = readLocation();
+
+            switch (type)
+            {
+                case ATTRIBUTE:
+                    return new AttributeToken(readString(), readString(), readString(), location);
+
+                case CDATA:
+                    return new CDATAToken(readString(), location);
+
+                case COMMENT:
+                    return new CommentToken(readString(), location);
+
+                case END_ELEMENT:
+                    return new EndElementToken(location);
+
+                case START_COMPONENT:
+                    return new StartComponentToken(readString(), readString(), readString(), readString(), location);
+
+                case START_ELEMENT:
+                    return new StartElementToken(readString(), readString(), location);
+
+                case TEXT:
+                    return new TextToken(readString(), location);
+
+                case BODY:
+                    return new BodyToken(location);
+
+                case EXPANSION:
+                    return new ExpansionToken(readString(), location);
+
+                case PARAMETER:
+                    return new ParameterToken(readString(), location);
+
+                case BLOCK:
+                    return new BlockToken(readString(), location);
+
+                case DTD:
+                    return new DTDToken(readString(), readString(), readString(), location);
+
+                case DEFINE_NAMESPACE_PREFIX:
+                    return new DefineNamespacePrefixToken(readString(), readString(), location);
+
+                case EXTENSION_POINT:
+                    return new ExtensionPointToken(readString(), location);
+
+                default:
+                    throw new IOException(String.format("Unexpected token type %s.", type));
+            }
+        }
+
+        private Location readLocation() throws IOException
+        {
+            int line = stream.readInt();
+            int column = stream.readInt();
+
+            // Consecutive tokens very often share a location (as they do when the template is parsed).
+
+            if (location == null || location.getLine() != line || location.getColumn() != column)
+            {
+                location = new LocationImpl(resource, line, column);
+            }
+
+            return location;
+        }
+
+        private String readString() throws IOException
+        {
+            int index = stream.readInt();
+
+            if (index == NULL_STRING)
+            {
+                return null;
+            }
+
+            if (index != NEW_STRING)
+            {
+                return strings.get(index);
+            }
+
+            byte[] bytes = new byte[stream.readInt()];
+
+            stream.readFully(bytes);
+
+            String result = new String(bytes, UTF8);
+
+            strings.add(result);
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.services;
+
+import java.util.List;
+
+/**
+ * Adds a {@code Link} response header identifying the stylesheets and JavaScript libraries of the page being rendered,
+ * so that the client can start loading them before it receives the document. The links are collected by the
+ * {@link DocumentLinkerImpl} as each page is rendered. Once a page has been rendered at least twice, the links common
+ * to every render of the page (in each locale, and with and without compressed assets) are added before rendering
+ * starts; any others are added once it completes (if the response has not already been committed). Does nothing unless the
+ * {@link org.apache.tapestry5.SymbolConstants#PRELOAD_LINK_HEADERS} symbol is true.
+ *
+ * @since 5.4
+ */
+public interface PreloadLinkHeaders
+{
+    /**
+     * Invoked before a page renders; adds the header using the links common to every earlier render of the page.
+     *
+     * @return the links added (possibly empty), or null if the header is disabled, in which case {@link
+     *         #addHeader(List, List)} need not be invoked
+     */
+    List<String> addKnownHeader();
+
+    /**
+     * Invoked after a page renders; updates the links common to every render of the page, and adds a header with any
+     * links not already added.
+     *
+     * @param links
+     *         values of the Link header, as obtained from {@link DocumentLinkerImpl#getPreloadLinks()}
+     * @param knownLinks
+     *         the links added before the page rendered, as returned from {@link #addKnownHeader()}
+     */
+    void addHeader(List<String> links, List<String> knownLinks);
+}
@@ -0,0 +1,206 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.internal.services.assets.ResourceChangeTracker;
+import org.apache.tapestry5.ioc.annotations.PostInjection;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.ThreadLocale;
+import org.apache.tapestry5.services.ComponentClasses;
+import org.apache.tapestry5.services.InvalidationEventHub;
+import org.apache.tapestry5.services.RequestGlobals;
+import org.apache.tapestry5.services.Response;
+import org.apache.tapestry5.services.ResponseCompressionAnalyzer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+public class PreloadLinkHeadersImpl implements PreloadLinkHeaders
+{
+    static final String LINK_HEADER = "Link";
+
+    private final RequestGlobals requestGlobals;
+
+    private final Response response;
+
+    private final ThreadLocale threadLocale;
+
+    private final ResponseCompressionAnalyzer compressionAnalyzer;
+
+    private final boolean enabled;
+
+    /**
+     * The links common to every render of a page so far. They are only added before rendering once at least two
+     * renders have been seen, so that a single render does not decide the links of every later render.
+     */
+    private static final class CommonLinks
+    {
+        final List<String> links;
+
+        final boolean confirmed;
+
+        CommonLinks(List<String> links, boolean confirmed)
+        {
+            this.links = links;
+            this.confirmed = confirmed;
+        }
+    }
+
+    // Keyed on page name, locale and compression.
+    private final ConcurrentMap<String, CommonLinks> cache = CollectionFactory.newConcurrentMap();
+
+    public PreloadLinkHeadersImpl(RequestGlobals requestGlobals, Response response, ThreadLocale threadLocale,
+                                  ResponseCompressionAnalyzer compressionAnalyzer,
+                                  @Symbol(SymbolConstants.PRELOAD_LINK_HEADERS)
+                                  boolean enabled)
+    {
+        this.requestGlobals = requestGlobals;
+        this.response = response;
+        this.threadLocale = threadLocale;
+        this.compressionAnalyzer = compressionAnalyzer;
+        this.enabled = enabled;
+    }
+
+    @PostInjection
+    public void setupInvalidation(@ComponentClasses InvalidationEventHub classesHub,
+                                  ComponentDependencyGraph dependencyGraph,
+                                  ResourceChangeTracker resourceChangeTracker)
+    {
+        // Changes to classes or templates may change what a page links; changes to assets change their URLs.
+
+        classesHub.clearOnInvalidation(cache);
+        resourceChangeTracker.clearOnInvalidation(cache);
+
+        dependencyGraph.addInvalidationListener(new ComponentInvalidationListener()
+        {
+            public void componentsInvalidated(Set<String> componentClassNames)
+            {
+                cache.clear();
+            }
+        });
+    }
+
+    public List<String> addKnownHeader()
+    {
+        String key = toKey();
+
+        if (key == null)
+        {
+            return null;
+        }
+
+        CommonLinks common = cache.get(key);
+
+        if (common == null || !common.confirmed)
+        {
+            return Collections.emptyList();
+        }
+
+        addHeader(common.links);
+
+        return common.links;
+    }
+
+    public void addHeader(List<String> links, List<String> knownLinks)
+    {
+        String key = toKey();
+
+        if (key == null)
+        {
+            return;
+        }
+
+        storeCommonLinks(key, links);
+
+        List<String> unknownLinks = CollectionFactory.newList(links);
+
+        unknownLinks.removeAll(knownLinks);
+
+        addHeader(unknownLinks);
+    }
+
+    /**
+     * Stores the links of the first render of the page; each later render keeps only those of the stored links that it
+     * also includes.
+     */
+    private void storeCommonLinks(String key, List<String> links)
+    {
+        while (true)
+        {
+            CommonLinks common = cache.get(key);
+
+            if (common == null)
+            {
+                if (cache.putIfAbsent(key, new CommonLinks(links, false)) == null)
+                {
+                    return;
+                }
+
+                continue;
+            }
+
+            boolean includesAll = links.containsAll(common.links);
+
+            if (includesAll && common.confirmed)
+            {
+                return;
+            }
+
+            List<String> retained = CollectionFactory.newList(common.links);
+
+            retained.retainAll(links);
+
+            if (cache.replace(key, common, new CommonLinks(retained, true)))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the cache key for the active page, or null if headers are disabled or there is no active page.
+     */
+    private String toKey()
+    {
+        if (!enabled)
+        {
+            return null;
+        }
+
+        String pageName = requestGlobals.getActivePageName();
+
+        if (pageName == null)
+        {
+            return null;
+        }
+
+        return String.format("%s %s%s", pageName, threadLocale.getLocale(),
+                compressionAnalyzer.isGZipSupported() ? " z" : "");
+    }
+
+    private void addHeader(List<String> links)
+    {
+        if (!links.isEmpty() && !response.isCommitted())
+        {
+            response.addHeader(LINK_HEADER, InternalUtils.join(links, ", "));
+        }
+    }
+}
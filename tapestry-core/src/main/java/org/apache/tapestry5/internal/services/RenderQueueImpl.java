@@ -1,4 +1,4 @@
-// Copyright 2006-2013 The Apache Software Foundation
+// Copyright 2006-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -17,11 +17,14 @@ package org.apache.tapestry5.internal.services;
 import org.apache.tapestry5.ComponentResources;
 import org.apache.tapestry5.MarkupWriter;
 import org.apache.tapestry5.TapestryMarkers;
+import org.apache.tapestry5.internal.structure.RenderPhaseEvent;
+import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.util.ExceptionUtils;
 import org.apache.tapestry5.ioc.util.Stack;
 import org.apache.tapestry5.runtime.RenderCommand;
 import org.apache.tapestry5.runtime.RenderQueue;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
 import org.slf4j.Logger;
 
 public class RenderQueueImpl implements RenderQueue
@@ -34,9 +37,39 @@ public class RenderQueueImpl implements RenderQueue
 
     private final Logger logger;
 
+    private final RequestMetrics metrics;
+
+    /**
+     * Start time of each rendering component (parallel to renderingComponents), when metrics are enabled.
+     */
+    private long[] componentStartNanos;
+
+    /**
+     * Reused for each render phase, rather than allocating a new event for each phase of each component.
+     */
+    private RenderPhaseEvent renderPhaseEvent;
+
     public RenderQueueImpl(Logger logger)
+    {
+        this(logger, null);
+    }
+
+    /**
+     * @param logger
+     *         used to log rendering commands and errors
+     * @param metrics
+     *         if non-null, the time taken to render each component is recorded
+     * @since 5.4
+     */
+    public RenderQueueImpl(Logger logger, RequestMetrics metrics)
     {
         this.logger = logger;
+        this.metrics = metrics;
+
+        if (metrics != null)
+        {
+            componentStartNanos = new long[20];
+        }
     }
 
     public void push(RenderCommand command)
@@ -102,14 +135,62 @@ public class RenderQueueImpl implements RenderQueue
         }
     }
 
+    /**
+     * Returns an event for a render phase executed by this queue. A single event is reused for each render phase;
+     * a new event is returned only if the reused event is still in use (because render phases are nested).
+     *
+     * @param logger
+     *         logger for the component whose render phase is executing
+     * @param tracker
+     *         used to track the handling of render phase method results
+     * @since 5.4
+     */
+    public RenderPhaseEvent getRenderPhaseEvent(Logger logger, OperationTracker tracker)
+    {
+        if (renderPhaseEvent == null)
+        {
+            renderPhaseEvent = new RenderPhaseEvent(this, logger, tracker);
+        }
+
+        if (renderPhaseEvent.reuse(logger, tracker))
+        {
+            return renderPhaseEvent;
+        }
+
+        return new RenderPhaseEvent(this, logger, tracker);
+    }
+
     public void startComponent(ComponentResources resources)
     {
         assert resources != null;
         renderingComponents.push(resources);
+
+        if (metrics != null)
+        {
+            int depth = renderingComponents.getDepth();
+
+            if (depth > componentStartNanos.length)
+            {
+                long[] expanded = new long[componentStartNanos.length * 2];
+
+                System.arraycopy(componentStartNanos, 0, expanded, 0, componentStartNanos.length);
+
+                componentStartNanos = expanded;
+            }
+
+            componentStartNanos[depth - 1] = System.nanoTime();
+        }
     }
 
     public void endComponent()
     {
-        renderingComponents.pop();
+        ComponentResources resources = renderingComponents.pop();
+
+        if (metrics != null)
+        {
+            long elapsedNanos = System.nanoTime() - componentStartNanos[renderingComponents.getDepth()];
+
+            metrics.recordComponentRender(resources.getCompleteId(), elapsedNanos);
+        }
     }
 }
@@ -15,6 +15,7 @@ package org.apache.tapestry5.internal.services;
 import org.apache.tapestry5.Asset;
 import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.InternalConstants;
+import org.apache.tapestry5.internal.services.assets.FileStreamableResource;
 import org.apache.tapestry5.internal.services.assets.ResourceChangeTracker;
 import org.apache.tapestry5.ioc.IOOperation;
 import org.apache.tapestry5.ioc.OperationTracker;
@@ -23,10 +24,13 @@ import org.apache.tapestry5.ioc.annotations.InjectService;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.services.AssetFactory;
 import org.apache.tapestry5.services.Request;
+import org.apache.tapestry5.services.RequestGlobals;
 import org.apache.tapestry5.services.Response;
 import org.apache.tapestry5.services.assets.*;
 
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Set;
@@ -37,10 +41,24 @@ public class ResourceStreamerImpl implements ResourceStreamer
 
     private static final String QUOTE = "\"";
 
+    /**
+     * Request attributes used by Tomcat (when the connector supports sendfile) to send a file without
+     * the content passing through the servlet's output stream.
+     */
+    static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+    static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+    static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
     private final Request request;
 
     private final Response response;
 
+    private final RequestGlobals requestGlobals;
+
     private final StreamableResourceSource streamableResourceSource;
 
     private final boolean productionMode;
@@ -59,6 +77,8 @@ public class ResourceStreamerImpl implements ResourceStreamer
 
                                 Response response,
 
+                                RequestGlobals requestGlobals,
+
                                 StreamableResourceSource streamableResourceSource,
 
                                 OperationTracker tracker,
@@ -79,6 +99,7 @@ public class ResourceStreamerImpl implements ResourceStreamer
     {
         this.request = request;
         this.response = response;
+        this.requestGlobals = requestGlobals;
         this.streamableResourceSource = streamableResourceSource;
 
         this.tracker = tracker;
@@ -226,13 +247,47 @@ public class ResourceStreamerImpl implements ResourceStreamer
 
         OutputStream os = response.getOutputStream(streamable.getContentType().toString());
 
-        streamable.streamTo(os);
+        // When the container sends the file itself (as the response is committed), nothing is written here.
+
+        if (!(streamable instanceof FileStreamableResource && sendFile((FileStreamableResource) streamable)))
+        {
+            streamable.streamTo(os);
+        }
 
         os.close();
 
         return true;
     }
 
+    /**
+     * Asks the servlet container to send the file, if it supports doing so. As with Tomcat's own DefaultServlet,
+     * this is not done when a filter has wrapped the response, since the wrapper (for example, one that compresses
+     * or captures the content) expects the content to be written through it.
+     *
+     * @return true if the container will send the file
+     */
+    private boolean sendFile(FileStreamableResource streamable) throws IOException
+    {
+        if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)))
+        {
+            return false;
+        }
+
+        if (requestGlobals.getHTTPServletResponse() instanceof ServletResponseWrapper)
+        {
+            return false;
+        }
+
+        File file = streamable.getFile();
+
+        // Tomcat may reject file names that are not canonical.
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, (long) streamable.getSize());
+
+        return true;
+    }
+
     private Asset findAssetInsideWebapp(Resource resource)
     {
         Asset asset;
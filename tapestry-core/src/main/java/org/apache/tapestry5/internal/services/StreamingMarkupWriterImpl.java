@@ -0,0 +1,348 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.MarkupWriterListener;
+import org.apache.tapestry5.dom.*;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A {@link MarkupWriter} that avoids building a complete DOM for the page. Text, comments and raw markup are
+ * written directly as markup into a {@link StreamedContent} node of the current element, and each element is
+ * {@linkplain Element#stream() streamed} (collapsed into markup within its container) as soon as it is ended.
+ * As a result, only the currently open elements exist as DOM nodes, along with a few <em>held</em> elements:
+ * <ul>
+ * <li>The root element and its immediate children (typically, {@code <head>} and {@code <body>}) are never
+ * streamed, so that the {@link DocumentLinker} can add attributes to them and add children to them once the
+ * page has finished rendering.</li>
+ * <li>The {@code <head>} element is built as a complete DOM, as the {@link DocumentLinker} positions new
+ * elements relative to existing ones.</li>
+ * <li>{@code <form>} elements are built as a complete DOM (and streamed once ended), as the Form component and the
+ * fields inside it update elements after they have ended (for example, adding the {@code for} attribute to
+ * labels, or adding the hidden form data field).</li>
+ * </ul>
+ * Code that modifies an element after it has been streamed will receive an exception.
+ *
+ * @since 5.4
+ */
+public class StreamingMarkupWriterImpl implements ListenerAwareMarkupWriter
+{
+    /**
+     * Names of elements that are built as a complete DOM, with no streaming inside them.
+     */
+    private static final Set<String> HELD_ELEMENT_NAMES = CollectionFactory.newSet("head", "form");
+
+    private final Document document;
+
+    private Element current;
+
+    private Text currentText;
+
+    /**
+     * Depth of nesting within a held element (zero when not inside a held element).
+     */
+    private int heldDepth;
+
+    private List<MarkupWriterListener> listeners;
+
+    public StreamingMarkupWriterImpl(MarkupModel model, String encoding, String mimeType)
+    {
+        document = new Document(model, encoding, mimeType);
+    }
+
+    public void toMarkup(PrintWriter writer)
+    {
+        document.toMarkup(writer);
+    }
+
+    @Override
+    public String toString()
+    {
+        return document.toString();
+    }
+
+    public Document getDocument()
+    {
+        return document;
+    }
+
+    public Element getElement()
+    {
+        return current;
+    }
+
+    /**
+     * Returns true when content for the current element should be added to the DOM, rather than streamed.
+     */
+    private boolean buildingDOM()
+    {
+        return current == null || heldDepth > 0;
+    }
+
+    public void cdata(String content)
+    {
+        currentText = null;
+
+        if (current == null)
+        {
+            document.cdata(content);
+        } else if (heldDepth > 0)
+        {
+            current.cdata(content);
+        } else
+        {
+            current.streamedContent().cdata(content);
+        }
+    }
+
+    public void write(String text)
+    {
+        if (text == null) return;
+
+        if (!buildingDOM())
+        {
+            current.streamedContent().text(text);
+
+            return;
+        }
+
+        if (currentText == null)
+        {
+            currentText =
+                    current == null
+                            ? document.text(text)
+                            : current.text(text);
+
+            return;
+        }
+
+        currentText.write(text);
+    }
+
+    public void writef(String format, Object... args)
+    {
+        write(String.format(format, args));
+    }
+
+    public void attributes(Object... namesAndValues)
+    {
+        ensureCurrentElement();
+
+        int i = 0;
+
+        int length = namesAndValues.length;
+
+        if (length % 2 != 0)
+            throw new IllegalArgumentException(String.format("Writing attributes of the element '%s' failed. An attribute name or value is omitted [%s]. Please provide an even number of values, alternating names and values.", current.getName(), InternalUtils.join(Arrays
+                    .asList(namesAndValues))));
+
+        while (i < length)
+        {
+            // name should never be null.
+
+            String name = namesAndValues[i++].toString();
+            Object value = namesAndValues[i++];
+
+            if (value == null) continue;
+
+            current.attribute(name, value.toString());
+        }
+    }
+
+    private void ensureCurrentElement()
+    {
+        if (current == null)
+            throw new IllegalStateException("This markup writer does not have a current element. " +
+                    "The current element is established with the first call to element() and is " +
+                    "maintained across subsequent calls.");
+    }
+
+    public Element element(String name, Object... namesAndValues)
+    {
+        if (current == null)
+        {
+            Element existingRootElement = document.getRootElement();
+
+            if (existingRootElement != null)
+                throw new IllegalStateException(String.format(
+                        "A document must have exactly one root element. Element <%s> is already the root element.",
+                        existingRootElement.getName()));
+
+            current = document.newRootElement(name);
+        } else
+        {
+            current = current.element(name);
+        }
+
+        startElement(name);
+
+        attributes(namesAndValues);
+
+        fireElementDidStart();
+
+        return current;
+    }
+
+    public Element elementNS(String namespace, String elementName)
+    {
+        if (current == null) current = document.newRootElement(namespace, elementName);
+        else current = current.elementNS(namespace, elementName);
+
+        startElement(elementName);
+
+        fireElementDidStart();
+
+        return current;
+    }
+
+    private void startElement(String name)
+    {
+        currentText = null;
+
+        if (heldDepth > 0 || HELD_ELEMENT_NAMES.contains(name))
+        {
+            heldDepth++;
+        }
+    }
+
+    public void writeRaw(String text)
+    {
+        currentText = null;
+
+        if (current == null)
+        {
+            document.raw(text);
+        } else if (heldDepth > 0)
+        {
+            current.raw(text);
+        } else
+        {
+            current.streamedContent().raw(text);
+        }
+    }
+
+    public Element end()
+    {
+        ensureCurrentElement();
+
+        fireElementDidEnd();
+
+        Element ended = current;
+
+        current = current.getContainer();
+
+        currentText = null;
+
+        if (heldDepth > 0)
+        {
+            heldDepth--;
+        }
+
+        // Once outside of any held element, the ended element can be streamed into its container, unless
+        // the container is the root element (or the ended element is the root element).
+
+        if (heldDepth == 0 && current != null && current.getContainer() != null)
+        {
+            ended.stream();
+        }
+
+        return current;
+    }
+
+    public void comment(String text)
+    {
+        currentText = null;
+
+        if (current == null)
+        {
+            document.comment(text);
+        } else if (heldDepth > 0)
+        {
+            current.comment(text);
+        } else
+        {
+            current.streamedContent().comment(text);
+        }
+    }
+
+    public Element attributeNS(String namespace, String attributeName, String attributeValue)
+    {
+        ensureCurrentElement();
+
+        current.attribute(namespace, attributeName, attributeValue);
+
+        return current;
+    }
+
+    public Element defineNamespace(String namespace, String namespacePrefix)
+    {
+        ensureCurrentElement();
+
+        current.defineNamespace(namespace, namespacePrefix);
+
+        return current;
+    }
+
+    public void addListener(MarkupWriterListener listener)
+    {
+        assert listener != null;
+
+        if (listeners == null)
+        {
+            listeners = new CopyOnWriteArrayList<MarkupWriterListener>();
+        }
+
+        listeners.add(listener);
+    }
+
+    public boolean hasListeners()
+    {
+        return listeners != null && !listeners.isEmpty();
+    }
+
+    public void removeListener(MarkupWriterListener listener)
+    {
+        if (listeners != null)
+            listeners.remove(listener);
+    }
+
+    private void fireElementDidStart()
+    {
+        if (listeners == null) return;
+
+        for (MarkupWriterListener l : listeners)
+        {
+            l.elementDidStart(current);
+        }
+    }
+
+    private void fireElementDidEnd()
+    {
+        if (listeners == null) return;
+
+        for (MarkupWriterListener l : listeners)
+        {
+            l.elementDidEnd(current);
+        }
+    }
+}
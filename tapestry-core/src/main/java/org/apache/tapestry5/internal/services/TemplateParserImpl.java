@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2009, 2010, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2009, 2010, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -20,7 +20,12 @@ import org.apache.tapestry5.ioc.Invokable;
 import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.util.ExceptionUtils;
+import org.slf4j.Logger;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.util.Map;
 
@@ -28,6 +33,10 @@ import java.util.Map;
  * Parses Tapestry XML template files into {@link ComponentTemplate} instances.
  * A new instance of {@link SaxTemplateParser} is created for each document
  * parsed.
+ * <p/>
+ * When the {@link SymbolConstants#TEMPLATE_CACHE_DIR} symbol is set, parsed templates are also stored in that
+ * directory (in a compact binary form) and read back on later executions of the application, rather than parsing
+ * the template again.
  *
  * @since 5.1.0.0
  */
@@ -39,14 +48,31 @@ public class TemplateParserImpl implements TemplateParser
 
     private final OperationTracker tracker;
 
+    private final Logger logger;
+
+    private final ParsedTemplateCache cache;
+
     public TemplateParserImpl(Map<String, URL> configuration,
 
                               @Symbol(SymbolConstants.COMPRESS_WHITESPACE)
-                              boolean defaultCompressWhitespace, OperationTracker tracker)
+                              boolean defaultCompressWhitespace, OperationTracker tracker,
+
+                              @Symbol(SymbolConstants.TEMPLATE_CACHE_DIR)
+                              String cacheDir,
+
+                              @Symbol(SymbolConstants.TAPESTRY_VERSION)
+                              String tapestryVersion, Logger logger)
     {
         this.configuration = configuration;
         this.defaultCompressWhitespace = defaultCompressWhitespace;
         this.tracker = tracker;
+        this.logger = logger;
+
+        // The parse is affected by the version of Tapestry and by the default for whitespace compression.
+
+        cache = InternalUtils.isBlank(cacheDir)
+                ? null
+                : new ParsedTemplateCache(new File(cacheDir), tapestryVersion + ":" + defaultCompressWhitespace);
     }
 
     public ComponentTemplate parseTemplate(final Resource templateResource)
@@ -58,11 +84,56 @@ public class TemplateParserImpl implements TemplateParser
         {
             public ComponentTemplate invoke()
             {
-                return new SaxTemplateParser(templateResource, configuration).parse(defaultCompressWhitespace);
+                return cache == null ? parse(templateResource) : parseWithCache(templateResource);
             }
         });
     }
 
+    private ComponentTemplate parse(Resource templateResource)
+    {
+        return new SaxTemplateParser(templateResource, configuration).parse(defaultCompressWhitespace);
+    }
+
+    /**
+     * Reads the template from the cache, or parses the template and adds it to the cache. Failures reading or writing
+     * the cache are logged, but are otherwise ignored.
+     */
+    private ComponentTemplate parseWithCache(Resource templateResource)
+    {
+        String fileName;
+
+        try
+        {
+            fileName = cache.toFileName(templateResource);
+
+            ComponentTemplate cached = cache.read(fileName, templateResource);
+
+            if (cached != null)
+            {
+                return cached;
+            }
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to read cached template for %s: %s", templateResource,
+                    ExceptionUtils.toMessage(ex)));
+
+            return parse(templateResource);
+        }
+
+        ComponentTemplate result = parse(templateResource);
+
+        try
+        {
+            cache.write(fileName, result);
+        } catch (IOException ex)
+        {
+            logger.warn(String.format("Unable to cache parsed template %s: %s", templateResource,
+                    ExceptionUtils.toMessage(ex)));
+        }
+
+        return result;
+    }
+
     public Map<String, URL> getDTDURLMappings()
     {
         return configuration;
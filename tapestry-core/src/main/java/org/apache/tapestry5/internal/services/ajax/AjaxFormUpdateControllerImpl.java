@@ -1,4 +1,4 @@
-// Copyright 2010 The Apache Software Foundation
+// Copyright 2010, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import org.apache.tapestry5.corelib.components.Form;
 import org.apache.tapestry5.corelib.internal.ComponentActionSink;
 import org.apache.tapestry5.corelib.internal.HiddenFieldPositioner;
 import org.apache.tapestry5.corelib.internal.InternalFormSupport;
+import org.apache.tapestry5.internal.services.FormDataStore;
 import org.apache.tapestry5.internal.util.CaptureResultCallback;
 import org.apache.tapestry5.ioc.ScopeConstants;
 import org.apache.tapestry5.ioc.annotations.Scope;
@@ -47,6 +48,8 @@ public class AjaxFormUpdateControllerImpl implements AjaxFormUpdateController
 
     private final ClientDataEncoder clientDataEncoder;
 
+    private final FormDataStore formDataStore;
+
     private final Logger logger;
 
     private String formComponentId;
@@ -60,13 +63,14 @@ public class AjaxFormUpdateControllerImpl implements AjaxFormUpdateController
     private InternalFormSupport formSupport;
 
     public AjaxFormUpdateControllerImpl(ComponentSource componentSource, HiddenFieldLocationRules rules,
-            Environment environment, Heartbeat heartbeat, ClientDataEncoder clientDataEncoder, Logger logger)
+            Environment environment, Heartbeat heartbeat, ClientDataEncoder clientDataEncoder, FormDataStore formDataStore, Logger logger)
     {
         this.componentSource = componentSource;
         this.rules = rules;
         this.environment = environment;
         this.heartbeat = heartbeat;
         this.clientDataEncoder = clientDataEncoder;
+        this.formDataStore = formDataStore;
         this.logger = logger;
     }
 
@@ -83,7 +87,7 @@ public class AjaxFormUpdateControllerImpl implements AjaxFormUpdateController
 
         hiddenFieldPositioner = new HiddenFieldPositioner(writer, rules);
 
-        actionSink = new ComponentActionSink(logger, clientDataEncoder);
+        actionSink = new ComponentActionSink(logger, clientDataEncoder, formDataStore);
 
         formSupport = createInternalFormSupport(formClientId, formComponentId, actionSink);
 
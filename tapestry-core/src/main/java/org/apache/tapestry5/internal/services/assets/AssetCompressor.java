@@ -0,0 +1,40 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.services.assets.StreamableResource;
+
+import java.io.IOException;
+
+/**
+ * Produces the GZip compressed variant of a {@link StreamableResource}, used for individual assets and for
+ * aggregated JavaScript stacks. When the {@link org.apache.tapestry5.SymbolConstants#COMPRESSED_ASSET_DIR} symbol is
+ * set, compressed variants are stored in that directory, so that each distinct content is only compressed once,
+ * even across executions of the application.
+ *
+ * @since 5.4
+ */
+public interface AssetCompressor
+{
+    /**
+     * Returns the compressed variant of the resource.
+     *
+     * @param uncompressed
+     *         a resource whose {@linkplain StreamableResource#getCompression() compression} is
+     *         {@link org.apache.tapestry5.services.assets.CompressionStatus#COMPRESSABLE}
+     * @return a resource whose compression is {@link org.apache.tapestry5.services.assets.CompressionStatus#COMPRESSED}
+     */
+    StreamableResource compress(StreamableResource uncompressed) throws IOException;
+}
@@ -0,0 +1,141 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.TapestryInternalUtils;
+import org.apache.tapestry5.internal.util.CacheFileUtils;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.util.ExceptionUtils;
+import org.apache.tapestry5.services.assets.AssetChecksumGenerator;
+import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.StreamableResource;
+import org.slf4j.Logger;
+
+import java.io.*;
+
+public class AssetCompressorImpl implements AssetCompressor
+{
+    /**
+     * Changed whenever the compressed content for the same uncompressed content changes (for example, a different
+     * compression level).
+     */
+    private static final String FORMAT = "gzip-9";
+
+    private final File directory;
+
+    private final int fileStreamingMinSize;
+
+    private final AssetChecksumGenerator checksumGenerator;
+
+    private final Logger logger;
+
+    public AssetCompressorImpl(@Symbol(SymbolConstants.COMPRESSED_ASSET_DIR)
+                               String directory,
+
+                               @Symbol(SymbolConstants.ASSET_FILE_STREAMING_MIN_SIZE)
+                               int fileStreamingMinSize,
+
+                               AssetChecksumGenerator checksumGenerator, Logger logger)
+    {
+        this.directory = InternalUtils.isBlank(directory) ? null : new File(directory);
+        this.fileStreamingMinSize = fileStreamingMinSize;
+        this.checksumGenerator = checksumGenerator;
+        this.logger = logger;
+
+        if (this.directory != null && !this.directory.isDirectory() && !this.directory.mkdirs())
+        {
+            logger.warn(String.format("Unable to create directory %s for compressed assets.", this.directory));
+        }
+    }
+
+    public StreamableResource compress(StreamableResource uncompressed) throws IOException
+    {
+        assert uncompressed.getCompression() == CompressionStatus.COMPRESSABLE;
+
+        if (directory == null)
+        {
+            return new CompressedStreamableResource(uncompressed, checksumGenerator);
+        }
+
+        File file = new File(directory, toFileName(uncompressed));
+
+        if (!file.isFile())
+        {
+            CompressedStreamableResource compressed = new CompressedStreamableResource(uncompressed, checksumGenerator);
+
+            try
+            {
+                store(compressed, file);
+            } catch (IOException ex)
+            {
+                logger.warn(String.format("Unable to store compressed content of %s: %s", uncompressed.getDescription(),
+                        ExceptionUtils.toMessage(ex)));
+            }
+
+            return compressed;
+        }
+
+        long size = file.length();
+
+        if (fileStreamingMinSize >= 0 && size >= fileStreamingMinSize)
+        {
+            return new FileStreamableResource(uncompressed.getDescription(), uncompressed.getContentType(),
+                    CompressionStatus.COMPRESSED, uncompressed.getLastModified(), file, (int) size, checksumGenerator,
+                    uncompressed.getResponseCustomizer());
+        }
+
+        return new StreamableResourceImpl(uncompressed.getDescription(), uncompressed.getContentType(),
+                CompressionStatus.COMPRESSED, uncompressed.getLastModified(), read(file), checksumGenerator,
+                uncompressed.getResponseCustomizer());
+    }
+
+    /**
+     * Files are named for a digest of the uncompressed content.
+     */
+    private static String toFileName(StreamableResource resource) throws IOException
+    {
+        return CacheFileUtils.toFileName(FORMAT.getBytes("UTF-8"), resource.openStream(), ".gz");
+    }
+
+    private static void store(final StreamableResource compressed, File file) throws IOException
+    {
+        CacheFileUtils.store(file, "asset", new CacheFileUtils.ContentWriter()
+        {
+            public void write(OutputStream stream) throws IOException
+            {
+                compressed.streamTo(stream);
+            }
+        });
+    }
+
+    private static BytestreamCache read(File file) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream((int) file.length());
+
+        InputStream stream = new FileInputStream(file);
+
+        try
+        {
+            TapestryInternalUtils.copy(stream, bos);
+        } finally
+        {
+            stream.close();
+        }
+
+        return new BytestreamCache(bos);
+    }
+}
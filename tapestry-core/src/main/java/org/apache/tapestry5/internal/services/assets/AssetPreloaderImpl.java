@@ -0,0 +1,327 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.Asset;
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.IOOperation;
+import org.apache.tapestry5.ioc.OperationTracker;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.ThreadLocale;
+import org.apache.tapestry5.ioc.util.ExceptionUtils;
+import org.apache.tapestry5.services.LocalizationSetter;
+import org.apache.tapestry5.services.assets.AssetPreloader;
+import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
+import org.apache.tapestry5.services.assets.StreamableResourceSource;
+import org.apache.tapestry5.services.javascript.JavaScriptAggregationStrategy;
+import org.apache.tapestry5.services.javascript.JavaScriptStack;
+import org.apache.tapestry5.services.javascript.JavaScriptStackSource;
+import org.apache.tapestry5.services.javascript.ModuleManager;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AssetPreloaderImpl implements AssetPreloader
+{
+    /**
+     * The number of slowest stacks identified in the summary logged at the end of preloading.
+     */
+    private static final int SLOWEST_STACK_COUNT = 10;
+
+    private final Logger logger;
+
+    private final OperationTracker tracker;
+
+    private final JavaScriptStackSource stackSource;
+
+    private final JavaScriptStackAssembler assembler;
+
+    private final StreamableResourceSource streamableResourceSource;
+
+    private final ResourceChangeTracker resourceChangeTracker;
+
+    private final ModuleManager moduleManager;
+
+    private final ThreadLocale threadLocale;
+
+    private final LocalizationSetter localizationSetter;
+
+    private final PerthreadManager perthreadManager;
+
+    private final boolean combineScripts;
+
+    private final boolean compress;
+
+    private final int threadCount;
+
+    /**
+     * Time taken to prepare a single stack, in a single locale.
+     */
+    private static final class StackTiming implements Comparable<StackTiming>
+    {
+        final String description;
+
+        final long elapsedNanos;
+
+        StackTiming(String description, long elapsedNanos)
+        {
+            this.description = description;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public int compareTo(StackTiming o)
+        {
+            // Slowest first
+
+            return elapsedNanos > o.elapsedNanos ? -1 : elapsedNanos == o.elapsedNanos ? 0 : 1;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s (%,.0f ms)", description, elapsedNanos * 10E-7d);
+        }
+    }
+
+    public AssetPreloaderImpl(Logger logger,
+                              OperationTracker tracker,
+                              JavaScriptStackSource stackSource,
+                              JavaScriptStackAssembler assembler,
+                              StreamableResourceSource streamableResourceSource,
+                              ResourceChangeTracker resourceChangeTracker,
+                              ModuleManager moduleManager,
+                              ThreadLocale threadLocale,
+                              LocalizationSetter localizationSetter,
+                              PerthreadManager perthreadManager,
+                              @Symbol(SymbolConstants.COMBINE_SCRIPTS)
+                              boolean combineScripts,
+                              @Symbol(SymbolConstants.GZIP_COMPRESSION_ENABLED)
+                              boolean compress,
+                              @Symbol(SymbolConstants.ASSET_PRELOADER_THREADS)
+                              int threadCount)
+    {
+        this.logger = logger;
+        this.tracker = tracker;
+        this.stackSource = stackSource;
+        this.assembler = assembler;
+        this.streamableResourceSource = streamableResourceSource;
+        this.resourceChangeTracker = resourceChangeTracker;
+        this.moduleManager = moduleManager;
+        this.threadLocale = threadLocale;
+        this.localizationSetter = localizationSetter;
+        this.perthreadManager = perthreadManager;
+        this.combineScripts = combineScripts;
+        this.compress = compress;
+        this.threadCount = Math.max(1, threadCount);
+    }
+
+    @Override
+    public void preloadAssets()
+    {
+        List<String> stackNames = stackSource.getStackNames();
+
+        if (stackNames.isEmpty())
+        {
+            return;
+        }
+
+        List<Locale> locales = localizationSetter.getSupportedLocales();
+
+        int taskCount = stackNames.size() * locales.size();
+
+        int threads = Math.min(threadCount, taskCount);
+
+        logger.info(String.format("Preloading %,d JavaScript stack(s) in %,d locale(s), using %d thread(s).",
+                stackNames.size(), locales.size(), threads));
+
+        long startNanos = System.nanoTime();
+
+        List<StackTiming> timings;
+
+        try
+        {
+            timings = preload(stackNames, locales, threads);
+        } catch (Exception ex)
+        {
+            // Report the exception, and just give up at this point; the stacks will be prepared on first request.
+            logger.error(ExceptionUtils.toMessage(ex), ex);
+
+            return;
+        }
+
+        double elapsedNanos = System.nanoTime() - startNanos;
+
+        logger.info(String.format("Preloaded %,d JavaScript stack(s) in %.2f seconds.",
+                stackNames.size(),
+                elapsedNanos * 10E-10d));
+
+        logTimings(timings);
+    }
+
+    private List<StackTiming> preload(List<String> stackNames, List<Locale> locales, int threads) throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "Tapestry asset preloader " + counter.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+
+        try
+        {
+            List<Future<StackTiming>> futures = CollectionFactory.newList();
+
+            for (final String stackName : stackNames)
+            {
+                for (final Locale locale : locales)
+                {
+                    futures.add(executor.submit(new Callable<StackTiming>()
+                    {
+                        @Override
+                        public StackTiming call() throws Exception
+                        {
+                            // The stack's libraries, and the assembled stack, are specific to the thread's locale.
+
+                            try
+                            {
+                                threadLocale.setLocale(locale);
+
+                                return preloadStack(stackName, locale);
+                            } finally
+                            {
+                                perthreadManager.cleanup();
+                            }
+                        }
+                    }));
+                }
+            }
+
+            List<StackTiming> result = CollectionFactory.newList();
+
+            for (Future<StackTiming> future : futures)
+            {
+                try
+                {
+                    result.add(future.get());
+                } catch (ExecutionException ex)
+                {
+                    Throwable cause = ex.getCause();
+
+                    throw cause instanceof Exception ? (Exception) cause : ex;
+                }
+            }
+
+            return result;
+        } finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private StackTiming preloadStack(final String stackName, Locale locale) throws IOException
+    {
+        long startNanos = System.nanoTime();
+
+        tracker.perform(String.format("Preloading JavaScript stack '%s' (%s).", stackName, locale),
+                new IOOperation<Void>()
+                {
+                    @Override
+                    public Void perform() throws IOException
+                    {
+                        JavaScriptStack stack = stackSource.getStack(stackName);
+
+                        JavaScriptAggregationStrategy strategy = stack.getJavaScriptAggregationStrategy();
+
+                        if (combineScripts && strategy.enablesCombine())
+                        {
+                            // The compressed form is built from the uncompressed form, and both are cached.
+
+                            assembler.assembleJavaScriptResourceForStack(stackName, compress, strategy);
+
+                            return null;
+                        }
+
+                        // Minimization of the stack's libraries can only be disabled inside a request,
+                        // so leave those to be processed (and cached) on first request.
+
+                        if (strategy.enablesMinimize())
+                        {
+                            for (Asset library : stack.getJavaScriptLibraries())
+                            {
+                                preloadResource(library.getResource());
+                            }
+                        }
+
+                        for (String moduleName : stack.getModules())
+                        {
+                            Resource resource = moduleManager.findResourceForModule(moduleName);
+
+                            if (resource != null)
+                            {
+                                preloadResource(resource);
+                            }
+                        }
+
+                        return null;
+                    }
+                });
+
+        return new StackTiming(String.format("%s (%s)", stackName, locale), System.nanoTime() - startNanos);
+    }
+
+    private void preloadResource(Resource resource) throws IOException
+    {
+        streamableResourceSource.getStreamableResource(resource,
+                compress ? StreamableResourceProcessing.COMPRESSION_ENABLED : StreamableResourceProcessing.COMPRESSION_DISABLED,
+                resourceChangeTracker);
+    }
+
+    private void logTimings(List<StackTiming> timings)
+    {
+        Collections.sort(timings);
+
+        if (logger.isDebugEnabled())
+        {
+            for (StackTiming timing : timings)
+            {
+                logger.debug(String.format("Preloaded JavaScript stack %s.", timing));
+            }
+
+            return;
+        }
+
+        List<StackTiming> slowest = timings.subList(0, Math.min(SLOWEST_STACK_COUNT, timings.size()));
+
+        logger.info(String.format("Slowest JavaScript stacks to preload: %s.", slowest.toString().replaceAll("^\\[|\\]$", "")));
+    }
+}
@@ -20,10 +20,13 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
 /**
- * GZip compressed representation of a {@link StreamableResource}.
+ * GZip compressed representation of a {@link StreamableResource}. Since compressed resources are cached (in memory, and
+ * optionally by the {@link AssetCompressor} on disk), content is compressed at the highest level, rather than the
+ * default level used when compressing responses on the fly.
  *
  * @since 5.4
  */
@@ -39,7 +42,12 @@ public class CompressedStreamableResource extends StreamableResourceImpl
     private static BytestreamCache compressContent(StreamableResource resource) throws IOException
     {
         ByteArrayOutputStream compressed = new ByteArrayOutputStream(resource.getSize());
-        OutputStream compressor = new BufferedOutputStream(new GZIPOutputStream(compressed));
+        OutputStream compressor = new BufferedOutputStream(new GZIPOutputStream(compressed)
+        {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        });
 
         resource.streamTo(compressor);
 
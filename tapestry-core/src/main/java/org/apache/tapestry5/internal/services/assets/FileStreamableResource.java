@@ -0,0 +1,196 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.ContentType;
+import org.apache.tapestry5.services.Response;
+import org.apache.tapestry5.services.assets.AssetChecksumGenerator;
+import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.ResponseCustomizer;
+import org.apache.tapestry5.services.assets.StreamableResource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A {@link StreamableResource} whose content is an (untransformed) file, which is read each time the resource is
+ * streamed, rather than being kept in memory. The content is transferred from a {@link FileChannel}, so it is never
+ * copied into a byte array by Tapestry (when the output stream is itself backed by a file or socket channel, the
+ * operating system may transfer the content directly). The {@link org.apache.tapestry5.internal.services.ResourceStreamer}
+ * may also pass the {@linkplain #getFile() file} to the servlet container, when the container supports it.
+ *
+ * @since 5.4
+ */
+public class FileStreamableResource implements StreamableResource
+{
+    private final String description;
+
+    private final ContentType contentType;
+
+    private final CompressionStatus compression;
+
+    private final long lastModified;
+
+    private final File file;
+
+    private final int size;
+
+    private final AssetChecksumGenerator assetChecksumGenerator;
+
+    private final ResponseCustomizer responseCustomizer;
+
+    public FileStreamableResource(String description, ContentType contentType, CompressionStatus compression, long lastModified, File file, int size, AssetChecksumGenerator assetChecksumGenerator, ResponseCustomizer responseCustomizer)
+    {
+        this.description = description;
+        this.contentType = contentType;
+        this.compression = compression;
+        this.lastModified = lastModified;
+        this.file = file;
+        this.size = size;
+        this.assetChecksumGenerator = assetChecksumGenerator;
+        this.responseCustomizer = responseCustomizer;
+    }
+
+    /**
+     * The file containing the content of the resource.
+     */
+    public File getFile()
+    {
+        return file;
+    }
+
+    public String getDescription()
+    {
+        return description;
+    }
+
+    public CompressionStatus getCompression()
+    {
+        return compression;
+    }
+
+    public ContentType getContentType()
+    {
+        return contentType;
+    }
+
+    /**
+     * Returns the size of the file when the resource was created; at most this many bytes are streamed, even if the
+     * file has since grown (so as to match the Content-Length header).
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    public long getLastModified()
+    {
+        return lastModified;
+    }
+
+    public void streamTo(OutputStream os) throws IOException
+    {
+        FileInputStream fis = new FileInputStream(file);
+
+        try
+        {
+            FileChannel channel = fis.getChannel();
+
+            // Not closed, as that would close the output stream.
+            WritableByteChannel target = Channels.newChannel(os);
+
+            long position = 0;
+
+            while (position < size)
+            {
+                long count = channel.transferTo(position, size - position, target);
+
+                // The file has been truncated since the resource was created.
+
+                if (count <= 0)
+                {
+                    throw new IOException(String.format("File %s was truncated to %,d bytes (from %,d bytes) while streaming.",
+                            file, position, size));
+                }
+
+                position += count;
+            }
+        } finally
+        {
+            fis.close();
+        }
+    }
+
+    public InputStream openStream() throws IOException
+    {
+        return new FileInputStream(file);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("StreamableResource<%s %s %s lastModified: %tc size: %d file: %s>", contentType, description, compression.name(),
+                lastModified, size, file);
+    }
+
+    public String getChecksum() throws IOException
+    {
+        return assetChecksumGenerator.generateChecksum(this);
+    }
+
+    @Override
+    public StreamableResource addResponseCustomizer(final ResponseCustomizer customizer)
+    {
+        final ResponseCustomizer oldCustomizer = responseCustomizer;
+
+        if (oldCustomizer == null)
+        {
+            return withNewResourceCustomizer(customizer);
+        }
+
+        return withNewResourceCustomizer(new ResponseCustomizer()
+        {
+            @Override
+            public void customizeResponse(StreamableResource resource, Response response) throws IOException
+            {
+                oldCustomizer.customizeResponse(resource, response);
+                customizer.customizeResponse(resource, response);
+            }
+        });
+    }
+
+    @Override
+    public ResponseCustomizer getResponseCustomizer()
+    {
+        return responseCustomizer;
+    }
+
+    @Override
+    public StreamableResource withContentType(ContentType newContentType)
+    {
+        return new FileStreamableResource(description, newContentType, compression, lastModified, file, size, assetChecksumGenerator, responseCustomizer);
+    }
+
+    private FileStreamableResource withNewResourceCustomizer(ResponseCustomizer customizer)
+    {
+        return new FileStreamableResource(description, contentType, compression, lastModified, file, size, assetChecksumGenerator, customizer);
+    }
+}
@@ -26,6 +26,7 @@ import org.apache.tapestry5.services.javascript.JavaScriptAggregationStrategy;
 import org.apache.tapestry5.services.javascript.ModuleManager;
 
 import java.io.*;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -45,13 +46,17 @@ public class JavaScriptStackAssemblerImpl implements JavaScriptStackAssembler
 
     private final AssetChecksumGenerator checksumGenerator;
 
+    private final AssetCompressor compressor;
+
     private final ModuleManager moduleManager;
 
     private final ResourceMinimizer resourceMinimizer;
 
     private final boolean minificationEnabled;
 
-    private final Map<String, StreamableResource> cache = CollectionFactory.newCaseInsensitiveMap();
+    // Stacks may be assembled by several threads at once (for example, by the AssetPreloader).
+    private final Map<String, StreamableResource> cache =
+            Collections.synchronizedMap(CollectionFactory.<StreamableResource>newCaseInsensitiveMap());
 
     private class Parameters
     {
@@ -80,7 +85,7 @@ public class JavaScriptStackAssemblerImpl implements JavaScriptStackAssembler
     // TODO: Support for aggregated CSS as well as aggregated JavaScript
 
     public JavaScriptStackAssemblerImpl(ThreadLocale threadLocale, ResourceChangeTracker resourceChangeTracker, StreamableResourceSource streamableResourceSource,
-                                        JavaScriptStackSource stackSource, AssetChecksumGenerator checksumGenerator, ModuleManager moduleManager,
+                                        JavaScriptStackSource stackSource, AssetChecksumGenerator checksumGenerator, AssetCompressor compressor, ModuleManager moduleManager,
                                         ResourceMinimizer resourceMinimizer,
                                         @Symbol(SymbolConstants.MINIFICATION_ENABLED)
                                         boolean minificationEnabled)
@@ -90,6 +95,7 @@ public class JavaScriptStackAssemblerImpl implements JavaScriptStackAssembler
         this.streamableResourceSource = streamableResourceSource;
         this.stackSource = stackSource;
         this.checksumGenerator = checksumGenerator;
+        this.compressor = compressor;
         this.moduleManager = moduleManager;
         this.resourceMinimizer = resourceMinimizer;
         this.minificationEnabled = minificationEnabled;
@@ -129,7 +135,7 @@ public class JavaScriptStackAssemblerImpl implements JavaScriptStackAssembler
         {
             StreamableResource uncompressed = assembleJavascriptResourceForStack(parameters.disableCompress());
 
-            return new CompressedStreamableResource(uncompressed, checksumGenerator);
+            return compressor.compress(uncompressed);
         }
 
         JavaScriptStack stack = stackSource.getStack(parameters.stackName);
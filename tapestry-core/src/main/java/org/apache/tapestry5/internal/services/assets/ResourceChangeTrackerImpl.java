@@ -1,4 +1,4 @@
-// Copyright 2011, 2012 The Apache Software Foundation
+// Copyright 2011, 2012, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,13 +19,14 @@ import org.apache.tapestry5.internal.event.InvalidationEventHubImpl;
 import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.DirectoryWatcher;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
-import org.apache.tapestry5.services.UpdateListener;
+import org.apache.tapestry5.services.UpdateDetector;
 import org.apache.tapestry5.services.UpdateListenerHub;
 
 public class ResourceChangeTrackerImpl extends InvalidationEventHubImpl implements ResourceChangeTracker,
-        UpdateListener
+        UpdateDetector
 {
     private final URLChangeTracker tracker;
 
@@ -38,14 +39,14 @@ public class ResourceChangeTrackerImpl extends InvalidationEventHubImpl implemen
 
     public ResourceChangeTrackerImpl(ClasspathURLConverter classpathURLConverter,
                                      @Symbol(SymbolConstants.PRODUCTION_MODE)
-                                     boolean productionMode)
+                                     boolean productionMode, DirectoryWatcher directoryWatcher)
     {
         super(productionMode);
 
         // Use granularity of seconds (not milliseconds) since that works properly
         // with response headers for identifying last modified. Don't track
         // folder changes, just changes to actual files.
-        tracker = productionMode ? null : new URLChangeTracker(classpathURLConverter, true, false);
+        tracker = productionMode ? null : new URLChangeTracker(classpathURLConverter, true, false, directoryWatcher);
     }
 
     @PostInjection
@@ -79,6 +80,11 @@ public class ResourceChangeTrackerImpl extends InvalidationEventHubImpl implemen
         }
     }
 
+    public boolean hasUpdates()
+    {
+        return tracker.peekForChanges();
+    }
+
     public void checkForUpdates()
     {
         if (tracker.containsChanges())
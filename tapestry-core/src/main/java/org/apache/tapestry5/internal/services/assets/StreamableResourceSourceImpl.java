@@ -13,14 +13,19 @@
 package org.apache.tapestry5.internal.services.assets;
 
 import org.apache.tapestry5.ContentType;
+import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.TapestryInternalUtils;
 import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.services.assets.*;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,15 +41,20 @@ public class StreamableResourceSourceImpl implements StreamableResourceSource
 
     private final AssetChecksumGenerator checksumGenerator;
 
+    private final int fileStreamingMinSize;
+
     public StreamableResourceSourceImpl(Map<String, ResourceTransformer> configuration,
                                         ContentTypeAnalyzer contentTypeAnalyzer, CompressionAnalyzer compressionAnalyzer,
-                                        ResourceChangeTracker resourceChangeTracker, AssetChecksumGenerator checksumGenerator)
+                                        ResourceChangeTracker resourceChangeTracker, AssetChecksumGenerator checksumGenerator,
+                                        @Symbol(SymbolConstants.ASSET_FILE_STREAMING_MIN_SIZE)
+                                        int fileStreamingMinSize)
     {
         this.configuration = configuration;
         this.contentTypeAnalyzer = contentTypeAnalyzer;
         this.compressionAnalyzer = compressionAnalyzer;
         this.resourceChangeTracker = resourceChangeTracker;
         this.checksumGenerator = checksumGenerator;
+        this.fileStreamingMinSize = fileStreamingMinSize;
     }
 
     public Set<String> fileExtensionsForContentType(ContentType contentType)
@@ -79,6 +89,21 @@ public class StreamableResourceSourceImpl implements StreamableResourceSource
         // http://jashkenas.github.com/coffee-script/
         ResourceTransformer rt = configuration.get(fileSuffix);
 
+        if (rt == null)
+        {
+            File file = toStreamableFile(baseResource);
+
+            if (file != null)
+            {
+                ContentType contentType = new ContentType(contentTypeAnalyzer.getContentType(baseResource));
+
+                long lastModified = resourceChangeTracker.trackResource(baseResource);
+
+                return new FileStreamableResource(baseResource.toString(), contentType, toCompressionStatus(contentType),
+                        lastModified, file, (int) file.length(), checksumGenerator, null);
+            }
+        }
+
         InputStream transformed = rt == null ? baseResource.openStream() : rt.transform(baseResource, dependencies);
 
         assert transformed != null;
@@ -91,12 +116,42 @@ public class StreamableResourceSourceImpl implements StreamableResourceSource
                 ? new ContentType(contentTypeAnalyzer.getContentType(baseResource))
                 : rt.getTransformedContentType();
 
-        boolean compressable = compressionAnalyzer.isCompressable(contentType.getMimeType());
-
         long lastModified = resourceChangeTracker.trackResource(baseResource);
 
-        return new StreamableResourceImpl(baseResource.toString(), contentType, compressable ? CompressionStatus.COMPRESSABLE
-                : CompressionStatus.NOT_COMPRESSABLE, lastModified, bytestreamCache, checksumGenerator, null);
+        return new StreamableResourceImpl(baseResource.toString(), contentType, toCompressionStatus(contentType),
+                lastModified, bytestreamCache, checksumGenerator, null);
+    }
+
+    private CompressionStatus toCompressionStatus(ContentType contentType)
+    {
+        return compressionAnalyzer.isCompressable(contentType.getMimeType())
+                ? CompressionStatus.COMPRESSABLE
+                : CompressionStatus.NOT_COMPRESSABLE;
+    }
+
+    /**
+     * Returns the file for the resource, if it is stored as a file large enough to be streamed directly from the file
+     * system, or null if the resource should be read into memory.
+     */
+    private File toStreamableFile(Resource resource)
+    {
+        if (fileStreamingMinSize < 0)
+        {
+            return null;
+        }
+
+        URL url = resource.toURL();
+
+        if (url == null || !url.getProtocol().equals("file"))
+        {
+            return null;
+        }
+
+        File file = URLChangeTracker.toFileFromFileProtocolURL(url);
+
+        long length = file.length();
+
+        return file.isFile() && length >= fileStreamingMinSize && length <= Integer.MAX_VALUE ? file : null;
     }
 
     private BytestreamCache readStream(InputStream stream) throws IOException
@@ -0,0 +1,66 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.metrics;
+
+import org.apache.tapestry5.services.*;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
+
+import java.io.IOException;
+
+/**
+ * Records the time taken by page render and component event requests into the {@link RequestMetrics}. Requests that
+ * fail are not recorded.
+ *
+ * @since 5.4
+ */
+public class RequestMetricsFilter implements PageRenderRequestFilter, ComponentEventRequestFilter
+{
+    private final RequestMetrics metrics;
+
+    public RequestMetricsFilter(RequestMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    public void handle(PageRenderRequestParameters parameters, PageRenderRequestHandler handler) throws IOException
+    {
+        long startAllocated = metrics.getCurrentThreadAllocatedBytes();
+        long startNanos = System.nanoTime();
+
+        handler.handle(parameters);
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        metrics.recordPageRender(parameters.getLogicalPageName(), elapsedNanos, allocatedSince(startAllocated));
+    }
+
+    public void handle(ComponentEventRequestParameters parameters, ComponentEventRequestHandler handler)
+            throws IOException
+    {
+        long startAllocated = metrics.getCurrentThreadAllocatedBytes();
+        long startNanos = System.nanoTime();
+
+        handler.handle(parameters);
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        metrics.recordComponentEvent(parameters.getActivePageName(), elapsedNanos, allocatedSince(startAllocated));
+    }
+
+    private long allocatedSince(long startAllocated)
+    {
+        return startAllocated < 0 ? -1 : metrics.getCurrentThreadAllocatedBytes() - startAllocated;
+    }
+}
@@ -0,0 +1,217 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.metrics;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.metrics.LatencyHistogram;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
+import org.apache.tapestry5.services.metrics.TimingSummary;
+import org.slf4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RequestMetricsImpl implements RequestMetrics
+{
+    private static final Comparator<TimingSummary> BY_DESCENDING_TOTAL = new Comparator<TimingSummary>()
+    {
+        public int compare(TimingSummary o1, TimingSummary o2)
+        {
+            return Double.compare(o2.getTotalMillis(), o1.getTotalMillis());
+        }
+    };
+
+    private static class Timings
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        final AtomicLong allocatedBytes = new AtomicLong();
+
+        void record(long elapsedNanos, long allocated)
+        {
+            histogram.record(elapsedNanos);
+
+            if (allocated > 0)
+            {
+                allocatedBytes.addAndGet(allocated);
+            }
+        }
+    }
+
+    private final boolean enabled;
+
+    private final ThreadMXBean threadBean;
+
+    /**
+     * HotSpot's com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long), accessed reflectively, or null if
+     * allocation is not tracked.
+     */
+    private final Method getThreadAllocatedBytes;
+
+    private final ConcurrentMap<String, Timings> pageRenders = CollectionFactory.newConcurrentMap(),
+            componentEvents = CollectionFactory.newConcurrentMap(),
+            componentRenders = CollectionFactory.newConcurrentMap();
+
+    public RequestMetricsImpl(@Symbol(SymbolConstants.REQUEST_METRICS_ENABLED)
+                              boolean enabled,
+
+                              @Symbol(SymbolConstants.REQUEST_METRICS_TRACK_ALLOCATION)
+                              boolean trackAllocation,
+
+                              Logger logger)
+    {
+        this.enabled = enabled;
+
+        threadBean = ManagementFactory.getThreadMXBean();
+
+        getThreadAllocatedBytes = enabled && trackAllocation ? findGetThreadAllocatedBytes(logger) : null;
+    }
+
+    private Method findGetThreadAllocatedBytes(Logger logger)
+    {
+        try
+        {
+            Class<?> beanInterface = Class.forName("com.sun.management.ThreadMXBean");
+
+            if (beanInterface.isInstance(threadBean))
+            {
+                Method result = beanInterface.getMethod("getThreadAllocatedBytes", long.class);
+
+                // Ensure it works before relying on it.
+
+                result.invoke(threadBean, Thread.currentThread().getId());
+
+                return result;
+            }
+        } catch (Exception ex)
+        {
+            // Fall through
+        }
+
+        logger.warn("Allocation tracking is not supported by this JVM; allocated bytes will not be reported.");
+
+        return null;
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public long getCurrentThreadAllocatedBytes()
+    {
+        if (getThreadAllocatedBytes == null)
+        {
+            return -1;
+        }
+
+        try
+        {
+            return (Long) getThreadAllocatedBytes.invoke(threadBean, Thread.currentThread().getId());
+        } catch (Exception ex)
+        {
+            return -1;
+        }
+    }
+
+    public void recordPageRender(String pageName, long elapsedNanos, long allocatedBytes)
+    {
+        record(pageRenders, pageName, elapsedNanos, allocatedBytes);
+    }
+
+    public void recordComponentEvent(String pageName, long elapsedNanos, long allocatedBytes)
+    {
+        record(componentEvents, pageName, elapsedNanos, allocatedBytes);
+    }
+
+    public void recordComponentRender(String completeId, long elapsedNanos)
+    {
+        record(componentRenders, completeId, elapsedNanos, -1);
+    }
+
+    private void record(ConcurrentMap<String, Timings> map, String name, long elapsedNanos, long allocatedBytes)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+
+        Timings timings = map.get(name);
+
+        if (timings == null)
+        {
+            timings = new Timings();
+
+            Timings existing = map.putIfAbsent(name, timings);
+
+            if (existing != null)
+            {
+                timings = existing;
+            }
+        }
+
+        timings.record(elapsedNanos, allocatedBytes);
+    }
+
+    public List<TimingSummary> getPageRenderTimings()
+    {
+        return summarize(pageRenders, true);
+    }
+
+    public List<TimingSummary> getComponentEventTimings()
+    {
+        return summarize(componentEvents, true);
+    }
+
+    public List<TimingSummary> getComponentRenderTimings()
+    {
+        return summarize(componentRenders, false);
+    }
+
+    private List<TimingSummary> summarize(ConcurrentMap<String, Timings> map, boolean includeAllocation)
+    {
+        List<TimingSummary> result = CollectionFactory.newList();
+
+        boolean allocationTracked = includeAllocation && getThreadAllocatedBytes != null;
+
+        for (Map.Entry<String, Timings> entry : map.entrySet())
+        {
+            Timings timings = entry.getValue();
+
+            result.add(new TimingSummary(entry.getKey(), timings.histogram,
+                    allocationTracked ? timings.allocatedBytes.get() : -1));
+        }
+
+        Collections.sort(result, BY_DESCENDING_TOTAL);
+
+        return result;
+    }
+
+    public void reset()
+    {
+        pageRenders.clear();
+        componentEvents.clear();
+        componentRenders.clear();
+    }
+}
@@ -20,6 +20,7 @@ import org.apache.tapestry5.internal.InternalComponentResources;
 import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.internal.services.ComponentEventImpl;
 import org.apache.tapestry5.internal.services.Instantiator;
+import org.apache.tapestry5.internal.services.RenderQueueImpl;
 import org.apache.tapestry5.internal.util.NamedSet;
 import org.apache.tapestry5.internal.util.NotificationEventCallback;
 import org.apache.tapestry5.ioc.BaseLocatable;
@@ -78,6 +79,11 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
 
     private static final Block PLACEHOLDER_BLOCK = new PlaceholderBlock();
 
+    /**
+     * Stored as the value of {@link #renderingValue} when rendering starts with no current element.
+     */
+    private static final Object NO_ELEMENT = new Object();
+
     private static final ComponentCallback POST_RENDER_CLEANUP = new LifecycleNotificationComponentCallback()
     {
         public void run(Component component)
@@ -134,13 +140,14 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
                     return;
                 }
 
-                // Multiple components (i.e., some mixins).
+                // Multiple components (i.e., some mixins). Indexed access avoids allocating an iterator
+                // for each render phase.
 
-                Iterator<Component> i = reverse ? InternalUtils.reverseIterator(components) : components.iterator();
+                int count = components.size();
 
-                while (i.hasNext())
+                for (int i = 0; i < count; i++)
                 {
-                    invokeComponent(i.next(), writer, event);
+                    invokeComponent(components.get(reverse ? count - 1 - i : i), writer, event);
 
                     if (event.isAborted())
                         break;
@@ -416,26 +423,20 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
 
     private class PostRenderCleanupPhase implements RenderCommand
     {
-        /**
-         * Used to detect mismatches calls to {@link MarkupWriter#element(String, Object[])} and
-         * {@link org.apache.tapestry5.MarkupWriter#end()}. The expectation is that any element(s)
-         * begun by this component
-         * during rendering will be balanced by end() calls, resulting in the current element
-         * reverting to its initial
-         * value.
-         */
-        private final Element expectedElementAtCompletion;
-
-        PostRenderCleanupPhase(Element expectedElementAtCompletion)
-        {
-            this.expectedElementAtCompletion = expectedElementAtCompletion;
-        }
-
         public void render(MarkupWriter writer, RenderQueue queue)
         {
-            renderingValue.set(false);
+            // Used to detect mismatches calls to MarkupWriter.element() and end(). The expectation is that
+            // any element(s) begun by this component during rendering will be balanced by end() calls,
+            // resulting in the current element reverting to its initial value.
+
+            Object expectedElementAtCompletion = renderingValue.get();
 
-            Element current = writer.getElement();
+            renderingValue.set(null);
+
+            Object current = writer.getElement();
+
+            if (current == null)
+                current = NO_ELEMENT;
 
             if (current != expectedElementAtCompletion)
                 throw new TapestryException(StructureMessages.unbalancedElements(completeId), getLocation(), null);
@@ -499,7 +500,11 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
 
     private final Page page;
 
-    private final PerThreadValue<Boolean> renderingValue;
+    /**
+     * While the component is rendering, the element that was current when rendering started (or {@link #NO_ELEMENT});
+     * null when not rendering.
+     */
+    private final PerThreadValue<Object> renderingValue;
 
     private final boolean exactParameterCountMatch;
 
@@ -511,6 +516,8 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
     private RenderCommand setupRenderPhase, beginRenderPhase, beforeRenderTemplatePhase, beforeRenderBodyPhase,
             afterRenderBodyPhase, afterRenderTemplatePhase, afterRenderPhase, cleanupRenderPhase;
 
+    private final RenderCommand postRenderCleanupPhase = new PostRenderCleanupPhase();
+
     /**
      * Constructor for other components embedded within the root component or at deeper levels of
      * the hierarchy.
@@ -777,6 +784,8 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
 
         initializeRenderPhases();
 
+        checkStreamingMarkupSupport();
+
         page.addVerifyCallback(new Runnable()
         {
             public void run()
@@ -792,6 +801,36 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
         loaded = true;
     }
 
+    /**
+     * Components and mixins that modify elements after ending them (and so, after a streaming markup writer may
+     * have already converted them to markup) identify themselves with {@link MetaDataConstants#STREAMING_MARKUP}
+     * meta data of "false"; any such component prevents the entire page from being rendered using streaming markup.
+     */
+    private void checkStreamingMarkupSupport()
+    {
+        if (!page.isStreamingMarkupEnabled())
+        {
+            return;
+        }
+
+        boolean supported = isStreamingMarkupSupported(coreResources);
+
+        for (ComponentResources r : NamedSet.getValues(mixinIdToComponentResources))
+        {
+            supported &= isStreamingMarkupSupported(r);
+        }
+
+        if (!supported)
+        {
+            page.disableStreamingMarkup();
+        }
+    }
+
+    private static boolean isStreamingMarkupSupported(ComponentResources resources)
+    {
+        return !"false".equalsIgnoreCase(resources.getComponentModel().getMeta(MetaDataConstants.STREAMING_MARKUP));
+    }
+
     public void enqueueBeforeRenderBody(RenderQueue queue)
     {
         if (bodyBlock != null)
@@ -953,11 +992,11 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
                 return;
             }
 
-            Iterator<Component> i = reverse ? InternalUtils.reverseIterator(components) : components.iterator();
+            int count = components.size();
 
-            while (i.hasNext())
+            for (int i = 0; i < count; i++)
             {
-                callback.run(i.next());
+                callback.run(components.get(reverse ? count - 1 - i : i));
 
                 if (callback.isEventAborted())
                     return;
@@ -975,7 +1014,7 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
 
     public boolean isRendering()
     {
-        return renderingValue.get(false);
+        return renderingValue.get() != null;
     }
 
     /**
@@ -996,11 +1035,13 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
 
         // TODO: Check for recursive rendering.
 
-        renderingValue.set(true);
+        Element current = writer.getElement();
+
+        renderingValue.set(current == null ? NO_ELEMENT : current);
 
         queue.startComponent(coreResources);
 
-        queue.push(new PostRenderCleanupPhase(writer.getElement()));
+        queue.push(postRenderCleanupPhase);
 
         push(queue, setupRenderPhase);
     }
@@ -1248,6 +1289,11 @@ public class ComponentPageElementImpl extends BaseLocatable implements Component
 
     protected RenderPhaseEvent createRenderEvent(RenderQueue queue)
     {
+        // The render queue normally provides a single, reusable event.
+
+        if (queue instanceof RenderQueueImpl)
+            return ((RenderQueueImpl) queue).getRenderPhaseEvent(eventLogger, elementResources);
+
         return new RenderPhaseEvent(new RenderPhaseEventHandler(queue), eventLogger, elementResources);
     }
 
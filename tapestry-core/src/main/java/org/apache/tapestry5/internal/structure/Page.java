@@ -259,5 +259,23 @@ public interface Page extends PageLifecycleCallbackHub
     @NonVisual
     boolean isExactParameterCountMatch();
 
+    /**
+     * Returns true if the page may be rendered using a streaming markup writer. This is controlled by page meta data,
+     * but is disabled if any component or mixin within the page is not compatible with streaming markup.
+     *
+     * @see org.apache.tapestry5.MetaDataConstants#STREAMING_MARKUP
+     * @since 5.4
+     */
+    @NonVisual
+    boolean isStreamingMarkupEnabled();
+
+    /**
+     * Invoked as the page is loaded, when a component or mixin is identified that is not compatible with
+     * streaming markup.
+     *
+     * @since 5.4
+     */
+    void disableStreamingMarkup();
+
 
 }
@@ -68,6 +68,8 @@ public class PageImpl implements Page
 
     private final boolean exactParameterCountMatch;
 
+    private boolean streamingMarkupEnabled;
+
     private List<Runnable> pageVerifyCallbacks = CollectionFactory.newList();
 
     /**
@@ -99,6 +101,8 @@ public class PageImpl implements Page
         fieldBundle = perThreadManager.createValue();
 
         exactParameterCountMatch = metaDataLocator.findMeta(MetaDataConstants.UNKNOWN_ACTIVATION_CONTEXT_CHECK, name, Boolean.class);
+
+        streamingMarkupEnabled = metaDataLocator.findMeta(MetaDataConstants.STREAMING_MARKUP, name, Boolean.class);
     }
 
     public void setStats(Stats stats)
@@ -331,6 +335,18 @@ public class PageImpl implements Page
         return exactParameterCountMatch;
     }
 
+    public boolean isStreamingMarkupEnabled()
+    {
+        return streamingMarkupEnabled;
+    }
+
+    public void disableStreamingMarkup()
+    {
+        verifyListenerLocks.check();
+
+        streamingMarkupEnabled = false;
+    }
+
     public void addPageLoadedCallback(Runnable callback)
     {
         lifecycleListenersLock.check();
@@ -1,4 +1,4 @@
-// Copyright 2010, 2011 The Apache Software Foundation
+// Copyright 2010, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,12 +16,15 @@ package org.apache.tapestry5.internal.structure;
 
 import org.apache.tapestry5.internal.services.EventImpl;
 import org.apache.tapestry5.ioc.OperationTracker;
+import org.apache.tapestry5.runtime.RenderQueue;
 import org.slf4j.Logger;
 
 public class RenderPhaseEvent extends EventImpl
 {
     private final RenderPhaseEventHandler handler;
 
+    private boolean inUse;
+
     public RenderPhaseEvent(RenderPhaseEventHandler handler, Logger logger, OperationTracker tracker)
     {
         super(handler, logger, tracker);
@@ -30,13 +33,69 @@ public class RenderPhaseEvent extends EventImpl
 
     }
 
+    /**
+     * Creates an event that may be {@linkplain #reuse(org.slf4j.Logger, org.apache.tapestry5.ioc.OperationTracker)
+     * reused} for each render phase executed by the queue.
+     *
+     * @since 5.4
+     */
+    public RenderPhaseEvent(RenderQueue queue, Logger logger, OperationTracker tracker)
+    {
+        this(new RenderPhaseEventHandler(queue), logger, tracker);
+    }
+
+    /**
+     * Prepares the event for another render phase, unless it is still in use by a render phase that has not yet
+     * {@linkplain #enqueueSavedRenderCommands() completed} (which occurs when render phases are nested, or when an
+     * earlier render phase failed).
+     *
+     * @return true if the event was reset and may be used, false if it is still in use
+     * @since 5.4
+     */
+    public boolean reuse(Logger logger, OperationTracker tracker)
+    {
+        if (inUse)
+            return false;
+
+        reset(logger, tracker);
+
+        handler.reset();
+
+        inUse = true;
+
+        return true;
+    }
+
+    /**
+     * Boolean results, the most common result of render phase methods, are handled directly rather than via the
+     * {@link OperationTracker}, as handling them can not fail; this avoids building an operation description for each
+     * such result.
+     */
+    @Override
+    public boolean storeResult(Object result)
+    {
+        if (result instanceof Boolean && !isAborted())
+        {
+            handler.handleResult(result);
+
+            abort();
+
+            return true;
+        }
+
+        return super.storeResult(result);
+    }
+
     /**
      * Delegates to {@link org.apache.tapestry5.internal.structure.RenderPhaseEventHandler#enqueueSavedRenderCommands()}, to queue up any
-     * render commands returned from invoked event handler methods.
+     * render commands returned from invoked event handler methods. This completes the render phase, so the event may
+     * then be reused.
      */
     public void enqueueSavedRenderCommands()
     {
         handler.enqueueSavedRenderCommands();
+
+        inUse = false;
     }
 
     public boolean getResult()
@@ -1,4 +1,4 @@
-// Copyright 2008, 2011 The Apache Software Foundation
+// Copyright 2008, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -58,6 +58,20 @@ class RenderPhaseEventHandler implements ComponentEventCallback
 
     }
 
+    /**
+     * Prepares the handler to be reused for another render phase; the list of saved commands is retained, but
+     * cleared.
+     *
+     * @since 5.4
+     */
+    void reset()
+    {
+        result = true;
+
+        if (commands != null)
+            commands.clear();
+    }
+
     /**
      * Handles a result (a return value from an event handler method). The result
      * must be Boolean, {@link RenderCommand} or {@link Renderable}.  For the latter two types, the result
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2009, 2010 The Apache Software Foundation
+// Copyright 2007, 2008, 2009, 2010, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -176,6 +176,9 @@ public class TestableResponseImpl implements TestableResponse
         contentLength = 0;
         contentType = null;
         output.reset();
+
+        // The previous request will have closed the writer.
+        printWriter = null;
     }
 
     public Document getRenderedDocument()
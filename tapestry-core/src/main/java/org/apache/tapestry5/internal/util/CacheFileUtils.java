@@ -0,0 +1,141 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.util;
+
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Support for directories of cached files (such as parsed templates, or compressed assets) that may be shared by
+ * several threads, or several instances of the application. Each file is named for a digest of the content it was
+ * derived from, so changed content simply results in a new file; files are written under a temporary name and then
+ * renamed, so a partially written file is never read.
+ *
+ * @since 5.4
+ */
+public class CacheFileUtils
+{
+    /**
+     * Writes the content of a cached file.
+     */
+    public interface ContentWriter
+    {
+        void write(OutputStream stream) throws IOException;
+    }
+
+    /**
+     * Computes a file name from the SHA-1 digest of a prefix (identifying anything, besides the content, that affects
+     * the file) followed by the content.
+     *
+     * @param prefix
+     *         digested before the content
+     * @param content
+     *         the content, which is read fully and closed
+     * @param extension
+     *         appended to the hex digest
+     * @return the file name
+     */
+    public static String toFileName(byte[] prefix, InputStream content, String extension) throws IOException
+    {
+        MessageDigest digest = newDigest();
+
+        digest.update(prefix);
+
+        try
+        {
+            byte[] buffer = new byte[4096];
+
+            while (true)
+            {
+                int length = content.read(buffer);
+
+                if (length < 0)
+                {
+                    break;
+                }
+
+                digest.update(buffer, 0, length);
+            }
+        } finally
+        {
+            InternalUtils.close(content);
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (byte b : digest.digest())
+        {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+
+        return builder.append(extension).toString();
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Writes a file in the directory under a temporary name, then renames it. If another thread (or process) stores
+     * the same file in the meantime, its copy is kept.
+     *
+     * @param file
+     *         the file to store, which must be within the directory
+     * @param tempPrefix
+     *         prefix for the name of the temporary file
+     * @param writer
+     *         writes the content to the temporary file
+     */
+    public static void store(File file, String tempPrefix, ContentWriter writer) throws IOException
+    {
+        File temp = File.createTempFile(tempPrefix, ".tmp", file.getParentFile());
+
+        try
+        {
+            OutputStream stream = new FileOutputStream(temp);
+
+            try
+            {
+                writer.write(stream);
+            } finally
+            {
+                stream.close();
+            }
+
+            if (!temp.renameTo(file) && !file.isFile())
+            {
+                throw new IOException(String.format("Unable to rename %s to %s.", temp, file));
+            }
+        } finally
+        {
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads data written by a {@link CompactObjectOutputStream}. Classes are loaded using a specific class loader, since
+ * the data may include instances of component classes (such as {@link org.apache.tapestry5.ComponentAction}s
+ * defined as inner classes of components).
+ *
+ * @since 5.4
+ */
+public class CompactObjectInputStream extends ObjectInputStream
+{
+    private final ClassLoader classLoader;
+
+    private final List<String> strings = new ArrayList<String>();
+
+    public CompactObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException
+    {
+        super(in);
+
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public String readUTF() throws IOException
+    {
+        int index = readVarInt();
+
+        if (index == 0)
+        {
+            String result = super.readUTF();
+
+            strings.add(result);
+
+            return result;
+        }
+
+        if (index > strings.size())
+        {
+            throw new StreamCorruptedException(String.format("Invalid string index %d.", index));
+        }
+
+        return strings.get(index - 1);
+    }
+
+    private int readVarInt() throws IOException
+    {
+        int result = 0;
+
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = readUnsignedByte();
+
+            result |= (b & 0x7f) << shift;
+
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+
+        throw new StreamCorruptedException("Invalid variable length integer.");
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException
+    {
+        String name = readUTF();
+        long serialVersionUID = readLong();
+        int fieldsHash = readInt();
+
+        ObjectStreamClass desc = ObjectStreamClass.lookup(Class.forName(name, false, classLoader));
+
+        if (desc == null)
+        {
+            throw new InvalidClassException(name, "Class is not serializable.");
+        }
+
+        if (desc.getSerialVersionUID() != serialVersionUID || CompactObjectOutputStream.hashFields(desc) != fieldsHash)
+        {
+            throw new InvalidClassException(name, "Class has changed since the data was written.");
+        }
+
+        return desc;
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+    {
+        try
+        {
+            return Class.forName(desc.getName(), false, classLoader);
+        } catch (ClassNotFoundException ex)
+        {
+            // Primitive types, for example.
+            return super.resolveClass(desc);
+        }
+    }
+}
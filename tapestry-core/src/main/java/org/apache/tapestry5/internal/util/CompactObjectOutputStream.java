@@ -0,0 +1,107 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.util;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An object output stream that writes class descriptors compactly: rather than the name, serial version UID and full
+ * description of every field (names and types) of each serializable class, just the name, the serial version UID and
+ * a hash of the fields are written. The reader uses the descriptor of its own copy of the class, after checking that
+ * the hashes match. As with ordinary serialization, each class is only described once per stream.
+ * <p/>
+ * In addition, strings written with {@link #writeUTF(String)} (such as the component ids written for each form action)
+ * are written in full only the first time; after that, just an index is written.
+ * <p/>
+ * This is only appropriate when the data will be read back by the same application (as with client data), since
+ * classes whose fields have changed can not be read at all (rather than reading the fields that remain).
+ *
+ * @see CompactObjectInputStream
+ * @since 5.4
+ */
+public class CompactObjectOutputStream extends ObjectOutputStream
+{
+    private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+
+    public CompactObjectOutputStream(OutputStream out) throws IOException
+    {
+        super(out);
+    }
+
+    /**
+     * Writes a variable length integer: 0 for a new string (which follows), or one more than the index of a string
+     * already written.
+     */
+    @Override
+    public void writeUTF(String str) throws IOException
+    {
+        Integer index = stringIndex.get(str);
+
+        if (index != null)
+        {
+            writeVarInt(index + 1);
+
+            return;
+        }
+
+        stringIndex.put(str, stringIndex.size());
+
+        writeVarInt(0);
+
+        super.writeUTF(str);
+    }
+
+    private void writeVarInt(int value) throws IOException
+    {
+        while ((value & ~0x7f) != 0)
+        {
+            write((value & 0x7f) | 0x80);
+
+            value >>>= 7;
+        }
+
+        write(value);
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException
+    {
+        writeUTF(desc.getName());
+        writeLong(desc.getSerialVersionUID());
+        writeInt(hashFields(desc));
+    }
+
+    /**
+     * Computes a hash of the names and types of the serializable fields of the class.
+     */
+    static int hashFields(ObjectStreamClass desc)
+    {
+        int result = 0;
+
+        for (ObjectStreamField field : desc.getFields())
+        {
+            result = 31 * result + field.getName().hashCode();
+            result = 31 * result + (field.isPrimitive() ? field.getTypeCode() : field.getTypeString().hashCode());
+        }
+
+        return result;
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.tapestry5.ioc.services.SymbolProvider;
 import org.apache.tapestry5.services.*;
 import org.apache.tapestry5.services.assets.*;
 import org.apache.tapestry5.services.javascript.JavaScriptStackSource;
+import org.apache.tapestry5.services.pageload.PreloaderMode;
 import org.apache.tapestry5.services.messages.ComponentMessagesSource;
 
 import java.util.Map;
@@ -48,7 +49,9 @@ public class AssetsModule
         binder.bind(ResourceChangeTracker.class, ResourceChangeTrackerImpl.class);
         binder.bind(ResourceMinimizer.class, MasterResourceMinimizer.class);
         binder.bind(AssetChecksumGenerator.class, AssetChecksumGeneratorImpl.class);
+        binder.bind(AssetCompressor.class, AssetCompressorImpl.class);
         binder.bind(JavaScriptStackAssembler.class, JavaScriptStackAssemblerImpl.class);
+        binder.bind(AssetPreloader.class, AssetPreloaderImpl.class);
     }
 
     @Contribute(AssetSource.class)
@@ -76,6 +79,7 @@ public class AssetsModule
         // will change.
         configuration.add(SymbolConstants.MINIFICATION_ENABLED, SymbolConstants.PRODUCTION_MODE_VALUE);
         configuration.add(SymbolConstants.GZIP_COMPRESSION_ENABLED, true);
+        configuration.add(SymbolConstants.COMPRESSED_ASSET_DIR, "");
         configuration.add(SymbolConstants.COMBINE_SCRIPTS, SymbolConstants.PRODUCTION_MODE_VALUE);
         configuration.add(SymbolConstants.ASSET_URL_FULL_QUALIFIED, false);
 
@@ -85,6 +89,28 @@ public class AssetsModule
 
         configuration.add("tapestry.asset.root", "classpath:META-INF/assets/tapestry5");
         configuration.add(SymbolConstants.OMIT_EXPIRATION_CACHE_CONTROL_HEADER, "max-age=60,must-revalidate");
+
+        configuration.add(SymbolConstants.ASSET_PRELOADER_MODE, PreloaderMode.NEVER);
+        configuration.add(SymbolConstants.ASSET_PRELOADER_THREADS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Assembles, minimizes and compresses the JavaScript stacks, when enabled by the
+     * {@link SymbolConstants#ASSET_PRELOADER_MODE} symbol.
+     *
+     * @since 5.4
+     */
+    @Startup
+    public static void preloadAssets(AssetPreloader preloader,
+                                     @Symbol(SymbolConstants.ASSET_PRELOADER_MODE)
+                                     PreloaderMode mode,
+                                     @Symbol(SymbolConstants.PRODUCTION_MODE)
+                                     boolean productionMode)
+    {
+        if (mode.isEnabledFor(productionMode))
+        {
+            preloader.preloadAssets();
+        }
     }
 
     // The use of decorators is to allow third-parties to get their own extensions
@@ -95,10 +121,10 @@ public class AssetsModule
                                                       @Symbol(SymbolConstants.GZIP_COMPRESSION_ENABLED)
                                                       boolean gzipEnabled, @Symbol(SymbolConstants.MIN_GZIP_SIZE)
                                                       int compressionCutoff,
-                                                      AssetChecksumGenerator checksumGenerator)
+                                                      AssetCompressor compressor)
     {
         return gzipEnabled
-                ? new SRSCompressingInterceptor(delegate, compressionCutoff, checksumGenerator)
+                ? new SRSCompressingInterceptor(delegate, compressionCutoff, compressor)
                 : null;
     }
 
@@ -153,10 +179,10 @@ public class AssetsModule
                                                                               @Symbol(SymbolConstants.MINIFICATION_ENABLED)
                                                                               boolean enabled,
                                                                               JavaScriptStackSource javaScriptStackSource,
-                                                                              Request request)
+                                                                              RequestGlobals requestGlobals)
     {
         return enabled
-                ? new JavaScriptStackMinimizeDisabler(delegate, javaScriptStackSource, request)
+                ? new JavaScriptStackMinimizeDisabler(delegate, javaScriptStackSource, requestGlobals)
                 : null;
     }
 
@@ -1,4 +1,4 @@
-// Copyright 2013, 2014 The Apache Software Foundation
+// Copyright 2013-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -33,6 +33,8 @@ public class DashboardModule
     {
         configuration.add("Pages", new DashboardTab("Pages", "core/PageCatalog"));
         configuration.add("Services", new DashboardTab("Services", "core/ServiceStatus"));
+        configuration.add("Metrics", new DashboardTab("Metrics", "core/PageMetrics"));
+        configuration.add("Dependencies", new DashboardTab("Dependencies", "core/ComponentDependencies"));
         configuration.add("Libraries", new DashboardTab("ComponentLibraries", "core/ComponentLibraries"));
     }
 }
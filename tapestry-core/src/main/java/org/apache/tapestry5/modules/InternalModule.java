@@ -12,6 +12,7 @@
 
 package org.apache.tapestry5.modules;
 
+import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.pageload.PageLoaderImpl;
 import org.apache.tapestry5.internal.services.*;
 import org.apache.tapestry5.internal.services.ajax.AjaxFormUpdateController;
@@ -23,8 +24,13 @@ import org.apache.tapestry5.ioc.OrderedConfiguration;
 import org.apache.tapestry5.ioc.ServiceBinder;
 import org.apache.tapestry5.ioc.annotations.Contribute;
 import org.apache.tapestry5.ioc.annotations.Marker;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.ioc.internal.util.DirectoryWatcher;
+import org.apache.tapestry5.ioc.internal.util.PollingDirectoryWatcher;
+import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
 import org.apache.tapestry5.services.*;
 import org.apache.tapestry5.services.transform.ControlledPackageType;
+import org.slf4j.Logger;
 
 import javax.servlet.http.Cookie;
 
@@ -71,6 +77,9 @@ public class InternalModule
         binder.bind(UnknownActivationContextHandler.class, UnknownActivationContextHandlerImpl.class);
         binder.bind(ReloadHelper.class, ReloadHelperImpl.class);
         binder.bind(FormControlNameManager.class, FormControlNameManagerImpl.class);
+        binder.bind(FormDataStore.class, FormDataStoreImpl.class);
+        binder.bind(ComponentDependencyGraph.class, ComponentDependencyGraphImpl.class);
+        binder.bind(PreloadLinkHeaders.class, PreloadLinkHeadersImpl.class);
 
     }
 
@@ -98,6 +107,50 @@ public class InternalModule
         };
     }
 
+    /**
+     * Used by the services that track changes to component classes, templates, message catalogs and assets; the
+     * watch service based implementation requires Java 7, and so is loaded reflectively.
+     *
+     * @see SymbolConstants#WATCH_FILE_CHANGES
+     * @since 5.4
+     */
+    public static DirectoryWatcher buildDirectoryWatcher(@Symbol(SymbolConstants.PRODUCTION_MODE)
+                                                         boolean productionMode,
+
+                                                         @Symbol(SymbolConstants.WATCH_FILE_CHANGES)
+                                                         boolean watchFileChanges,
+
+                                                         RegistryShutdownHub shutdownHub, Logger logger)
+    {
+        if (productionMode || !watchFileChanges)
+        {
+            return new PollingDirectoryWatcher();
+        }
+
+        final DirectoryWatcher watcher;
+
+        try
+        {
+            watcher = (DirectoryWatcher) Class.forName("org.apache.tapestry5.ioc.internal.util.WatchServiceDirectoryWatcher").newInstance();
+        } catch (Throwable ex)
+        {
+            logger.warn(String.format("Unable to use the file system watch service (%s); changes to files will be detected by checking each file.",
+                    ex));
+
+            return new PollingDirectoryWatcher();
+        }
+
+        shutdownHub.addRegistryShutdownListener(new Runnable()
+        {
+            public void run()
+            {
+                watcher.close();
+            }
+        });
+
+        return watcher;
+    }
+
     /**
      * Contributes:
      * <dl>
@@ -0,0 +1,66 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.modules;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.services.metrics.RequestMetricsFilter;
+import org.apache.tapestry5.internal.services.metrics.RequestMetricsImpl;
+import org.apache.tapestry5.ioc.OrderedConfiguration;
+import org.apache.tapestry5.ioc.ServiceBinder;
+import org.apache.tapestry5.ioc.annotations.Symbol;
+import org.apache.tapestry5.services.ComponentEventRequestFilter;
+import org.apache.tapestry5.services.PageRenderRequestFilter;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
+
+/**
+ * Defines the {@link RequestMetrics} service and, when metrics are enabled, the filters that record request times.
+ *
+ * @since 5.4
+ */
+public class MetricsModule
+{
+    public static void bind(ServiceBinder binder)
+    {
+        binder.bind(RequestMetrics.class, RequestMetricsImpl.class);
+    }
+
+    /**
+     * Contributes "Metrics", ahead of all other filters, when metrics are enabled.
+     */
+    public static void contributePageRenderRequestHandler(OrderedConfiguration<PageRenderRequestFilter> configuration,
+                                                          @Symbol(SymbolConstants.REQUEST_METRICS_ENABLED)
+                                                          boolean enabled)
+    {
+        if (enabled)
+        {
+            configuration.addInstance("Metrics", RequestMetricsFilter.class, "before:*");
+        }
+    }
+
+    /**
+     * Contributes "Metrics", ahead of all other filters (including "Ajax", so that Ajax requests are included), when
+     * metrics are enabled.
+     */
+    public static void contributeComponentEventRequestHandler(
+            OrderedConfiguration<ComponentEventRequestFilter> configuration,
+            @Symbol(SymbolConstants.REQUEST_METRICS_ENABLED)
+            boolean enabled)
+    {
+        if (enabled)
+        {
+            configuration.addInstance("Metrics", RequestMetricsFilter.class, "before:*");
+        }
+    }
+}
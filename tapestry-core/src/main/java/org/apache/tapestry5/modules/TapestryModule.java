@@ -116,7 +116,7 @@ import java.util.regex.Pattern;
  */
 @Marker(Core.class)
 @ImportModule(
-        {InternalModule.class, AssetsModule.class, PageLoadModule.class, JavaScriptModule.class, CompatibilityModule.class, DashboardModule.class})
+        {InternalModule.class, AssetsModule.class, PageLoadModule.class, JavaScriptModule.class, CompatibilityModule.class, DashboardModule.class, MetricsModule.class})
 public final class TapestryModule
 {
     private final PipelineBuilder pipelineBuilder;
@@ -1708,12 +1708,16 @@ public final class TapestryModule
      * <dd>Renders a {@code <meta/>} tag describing the active page name (development mode only)</dd>
      * <dt>ImportCoreStack (since 5.4) </dt>
      * <dd>Imports the "core" stack (necessary to get the Bootstrap CSS, if nothing else).</dd>
+     * <dt>AsyncRegions (since 5.4)</dt>
+     * <dd>Provides {@link org.apache.tapestry5.internal.services.AsyncRegionSupport}, and renders the regions once the
+     * rest of the page has rendered</dd>
      * </dl>
      *
      * @see org.apache.tapestry5.SymbolConstants#OMIT_GENERATOR_META
      * @see org.apache.tapestry5.SymbolConstants#PRODUCTION_MODE
      * @see org.apache.tapestry5.SymbolConstants#INCLUDE_CORE_STACK
      * @see org.apache.tapestry5.SymbolConstants#ENABLE_PAGELOADING_MASK
+     * @see org.apache.tapestry5.SymbolConstants#PRELOAD_LINK_HEADERS
      */
     public void contributeMarkupRenderer(OrderedConfiguration<MarkupRendererFilter> configuration,
 
@@ -1734,12 +1738,18 @@ public final class TapestryModule
                                          @Symbol(SymbolConstants.ENABLE_PAGELOADING_MASK)
                                          final boolean enablePageloadingMask,
 
-                                         final ValidationDecoratorFactory validationDecoratorFactory)
+                                         final ValidationDecoratorFactory validationDecoratorFactory,
+
+                                         final PreloadLinkHeaders preloadLinkHeaders)
     {
         MarkupRendererFilter documentLinker = new MarkupRendererFilter()
         {
             public void renderMarkup(MarkupWriter writer, MarkupRenderer renderer)
             {
+                // Links common to every earlier render of the page are added before rendering starts.
+
+                List<String> knownLinks = preloadLinkHeaders.addKnownHeader();
+
                 DocumentLinkerImpl linker = new DocumentLinkerImpl(moduleManager, omitGeneratorMeta, enablePageloadingMask, tapestryVersion);
 
                 environment.push(DocumentLinker.class, linker);
@@ -1749,6 +1759,11 @@ public final class TapestryModule
                 environment.pop(DocumentLinker.class);
 
                 linker.updateDocument(writer.getDocument());
+
+                if (knownLinks != null)
+                {
+                    preloadLinkHeaders.addHeader(linker.getPreloadLinks(), knownLinks);
+                }
             }
         };
 
@@ -1809,10 +1824,29 @@ public final class TapestryModule
             }
         };
 
+        MarkupRendererFilter asyncRegions = new MarkupRendererFilter()
+        {
+            public void renderMarkup(MarkupWriter writer, MarkupRenderer renderer)
+            {
+                AsyncRegionSupportImpl support = new AsyncRegionSupportImpl();
+
+                environment.push(AsyncRegionSupport.class, support);
+
+                renderer.renderMarkup(writer);
+
+                // The regions render with all the other environmentals still available.
+
+                support.renderRegions();
+
+                environment.pop(AsyncRegionSupport.class);
+            }
+        };
+
         configuration.add("DocumentLinker", documentLinker);
         configuration.add("ClientBehaviorSupport", clientBehaviorSupport, "after:JavaScriptSupport");
         configuration.add("Heartbeat", heartbeat);
         configuration.add("ValidationDecorator", defaultValidationDecorator);
+        configuration.add("AsyncRegions", asyncRegions, "after:*");
 
         if (includeCoreStack)
         {
@@ -2117,6 +2151,9 @@ public final class TapestryModule
         // TAP5-2070 keep the old behavior, defaults to false
         configuration.add(MetaDataConstants.UNKNOWN_ACTIVATION_CONTEXT_CHECK, false);
 
+        // Streaming markup is opt-in, as it prevents DOM manipulation of elements after they are ended
+        configuration.add(MetaDataConstants.STREAMING_MARKUP, false);
+
         // TAP5-2197
         configuration.add(SymbolConstants.INCLUDE_CORE_STACK, true);
 
@@ -2142,6 +2179,31 @@ public final class TapestryModule
 
         configuration.add(SymbolConstants.ENABLE_PAGELOADING_MASK, true);
         configuration.add(SymbolConstants.PRELOADER_MODE, PreloaderMode.PRODUCTION);
+        configuration.add(SymbolConstants.PRELOADER_THREADS, 1);
+
+        configuration.add(SymbolConstants.TEMPLATE_CACHE_DIR, "");
+
+        configuration.add(SymbolConstants.PAGE_CACHE_MAX_PAGES, 0);
+        configuration.add(SymbolConstants.PAGE_CACHE_MAX_WEIGHT, 0);
+        configuration.add(SymbolConstants.PAGE_CACHE_IDLE_TIME, "0 s");
+
+        configuration.add(SymbolConstants.REQUEST_METRICS_ENABLED, false);
+        configuration.add(SymbolConstants.REQUEST_METRICS_TRACK_ALLOCATION, false);
+
+        configuration.add(SymbolConstants.ASSET_FILE_STREAMING_MIN_SIZE, 64 * 1024);
+
+        configuration.add(SymbolConstants.COMPACT_CLIENT_DATA, false);
+
+        configuration.add(SymbolConstants.FORM_DATA_STORE_MIN_SIZE, -1);
+        configuration.add(SymbolConstants.FORM_DATA_STORE_MAX_ENTRIES, 10000);
+        configuration.add(SymbolConstants.FORM_DATA_STORE_MAX_SIZE, 10000000L);
+        configuration.add(SymbolConstants.FORM_DATA_STORE_TIME_TO_LIVE, "30 m");
+
+        configuration.add(SymbolConstants.WATCH_FILE_CHANGES, false);
+
+        configuration.add(SymbolConstants.FUSE_STATIC_MARKUP, false);
+
+        configuration.add(SymbolConstants.PRELOAD_LINK_HEADERS, false);
     }
 
     /**
@@ -2629,6 +2691,11 @@ public final class TapestryModule
                 {
                 }
 
+                public boolean hasUpdates()
+                {
+                    return false;
+                }
+
                 public void addUpdateListener(UpdateListener listener)
                 {
 
@@ -92,4 +92,18 @@ public interface MarkupWriterFactory
      * @since 5.4
      */
     MarkupWriter newPartialMarkupWriter(Page page);
+
+    /**
+     * Obtains a markup writer used to render a complete page response. When the page
+     * {@linkplain Page#isStreamingMarkupEnabled() allows it}, the writer is a streaming writer that converts
+     * each element to markup as soon as it is ended, keeping only the open elements (and the page's {@code <head>})
+     * as DOM nodes; otherwise this is the same as {@link #newMarkupWriter(Page)}.
+     *
+     * @param page
+     *         the page to obtain a writer for
+     * @return writer configured for the page
+     * @see org.apache.tapestry5.MetaDataConstants#STREAMING_MARKUP
+     * @since 5.4
+     */
+    MarkupWriter newStreamingMarkupWriter(Page page);
 }
@@ -0,0 +1,42 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.services.assets;
+
+/**
+ * Prepares the JavaScript of each {@link org.apache.tapestry5.services.javascript.JavaScriptStack} at startup time,
+ * so that the first request for a stack does not pay for aggregating, minimizing and compressing it.
+ * <p/>
+ * When scripts are {@linkplain org.apache.tapestry5.SymbolConstants#COMBINE_SCRIPTS combined}, each stack is
+ * assembled (and, when enabled, GZIP compressed) for each of the
+ * {@linkplain org.apache.tapestry5.SymbolConstants#SUPPORTED_LOCALES supported locales}. Otherwise, the individual
+ * libraries and modules of each stack are read through the {@link StreamableResourceSource}, which minimizes and
+ * caches them.
+ * <p/>
+ * Stacks are prepared in parallel, using the number of threads identified by the
+ * {@link org.apache.tapestry5.SymbolConstants#ASSET_PRELOADER_THREADS} symbol. The time taken for each stack is
+ * logged once preloading completes (the slowest stacks at info level, all stacks at debug level).
+ *
+ * @since 5.4
+ */
+public interface AssetPreloader
+{
+    /**
+     * Prepares the stacks. This is invoked at startup only when enabled by the
+     * {@linkplain org.apache.tapestry5.SymbolConstants#ASSET_PRELOADER_MODE asset preloader mode}; invoking it
+     * directly always prepares the stacks.
+     */
+    void preloadAssets();
+}
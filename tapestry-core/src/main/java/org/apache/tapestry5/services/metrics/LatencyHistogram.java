@@ -0,0 +1,198 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.services.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of elapsed times, which may be updated by any number of threads without locking. Times are recorded with
+ * microsecond resolution into buckets on a log-linear scale: each power of two is divided into eight buckets, so
+ * percentiles are accurate to within 12.5%. Times of more than about two minutes are recorded in the last bucket. The
+ * count, total and maximum time are exact.
+ * <p/>
+ * The values of a histogram that is being updated (or {@linkplain #reset() reset}) while it is read may be slightly
+ * inconsistent with each other.
+ *
+ * @since 5.4
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * The largest tracked time, in microseconds (about 137 seconds).
+     */
+    private static final long MAX_TRACKED_MICROS = (1L << 27) - 1;
+
+    private static final int BUCKET_COUNT = indexOf(MAX_TRACKED_MICROS) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a single elapsed time; negative times are ignored.
+     */
+    public void record(long elapsedNanos)
+    {
+        if (elapsedNanos < 0)
+        {
+            return;
+        }
+
+        buckets.incrementAndGet(indexOf(Math.min(elapsedNanos / 1000, MAX_TRACKED_MICROS)));
+
+        count.incrementAndGet();
+        totalNanos.addAndGet(elapsedNanos);
+
+        while (true)
+        {
+            long max = maxNanos.get();
+
+            if (elapsedNanos <= max || maxNanos.compareAndSet(max, elapsedNanos))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKET_COUNT} have a bucket each; above that, the bucket is determined by the position
+     * of the highest one bit, and the three bits that follow it.
+     */
+    private static int indexOf(long micros)
+    {
+        if (micros < SUB_BUCKET_COUNT)
+        {
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the largest time, in microseconds, that is recorded into the bucket.
+     */
+    private static long highestValueOf(int index)
+    {
+        if (index < SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        return ((long) (SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    public long getTotalNanos()
+    {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos()
+    {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns the mean of the recorded times, in nanoseconds, or 0 if no times have been recorded.
+     */
+    public long getMeanNanos()
+    {
+        long count = getCount();
+
+        return count == 0 ? 0 : getTotalNanos() / count;
+    }
+
+    /**
+     * Returns the time, in nanoseconds, that the given percentage of recorded times do not exceed (to within the
+     * accuracy of the histogram, and never more than the maximum recorded time).
+     *
+     * @param percentile
+     *         from 0 to 100
+     * @return the time, or 0 if no times have been recorded
+     */
+    public long getPercentileNanos(double percentile)
+    {
+        assert percentile >= 0 && percentile <= 100;
+
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100d));
+
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += counts[i];
+
+            if (seen >= target)
+            {
+                // The upper end of the bucket is reported, in nanoseconds.
+
+                return Math.min((highestValueOf(i) + 1) * 1000 - 1, getMaxNanos());
+            }
+        }
+
+        return getMaxNanos();
+    }
+
+    /**
+     * Discards all recorded times.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            buckets.set(i, 0);
+        }
+
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.services.metrics;
+
+import java.util.List;
+
+/**
+ * Collects the time taken by page render requests, component event requests, and the rendering of individual
+ * components, when enabled by the {@link org.apache.tapestry5.SymbolConstants#REQUEST_METRICS_ENABLED} symbol.
+ * Times are recorded into {@linkplain LatencyHistogram histograms}, keyed on page name (for requests) or
+ * component id (for component renders). The time for rendering a component includes the time for rendering the
+ * components inside it.
+ * <p/>
+ * The metrics are displayed on the T5Dashboard, and may be exposed via JMX by the tapestry-jmx library.
+ *
+ * @since 5.4
+ */
+public interface RequestMetrics
+{
+    /**
+     * Returns true if metrics are being collected. When false, the other methods do nothing, or return empty lists.
+     */
+    boolean isEnabled();
+
+    /**
+     * Returns the number of bytes allocated, so far, by the current thread; used to compute the bytes allocated while
+     * handling a request.
+     *
+     * @return the number of bytes, or -1 if allocation is not tracked
+     * @see org.apache.tapestry5.SymbolConstants#REQUEST_METRICS_TRACK_ALLOCATION
+     */
+    long getCurrentThreadAllocatedBytes();
+
+    /**
+     * Records the time taken by a page render request.
+     *
+     * @param pageName
+     *         logical name of the page
+     * @param elapsedNanos
+     *         time taken
+     * @param allocatedBytes
+     *         bytes allocated by the request thread, or -1 if not known
+     */
+    void recordPageRender(String pageName, long elapsedNanos, long allocatedBytes);
+
+    /**
+     * Records the time taken by a component event request (traditional or Ajax), including any partial page render.
+     *
+     * @param pageName
+     *         logical name of the page containing the component
+     * @param elapsedNanos
+     *         time taken
+     * @param allocatedBytes
+     *         bytes allocated by the request thread, or -1 if not known
+     */
+    void recordComponentEvent(String pageName, long elapsedNanos, long allocatedBytes);
+
+    /**
+     * Records the time taken to render a single component, from the start of its SetupRender phase to the end of its
+     * CleanupRender phase.
+     *
+     * @param completeId
+     *         the {@linkplain org.apache.tapestry5.ComponentResourcesCommon#getCompleteId() complete id} of the
+     *         component
+     * @param elapsedNanos
+     *         time taken
+     */
+    void recordComponentRender(String completeId, long elapsedNanos);
+
+    /**
+     * Returns summaries of page render requests, sorted by descending total time.
+     */
+    List<TimingSummary> getPageRenderTimings();
+
+    /**
+     * Returns summaries of component event requests, sorted by descending total time.
+     */
+    List<TimingSummary> getComponentEventTimings();
+
+    /**
+     * Returns summaries of component renders, sorted by descending total time.
+     */
+    List<TimingSummary> getComponentRenderTimings();
+
+    /**
+     * Discards all collected metrics.
+     */
+    void reset();
+}
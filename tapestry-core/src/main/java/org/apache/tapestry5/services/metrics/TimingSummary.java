@@ -0,0 +1,117 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.services.metrics;
+
+/**
+ * An immutable summary of the times recorded for a page or component, as of the moment it was created. Times are
+ * expressed in milliseconds.
+ *
+ * @see RequestMetrics
+ * @since 5.4
+ */
+public final class TimingSummary
+{
+    private static final double NANOS_PER_MILLI = 1000000d;
+
+    private final String name;
+
+    private final long count;
+
+    private final double totalMillis, meanMillis, medianMillis, percentile90Millis, percentile99Millis, maxMillis;
+
+    private final long allocatedBytes;
+
+    /**
+     * @param name
+     *         page name or component id
+     * @param histogram
+     *         recorded times
+     * @param allocatedBytes
+     *         total bytes allocated, or -1 if allocation is not tracked
+     */
+    public TimingSummary(String name, LatencyHistogram histogram, long allocatedBytes)
+    {
+        this.name = name;
+        this.allocatedBytes = allocatedBytes;
+
+        count = histogram.getCount();
+        totalMillis = histogram.getTotalNanos() / NANOS_PER_MILLI;
+        meanMillis = histogram.getMeanNanos() / NANOS_PER_MILLI;
+        medianMillis = histogram.getPercentileNanos(50) / NANOS_PER_MILLI;
+        percentile90Millis = histogram.getPercentileNanos(90) / NANOS_PER_MILLI;
+        percentile99Millis = histogram.getPercentileNanos(99) / NANOS_PER_MILLI;
+        maxMillis = histogram.getMaxNanos() / NANOS_PER_MILLI;
+    }
+
+    /**
+     * The page name or component id.
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public double getTotalMillis()
+    {
+        return totalMillis;
+    }
+
+    public double getMeanMillis()
+    {
+        return meanMillis;
+    }
+
+    public double getMedianMillis()
+    {
+        return medianMillis;
+    }
+
+    public double getPercentile90Millis()
+    {
+        return percentile90Millis;
+    }
+
+    public double getPercentile99Millis()
+    {
+        return percentile99Millis;
+    }
+
+    public double getMaxMillis()
+    {
+        return maxMillis;
+    }
+
+    /**
+     * Average number of bytes allocated by the request thread per request, or -1 if allocation is not tracked.
+     *
+     * @see org.apache.tapestry5.SymbolConstants#REQUEST_METRICS_TRACK_ALLOCATION
+     */
+    public long getAllocatedBytesPerRequest()
+    {
+        return allocatedBytes < 0 || count == 0 ? -1 : allocatedBytes / count;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s: %,d requests, mean %.3f ms, 90%% %.3f ms, 99%% %.3f ms, max %.3f ms", name, count,
+                meanMillis, percentile90Millis, percentile99Millis, maxMillis);
+    }
+}
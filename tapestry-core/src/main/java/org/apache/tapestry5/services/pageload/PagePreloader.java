@@ -25,6 +25,10 @@ import org.apache.tapestry5.ioc.annotations.UsesConfiguration;
  * of class loading and transformation, template parsing, and so forth occurs immediately (loading
  * an existing page in a different locale is a relatively inexpensive operation compared to the
  * first load of the page).
+ * <p/>
+ * Pages may be loaded in parallel, using the number of threads identified by the
+ * {@link org.apache.tapestry5.SymbolConstants#PRELOADER_THREADS} symbol. The time taken to load each page is
+ * logged once preloading completes (the slowest pages at info level, all pages at debug level).
  *
  * @since 5.4
  */
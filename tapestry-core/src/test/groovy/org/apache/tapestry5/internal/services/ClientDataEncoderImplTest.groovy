@@ -7,6 +7,8 @@ import org.easymock.EasyMock
 import org.slf4j.Logger
 import org.testng.annotations.Test
 
+import java.util.concurrent.TimeUnit
+
 class ClientDataEncoderImplTest extends TestBase {
 
     def tryEncodeAndDecode(ClientDataEncoder cde) {
@@ -51,7 +53,7 @@ class ClientDataEncoderImplTest extends TestBase {
 
         replay()
 
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "", logger, "foo.bar", alertManager)
+        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "", logger, "foo.bar", alertManager, false, null)
 
         tryEncodeAndDecode cde
 
@@ -60,15 +62,15 @@ class ClientDataEncoderImplTest extends TestBase {
 
     @Test
     void no_logged_error_with_non_blank_passphrase() {
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "Testing, Testing, 1.., 2.., 3...", null, "foo.bar", null)
+        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "Testing, Testing, 1.., 2.., 3...", null, "foo.bar", null, false, null)
 
         tryEncodeAndDecode cde
     }
 
     @Test
     void passphrase_affects_encoded_output() {
-        ClientDataEncoder first = new ClientDataEncoderImpl(null, "first passphrase", null, "foo.bar", null)
-        ClientDataEncoder second = new ClientDataEncoderImpl(null, " different passphrase ", null, "foo.bar", null)
+        ClientDataEncoder first = new ClientDataEncoderImpl(null, "first passphrase", null, "foo.bar", null, false, null)
+        ClientDataEncoder second = new ClientDataEncoderImpl(null, " different passphrase ", null, "foo.bar", null, false, null)
 
         def input = "current time millis is ${System.currentTimeMillis()} ms"
 
@@ -82,7 +84,7 @@ class ClientDataEncoderImplTest extends TestBase {
 
     @Test(expectedExceptions = IllegalArgumentException)
     void decode_with_missing_hmac_prefix_is_a_failure() {
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "a passphrase", null, "foo.bar", null)
+        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "a passphrase", null, "foo.bar", null, false, null)
 
         cde.decodeClientData("so completely invalid")
     }
@@ -92,8 +94,8 @@ class ClientDataEncoderImplTest extends TestBase {
 
         // Simulate tampering by encoding with one passphrase and attempting to decode with a different
         // passphrase.
-        ClientDataEncoder first = new ClientDataEncoderImpl(null, "first passphrase", null, "foo.bar", null)
-        ClientDataEncoder second = new ClientDataEncoderImpl(null, " different passphrase ", null, "foo.bar", null)
+        ClientDataEncoder first = new ClientDataEncoderImpl(null, "first passphrase", null, "foo.bar", null, false, null)
+        ClientDataEncoder second = new ClientDataEncoderImpl(null, " different passphrase ", null, "foo.bar", null, false, null)
 
         def input = "current time millis is ${System.currentTimeMillis()} ms"
 
@@ -110,7 +112,7 @@ class ClientDataEncoderImplTest extends TestBase {
 
     @Test(expectedExceptions = EOFException)
     void check_for_eof() {
-        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "hmac passphrase", null, "foo.bar", null)
+        ClientDataEncoder cde = new ClientDataEncoderImpl(null, "hmac passphrase", null, "foo.bar", null, false, null)
 
         def sink = cde.createSink()
 
@@ -133,4 +135,52 @@ class ClientDataEncoderImplTest extends TestBase {
         unreachable()
     }
 
+    @Test
+    void both_formats_can_be_decoded() {
+        ClientDataEncoder original = new ClientDataEncoderImpl(null, "a passphrase", null, "foo.bar", null, false, null)
+        ClientDataEncoder compact = new ClientDataEncoderImpl(null, "a passphrase", null, "foo.bar", null, true, null)
+
+        def input = [1, 2L, "three", [four: 4.0d]]
+
+        def originalData = convertToClientData original, input
+        def compactData = convertToClientData compact, input
+
+        assert compactData.length() < originalData.length()
+
+        [original, compact].each { cde ->
+            assert cde.decodeClientData(originalData).readObject() == input
+            assert cde.decodeClientData(compactData).readObject() == input
+        }
+    }
+
+    @Test
+    void compact_format_round_trips_many_objects() {
+        ClientDataEncoder compact = new ClientDataEncoderImpl(null, "a passphrase", null, "foo.bar", null, true, null)
+        ClientDataEncoder original = new ClientDataEncoderImpl(null, "a passphrase", null, "foo.bar", null, false, null)
+
+        // Similar to a form with a loop: the same few classes of objects, written once per row
+
+        def objects = (1..50).collectMany { row ->
+            ["row-$row".toString(), new Date(row * 1000L), new BigDecimal("$row.25"), TimeUnit.SECONDS, [row, row * 2L] as Object[]]
+        }
+
+        def write = { ClientDataEncoder cde ->
+            def sink = cde.createSink()
+
+            sink.objectOutputStream.with { stream ->
+                objects.each { stream.writeObject it }
+                stream.close()
+            }
+
+            sink.clientData
+        }
+
+        def compactData = write compact
+
+        assert compactData.length() < write(original).length()
+
+        def stream = compact.decodeClientData compactData
+
+        objects.each { assert stream.readObject() == it }
+    }
 }
@@ -0,0 +1,50 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.integration.app2.pages;
+
+import org.apache.tapestry5.Asset;
+import org.apache.tapestry5.annotations.Environmental;
+import org.apache.tapestry5.annotations.Path;
+import org.apache.tapestry5.ioc.annotations.Inject;
+import org.apache.tapestry5.services.javascript.JavaScriptSupport;
+
+/**
+ * Imports an extra stylesheet when activated with the "extra" context.
+ */
+public class TestPageForPreloadLinks
+{
+    @Inject
+    @Path("context:css/test.css")
+    private Asset stylesheet;
+
+    @Environmental
+    private JavaScriptSupport javaScriptSupport;
+
+    private boolean extra;
+
+    void onActivate(String mode)
+    {
+        extra = mode.equals("extra");
+    }
+
+    void setupRender()
+    {
+        if (extra)
+        {
+            javaScriptSupport.importStylesheet(stylesheet);
+        }
+    }
+}
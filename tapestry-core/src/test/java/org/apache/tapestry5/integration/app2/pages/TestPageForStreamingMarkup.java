@@ -0,0 +1,45 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.integration.app2.pages;
+
+import org.apache.tapestry5.MetaDataConstants;
+import org.apache.tapestry5.annotations.InjectComponent;
+import org.apache.tapestry5.annotations.Meta;
+import org.apache.tapestry5.corelib.components.ActionLink;
+import org.apache.tapestry5.corelib.components.Any;
+
+/**
+ * Uses components that modify their elements after ending them, on a page that otherwise allows streaming markup.
+ */
+@Meta(MetaDataConstants.STREAMING_MARKUP + "=true")
+public class TestPageForStreamingMarkup
+{
+    @InjectComponent
+    private Any any;
+
+    @InjectComponent
+    private ActionLink link;
+
+    public String getAnyId()
+    {
+        return any.getClientId();
+    }
+
+    public String getLinkId()
+    {
+        return link.getClientId();
+    }
+}
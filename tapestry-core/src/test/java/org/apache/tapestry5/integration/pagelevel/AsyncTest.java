@@ -0,0 +1,51 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.integration.pagelevel;
+
+import org.apache.tapestry5.dom.Document;
+import org.apache.tapestry5.test.PageTester;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class AsyncTest extends Assert
+{
+    private PageTester tester;
+
+    @Test
+    public void regions_render_in_document_order()
+    {
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME);
+
+        Document doc = tester.renderPage("TestPageForAsync");
+
+        assertEquals(doc.getElementById("list").getChildMarkup(),
+                "<li><div class=\"slow\">item-1</div></li><li><div class=\"slow\">item-2</div></li><li><div class=\"slow\">item-3</div></li>");
+        assertEquals(doc.getElementById("quick").getChildMarkup(), "<span>quick</span>");
+
+        // Rendered before any of the regions.
+        assertEquals(doc.getElementById("last").getChildMarkup(), "3");
+    }
+
+    @AfterMethod
+    public void after()
+    {
+        if (tester != null)
+        {
+            tester.shutdown();
+        }
+    }
+}
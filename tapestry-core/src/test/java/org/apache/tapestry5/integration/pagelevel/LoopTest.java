@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2009 The Apache Software Foundation
+// Copyright 2006, 2007, 2009, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,11 +15,16 @@
 package org.apache.tapestry5.integration.pagelevel;
 
 import org.apache.tapestry5.dom.Document;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.dom.Node;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.test.PageTester;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 public class LoopTest extends Assert
 {
     private PageTester tester;
@@ -34,6 +39,40 @@ public class LoopTest extends Assert
         assertEquals(doc.getElementById("1").getChildMarkup(), "xyz");
     }
 
+    /**
+     * Rendered twice, as the render phase events and render queue are reused between renders.
+     */
+    @Test
+    public void render_large_loop()
+    {
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME);
+
+        for (int i = 0; i < 2; i++)
+        {
+            Document doc = tester.renderPage("TestPageForLargeLoop");
+
+            List<Element> rows = CollectionFactory.newList();
+
+            for (Node node : doc.getRootElement().find("body/table").getChildren())
+            {
+                if (node instanceof Element)
+                {
+                    rows.add((Element) node);
+                }
+            }
+
+            assertEquals(rows.size(), 10000);
+
+            for (int row : new int[]{0, 4999, 9999})
+            {
+                String value = String.valueOf(row + 1);
+
+                assertEquals(rows.get(row).getChildMarkup().replaceAll("\\s+", ""),
+                        "<td>" + value + "</td><td>" + value + "</td>");
+            }
+        }
+    }
+
     @AfterMethod
     public void after()
     {
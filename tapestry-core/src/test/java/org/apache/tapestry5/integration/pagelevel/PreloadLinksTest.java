@@ -0,0 +1,126 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.integration.pagelevel;
+
+import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.internal.test.TestableResponse;
+import org.apache.tapestry5.ioc.MappedConfiguration;
+import org.apache.tapestry5.test.PageTester;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class PreloadLinksTest extends Assert
+{
+    public static class PreloadLinksModule
+    {
+        public static void contributeApplicationDefaults(MappedConfiguration<String, Object> configuration)
+        {
+            configuration.add(SymbolConstants.PRELOAD_LINK_HEADERS, true);
+        }
+    }
+
+    private PageTester tester;
+
+    @Test
+    public void linked_assets_preloaded()
+    {
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME, PageTester.DEFAULT_CONTEXT_PATH,
+                PreloadLinksModule.class);
+
+        TestableResponse response = tester.renderPageAndReturnResponse("TestPageForHead");
+
+        assertEquals(response.getHeaders("Link").size(), 1);
+
+        String header = (String) response.getHeaders("Link").get(0);
+
+        // The core stack's stylesheets, and its (combined) JavaScript.
+
+        assertTrue(header.contains("/bootstrap.css>; rel=preload; as=style"), header);
+        assertTrue(header.contains("/core.js>; rel=preload; as=script"), header);
+
+        // Later renders, once the links have been seen twice, add them before rendering.
+
+        for (int i = 0; i < 2; i++)
+        {
+            response = tester.renderPageAndReturnResponse("TestPageForHead");
+
+            assertEquals(response.getHeaders("Link"), Arrays.asList(header));
+        }
+    }
+
+    @Test
+    public void links_of_later_renders_are_added_after_rendering()
+    {
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME, "src/test/app2",
+                PreloadLinksModule.class);
+
+        TestableResponse response = tester.renderPageAndReturnResponse("TestPageForPreloadLinks/extra");
+
+        assertEquals(response.getHeaders("Link").size(), 1);
+
+        String first = (String) response.getHeaders("Link").get(0);
+
+        assertTrue(first.contains("/test.css>; rel=preload; as=style"), first);
+
+        // A render that does not link the stylesheet is not told to preload it.
+
+        response = tester.renderPageAndReturnResponse("TestPageForPreloadLinks");
+
+        assertEquals(response.getHeaders("Link").size(), 1);
+
+        String common = (String) response.getHeaders("Link").get(0);
+
+        assertTrue(common.contains("/bootstrap.css>; rel=preload; as=style"), common);
+        assertFalse(common.contains("/test.css"), common);
+
+        // Only the links common to both renders are now added before rendering; the stylesheet follows.
+
+        response = tester.renderPageAndReturnResponse("TestPageForPreloadLinks/extra");
+
+        List<?> headers = response.getHeaders("Link");
+
+        assertEquals(headers.size(), 2);
+        assertEquals(headers.get(0), common);
+        assertTrue(((String) headers.get(1)).endsWith("/test.css>; rel=preload; as=style"), (String) headers.get(1));
+
+        response = tester.renderPageAndReturnResponse("TestPageForPreloadLinks");
+
+        assertEquals(response.getHeaders("Link"), Arrays.asList(common));
+    }
+
+    @Test
+    public void disabled_by_default()
+    {
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME);
+
+        TestableResponse response = tester.renderPageAndReturnResponse("TestPageForHead");
+
+        assertNull(response.getHeader("Link"));
+    }
+
+    @AfterMethod
+    public void after()
+    {
+        if (tester != null)
+        {
+            tester.shutdown();
+        }
+    }
+}
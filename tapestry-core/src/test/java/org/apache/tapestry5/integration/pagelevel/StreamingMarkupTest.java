@@ -0,0 +1,63 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.integration.pagelevel;
+
+import org.apache.tapestry5.dom.Document;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.test.PageTester;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class StreamingMarkupTest extends Assert
+{
+    private PageTester tester;
+
+    /**
+     * NotEmpty, Any and ActionLink may modify their elements after ending them, so a page that contains them is
+     * rendered using a complete DOM, even when it allows streaming markup.
+     */
+    @Test
+    public void components_that_modify_ended_elements()
+    {
+        tester = new PageTester(TestConstants.APP2_PACKAGE, TestConstants.APP2_NAME);
+
+        Document doc = tester.renderPage("TestPageForStreamingMarkup");
+
+        assertEquals(doc.getElementById("empty").getChildMarkup(), "&nbsp;");
+
+        String anyId = doc.getElementById("anyid").getChildMarkup();
+        String linkId = doc.getElementById("linkid").getChildMarkup();
+
+        Element any = doc.getElementById(anyId);
+        Element link = doc.getElementById(linkId);
+
+        assertEquals(any.getName(), "span");
+        assertEquals(any.getChildMarkup(), "any");
+
+        assertEquals(link.getName(), "a");
+        assertEquals(link.getChildMarkup(), "link");
+    }
+
+    @AfterMethod
+    public void after()
+    {
+        if (tester != null)
+        {
+            tester.shutdown();
+        }
+    }
+}
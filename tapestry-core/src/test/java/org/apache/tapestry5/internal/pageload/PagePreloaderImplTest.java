@@ -0,0 +1,147 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.pageload;
+
+import org.apache.tapestry5.internal.services.PageSource;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.internal.QuietOperationTracker;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.ThreadLocale;
+import org.apache.tapestry5.services.ComponentClassResolver;
+import org.apache.tapestry5.services.LocalizationSetter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.easymock.EasyMock.expectLastCall;
+
+public class PagePreloaderImplTest extends InternalBaseTestCase
+{
+    private static final List<String> PAGE_NAMES = Arrays.asList("Index", "Login", "admin/Users", "admin/Roles");
+
+    private final Logger logger = LoggerFactory.getLogger(PagePreloaderImplTest.class);
+
+    private void train_preload(ComponentClassResolver resolver, PageSource source, LocalizationSetter setter)
+    {
+        expect(setter.getSupportedLocales()).andReturn(Arrays.asList(Locale.FRENCH, Locale.ENGLISH));
+
+        for (String pageName : PAGE_NAMES)
+        {
+            train_canonicalizePageName(resolver, pageName, pageName);
+
+            source.pinPage(pageName);
+        }
+    }
+
+    @Test
+    public void pages_loaded_sequentially()
+    {
+        ComponentClassResolver resolver = mockComponentClassResolver();
+        PageSource source = newMock(PageSource.class);
+        ThreadLocale threadLocale = mockThreadLocale();
+        LocalizationSetter setter = newMock(LocalizationSetter.class);
+        PerthreadManager perthreadManager = newMock(PerthreadManager.class);
+
+        train_preload(resolver, source, setter);
+
+        threadLocale.setLocale(Locale.FRENCH);
+
+        replay();
+
+        new PagePreloaderImpl(logger, new QuietOperationTracker(), resolver, source, PAGE_NAMES, threadLocale, setter,
+                perthreadManager, 1).preloadPages();
+
+        verify();
+    }
+
+    @Test
+    public void pages_loaded_in_parallel()
+    {
+        ComponentClassResolver resolver = mockComponentClassResolver();
+        PageSource source = newMock(PageSource.class);
+        ThreadLocale threadLocale = mockThreadLocale();
+        LocalizationSetter setter = newMock(LocalizationSetter.class);
+        PerthreadManager perthreadManager = newMock(PerthreadManager.class);
+
+        train_preload(resolver, source, setter);
+
+        // Each page is loaded in a worker thread that must have its locale set, and be cleaned up afterwards.
+
+        threadLocale.setLocale(Locale.FRENCH);
+        expectLastCall().times(PAGE_NAMES.size());
+
+        perthreadManager.cleanup();
+        expectLastCall().times(PAGE_NAMES.size());
+
+        replay();
+
+        new PagePreloaderImpl(logger, new QuietOperationTracker(), resolver, source, PAGE_NAMES, threadLocale, setter,
+                perthreadManager, 3).preloadPages();
+
+        verify();
+    }
+
+    @Test
+    public void failure_in_parallel_load_stops_preloading()
+    {
+        ComponentClassResolver resolver = mockComponentClassResolver();
+        PageSource source = newMock(PageSource.class);
+        ThreadLocale threadLocale = mockThreadLocale();
+        LocalizationSetter setter = newMock(LocalizationSetter.class);
+        PerthreadManager perthreadManager = newMock(PerthreadManager.class);
+        Logger logger = mockLogger();
+
+        expect(setter.getSupportedLocales()).andReturn(Arrays.asList(Locale.FRENCH));
+
+        threadLocale.setLocale(Locale.FRENCH);
+        expectLastCall().anyTimes();
+
+        perthreadManager.cleanup();
+        expectLastCall().anyTimes();
+
+        RuntimeException failure = new RuntimeException("Page is broken.");
+
+        for (String pageName : PAGE_NAMES)
+        {
+            expect(resolver.canonicalizePageName(pageName)).andReturn(pageName).anyTimes();
+        }
+
+        source.pinPage("Index");
+        expectLastCall().anyTimes();
+
+        source.pinPage("Login");
+        expectLastCall().andThrow(failure).anyTimes();
+
+        source.pinPage("admin/Users");
+        expectLastCall().anyTimes();
+
+        source.pinPage("admin/Roles");
+        expectLastCall().anyTimes();
+
+        logger.info("Preloading 4 pages using 2 threads.");
+        logger.error("Page is broken.", failure);
+
+        replay();
+
+        new PagePreloaderImpl(logger, new QuietOperationTracker(), resolver, source, PAGE_NAMES, threadLocale, setter,
+                perthreadManager, 2).preloadPages();
+
+        verify();
+    }
+}
@@ -0,0 +1,134 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.pageload;
+
+import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.MarkupWriterListener;
+import org.apache.tapestry5.dom.*;
+import org.apache.tapestry5.internal.parser.*;
+import org.apache.tapestry5.internal.services.MarkupWriterImpl;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.runtime.RenderCommand;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class StaticMarkupRenderCommandTest extends InternalBaseTestCase
+{
+    private static final String XHTML = "http://www.w3.org/1999/xhtml";
+
+    private RenderCommand[] commands(String namespace)
+    {
+        return new RenderCommand[]{
+                new TextToken("\n", null),
+                new StartElementToken(namespace, "div", null),
+                new AttributeToken(null, "class", "nav \"main\"", null),
+                new TextToken("Fish & Chips", null),
+                new StartElementToken(namespace, "br", null),
+                PageLoaderImpl.END_ELEMENT,
+                new CommentToken("static", null),
+                PageLoaderImpl.END_ELEMENT,
+                new StartElementToken(namespace, "p", null),
+                PageLoaderImpl.END_ELEMENT
+        };
+    }
+
+    private MarkupWriter render(MarkupModel model, String namespace, RenderCommand command)
+    {
+        MarkupWriter writer = new MarkupWriterImpl(model);
+
+        writer.elementNS(namespace, "html");
+
+        command.render(writer, null);
+
+        writer.end();
+
+        return writer;
+    }
+
+    @DataProvider
+    public Object[][] models_and_namespaces()
+    {
+        return new Object[][]{
+                {new DefaultMarkupModel(), ""},
+                {new DefaultMarkupModel(), XHTML},
+                {new XMLMarkupModel(), XHTML},
+                {new Html5MarkupModel(), ""}
+        };
+    }
+
+    @Test(dataProvider = "models_and_namespaces")
+    public void markup_matches_rendered_elements(MarkupModel model, String namespace)
+    {
+        RenderCommand[] commands = commands(namespace);
+
+        MarkupWriter expected = render(model, namespace, new CompositeRenderCommand(commands));
+
+        MarkupWriter actual = render(model, namespace, new StaticMarkupRenderCommand(namespace, commands));
+
+        assertEquals(actual.toString(), expected.toString());
+
+        Element root = actual.getDocument().getRootElement();
+
+        assertEquals(root.getChildren().size(), 1);
+        assertTrue(root.getChildren().get(0) instanceof Raw);
+    }
+
+    @Test
+    public void elements_are_rendered_when_writer_has_listeners()
+    {
+        final List<String> started = CollectionFactory.newList();
+
+        MarkupWriter writer = new MarkupWriterImpl();
+
+        writer.element("html");
+
+        writer.addListener(new MarkupWriterListener()
+        {
+            public void elementDidStart(Element element)
+            {
+                started.add(element.getName());
+            }
+
+            public void elementDidEnd(Element element)
+            {
+            }
+        });
+
+        new StaticMarkupRenderCommand("", commands("")).render(writer, null);
+
+        assertListsEquals(started, "div", "br", "p");
+
+        assertNotNull(writer.getDocument().find("html/div/br"));
+    }
+
+    @Test
+    public void elements_are_rendered_when_namespace_does_not_match_container()
+    {
+        MarkupWriter writer = new MarkupWriterImpl();
+
+        writer.element("html");
+
+        new StaticMarkupRenderCommand(XHTML, commands(XHTML)).render(writer, null);
+
+        writer.end();
+
+        assertNotNull(writer.getDocument().find("html/div/br"));
+
+        assertTrue(writer.toString().contains("xmlns=\"http://www.w3.org/1999/xhtml\""));
+    }
+}
@@ -0,0 +1,400 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.services.*;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CheckForUpdatesFilterTest extends InternalBaseTestCase
+{
+    @Test
+    public void listeners_are_not_updated_when_there_are_no_updates() throws IOException
+    {
+        Request request = mockRequest();
+        Response response = mockResponse();
+        RequestHandler handler = mockRequestHandler();
+        UpdateListenerHub hub = newMock(UpdateListenerHub.class);
+
+        expect(hub.hasUpdates()).andReturn(false);
+
+        train_service(handler, request, response, true);
+
+        replay();
+
+        RequestFilter filter = new CheckForUpdatesFilter(hub, 1000, 50);
+
+        assertTrue(filter.service(request, response, handler));
+
+        verify();
+    }
+
+    @Test
+    public void listeners_are_updated_before_request_is_processed() throws IOException
+    {
+        Request request = mockRequest();
+        Response response = mockResponse();
+        RequestHandler handler = mockRequestHandler();
+        UpdateListenerHub hub = newMock(UpdateListenerHub.class);
+
+        expect(hub.hasUpdates()).andReturn(true);
+        hub.fireCheckForUpdates();
+
+        train_service(handler, request, response, false);
+
+        replay();
+
+        RequestFilter filter = new CheckForUpdatesFilter(hub, 1000, 50);
+
+        assertFalse(filter.service(request, response, handler));
+
+        verify();
+    }
+
+    @Test
+    public void check_is_not_repeated_within_interval() throws IOException
+    {
+        Request request = mockRequest();
+        Response response = mockResponse();
+        RequestHandler handler = mockRequestHandler();
+        UpdateListenerHub hub = newMock(UpdateListenerHub.class);
+
+        expect(hub.hasUpdates()).andReturn(false).once();
+
+        expect(handler.service(request, response)).andReturn(true).times(2);
+
+        replay();
+
+        RequestFilter filter = new CheckForUpdatesFilter(hub, 60 * 1000, 50);
+
+        filter.service(request, response, handler);
+        filter.service(request, response, handler);
+
+        verify();
+    }
+
+    @Test
+    public void update_is_abandoned_if_active_requests_do_not_complete() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final StubHub hub = new StubHub();
+
+        final RequestFilter filter = new CheckForUpdatesFilter(hub, 0, 50);
+
+        Thread slow = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    filter.service(null, null, new RequestHandler()
+                    {
+                        public boolean service(Request request, Response response)
+                        {
+                            started.countDown();
+
+                            try
+                            {
+                                release.await();
+                            } catch (InterruptedException ex)
+                            {
+                                // Ignore
+                            }
+
+                            return true;
+                        }
+                    });
+                } catch (IOException ex)
+                {
+                    // Ignore
+                }
+            }
+        };
+
+        slow.start();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        hub.hasUpdates = true;
+
+        // The second request is not held up by the first, and the update does not occur while the first request
+        // is still active.
+
+        assertTrue(filter.service(null, null, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                return true;
+            }
+        }));
+
+        assertEquals(hub.fireCount, 0);
+
+        release.countDown();
+        slow.join();
+
+        filter.service(null, null, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                return true;
+            }
+        });
+
+        assertEquals(hub.fireCount, 1);
+    }
+
+    @Test
+    public void update_proceeds_as_soon_as_active_requests_complete() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final StubHub hub = new StubHub();
+
+        // The timeout is long enough that the update only proceeds if the completing request signals it.
+
+        final RequestFilter filter = new CheckForUpdatesFilter(hub, 0, 60 * 1000);
+
+        Thread slow = startRequest(filter, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                started.countDown();
+
+                try
+                {
+                    release.await();
+                } catch (InterruptedException ex)
+                {
+                    // Ignore
+                }
+
+                return true;
+            }
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        hub.hasUpdates = true;
+
+        Thread updating = startRequest(filter, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                return true;
+            }
+        });
+
+        awaitState(updating, Thread.State.TIMED_WAITING);
+
+        assertEquals(hub.fireCount, 0);
+
+        release.countDown();
+
+        slow.join();
+        updating.join(5000);
+
+        assertFalse(updating.isAlive());
+        assertEquals(hub.fireCount, 1);
+    }
+
+    @Test
+    public void requests_wait_while_listeners_are_updated() throws Exception
+    {
+        final StubHub hub = new StubHub();
+
+        hub.hasUpdates = true;
+        hub.firing = new CountDownLatch(1);
+        hub.release = new CountDownLatch(1);
+
+        final RequestFilter filter = new CheckForUpdatesFilter(hub, 0, 60 * 1000);
+
+        final AtomicInteger fireCountSeen = new AtomicInteger(-1);
+
+        Thread updating = startRequest(filter, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                return true;
+            }
+        });
+
+        assertTrue(hub.firing.await(5, TimeUnit.SECONDS));
+
+        Thread waiting = startRequest(filter, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                fireCountSeen.set(hub.fireCount);
+
+                return true;
+            }
+        });
+
+        awaitState(waiting, Thread.State.WAITING);
+
+        assertEquals(fireCountSeen.get(), -1);
+
+        hub.release.countDown();
+
+        updating.join(5000);
+        waiting.join(5000);
+
+        assertFalse(waiting.isAlive());
+        assertEquals(fireCountSeen.get(), 1);
+    }
+
+    @Test
+    public void requests_do_not_wait_for_the_check_for_updates() throws Exception
+    {
+        final StubHub hub = new StubHub();
+
+        hub.checking = new CountDownLatch(1);
+        hub.checkRelease = new CountDownLatch(1);
+
+        final RequestFilter filter = new CheckForUpdatesFilter(hub, 0, 50);
+
+        final CountDownLatch serviced = new CountDownLatch(1);
+
+        Thread checking = startRequest(filter, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                return true;
+            }
+        });
+
+        assertTrue(hub.checking.await(5, TimeUnit.SECONDS));
+
+        // The check is in progress; this request is processed without waiting for it to finish.
+
+        startRequest(filter, new RequestHandler()
+        {
+            public boolean service(Request request, Response response)
+            {
+                serviced.countDown();
+
+                return true;
+            }
+        });
+
+        assertTrue(serviced.await(5, TimeUnit.SECONDS));
+
+        hub.checkRelease.countDown();
+
+        checking.join();
+
+        assertEquals(hub.fireCount, 0);
+    }
+
+    private static Thread startRequest(final RequestFilter filter, final RequestHandler handler)
+    {
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    filter.service(null, null, handler);
+                } catch (IOException ex)
+                {
+                    // Ignore
+                }
+            }
+        };
+
+        thread.start();
+
+        return thread;
+    }
+
+    private static void awaitState(Thread thread, Thread.State state)
+    {
+        while (thread.getState() != state)
+        {
+            assertTrue(thread.isAlive());
+
+            Thread.yield();
+        }
+    }
+
+    private static class StubHub implements UpdateListenerHub
+    {
+        volatile boolean hasUpdates;
+
+        volatile int fireCount;
+
+        /**
+         * If set, counted down when the listeners are fired, which then waits for release.
+         */
+        volatile CountDownLatch firing, release;
+
+        /**
+         * If set, counted down when checking for updates, which then waits for checkRelease.
+         */
+        volatile CountDownLatch checking, checkRelease;
+
+        public void addUpdateListener(UpdateListener listener)
+        {
+        }
+
+        public void fireCheckForUpdates()
+        {
+            if (firing != null)
+            {
+                firing.countDown();
+
+                try
+                {
+                    release.await();
+                } catch (InterruptedException ex)
+                {
+                    // Ignore
+                }
+            }
+
+            fireCount++;
+
+            hasUpdates = false;
+        }
+
+        public boolean hasUpdates()
+        {
+            if (checking != null)
+            {
+                checking.countDown();
+
+                try
+                {
+                    checkRelease.await();
+                } catch (InterruptedException ex)
+                {
+                    // Ignore
+                }
+            }
+
+            return hasUpdates;
+        }
+    }
+}
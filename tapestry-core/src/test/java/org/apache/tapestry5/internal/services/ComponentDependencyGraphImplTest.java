@@ -0,0 +1,135 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ComponentDependencyGraphImplTest extends InternalBaseTestCase
+{
+    private final List<Set<String>> invalidations = CollectionFactory.newList();
+
+    private static Set<String> set(String... values)
+    {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+
+    private ComponentDependencyGraph newGraph(boolean productionMode)
+    {
+        invalidations.clear();
+
+        ComponentDependencyGraph graph = new ComponentDependencyGraphImpl(productionMode);
+
+        graph.addInvalidationListener(new ComponentInvalidationListener()
+        {
+            public void componentsInvalidated(Set<String> componentClassNames)
+            {
+                invalidations.add(componentClassNames);
+            }
+        });
+
+        // Index embeds Layout (with the Confirm mixin) and Grid; Layout extends BaseLayout.
+
+        graph.register("app.pages.Index", set("app.components.Layout", "core.Grid", "app.mixins.Confirm"));
+        graph.register("app.components.Layout", set("app.base.BaseLayout", "core.Zone"));
+        graph.register("core.Grid", set("core.GridRows"));
+        graph.register("app.pages.About", set("app.components.Layout"));
+
+        return graph;
+    }
+
+    @Test
+    public void dependencies_and_dependents()
+    {
+        ComponentDependencyGraph graph = newGraph(false);
+
+        assertEquals(graph.getComponentClassNames(), set("app.pages.Index", "app.components.Layout",
+                "core.Grid", "app.pages.About"));
+
+        assertListsEquals(CollectionFactory.newList(graph.getDependencies("app.pages.Index")),
+                "app.components.Layout", "app.mixins.Confirm", "core.Grid");
+
+        assertListsEquals(CollectionFactory.newList(graph.getDependents("app.components.Layout")),
+                "app.pages.About", "app.pages.Index");
+
+        assertTrue(graph.getDependents("app.pages.Index").isEmpty());
+    }
+
+    @Test
+    public void invalidation_includes_indirect_dependents()
+    {
+        ComponentDependencyGraph graph = newGraph(false);
+
+        graph.invalidate(Arrays.asList("app.base.BaseLayout"));
+
+        assertEquals(invalidations, Arrays.asList(set("app.base.BaseLayout",
+                "app.components.Layout", "app.pages.Index", "app.pages.About")));
+
+        // The invalidated components are registered again as they are re-assembled.
+
+        assertEquals(graph.getComponentClassNames(), Collections.singleton("core.Grid"));
+        assertTrue(graph.getDependents("core.Grid").isEmpty());
+    }
+
+    @Test
+    public void invalidation_of_unrelated_component()
+    {
+        ComponentDependencyGraph graph = newGraph(false);
+
+        graph.invalidate(Arrays.asList("core.GridRows"));
+
+        assertEquals(invalidations, Arrays.asList(set("core.GridRows", "core.Grid",
+                "app.pages.Index")));
+
+        assertListsEquals(CollectionFactory.newList(graph.getComponentClassNames()), "app.components.Layout",
+                "app.pages.About");
+    }
+
+    @Test
+    public void register_replaces_dependencies()
+    {
+        ComponentDependencyGraph graph = newGraph(false);
+
+        graph.register("app.pages.Index", set("core.Grid"));
+
+        assertEquals(graph.getDependents("app.components.Layout"), Collections.singleton("app.pages.About"));
+    }
+
+    @Test
+    public void invalidate_all()
+    {
+        ComponentDependencyGraph graph = newGraph(false);
+
+        graph.invalidate(null);
+
+        assertEquals(invalidations, Collections.singletonList(null));
+        assertTrue(graph.getComponentClassNames().isEmpty());
+    }
+
+    @Test
+    public void dependencies_not_recorded_in_production_mode()
+    {
+        ComponentDependencyGraph graph = newGraph(true);
+
+        assertTrue(graph.getComponentClassNames().isEmpty());
+    }
+}
@@ -16,7 +16,11 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
 
 import org.apache.tapestry5.TapestryConstants;
@@ -25,6 +29,8 @@ import org.apache.tapestry5.internal.test.InternalBaseTestCase;
 import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.internal.services.ClasspathURLConverterImpl;
 import org.apache.tapestry5.ioc.internal.util.ClasspathResource;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.PollingDirectoryWatcher;
 import org.apache.tapestry5.ioc.services.ClasspathURLConverter;
 import org.apache.tapestry5.model.ComponentModel;
 import org.apache.tapestry5.services.InvalidationListener;
@@ -102,7 +108,7 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
 
         replay();
 
-        ComponentTemplateSource source = new ComponentTemplateSourceImpl(true, parser, locator, converter);
+        ComponentTemplateSource source = new ComponentTemplateSourceImpl(true, parser, locator, converter, new PollingDirectoryWatcher());
 
         assertSame(source.getTemplate(model, english), template);
 
@@ -144,6 +150,7 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
         InvalidationListener listener = mockInvalidationListener();
 
         train_getComponentClassName(model, "baz.Biff");
+        train_getBaseResource(model, baseResource);
 
         ComponentResourceLocator locator = mockLocator(model, english, localized);
 
@@ -151,7 +158,7 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
 
         replay();
 
-        ComponentTemplateSourceImpl source = new ComponentTemplateSourceImpl(false, parser, locator, converter);
+        ComponentTemplateSourceImpl source = new ComponentTemplateSourceImpl(false, parser, locator, converter, new PollingDirectoryWatcher());
         source.addInvalidationListener(listener);
 
         assertSame(source.getTemplate(model, Locale.ENGLISH), template);
@@ -182,6 +189,7 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
         // Check that the cache really is cleared.
 
         train_getComponentClassName(model, "baz.Biff");
+        train_getBaseResource(model, baseResource);
 
         expect(locator.locateTemplate(model, english)).andReturn(localized);
 
@@ -194,6 +202,86 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
         verify();
     }
 
+    @Test
+    public void only_the_components_affected_by_a_change_are_invalidated() throws Exception
+    {
+        File rootDir = createClasspathRoot();
+        URLClassLoader loader = newLoaderWithClasspathRoot(rootDir);
+
+        File packageDir = new File(rootDir, "baz");
+        packageDir.mkdirs();
+
+        File barneyFile = new File(packageDir, "Barney.tml");
+        File fredFile = new File(packageDir, "Fred.tml");
+
+        barneyFile.createNewFile();
+        fredFile.createNewFile();
+
+        Resource barney = new ClasspathResource(loader, "baz/Barney.tml");
+        Resource fred = new ClasspathResource(loader, "baz/Fred.tml");
+        Resource baseResource = new ClasspathResource(loader, "baz/Barney.class");
+
+        TemplateParser parser = mockTemplateParser();
+        ComponentTemplate template = mockComponentTemplate();
+        ComponentModel barneyModel = mockComponentModel();
+        ComponentModel fredModel = mockComponentModel();
+        ComponentResourceLocator locator = newMock(ComponentResourceLocator.class);
+
+        train_getComponentClassName(barneyModel, "baz.Barney");
+        train_getBaseResource(barneyModel, baseResource);
+        expect(locator.locateTemplate(barneyModel, english)).andReturn(barney);
+        train_parseTemplate(parser, barney, template);
+
+        train_getComponentClassName(fredModel, "baz.Fred");
+        train_getBaseResource(fredModel, baseResource);
+        expect(locator.locateTemplate(fredModel, english)).andReturn(fred);
+        train_parseTemplate(parser, fred, template);
+
+        replay();
+
+        final List<Set<String>> invalidations = CollectionFactory.newList();
+
+        ComponentDependencyGraph graph = new ComponentDependencyGraphImpl(false);
+
+        graph.addInvalidationListener(new ComponentInvalidationListener()
+        {
+            public void componentsInvalidated(Set<String> componentClassNames)
+            {
+                invalidations.add(componentClassNames);
+            }
+        });
+
+        ComponentTemplateSourceImpl source = new ComponentTemplateSourceImpl(false, parser, locator, converter, new PollingDirectoryWatcher());
+        source.setupDependencies(graph);
+
+        assertSame(source.getTemplate(barneyModel, english), template);
+        assertSame(source.getTemplate(fredModel, english), template);
+
+        verify();
+
+        touch(fredFile);
+
+        source.checkForUpdates();
+
+        assertEquals(invalidations, Arrays.asList(Collections.singleton("baz.Fred")));
+
+        // Only Fred's template is parsed again.
+
+        train_getComponentClassName(barneyModel, "baz.Barney");
+
+        train_getComponentClassName(fredModel, "baz.Fred");
+        train_getBaseResource(fredModel, baseResource);
+        expect(locator.locateTemplate(fredModel, english)).andReturn(fred);
+        train_parseTemplate(parser, fred, template);
+
+        replay();
+
+        assertSame(source.getTemplate(barneyModel, english), template);
+        assertSame(source.getTemplate(fredModel, english), template);
+
+        verify();
+    }
+
     /**
      * Checks that localization to the same resource works (w/ caching).
      */
@@ -219,7 +307,7 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
 
         replay();
 
-        ComponentTemplateSourceImpl source = new ComponentTemplateSourceImpl(true, parser, locator, converter);
+        ComponentTemplateSourceImpl source = new ComponentTemplateSourceImpl(true, parser, locator, converter, new PollingDirectoryWatcher());
 
         assertSame(source.getTemplate(model, Locale.ENGLISH), template);
 
@@ -257,7 +345,7 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
 
         replay();
 
-        ComponentTemplateSourceImpl source = new ComponentTemplateSourceImpl(true, parser, locator, converter);
+        ComponentTemplateSourceImpl source = new ComponentTemplateSourceImpl(true, parser, locator, converter, new PollingDirectoryWatcher());
 
         ComponentTemplate template = source.getTemplate(model, Locale.ENGLISH);
 
@@ -289,7 +377,7 @@ public class ComponentTemplateSourceImplTest extends InternalBaseTestCase
 
         replay();
 
-        ComponentTemplateSource source = new ComponentTemplateSourceImpl(true, parser, locator, converter);
+        ComponentTemplateSource source = new ComponentTemplateSourceImpl(true, parser, locator, converter, new PollingDirectoryWatcher());
 
         assertSame(source.getTemplate(model, english), template);
 
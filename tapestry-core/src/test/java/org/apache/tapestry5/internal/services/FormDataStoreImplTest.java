@@ -0,0 +1,154 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.FormDataExpiredException;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.testng.annotations.Test;
+
+public class FormDataStoreImplTest extends InternalBaseTestCase
+{
+    private static final String DATA = "H4sIAAAAAAAAAFvzloG1uIhBNjG5JLUoPjEvNTVHxbFv";
+
+    @Test
+    public void data_is_sent_to_client_when_disabled()
+    {
+        FormDataStore store = new FormDataStoreImpl(-1, 100, 1000000, 60000);
+
+        assertFalse(store.isEnabled());
+        assertSame(store.store(DATA), DATA);
+        assertEquals(store.getStatistics().stores, 0);
+    }
+
+    @Test
+    public void small_data_is_sent_to_client()
+    {
+        FormDataStore store = new FormDataStoreImpl(DATA.length() + 1, 100, 1000000, 60000);
+
+        assertSame(store.store(DATA), DATA);
+        assertSame(store.retrieve(DATA), DATA);
+    }
+
+    @Test
+    public void stored_data_is_retrieved_by_token()
+    {
+        FormDataStore store = new FormDataStoreImpl(0, 100, 1000000, 60000);
+
+        String token = store.store(DATA);
+        String other = store.store(DATA);
+
+        assertTrue(token.startsWith("@"));
+        assertFalse(token.equals(other));
+
+        assertEquals(store.retrieve(token), DATA);
+        assertEquals(store.retrieve(token), DATA);
+
+        FormDataStoreStatistics statistics = store.getStatistics();
+
+        assertEquals(statistics.stores, 2);
+        assertEquals(statistics.hits, 2);
+        assertEquals(statistics.misses, 0);
+        assertEquals(statistics.entries, 2);
+        assertEquals(statistics.size, 2 * DATA.length());
+        assertEquals(statistics.getHitRate(), 100d);
+    }
+
+    @Test
+    public void oldest_entries_are_evicted_to_stay_within_limit()
+    {
+        FormDataStore store = new FormDataStoreImpl(0, 2, 1000000, 60000);
+
+        String first = store.store(DATA);
+        String second = store.store(DATA);
+        String third = store.store(DATA);
+
+        assertEquals(store.retrieve(second), DATA);
+        assertEquals(store.retrieve(third), DATA);
+
+        try
+        {
+            store.retrieve(first);
+            unreachable();
+        } catch (FormDataExpiredException ex)
+        {
+            assertMessageContains(ex, "has expired");
+        }
+
+        FormDataStoreStatistics statistics = store.getStatistics();
+
+        assertEquals(statistics.entries, 2);
+        assertEquals(statistics.evictions, 1);
+        assertEquals(statistics.misses, 1);
+    }
+
+    @Test
+    public void expired_entries_are_discarded()
+    {
+        FormDataStoreImpl store = new FormDataStoreImpl(0, 100, 1000000, 60000);
+
+        String token = store.store(DATA);
+
+        store.expire(System.currentTimeMillis() + 120000);
+
+        try
+        {
+            store.retrieve(token);
+            unreachable();
+        } catch (FormDataExpiredException ex)
+        {
+            assertMessageContains(ex, "has expired");
+        }
+
+        assertEquals(store.getStatistics().entries, 0);
+        assertEquals(store.getStatistics().size, 0);
+    }
+
+    @Test
+    public void oldest_entries_are_evicted_to_stay_within_size_limit()
+    {
+        FormDataStore store = new FormDataStoreImpl(0, 100, 2 * DATA.length() + 1, 60000);
+
+        String first = store.store(DATA);
+        String second = store.store(DATA);
+        String third = store.store(DATA);
+
+        assertEquals(store.retrieve(second), DATA);
+        assertEquals(store.retrieve(third), DATA);
+
+        try
+        {
+            store.retrieve(first);
+            unreachable();
+        } catch (FormDataExpiredException ex)
+        {
+            assertMessageContains(ex, "has expired");
+        }
+
+        FormDataStoreStatistics statistics = store.getStatistics();
+
+        assertEquals(statistics.entries, 2);
+        assertEquals(statistics.evictions, 1);
+        assertEquals(statistics.size, 2 * DATA.length());
+    }
+
+    @Test
+    public void data_larger_than_size_limit_is_sent_to_client()
+    {
+        FormDataStore store = new FormDataStoreImpl(0, 100, DATA.length() - 1, 60000);
+
+        assertSame(store.store(DATA), DATA);
+        assertEquals(store.getStatistics().stores, 0);
+    }
+}
@@ -0,0 +1,207 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.InternalComponentResources;
+import org.apache.tapestry5.internal.structure.ComponentPageElement;
+import org.apache.tapestry5.internal.structure.Page;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.model.ComponentModel;
+import org.apache.tapestry5.services.pageload.ComponentRequestSelectorAnalyzer;
+import org.apache.tapestry5.services.pageload.ComponentResourceSelector;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.Locale;
+
+public class PageSourceImplTest extends InternalBaseTestCase
+{
+    private static final ComponentResourceSelector SELECTOR = new ComponentResourceSelector(Locale.ENGLISH);
+
+    private PageLoader loader;
+
+    private ComponentRequestSelectorAnalyzer analyzer;
+
+    @BeforeMethod
+    public void setup()
+    {
+        loader = newMock(PageLoader.class);
+        analyzer = newMock(ComponentRequestSelectorAnalyzer.class);
+
+        expect(analyzer.buildSelectorForRequest()).andReturn(SELECTOR).anyTimes();
+    }
+
+    private Page train_loadPage(String pageName, int weight)
+    {
+        Page page = mockPage();
+
+        expect(page.getStats()).andReturn(new Page.Stats(1, 1, weight)).anyTimes();
+        expect(loader.loadPage(pageName, SELECTOR)).andReturn(page);
+
+        return page;
+    }
+
+    @Test
+    public void pages_are_cached()
+    {
+        Page page = train_loadPage("Index", 10);
+
+        replay();
+
+        PageSourceImpl source = new PageSourceImpl(loader, analyzer, 0, 0, 0);
+
+        assertSame(source.getPage("Index"), page);
+        assertSame(source.getPage("Index"), page);
+
+        PageCacheStatistics statistics = source.getCacheStatistics();
+
+        assertEquals(statistics.hits, 1);
+        assertEquals(statistics.misses, 1);
+        assertEquals(statistics.evictions, 0);
+        assertEquals(statistics.pages, 1);
+        assertEquals(statistics.weight, 10);
+
+        verify();
+    }
+
+    @Test
+    public void least_recently_used_page_is_evicted() throws Exception
+    {
+        train_loadPage("Index", 1);
+        train_loadPage("Login", 1);
+        train_loadPage("Admin", 1);
+        train_loadPage("Login", 1);
+
+        replay();
+
+        PageSourceImpl source = new PageSourceImpl(loader, analyzer, 2, 0, 0);
+
+        source.getPage("Index");
+        source.getPage("Login");
+
+        // Make Login the least recently used
+
+        Thread.sleep(1100);
+
+        source.getPage("Index");
+
+        source.getPage("Admin");
+
+        assertEquals(source.getCacheStatistics().evictions, 1);
+
+        // Login was evicted, so must be reloaded.
+
+        source.getPage("Login");
+
+        assertEquals(source.getCacheStatistics().pages, 2);
+
+        verify();
+    }
+
+    @Test
+    public void pinned_pages_are_not_evicted()
+    {
+        Page index = train_loadPage("Index", 50);
+        train_loadPage("Login", 60);
+        train_loadPage("Admin", 70);
+
+        replay();
+
+        PageSourceImpl source = new PageSourceImpl(loader, analyzer, 0, 100, 0);
+
+        source.pinPage("Index");
+
+        source.getPage("Login");
+        source.getPage("Admin");
+
+        // Login is evicted immediately; the newly loaded page is kept, even though the total
+        // weight is still over the limit.
+
+        PageCacheStatistics statistics = source.getCacheStatistics();
+
+        assertEquals(statistics.evictions, 1);
+        assertEquals(statistics.pages, 2);
+        assertEquals(statistics.weight, 120);
+
+        assertSame(source.getPage("Index"), index);
+
+        verify();
+    }
+
+    @Test
+    public void idle_pages_are_evicted() throws Exception
+    {
+        train_loadPage("Index", 1);
+        train_loadPage("Login", 1);
+
+        replay();
+
+        PageSourceImpl source = new PageSourceImpl(loader, analyzer, 0, 0, 10);
+
+        source.pinPage("Index");
+        source.getPage("Login");
+
+        Thread.sleep(50);
+
+        source.evictIdlePages();
+
+        PageCacheStatistics statistics = source.getCacheStatistics();
+
+        assertEquals(statistics.evictions, 1);
+        assertEquals(statistics.pages, 1);
+
+        verify();
+    }
+
+    @Test
+    public void discarded_pages_are_counted_as_evictions()
+    {
+        Page index = train_loadPage("Index", 1);
+        Page login = train_loadPage("Login", 1);
+
+        train_pageClassName(index, "pages.Index");
+        train_pageClassName(login, "pages.Login");
+
+        replay();
+
+        PageSourceImpl source = new PageSourceImpl(loader, analyzer, 0, 0, 0);
+
+        source.getPage("Index");
+        source.getPage("Login");
+
+        source.discardPages(Collections.singleton("pages.Login"));
+
+        PageCacheStatistics statistics = source.getCacheStatistics();
+
+        assertEquals(statistics.evictions, 1);
+        assertEquals(statistics.pages, 1);
+
+        assertSame(source.getPage("Index"), index);
+
+        verify();
+    }
+
+    private void train_pageClassName(Page page, String className)
+    {
+        ComponentPageElement root = mockComponentPageElement();
+        InternalComponentResources resources = mockInternalComponentResources();
+        ComponentModel model = mockComponentModel();
+
+        expect(page.getRootElement()).andReturn(root).anyTimes();
+        expect(root.getComponentResources()).andReturn(resources).anyTimes();
+        expect(resources.getComponentModel()).andReturn(model).anyTimes();
+        expect(model.getComponentClassName()).andReturn(className).anyTimes();
+    }
+}
@@ -0,0 +1,198 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.internal.parser.ComponentTemplate;
+import org.apache.tapestry5.internal.parser.ComponentTemplateImpl;
+import org.apache.tapestry5.internal.parser.ExtensionPointToken;
+import org.apache.tapestry5.internal.parser.TemplateToken;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.Location;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class ParsedTemplateCacheTest extends InternalBaseTestCase
+{
+    private File dir;
+
+    @BeforeClass
+    public void setup() throws IOException
+    {
+        dir = File.createTempFile("templates", "");
+        dir.delete();
+    }
+
+    @AfterClass
+    public void cleanup()
+    {
+        File[] files = dir.listFiles();
+
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+
+        dir.delete();
+    }
+
+    private Resource getResource(String file)
+    {
+        return new ClasspathResource(getClass().getClassLoader(),
+                "org/apache/tapestry5/internal/services/" + file);
+    }
+
+    @DataProvider
+    public Object[][] templates()
+    {
+        return new Object[][]{
+                {"justHTML.tml"},
+                {"cdata.tml"},
+                {"comment.tml"},
+                {"component_with_mixins.tml"},
+                {"complex_component_type.tml"},
+                {"expansions_in_normal_text.tml"},
+                {"parameter_element.tml"},
+                {"block_element.tml"},
+                {"body_element.tml"},
+                {"namespaced_element.tml"},
+                {"html_entities.tml"},
+                {"xhtml1_strict_doctype.tml"},
+                {"chinese_utf-8.tml"},
+                {"extension_point.tml"},
+                {"overrides.tml"}};
+    }
+
+    @Test(dataProvider = "templates")
+    public void template_is_unchanged_by_round_trip(String file) throws IOException
+    {
+        Resource resource = getResource(file);
+
+        ComponentTemplate parsed = getService(TemplateParser.class).parseTemplate(resource);
+
+        ParsedTemplateCache cache = new ParsedTemplateCache(dir, "test");
+
+        String fileName = cache.toFileName(resource);
+
+        assertNull(cache.read(fileName, resource));
+
+        cache.write(fileName, parsed);
+
+        ComponentTemplate cached = cache.read(fileName, resource);
+
+        assertSame(cached.getResource(), resource);
+        assertEquals(cached.isExtension(), parsed.isExtension());
+        assertEquals(cached.usesStrictMixinParameters(), parsed.usesStrictMixinParameters());
+
+        assertSameTokens(cached.getTokens(), parsed.getTokens());
+
+        assertEquals(cached.getComponentIds().keySet(), parsed.getComponentIds().keySet());
+
+        for (Map.Entry<String, Location> e : parsed.getComponentIds().entrySet())
+        {
+            assertEquals(cached.getComponentIds().get(e.getKey()), e.getValue());
+        }
+
+        Map<String, List<TemplateToken>> overrides = ((ComponentTemplateImpl) parsed).getOverrides();
+
+        if (overrides != null)
+        {
+            for (Map.Entry<String, List<TemplateToken>> e : overrides.entrySet())
+            {
+                assertSameTokens(cached.getExtensionPointTokens(e.getKey()), e.getValue());
+            }
+        }
+    }
+
+    private void assertSameTokens(List<TemplateToken> actual, List<TemplateToken> expected)
+    {
+        assertEquals(actual.size(), expected.size());
+
+        for (int i = 0; i < expected.size(); i++)
+        {
+            TemplateToken a = actual.get(i);
+            TemplateToken e = expected.get(i);
+
+            assertSame(a.getClass(), e.getClass());
+            assertEquals(describe(a), describe(e));
+            assertEquals(a.getLocation(), e.getLocation());
+        }
+    }
+
+    private String describe(TemplateToken token)
+    {
+        switch (token.getTokenType())
+        {
+            case BODY:
+                return "Body";
+
+            case EXTENSION_POINT:
+                return "ExtensionPoint[" + ((ExtensionPointToken) token).getExtensionPointId() + "]";
+
+            default:
+                return token.toString();
+        }
+    }
+
+    @Test
+    public void file_name_reflects_content_and_version() throws IOException
+    {
+        Resource resource = getResource("justHTML.tml");
+
+        ParsedTemplateCache cache = new ParsedTemplateCache(dir, "test");
+
+        assertEquals(cache.toFileName(resource), cache.toFileName(resource));
+        assertFalse(cache.toFileName(resource).equals(cache.toFileName(getResource("cdata.tml"))));
+        assertFalse(cache.toFileName(resource).equals(new ParsedTemplateCache(dir, "other").toFileName(resource)));
+    }
+
+    @Test
+    public void damaged_file_is_reported() throws IOException
+    {
+        Resource resource = getResource("comment.tml");
+
+        ParsedTemplateCache cache = new ParsedTemplateCache(dir, "damaged");
+
+        String fileName = cache.toFileName(resource);
+
+        dir.mkdirs();
+
+        FileOutputStream stream = new FileOutputStream(new File(dir, fileName));
+
+        stream.write(new byte[]{0, 0, 0, 0, 0, 1, 99});
+        stream.close();
+
+        try
+        {
+            cache.read(fileName, resource);
+            unreachable();
+        } catch (IOException ex)
+        {
+            assertMessageContains(ex, "is not valid");
+        }
+    }
+}
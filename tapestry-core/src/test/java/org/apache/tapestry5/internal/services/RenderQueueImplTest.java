@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -17,7 +17,10 @@ package org.apache.tapestry5.internal.services;
 import org.apache.tapestry5.ComponentResources;
 import org.apache.tapestry5.MarkupWriter;
 import org.apache.tapestry5.TapestryMarkers;
+import org.apache.tapestry5.internal.structure.RenderPhaseEvent;
 import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.OperationTracker;
+import org.apache.tapestry5.ioc.internal.QuietOperationTracker;
 import org.apache.tapestry5.runtime.RenderCommand;
 import org.apache.tapestry5.runtime.RenderQueue;
 import static org.easymock.EasyMock.eq;
@@ -117,4 +120,40 @@ public class RenderQueueImplTest extends InternalBaseTestCase
 
         verify();
     }
+
+    @Test
+    public void render_phase_event_is_reused()
+    {
+        Logger logger = mockLogger();
+        OperationTracker tracker = new QuietOperationTracker();
+
+        expect(logger.isDebugEnabled()).andReturn(false).atLeastOnce();
+
+        replay();
+
+        RenderQueueImpl queue = new RenderQueueImpl(logger);
+
+        RenderPhaseEvent first = queue.getRenderPhaseEvent(logger, tracker);
+
+        first.storeResult(false);
+
+        assertFalse(first.getResult());
+
+        // A nested render phase, while the first event is still in use.
+
+        RenderPhaseEvent nested = queue.getRenderPhaseEvent(logger, tracker);
+
+        assertNotSame(nested, first);
+
+        nested.enqueueSavedRenderCommands();
+        first.enqueueSavedRenderCommands();
+
+        RenderPhaseEvent reused = queue.getRenderPhaseEvent(logger, tracker);
+
+        assertSame(reused, first);
+        assertTrue(reused.getResult());
+        assertFalse(reused.isAborted());
+
+        verify();
+    }
 }
@@ -0,0 +1,183 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.ContentType;
+import org.apache.tapestry5.internal.services.assets.FileStreamableResource;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.services.Request;
+import org.apache.tapestry5.services.RequestGlobals;
+import org.apache.tapestry5.services.Response;
+import org.apache.tapestry5.services.assets.AssetChecksumGenerator;
+import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.StreamableResource;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.apache.tapestry5.internal.services.ResourceStreamerImpl.*;
+import static org.easymock.EasyMock.isA;
+
+public class ResourceStreamerImplTest extends InternalBaseTestCase
+{
+    private static final String CONTENT = "function hello() { alert('Hello'); }";
+
+    private static final String CHECKSUM = "abc123";
+
+    private static final long LAST_MODIFIED = 1000000L;
+
+    private final ContentType contentType = new ContentType("text/javascript");
+
+    private File file;
+
+    @BeforeClass
+    public void setup() throws IOException
+    {
+        file = File.createTempFile("streamer", ".js");
+
+        OutputStream stream = new FileOutputStream(file);
+
+        stream.write(CONTENT.getBytes("UTF-8"));
+
+        stream.close();
+    }
+
+    @AfterClass
+    public void cleanup()
+    {
+        file.delete();
+    }
+
+    @Test
+    public void file_sent_by_container_when_sendfile_supported() throws IOException
+    {
+        Request request = mockRequest();
+        Response response = mockResponse();
+        RequestGlobals requestGlobals = mockRequestGlobals();
+        HttpServletResponse servletResponse = mockHttpServletResponse();
+        StreamableResource streamable = newStreamable();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        train_streamResponse(request, response, output);
+
+        train_getAttribute(request, SENDFILE_SUPPORT_ATTRIBUTE, Boolean.TRUE);
+
+        expect(requestGlobals.getHTTPServletResponse()).andReturn(servletResponse);
+
+        request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+        request.setAttribute(SENDFILE_END_ATTRIBUTE, (long) CONTENT.length());
+
+        replay();
+
+        assertTrue(newStreamer(request, response, requestGlobals).streamResource(streamable, "", noOptions()));
+
+        verify();
+
+        assertEquals(output.size(), 0);
+    }
+
+    @Test
+    public void file_streamed_when_response_is_wrapped() throws IOException
+    {
+        Request request = mockRequest();
+        Response response = mockResponse();
+        RequestGlobals requestGlobals = mockRequestGlobals();
+        HttpServletResponse servletResponse = mockHttpServletResponse();
+        StreamableResource streamable = newStreamable();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        train_streamResponse(request, response, output);
+
+        train_getAttribute(request, SENDFILE_SUPPORT_ATTRIBUTE, Boolean.TRUE);
+
+        expect(requestGlobals.getHTTPServletResponse()).andReturn(new HttpServletResponseWrapper(servletResponse));
+
+        replay();
+
+        assertTrue(newStreamer(request, response, requestGlobals).streamResource(streamable, "", noOptions()));
+
+        verify();
+
+        assertEquals(output.toString("UTF-8"), CONTENT);
+    }
+
+    @Test
+    public void file_streamed_when_sendfile_not_supported() throws IOException
+    {
+        Request request = mockRequest();
+        Response response = mockResponse();
+        RequestGlobals requestGlobals = mockRequestGlobals();
+        StreamableResource streamable = newStreamable();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        train_streamResponse(request, response, output);
+
+        train_getAttribute(request, SENDFILE_SUPPORT_ATTRIBUTE, null);
+
+        replay();
+
+        assertTrue(newStreamer(request, response, requestGlobals).streamResource(streamable, "", noOptions()));
+
+        verify();
+
+        assertEquals(output.toString("UTF-8"), CONTENT);
+    }
+
+    private void train_streamResponse(Request request, Response response, OutputStream output) throws IOException
+    {
+        response.setHeader("ETag", "\"" + CHECKSUM + "\"");
+
+        expect(request.getHeader("If-None-Match")).andReturn(null);
+        train_getDateHeader(request, IF_MODIFIED_SINCE_HEADER, -1L);
+
+        response.disableCompression();
+        response.setDateHeader("Last-Modified", LAST_MODIFIED);
+        response.setContentLength(CONTENT.length());
+
+        expect(response.getOutputStream(contentType.toString())).andReturn(output);
+    }
+
+    private StreamableResource newStreamable() throws IOException
+    {
+        AssetChecksumGenerator generator = newMock(AssetChecksumGenerator.class);
+
+        expect(generator.generateChecksum(isA(StreamableResource.class))).andReturn(CHECKSUM);
+
+        return new FileStreamableResource("test.js", contentType, CompressionStatus.COMPRESSABLE, LAST_MODIFIED, file,
+                CONTENT.length(), generator, null);
+    }
+
+    private static ResourceStreamerImpl newStreamer(Request request, Response response, RequestGlobals requestGlobals)
+    {
+        return new ResourceStreamerImpl(request, response, requestGlobals, null, null, false, null, null, null, null);
+    }
+
+    private static Set<ResourceStreamer.Options> noOptions()
+    {
+        return Collections.emptySet();
+    }
+}
@@ -0,0 +1,225 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services;
+
+import org.apache.tapestry5.MarkupWriter;
+import org.apache.tapestry5.dom.DefaultMarkupModel;
+import org.apache.tapestry5.dom.Element;
+import org.apache.tapestry5.dom.MarkupModel;
+import org.apache.tapestry5.dom.StreamedContent;
+import org.apache.tapestry5.dom.XMLMarkupModel;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.testng.annotations.Test;
+
+public class StreamingMarkupWriterImplTest extends InternalBaseTestCase
+{
+    private void renderSample(MarkupWriter w)
+    {
+        w.element("html");
+        w.element("head");
+        w.element("title");
+        w.write("Sample");
+        w.end();
+        w.end();
+
+        w.element("body", "class", "main");
+        w.comment(" start ");
+
+        for (int i = 0; i < 3; i++)
+        {
+            w.element("div", "class", "row");
+            w.element("span");
+            w.writef("Row %d & more", i);
+            w.end();
+            w.element("br");
+            w.end();
+            w.writeRaw("<b>raw</b>");
+            w.end();
+        }
+
+        w.element("p");
+        w.end();
+
+        w.end();
+        w.end();
+    }
+
+    private void check_same_output(MarkupModel model)
+    {
+        MarkupWriter tree = new MarkupWriterImpl(model, null, null);
+        MarkupWriter streaming = new StreamingMarkupWriterImpl(model, null, null);
+
+        renderSample(tree);
+        renderSample(streaming);
+
+        assertEquals(streaming.toString(), tree.toString());
+    }
+
+    @Test
+    public void output_matches_tree_mode_for_html()
+    {
+        check_same_output(new DefaultMarkupModel());
+    }
+
+    @Test
+    public void output_matches_tree_mode_for_xml()
+    {
+        check_same_output(new XMLMarkupModel());
+    }
+
+    @Test
+    public void closed_elements_are_collapsed_into_streamed_content()
+    {
+        MarkupWriter w = new StreamingMarkupWriterImpl(new DefaultMarkupModel(), null, null);
+
+        renderSample(w);
+
+        Element body = w.getDocument().find("html/body");
+
+        assertEquals(body.getChildren().size(), 1);
+        assertTrue(body.getChildren().get(0) instanceof StreamedContent);
+        assertNull(body.find("div"));
+
+        // The head is held as a complete DOM.
+
+        assertNotNull(w.getDocument().find("html/head/title"));
+    }
+
+    @Test
+    public void held_elements_may_be_updated_after_rendering()
+    {
+        MarkupWriter w = new StreamingMarkupWriterImpl(new DefaultMarkupModel(), null, null);
+
+        renderSample(w);
+
+        Element body = w.getDocument().find("html/body");
+
+        body.attribute("data-page-initialized", "true");
+        body.element("script", "src", "foo.js");
+        w.getDocument().find("html/head").element("meta", "name", "generator");
+
+        String markup = w.toString();
+
+        assertTrue(markup.startsWith("<html><head><title>Sample</title><meta name=\"generator\"/></head><body data-page-initialized=\"true\" class=\"main\"><!-- start --><div class=\"row\">"));
+        assertTrue(markup.endsWith("<p></p><script src=\"foo.js\"></script></body></html>"));
+    }
+
+    @Test
+    public void form_content_is_retained_until_form_ends()
+    {
+        MarkupWriter w = new StreamingMarkupWriterImpl(new DefaultMarkupModel(), null, null);
+
+        w.element("html");
+        w.element("body");
+        w.element("div");
+
+        Element form = w.element("form");
+        Element label = w.element("label");
+        w.write("Name");
+        w.end();
+        w.element("input", "name", "name");
+        w.end();
+
+        // Typical of deferred logic inside a Form
+
+        label.attribute("for", "name");
+        form.attribute("enctype", "multipart/form-data");
+
+        w.end();
+
+        assertTrue(form.isStreamed());
+
+        w.end();
+        w.end();
+        w.end();
+
+        assertEquals(w.toString(), "<html><body><div><form enctype=\"multipart/form-data\"><label for=\"name\">Name</label><input name=\"name\"></input></form></div></body></html>");
+    }
+
+    @Test
+    public void streamed_element_may_not_be_modified()
+    {
+        MarkupWriter w = new StreamingMarkupWriterImpl(new DefaultMarkupModel(), null, null);
+
+        w.element("html");
+        w.element("body");
+        Element div = w.element("div");
+        w.end();
+
+        assertTrue(div.isStreamed());
+
+        try
+        {
+            div.attribute("id", "late");
+            unreachable();
+        } catch (IllegalStateException ex)
+        {
+            assertMessageContains(ex, "Element <div> has already been streamed", "tapestry.streaming-markup");
+        }
+    }
+
+    @Test
+    public void attributes_may_be_added_to_open_elements_after_children()
+    {
+        MarkupWriter w = new StreamingMarkupWriterImpl(new DefaultMarkupModel(), null, null);
+
+        w.element("html");
+        w.element("body");
+        Element outer = w.element("div");
+        w.element("span");
+        w.write("inner");
+        w.end();
+
+        outer.attribute("class", "late");
+
+        w.end();
+        w.end();
+        w.end();
+
+        assertEquals(w.toString(), "<html><body><div class=\"late\"><span>inner</span></div></body></html>");
+    }
+
+    @Test
+    public void large_content_is_linked_not_copied()
+    {
+        MarkupWriter tree = new MarkupWriterImpl(new DefaultMarkupModel(), null, null);
+        MarkupWriter streaming = new StreamingMarkupWriterImpl(new DefaultMarkupModel(), null, null);
+
+        for (MarkupWriter w : new MarkupWriter[]{tree, streaming})
+        {
+            w.element("html");
+            w.element("body");
+
+            for (int outer = 0; outer < 20; outer++)
+            {
+                w.element("ul");
+
+                for (int inner = 0; inner < 100; inner++)
+                {
+                    w.element("li");
+                    w.write("Item " + outer + "." + inner + " <escaped>");
+                    w.end();
+                }
+
+                w.end();
+            }
+
+            w.end();
+            w.end();
+        }
+
+        assertEquals(streaming.toString(), tree.toString());
+    }
+}
@@ -0,0 +1,123 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.ContentType;
+import org.apache.tapestry5.internal.TapestryInternalUtils;
+import org.apache.tapestry5.ioc.test.IOCTestCase;
+import org.apache.tapestry5.services.assets.CompressionStatus;
+import org.apache.tapestry5.services.assets.StreamableResource;
+import org.slf4j.Logger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+public class AssetCompressorImplTest extends IOCTestCase
+{
+    private static final ContentType CONTENT_TYPE = new ContentType("text/javascript");
+
+    private File dir;
+
+    @BeforeMethod
+    public void setup() throws IOException
+    {
+        dir = File.createTempFile("assets", "");
+        dir.delete();
+    }
+
+    @AfterMethod
+    public void cleanup()
+    {
+        File[] files = dir.listFiles();
+
+        if (files != null)
+        {
+            for (File file : files)
+            {
+                file.delete();
+            }
+        }
+
+        dir.delete();
+    }
+
+    @Test
+    public void compressed_in_memory_without_directory() throws IOException
+    {
+        AssetCompressor compressor = new AssetCompressorImpl("", 0, null, null);
+
+        StreamableResource compressed = compressor.compress(resource("var x = 1;"));
+
+        assertTrue(compressed instanceof CompressedStreamableResource);
+        assertEquals(uncompress(compressed), "var x = 1;");
+    }
+
+    @Test
+    public void compressed_content_is_stored_and_reused() throws IOException
+    {
+        Logger logger = mockLogger();
+
+        replay();
+
+        StreamableResource first = new AssetCompressorImpl(dir.getPath(), -1, null, logger).compress(resource("var x = 1;"));
+
+        assertTrue(first instanceof CompressedStreamableResource);
+        assertEquals(dir.listFiles().length, 1);
+        assertTrue(dir.listFiles()[0].getName().endsWith(".gz"));
+
+        // A new compressor, as after a restart of the application.
+
+        StreamableResource second = new AssetCompressorImpl(dir.getPath(), -1, null, logger).compress(resource("var x = 1;"));
+
+        assertEquals(second.getClass(), StreamableResourceImpl.class);
+        assertEquals(second.getCompression(), CompressionStatus.COMPRESSED);
+        assertEquals(second.getContentType(), CONTENT_TYPE);
+        assertEquals(second.getLastModified(), 1000L);
+        assertEquals(uncompress(second), "var x = 1;");
+
+        StreamableResource other = new AssetCompressorImpl(dir.getPath(), 0, null, logger).compress(resource("var y = 2;"));
+
+        assertEquals(dir.listFiles().length, 2);
+
+        StreamableResource streamed = new AssetCompressorImpl(dir.getPath(), 0, null, logger).compress(resource("var y = 2;"));
+
+        assertTrue(streamed instanceof FileStreamableResource);
+        assertEquals(streamed.getCompression(), CompressionStatus.COMPRESSED);
+        assertEquals(streamed.getSize(), other.getSize());
+        assertEquals(uncompress(streamed), "var y = 2;");
+
+        verify();
+    }
+
+    private static StreamableResource resource(String content)
+    {
+        return new StreamableResourceImpl("test", CONTENT_TYPE, CompressionStatus.COMPRESSABLE, 1000L,
+                new BytestreamCache(content.getBytes()), null, null);
+    }
+
+    private static String uncompress(StreamableResource resource) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        TapestryInternalUtils.copy(new GZIPInputStream(resource.openStream()), bos);
+
+        return bos.toString();
+    }
+}
@@ -0,0 +1,172 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.Asset;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.QuietOperationTracker;
+import org.apache.tapestry5.ioc.services.PerthreadManager;
+import org.apache.tapestry5.ioc.services.ThreadLocale;
+import org.apache.tapestry5.services.LocalizationSetter;
+import org.apache.tapestry5.services.assets.StreamableResourceProcessing;
+import org.apache.tapestry5.services.assets.StreamableResourceSource;
+import org.apache.tapestry5.services.javascript.JavaScriptAggregationStrategy;
+import org.apache.tapestry5.services.javascript.JavaScriptStack;
+import org.apache.tapestry5.services.javascript.JavaScriptStackSource;
+import org.apache.tapestry5.services.javascript.ModuleManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+
+import static org.easymock.EasyMock.expectLastCall;
+
+public class AssetPreloaderImplTest extends InternalBaseTestCase
+{
+    private final Logger logger = LoggerFactory.getLogger(AssetPreloaderImplTest.class);
+
+    @Test
+    public void combined_stacks_assembled_in_each_locale() throws IOException
+    {
+        JavaScriptStackSource stackSource = newMock(JavaScriptStackSource.class);
+        JavaScriptStackAssembler assembler = newMock(JavaScriptStackAssembler.class);
+        ThreadLocale threadLocale = mockThreadLocale();
+        LocalizationSetter setter = newMock(LocalizationSetter.class);
+        PerthreadManager perthreadManager = newMock(PerthreadManager.class);
+        JavaScriptStack core = newMock(JavaScriptStack.class);
+        JavaScriptStack app = newMock(JavaScriptStack.class);
+
+        expect(stackSource.getStackNames()).andReturn(Arrays.asList("app", "core"));
+        expect(setter.getSupportedLocales()).andReturn(Arrays.asList(Locale.FRENCH, Locale.ENGLISH));
+
+        expect(stackSource.getStack("app")).andReturn(app).times(2);
+        expect(stackSource.getStack("core")).andReturn(core).times(2);
+
+        expect(app.getJavaScriptAggregationStrategy()).andReturn(JavaScriptAggregationStrategy.COMBINE_ONLY).times(2);
+        expect(core.getJavaScriptAggregationStrategy()).andReturn(JavaScriptAggregationStrategy.COMBINE_AND_MINIMIZE).times(2);
+
+        // Once per locale; the locale comes from the worker thread's ThreadLocale.
+
+        expect(assembler.assembleJavaScriptResourceForStack("app", true, JavaScriptAggregationStrategy.COMBINE_ONLY)).andReturn(null).times(2);
+        expect(assembler.assembleJavaScriptResourceForStack("core", true, JavaScriptAggregationStrategy.COMBINE_AND_MINIMIZE)).andReturn(null).times(2);
+
+        threadLocale.setLocale(Locale.FRENCH);
+        expectLastCall().times(2);
+
+        threadLocale.setLocale(Locale.ENGLISH);
+        expectLastCall().times(2);
+
+        perthreadManager.cleanup();
+        expectLastCall().times(4);
+
+        replay();
+
+        new AssetPreloaderImpl(logger, new QuietOperationTracker(), stackSource, assembler, null,
+                null, null, threadLocale, setter, perthreadManager, true, true, 3).preloadAssets();
+
+        verify();
+    }
+
+    @Test
+    public void libraries_and_modules_read_when_not_combined() throws IOException
+    {
+        JavaScriptStackSource stackSource = newMock(JavaScriptStackSource.class);
+        JavaScriptStackAssembler assembler = newMock(JavaScriptStackAssembler.class);
+        StreamableResourceSource streamableResourceSource = newMock(StreamableResourceSource.class);
+        ResourceChangeTracker resourceChangeTracker = newMock(ResourceChangeTracker.class);
+        ModuleManager moduleManager = newMock(ModuleManager.class);
+        ThreadLocale threadLocale = mockThreadLocale();
+        LocalizationSetter setter = newMock(LocalizationSetter.class);
+        PerthreadManager perthreadManager = newMock(PerthreadManager.class);
+        JavaScriptStack core = newMock(JavaScriptStack.class);
+        JavaScriptStack legacy = newMock(JavaScriptStack.class);
+        Asset coreLibrary = mockAsset();
+        Resource coreLibraryResource = mockResource();
+        Resource moduleResource = mockResource();
+
+        expect(stackSource.getStackNames()).andReturn(Arrays.asList("core", "legacy"));
+        expect(setter.getSupportedLocales()).andReturn(Arrays.asList(Locale.ENGLISH));
+
+        expect(stackSource.getStack("core")).andReturn(core);
+        expect(core.getJavaScriptAggregationStrategy()).andReturn(JavaScriptAggregationStrategy.COMBINE_AND_MINIMIZE);
+        expect(core.getJavaScriptLibraries()).andReturn(Arrays.asList(coreLibrary));
+        expect(core.getModules()).andReturn(Arrays.asList("t5/core/dom"));
+        expect(coreLibrary.getResource()).andReturn(coreLibraryResource);
+        expect(moduleManager.findResourceForModule("t5/core/dom")).andReturn(moduleResource);
+
+        expect(streamableResourceSource.getStreamableResource(coreLibraryResource,
+                StreamableResourceProcessing.COMPRESSION_DISABLED, resourceChangeTracker)).andReturn(null);
+        expect(streamableResourceSource.getStreamableResource(moduleResource,
+                StreamableResourceProcessing.COMPRESSION_DISABLED, resourceChangeTracker)).andReturn(null);
+
+        // Minimization is disabled for this stack, so its libraries are left alone.
+
+        expect(stackSource.getStack("legacy")).andReturn(legacy);
+        expect(legacy.getJavaScriptAggregationStrategy()).andReturn(JavaScriptAggregationStrategy.DO_NOTHING);
+        expect(legacy.getModules()).andReturn(Collections.<String>emptyList());
+
+        threadLocale.setLocale(Locale.ENGLISH);
+        expectLastCall().times(2);
+
+        perthreadManager.cleanup();
+        expectLastCall().times(2);
+
+        replay();
+
+        new AssetPreloaderImpl(logger, new QuietOperationTracker(), stackSource, assembler, streamableResourceSource,
+                resourceChangeTracker, moduleManager, threadLocale, setter, perthreadManager, false, false, 1).preloadAssets();
+
+        verify();
+    }
+
+    @Test
+    public void failure_stops_preloading() throws IOException
+    {
+        JavaScriptStackSource stackSource = newMock(JavaScriptStackSource.class);
+        JavaScriptStackAssembler assembler = newMock(JavaScriptStackAssembler.class);
+        ThreadLocale threadLocale = mockThreadLocale();
+        LocalizationSetter setter = newMock(LocalizationSetter.class);
+        PerthreadManager perthreadManager = newMock(PerthreadManager.class);
+        JavaScriptStack core = newMock(JavaScriptStack.class);
+        Logger logger = mockLogger();
+
+        IOException failure = new IOException("Stack is broken.");
+
+        expect(stackSource.getStackNames()).andReturn(Arrays.asList("core"));
+        expect(setter.getSupportedLocales()).andReturn(Arrays.asList(Locale.ENGLISH));
+        expect(stackSource.getStack("core")).andReturn(core);
+        expect(core.getJavaScriptAggregationStrategy()).andReturn(JavaScriptAggregationStrategy.COMBINE_AND_MINIMIZE);
+        expect(assembler.assembleJavaScriptResourceForStack("core", true, JavaScriptAggregationStrategy.COMBINE_AND_MINIMIZE)).andThrow(failure);
+
+        threadLocale.setLocale(Locale.ENGLISH);
+        perthreadManager.cleanup();
+
+        logger.info("Preloading 1 JavaScript stack(s) in 1 locale(s), using 1 thread(s).");
+        logger.error("Stack is broken.", failure);
+
+        replay();
+
+        new AssetPreloaderImpl(logger, new QuietOperationTracker(), stackSource, assembler, null,
+                null, null, threadLocale, setter, perthreadManager, true, true, 4).preloadAssets();
+
+        verify();
+    }
+}
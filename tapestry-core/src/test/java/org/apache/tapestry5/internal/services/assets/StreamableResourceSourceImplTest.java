@@ -0,0 +1,153 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.services.assets;
+
+import org.apache.tapestry5.ContentType;
+import org.apache.tapestry5.internal.services.ContextResource;
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.Context;
+import org.apache.tapestry5.services.assets.*;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class StreamableResourceSourceImplTest extends InternalBaseTestCase
+{
+    @Test
+    public void large_file_is_streamed_from_file_system() throws Exception
+    {
+        byte[] content = content(5000);
+        File file = createFile(content);
+
+        StreamableResource streamable = getStreamableResource(file, 4096);
+
+        assertTrue(streamable instanceof FileStreamableResource);
+        assertEquals(((FileStreamableResource) streamable).getFile(), file);
+        assertEquals(streamable.getSize(), 5000);
+        assertEquals(streamable.getCompression(), CompressionStatus.NOT_COMPRESSABLE);
+
+        assertEquals(stream(streamable), content);
+
+        verify();
+    }
+
+    @Test
+    public void small_file_is_read_into_memory() throws Exception
+    {
+        byte[] content = content(1000);
+        File file = createFile(content);
+
+        StreamableResource streamable = getStreamableResource(file, 4096);
+
+        assertTrue(streamable instanceof StreamableResourceImpl);
+        assertEquals(streamable.getSize(), 1000);
+
+        file.delete();
+
+        assertEquals(stream(streamable), content);
+
+        verify();
+    }
+
+    @Test
+    public void file_streaming_may_be_disabled() throws Exception
+    {
+        File file = createFile(content(5000));
+
+        assertTrue(getStreamableResource(file, -1) instanceof StreamableResourceImpl);
+
+        verify();
+    }
+
+    @Test
+    public void no_more_than_original_size_is_streamed() throws Exception
+    {
+        byte[] content = content(5000);
+        File file = createFile(content);
+
+        StreamableResource streamable = getStreamableResource(file, 0).withContentType(new ContentType("image/png"));
+
+        FileOutputStream fos = new FileOutputStream(file, true);
+        fos.write(content);
+        fos.close();
+
+        assertEquals(streamable.getContentType().getMimeType(), "image/png");
+        assertEquals(stream(streamable), content);
+
+        verify();
+    }
+
+    private StreamableResource getStreamableResource(File file, int fileStreamingMinSize) throws IOException
+    {
+        Context context = mockContext();
+        ContentTypeAnalyzer contentTypeAnalyzer = newMock(ContentTypeAnalyzer.class);
+        CompressionAnalyzer compressionAnalyzer = newMock(CompressionAnalyzer.class);
+        ResourceChangeTracker tracker = newMock(ResourceChangeTracker.class);
+
+        expect(context.getRealFile("/" + file.getName())).andReturn(file);
+
+        Resource resource = new ContextResource(context, file.getName());
+
+        expect(contentTypeAnalyzer.getContentType(resource)).andReturn("image/gif");
+        expect(compressionAnalyzer.isCompressable("image/gif")).andReturn(false);
+        expect(tracker.trackResource(resource)).andReturn(file.lastModified());
+
+        replay();
+
+        StreamableResourceSource source = new StreamableResourceSourceImpl(CollectionFactory.<String, ResourceTransformer>newMap(),
+                contentTypeAnalyzer, compressionAnalyzer, tracker, null, fileStreamingMinSize);
+
+        return source.getStreamableResource(resource, StreamableResourceProcessing.COMPRESSION_DISABLED, tracker);
+    }
+
+    private static byte[] content(int size)
+    {
+        byte[] result = new byte[size];
+
+        for (int i = 0; i < size; i++)
+        {
+            result[i] = (byte) i;
+        }
+
+        return result;
+    }
+
+    private static File createFile(byte[] content) throws IOException
+    {
+        File file = File.createTempFile("asset", ".gif");
+
+        file.deleteOnExit();
+
+        FileOutputStream fos = new FileOutputStream(file);
+        fos.write(content);
+        fos.close();
+
+        return file;
+    }
+
+    private static byte[] stream(StreamableResource streamable) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        streamable.streamTo(bos);
+
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.internal.services.metrics;
+
+import org.apache.tapestry5.internal.test.InternalBaseTestCase;
+import org.apache.tapestry5.services.metrics.TimingSummary;
+import org.slf4j.Logger;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class RequestMetricsImplTest extends InternalBaseTestCase
+{
+    private static final long MILLIS = 1000 * 1000;
+
+    @Test
+    public void disabled_metrics_are_not_recorded()
+    {
+        Logger logger = mockLogger();
+
+        replay();
+
+        RequestMetricsImpl metrics = new RequestMetricsImpl(false, true, logger);
+
+        metrics.recordPageRender("Index", MILLIS, 100);
+
+        assertFalse(metrics.isEnabled());
+        assertEquals(metrics.getCurrentThreadAllocatedBytes(), -1);
+        assertTrue(metrics.getPageRenderTimings().isEmpty());
+
+        verify();
+    }
+
+    @Test
+    public void timings_are_sorted_by_descending_total()
+    {
+        Logger logger = mockLogger();
+
+        replay();
+
+        RequestMetricsImpl metrics = new RequestMetricsImpl(true, false, logger);
+
+        metrics.recordPageRender("Index", 2 * MILLIS, -1);
+        metrics.recordPageRender("Index", 4 * MILLIS, -1);
+        metrics.recordPageRender("Admin", 10 * MILLIS, -1);
+        metrics.recordComponentEvent("Index", MILLIS, -1);
+        metrics.recordComponentRender("Index:layout", 3 * MILLIS);
+
+        List<TimingSummary> pages = metrics.getPageRenderTimings();
+
+        assertEquals(pages.size(), 2);
+
+        assertEquals(pages.get(0).getName(), "Admin");
+        assertEquals(pages.get(1).getName(), "Index");
+        assertEquals(pages.get(1).getCount(), 2);
+        assertEquals(pages.get(1).getTotalMillis(), 6d);
+        assertEquals(pages.get(1).getMeanMillis(), 3d);
+        assertEquals(pages.get(1).getAllocatedBytesPerRequest(), -1);
+
+        assertEquals(metrics.getComponentEventTimings().get(0).getName(), "Index");
+        assertEquals(metrics.getComponentRenderTimings().get(0).getName(), "Index:layout");
+
+        metrics.reset();
+
+        assertTrue(metrics.getPageRenderTimings().isEmpty());
+        assertTrue(metrics.getComponentEventTimings().isEmpty());
+        assertTrue(metrics.getComponentRenderTimings().isEmpty());
+
+        verify();
+    }
+}
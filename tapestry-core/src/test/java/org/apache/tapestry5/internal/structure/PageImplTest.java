@@ -56,6 +56,7 @@ public class PageImplTest extends InternalBaseTestCase
         MetaDataLocator locator = newMock(MetaDataLocator.class);
 
         expect(locator.findMeta(MetaDataConstants.UNKNOWN_ACTIVATION_CONTEXT_CHECK, pageName, Boolean.class)).andReturn(enabled);
+        expect(locator.findMeta(MetaDataConstants.STREAMING_MARKUP, pageName, Boolean.class)).andReturn(false);
 
         return locator;
     }
@@ -0,0 +1,111 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+package org.apache.tapestry5.services.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest extends Assert
+{
+    private static final long MILLIS = 1000 * 1000;
+
+    @Test
+    public void empty_histogram()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+
+        assertEquals(h.getCount(), 0);
+        assertEquals(h.getMeanNanos(), 0);
+        assertEquals(h.getPercentileNanos(50), 0);
+        assertEquals(h.getMaxNanos(), 0);
+    }
+
+    @Test
+    public void count_total_and_max_are_exact()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+
+        h.record(3 * MILLIS);
+        h.record(7 * MILLIS);
+        h.record(2 * MILLIS);
+        h.record(-1);
+
+        assertEquals(h.getCount(), 3);
+        assertEquals(h.getTotalNanos(), 12 * MILLIS);
+        assertEquals(h.getMeanNanos(), 4 * MILLIS);
+        assertEquals(h.getMaxNanos(), 7 * MILLIS);
+    }
+
+    @Test
+    public void percentiles_are_within_accuracy()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+
+        for (int i = 1; i <= 1000; i++)
+        {
+            h.record(i * MILLIS);
+        }
+
+        assertWithin(h.getPercentileNanos(50), 500 * MILLIS);
+        assertWithin(h.getPercentileNanos(90), 900 * MILLIS);
+        assertWithin(h.getPercentileNanos(99), 990 * MILLIS);
+
+        assertEquals(h.getPercentileNanos(100), 1000 * MILLIS);
+    }
+
+    @Test
+    public void small_times_are_exact_to_the_microsecond()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+
+        h.record(3000);
+        h.record(5000);
+
+        assertEquals(h.getPercentileNanos(50), 3999);
+        assertEquals(h.getPercentileNanos(100), 5000);
+    }
+
+    @Test
+    public void very_long_times_are_capped_to_max()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+
+        long tenMinutes = 600L * 1000 * MILLIS;
+
+        h.record(tenMinutes);
+
+        assertEquals(h.getMaxNanos(), tenMinutes);
+        assertTrue(h.getPercentileNanos(50) <= tenMinutes);
+    }
+
+    @Test
+    public void reset()
+    {
+        LatencyHistogram h = new LatencyHistogram();
+
+        h.record(MILLIS);
+
+        h.reset();
+
+        assertEquals(h.getCount(), 0);
+        assertEquals(h.getTotalNanos(), 0);
+        assertEquals(h.getPercentileNanos(99), 0);
+    }
+
+    private static void assertWithin(long actual, long expected)
+    {
+        assertTrue(actual >= expected && actual <= expected * 1.125,
+                String.format("%,d is not within 12.5%% of %,d", actual, expected));
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2010-2013 The Apache Software Foundation
+// Copyright 2010-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -29,7 +29,7 @@ import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.ioc.internal.util.URLChangeTracker;
 import org.apache.tapestry5.ioc.services.PlasticProxyFactory;
 import org.apache.tapestry5.ioc.util.ExceptionUtils;
-import org.apache.tapestry5.services.UpdateListener;
+import org.apache.tapestry5.services.UpdateDetector;
 import org.slf4j.Logger;
 
 import java.io.ByteArrayInputStream;
@@ -38,9 +38,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @SuppressWarnings("all")
-public abstract class AbstractReloadableObjectCreator implements ObjectCreator, UpdateListener, ClassLoaderDelegate
+public abstract class AbstractReloadableObjectCreator implements ObjectCreator, UpdateDetector, ClassLoaderDelegate
 {
     private final ClassLoader baseClassLoader;
 
@@ -60,7 +62,13 @@ public abstract class AbstractReloadableObjectCreator implements ObjectCreator,
      */
     private final Set<String> classesToLoad = CollectionFactory.newSet();
 
-    private Object instance;
+    /**
+     * Guards the creation (and re-creation) of the instance. A lock, rather than synchronized methods, so that threads
+     * waiting on it do not pin the carrier thread when running as virtual threads.
+     */
+    private final Lock lock = new ReentrantLock();
+
+    private volatile Object instance;
 
     private boolean firstTime = true;
 
@@ -77,28 +85,44 @@ public abstract class AbstractReloadableObjectCreator implements ObjectCreator,
     }
 
     @Override
-    public synchronized void checkForUpdates()
+    public boolean hasUpdates()
     {
-        if (instance == null || !changeTracker.containsChanges())
-        {
-            return;
-        }
+        // Not synchronized: a stale read of instance only delays detection until the next check.
 
-        if (logger.isDebugEnabled())
+        return instance != null && changeTracker.peekForChanges();
+    }
+
+    @Override
+    public void checkForUpdates()
+    {
+        lock.lock();
+
+        try
         {
-            logger.debug(String.format("Implementation class %s has changed and will be reloaded on next use.",
-                    implementationClassName));
-        }
+            if (instance == null || !changeTracker.containsChanges())
+            {
+                return;
+            }
 
-        changeTracker.clear();
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(String.format("Implementation class %s has changed and will be reloaded on next use.",
+                        implementationClassName));
+            }
 
-        loader = null;
+            changeTracker.clear();
 
-        proxyFactory.clearCache();
+            loader = null;
 
-        boolean reloadNow = informInstanceOfReload();
+            proxyFactory.clearCache();
 
-        instance = reloadNow ? createInstance() : null;
+            boolean reloadNow = informInstanceOfReload();
+
+            instance = reloadNow ? createInstance() : null;
+        } finally
+        {
+            lock.unlock();
+        }
     }
 
     private boolean informInstanceOfReload()
@@ -114,14 +138,29 @@ public abstract class AbstractReloadableObjectCreator implements ObjectCreator,
     }
 
     @Override
-    public synchronized Object createObject()
+    public Object createObject()
     {
-        if (instance == null)
+        Object result = instance;
+
+        if (result != null)
         {
-            instance = createInstance();
+            return result;
         }
 
-        return instance;
+        lock.lock();
+
+        try
+        {
+            if (instance == null)
+            {
+                instance = createInstance();
+            }
+
+            return instance;
+        } finally
+        {
+            lock.unlock();
+        }
     }
 
     private Object createInstance()
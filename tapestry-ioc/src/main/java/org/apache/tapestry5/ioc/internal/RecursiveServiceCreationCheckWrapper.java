@@ -1,4 +1,4 @@
-// Copyright 2006, 2007 The Apache Software Foundation
+// Copyright 2006, 2007, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -44,7 +44,8 @@ public class RecursiveServiceCreationCheckWrapper implements ObjectCreator
 
     /**
      * We could make this method synchronized, but in the context of creating a service for a proxy, it will already be
-     * synchronized (inside the proxy).
+     * guarded by the lock inside the proxy's {@link org.apache.tapestry5.ioc.internal.services.JustInTimeObjectCreator}
+     * (which is reentrant, so a recursive call from the same thread reaches this check rather than deadlocking).
      */
     @Override
     public Object createObject()
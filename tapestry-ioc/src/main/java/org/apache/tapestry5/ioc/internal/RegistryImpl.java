@@ -1,4 +1,4 @@
-// Copyright 2006-2014 The Apache Software Foundation
+// Copyright 2006-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -38,6 +38,8 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 @SuppressWarnings("all")
 public class RegistryImpl implements Registry, InternalRegistry, ServiceProxyProvider
@@ -1212,15 +1214,32 @@ public class RegistryImpl implements Registry, InternalRegistry, ServiceProxyPro
 
         ObjectCreator<T> justInTime = new ObjectCreator<T>()
         {
-            private T delegate;
+            private final Lock lock = new ReentrantLock();
+
+            private volatile T delegate;
 
             @Override
-            public synchronized T createObject()
+            public T createObject()
             {
-                if (delegate == null)
-                    delegate = autobuildCreator.createObject();
+                // Invoked for every method invoked on the proxy, so the lock is only taken until the object exists.
+
+                T result = delegate;
+
+                if (result != null)
+                    return result;
+
+                lock.lock();
 
-                return delegate;
+                try
+                {
+                    if (delegate == null)
+                        delegate = autobuildCreator.createObject();
+
+                    return delegate;
+                } finally
+                {
+                    lock.unlock();
+                }
             }
         };
 
@@ -1,4 +1,4 @@
-// Copyright 2007 The Apache Software Foundation
+// Copyright 2007, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -21,9 +21,9 @@ import org.apache.tapestry5.ioc.services.ServiceActivityScoreboard;
 import org.apache.tapestry5.ioc.services.Status;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.apache.tapestry5.ioc.ScopeConstants;
 import org.apache.tapestry5.ioc.services.PerThreadValue;
 import org.apache.tapestry5.ioc.services.PerthreadManager;
@@ -35,7 +35,7 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
     {
         private final ServiceDef serviceDef;
 
-        private Status status;
+        private volatile Status status;
 
         private final PerThreadValue<Status> perThreadStatus;
 
@@ -76,10 +76,12 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
             return serviceDef.getMarkers();
         }
 
-        // Mutable properties must be synchronized
+        // The status is volatile, and the per-thread status is only seen by its own thread, so no locking is needed
+        // (services are realized, and per-thread services are realized once per thread, without contending for a
+        // lock).
 
         @Override
-        public synchronized Status getStatus()
+        public Status getStatus()
         {
             if (perThreadStatus != null) {
                 if (!perThreadStatus.exists()) perThreadStatus.set(status);
@@ -88,7 +90,7 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
             else return status;
         }
 
-        synchronized void setStatus(Status status)
+        void setStatus(Status status)
         {
             if (perThreadStatus != null) perThreadStatus.set(status);
             else this.status = status;
@@ -102,12 +104,12 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
     }
 
     /**
-     * Tree map keeps everything in order by key (serviceId).
+     * Skip list map keeps everything in order by key (serviceId).
      */
-    private final Map<String, MutableServiceActivity> serviceIdToServiceStatus = new TreeMap<String, MutableServiceActivity>();
+    private final ConcurrentMap<String, MutableServiceActivity> serviceIdToServiceStatus = new ConcurrentSkipListMap<String, MutableServiceActivity>();
 
     @Override
-    public synchronized List<ServiceActivity> getServiceActivity()
+    public List<ServiceActivity> getServiceActivity()
     {
         // Need to wrap the values in a new list because
         // a) we don't want people arbitrarily changing the internal state of
@@ -134,14 +136,14 @@ public class ServiceActivityTrackerImpl implements ServiceActivityScoreboard,
     }
 
     @Override
-    public synchronized void define(ServiceDef serviceDef, Status initialStatus)
+    public void define(ServiceDef serviceDef, Status initialStatus)
     {
         serviceIdToServiceStatus.put(serviceDef.getServiceId(), new MutableServiceActivity(
                 serviceDef, perthreadManager, initialStatus));
     }
 
     @Override
-    public synchronized void setStatus(String serviceId, Status status)
+    public void setStatus(String serviceId, Status status)
     {
         serviceIdToServiceStatus.get(serviceId).setStatus(status);
     }
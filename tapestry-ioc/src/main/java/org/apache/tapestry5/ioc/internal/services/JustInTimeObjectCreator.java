@@ -1,4 +1,4 @@
-// Copyright 2007, 2009, 2011 The Apache Software Foundation
+// Copyright 2007, 2009, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,10 +19,15 @@ import org.apache.tapestry5.ioc.internal.EagerLoadServiceProxy;
 import org.apache.tapestry5.ioc.internal.ServiceActivityTracker;
 import org.apache.tapestry5.ioc.services.Status;
 
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Invoked from a fabricated service delegate to get or realize (instantiate and configure) the service implementation.
  * This includes synchronization logic, to prevent multiple threads from attempting to realize the same service at the
- * same time (a service should be realized only once). The additional interfaces implemented by this class support eager
+ * same time (a service should be realized only once). A {@link Lock} is used, rather than synchronized methods, so that
+ * threads waiting for a (possibly slow) service realization do not pin their carrier thread when running as virtual
+ * threads. The additional interfaces implemented by this class support eager
  * loading of services (at application startup), and orderly shutdown of proxies.
  */
 public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadServiceProxy, Runnable
@@ -35,6 +40,8 @@ public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadSe
 
     private final String serviceId;
 
+    private final Lock lock = new ReentrantLock();
+
     public JustInTimeObjectCreator(ServiceActivityTracker tracker, ObjectCreator<T> creator, String serviceId)
     {
         this.tracker = tracker;
@@ -57,13 +64,15 @@ public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadSe
         return object;
     }
 
-    private synchronized void obtainObjectFromCreator()
+    private void obtainObjectFromCreator()
     {
-        if (object != null)
-            return;
+        lock.lock();
 
         try
         {
+            if (object != null)
+                return;
+
             object = creator.createObject();
 
             // And if that's successful ...
@@ -74,6 +83,9 @@ public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadSe
         } catch (RuntimeException ex)
         {
             throw new RuntimeException(ServiceMessages.serviceBuildFailure(serviceId, ex), ex);
+        } finally
+        {
+            lock.unlock();
         }
     }
 
@@ -93,18 +105,26 @@ public class JustInTimeObjectCreator<T> implements ObjectCreator<T>, EagerLoadSe
      * the ObjectCreator with one that throws an IllegalStateException.
      */
     @Override
-    public synchronized void run()
+    public void run()
     {
-        creator = new ObjectCreator<T>()
+        lock.lock();
+
+        try
         {
-            @Override
-            public T createObject()
+            creator = new ObjectCreator<T>()
             {
-                throw new IllegalStateException(ServiceMessages.registryShutdown(serviceId));
-            }
-        };
-
-        object = null;
+                @Override
+                public T createObject()
+                {
+                    throw new IllegalStateException(ServiceMessages.registryShutdown(serviceId));
+                }
+            };
+
+            object = null;
+        } finally
+        {
+            lock.unlock();
+        }
     }
 
 }
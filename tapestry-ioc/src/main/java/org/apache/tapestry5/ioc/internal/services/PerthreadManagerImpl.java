@@ -12,8 +12,13 @@
 
 package org.apache.tapestry5.ioc.internal.services;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -26,25 +31,165 @@ import org.apache.tapestry5.ioc.services.RegistryShutdownHub;
 import org.apache.tapestry5.ioc.services.ThreadCleanupListener;
 import org.slf4j.Logger;
 
+/**
+ * Each per-thread value is allocated an integer slot when created; each thread stores its values in arrays, indexed
+ * by slot, so reading or writing a value is an array access (rather than a hash lookup).
+ * <p/>
+ * Per-thread values are created for each page instance (and for many component fields), so slots are recycled once
+ * the value that owns them has been garbage collected. Each thread also records the owner of each of its slots, so a
+ * value never sees data stored by a previous owner of its slot.
+ * <p/>
+ * Slots are numbered across the whole application, but any one thread uses only some of them; each thread's arrays
+ * are therefore divided into pages, and a page is only allocated once the thread stores a value in one of its slots.
+ */
 @SuppressWarnings("all")
 public class PerthreadManagerImpl implements PerthreadManager
 {
     private final PerThreadValue<List<Runnable>> callbacksValue;
 
-    private static class MapHolder extends ThreadLocal<Map>
+    /**
+     * The values stored by a single thread, in pages of {@link #PAGE_SIZE} slots. The slots set since the last cleanup
+     * are tracked, so that cleanup only clears those slots, rather than every slot the thread has ever used.
+     */
+    private static final class Slots
+    {
+        Object[][] owners = new Object[INITIAL_PAGES][];
+
+        Object[][] values = new Object[INITIAL_PAGES][];
+
+        int pageCount;
+
+        int[] touched = new int[PAGE_SIZE];
+
+        int touchedCount;
+
+        Object get(int slot, Object owner)
+        {
+            int page = slot >>> PAGE_SHIFT;
+
+            if (page >= owners.length)
+            {
+                return null;
+            }
+
+            Object[] pageOwners = owners[page];
+            int index = slot & PAGE_MASK;
+
+            return pageOwners != null && pageOwners[index] == owner ? values[page][index] : null;
+        }
+
+        void set(int slot, Object owner, Object value)
+        {
+            int page = slot >>> PAGE_SHIFT;
+
+            if (page >= owners.length)
+            {
+                int length = Math.max(page + 1, owners.length * 2);
+
+                owners = Arrays.copyOf(owners, length);
+                values = Arrays.copyOf(values, length);
+            }
+
+            if (owners[page] == null)
+            {
+                owners[page] = new Object[PAGE_SIZE];
+                values[page] = new Object[PAGE_SIZE];
+                pageCount++;
+            }
+
+            Object[] pageOwners = owners[page];
+            int index = slot & PAGE_MASK;
+
+            if (pageOwners[index] == null)
+            {
+                if (touchedCount == touched.length)
+                {
+                    touched = Arrays.copyOf(touched, touchedCount * 2);
+                }
+
+                touched[touchedCount++] = slot;
+            }
+
+            pageOwners[index] = owner;
+            values[page][index] = value;
+        }
+
+        /**
+         * Returns true if the thread has used too many pages for them to be kept between requests.
+         */
+        boolean isOversized()
+        {
+            return pageCount > MAX_RETAINED_PAGES || touched.length > MAX_RETAINED_PAGES * PAGE_SIZE;
+        }
+
+        void clear()
+        {
+            for (int i = 0; i < touchedCount; i++)
+            {
+                int slot = touched[i];
+                int page = slot >>> PAGE_SHIFT;
+                int index = slot & PAGE_MASK;
+
+                owners[page][index] = null;
+                values[page][index] = null;
+            }
+
+            touchedCount = 0;
+        }
+    }
+
+    private static class SlotsHolder extends ThreadLocal<Slots>
     {
         @Override
-        protected Map initialValue()
+        protected Slots initialValue()
         {
-            return CollectionFactory.newMap();
+            return new Slots();
         }
     }
 
+    /**
+     * Identifies the slot of a value; enqueued once the value has been garbage collected.
+     */
+    private static class SlotReference extends WeakReference<Object>
+    {
+        final int slot;
+
+        SlotReference(Object owner, int slot, ReferenceQueue<Object> queue)
+        {
+            super(owner, queue);
+
+            this.slot = slot;
+        }
+    }
+
+    private static final int PAGE_SHIFT = 6;
+
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static final int INITIAL_PAGES = 16;
+
+    /**
+     * A thread that has allocated more than this many pages discards them on cleanup, rather than keeping them for
+     * its next request.
+     */
+    private static final int MAX_RETAINED_PAGES = 256;
+
     private final Logger logger;
 
-    private final MapHolder holder = new MapHolder();
+    private final SlotsHolder holder = new SlotsHolder();
+
+    private final AtomicInteger slotGenerator = new AtomicInteger();
+
+    /**
+     * The references must themselves be reachable for them to be enqueued.
+     */
+    private final Map<SlotReference, Boolean> slotReferences = CollectionFactory.newConcurrentMap();
 
-    private final AtomicInteger uuidGenerator = new AtomicInteger();
+    private final ReferenceQueue<Object> releasedValues = new ReferenceQueue<Object>();
+
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<Integer>();
 
     private final AtomicBoolean shutdown = new AtomicBoolean();
 
@@ -68,19 +213,38 @@ public class PerthreadManagerImpl implements PerthreadManager
         });
     }
 
-    private Map getPerthreadMap()
+    private Slots getSlots()
     {
         // This is a degenerate case; it may not even exist; but if during registry shutdown somehow code executes
-        // that attempts to create new values or add new listeners, those go into a new map instance that is
+        // that attempts to create new values or add new listeners, those go into a new instance that is
         // not referenced (and so immediately GCed).
         if (shutdown.get())
         {
-            return CollectionFactory.newMap();
+            return new Slots();
         }
 
         return holder.get();
     }
 
+    private int allocateSlot(Object owner)
+    {
+        SlotReference released;
+
+        while ((released = (SlotReference) releasedValues.poll()) != null)
+        {
+            slotReferences.remove(released);
+            freeSlots.add(released.slot);
+        }
+
+        Integer free = freeSlots.poll();
+
+        int slot = free == null ? slotGenerator.getAndIncrement() : free;
+
+        slotReferences.put(new SlotReference(owner, slot, releasedValues), true);
+
+        return slot;
+    }
+
     private List<Runnable> getCallbacks()
     {
         List<Runnable> result = callbacksValue.get();
@@ -143,24 +307,35 @@ public class PerthreadManagerImpl implements PerthreadManager
         // Listeners should not re-add themselves or store any per-thread state
         // here, it will be lost.
 
-        // Discard the per-thread map of values, including the key that stores
+        // Discard the per-thread values, including the slot that stores
         // the listeners. This means that if a listener attempts to register
         // new listeners, the new listeners will not be triggered and will be
-        // released to the GC.
+        // released to the GC. The pages themselves are kept for the thread's next
+        // request, unless there are a great many of them.
 
-        holder.remove();
+        Slots slots = getSlots();
+
+        if (slots.isOversized())
+        {
+            holder.remove();
+        } else
+        {
+            slots.clear();
+        }
     }
 
     private static Object NULL_VALUE = new Object();
 
-    <T> ObjectCreator<T> createValue(final Object key, final ObjectCreator<T> delegate)
+    public <T> ObjectCreator<T> createValue(final ObjectCreator<T> delegate)
     {
         return new ObjectCreator<T>()
         {
+            private final int slot = allocateSlot(this);
+
             public T createObject()
             {
-                Map map = getPerthreadMap();
-                T storedValue = (T) map.get(key);
+                Slots slots = getSlots();
+                T storedValue = (T) slots.get(slot, this);
 
                 if (storedValue != null)
                 {
@@ -169,22 +344,20 @@ public class PerthreadManagerImpl implements PerthreadManager
 
                 T newValue = delegate.createObject();
 
-                map.put(key, newValue == null ? NULL_VALUE : newValue);
+                slots.set(slot, this, newValue == null ? NULL_VALUE : newValue);
 
                 return newValue;
             }
         };
     }
 
-    public <T> ObjectCreator<T> createValue(ObjectCreator<T> delegate)
-    {
-        return createValue(uuidGenerator.getAndIncrement(), delegate);
-    }
-
-    <T> PerThreadValue<T> createValue(final Object key)
+    @Override
+    public <T> PerThreadValue<T> createValue()
     {
         return new PerThreadValue<T>()
         {
+            private final int slot = allocateSlot(this);
+
             @Override
             public T get()
             {
@@ -194,9 +367,7 @@ public class PerthreadManagerImpl implements PerthreadManager
             @Override
             public T get(T defaultValue)
             {
-                Map map = getPerthreadMap();
-
-                Object storedValue = map.get(key);
+                Object storedValue = getSlots().get(slot, this);
 
                 if (storedValue == null)
                 {
@@ -214,7 +385,7 @@ public class PerthreadManagerImpl implements PerthreadManager
             @Override
             public T set(T newValue)
             {
-                getPerthreadMap().put(key, newValue == null ? NULL_VALUE : newValue);
+                getSlots().set(slot, this, newValue == null ? NULL_VALUE : newValue);
 
                 return newValue;
             }
@@ -222,17 +393,11 @@ public class PerthreadManagerImpl implements PerthreadManager
             @Override
             public boolean exists()
             {
-                return getPerthreadMap().containsKey(key);
+                return getSlots().get(slot, this) != null;
             }
         };
     }
 
-    @Override
-    public <T> PerThreadValue<T> createValue()
-    {
-        return createValue(uuidGenerator.getAndIncrement());
-    }
-
     @Override
     public void run(Runnable runnable)
     {
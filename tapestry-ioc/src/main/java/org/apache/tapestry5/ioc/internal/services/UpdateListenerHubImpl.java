@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2010 The Apache Software Foundation
+// Copyright 2006, 2007, 2010, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.apache.tapestry5.ioc.annotations.PreventServiceDecoration;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.services.UpdateDetector;
 import org.apache.tapestry5.services.UpdateListener;
 import org.apache.tapestry5.services.UpdateListenerHub;
 
@@ -60,4 +61,21 @@ public class UpdateListenerHubImpl implements UpdateListenerHub
         if (!deadReferences.isEmpty())
             listeners.removeAll(deadReferences);
     }
+
+    @Override
+    public boolean hasUpdates()
+    {
+        for (WeakReference<UpdateListener> reference : listeners)
+        {
+            UpdateListener listener = reference.get();
+
+            if (listener == null)
+                continue;
+
+            if (!(listener instanceof UpdateDetector) || ((UpdateDetector) listener).hasUpdates())
+                return true;
+        }
+
+        return false;
+    }
 }
@@ -0,0 +1,55 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.ioc.internal.util;
+
+import java.io.File;
+
+/**
+ * Watches directories for changes to the files they contain, so that a {@link URLChangeTracker} need only check the
+ * files in directories that have changed (rather than every file it tracks).
+ *
+ * @since 5.4
+ */
+public interface DirectoryWatcher
+{
+    /**
+     * Starts watching a directory, if not already watched.
+     *
+     * @param directory
+     *         to watch
+     * @return true if the directory is watched, false if it can not be (in which case, its files must be checked
+     *         individually)
+     */
+    boolean watch(File directory);
+
+    /**
+     * Returns a value that changes whenever a change is detected in any watched directory.
+     */
+    long getChangeCount();
+
+    /**
+     * Returns a value that changes whenever a change is detected to a file in the directory (or when changes may
+     * have been missed).
+     *
+     * @param directory
+     *         a watched directory
+     */
+    long getChangeCount(File directory);
+
+    /**
+     * Stops watching all directories.
+     */
+    void close();
+}
@@ -0,0 +1,48 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.ioc.internal.util;
+
+import java.io.File;
+
+/**
+ * A {@link DirectoryWatcher} that watches nothing; every tracked file is checked individually.
+ *
+ * @since 5.4
+ */
+public class PollingDirectoryWatcher implements DirectoryWatcher
+{
+    @Override
+    public boolean watch(File directory)
+    {
+        return false;
+    }
+
+    @Override
+    public long getChangeCount()
+    {
+        return 0;
+    }
+
+    @Override
+    public long getChangeCount(File directory)
+    {
+        return 0;
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -21,7 +21,10 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Given a (growing) set of URLs, can periodically check to see if any of the underlying resources has changed. This
@@ -29,6 +32,10 @@ import java.util.Map;
  * granularity is used by default. Second-level granularity is provided for compatibility with browsers vis-a-vis
  * resource caching -- that's how granular they get with their "If-Modified-Since", "Last-Modified" and "Expires"
  * headers.
+ * <p/>
+ * Optionally, a {@link DirectoryWatcher} identifies the directories that have changed; only the files in those
+ * directories are checked (files in directories that can not be watched are always checked). This makes the cost of
+ * a check proportional to the number of changes, rather than the number of files.
  */
 public class URLChangeTracker
 {
@@ -42,6 +49,38 @@ public class URLChangeTracker
 
     private final ClasspathURLConverter classpathURLConverter;
 
+    private final DirectoryWatcher watcher;
+
+    /**
+     * Files that are not in a watched directory.
+     */
+    private final Set<File> polledFiles = newConcurrentSet();
+
+    private final ConcurrentMap<File, WatchedDirectory> watchedDirectories = CollectionFactory.newConcurrentMap();
+
+    /**
+     * Change counts are never negative, so this forces a check.
+     */
+    private static final long UNKNOWN_CHANGE_COUNT = -1L;
+
+    /**
+     * The watcher's (overall) change count when changes were last checked for.
+     */
+    private volatile long watcherChangeCount = UNKNOWN_CHANGE_COUNT;
+
+    private static class WatchedDirectory
+    {
+        /**
+         * The watcher's change count for the directory when its files were last checked.
+         */
+        volatile long changeCount = UNKNOWN_CHANGE_COUNT;
+
+        /**
+         * The tracked files in the directory (possibly including the directory itself).
+         */
+        final Set<File> files = newConcurrentSet();
+    }
+
     public static final ClasspathURLConverter DEFAULT_CONVERTER = new ClasspathURLConverterImpl();
 
     /**
@@ -95,10 +134,39 @@ public class URLChangeTracker
      */
     public URLChangeTracker(ClasspathURLConverter classpathURLConverter, boolean granularitySeconds,
             boolean trackFolderChanges)
+    {
+        this(classpathURLConverter, granularitySeconds, trackFolderChanges, null);
+    }
+
+    /**
+     * Creates a new URL change tracker, using either millisecond-level granularity or second-level granularity, and
+     * (optionally) a directory watcher.
+     *
+     * @param classpathURLConverter
+     *            used to convert URLs from one protocol to another
+     * @param granularitySeconds
+     *            whether or not to use second granularity (as opposed to millisecond granularity)
+     * @param trackFolderChanges
+     *            if true, then adding a file URL will also track the folder containing the file (this
+     *            is useful when concerned about additions to a folder)
+     * @param watcher
+     *            if not null, used to identify the directories containing changed files
+     * @since 5.4
+     */
+    public URLChangeTracker(ClasspathURLConverter classpathURLConverter, boolean granularitySeconds,
+            boolean trackFolderChanges, DirectoryWatcher watcher)
     {
         this.granularitySeconds = granularitySeconds;
         this.classpathURLConverter = classpathURLConverter;
         this.trackFolderChanges = trackFolderChanges;
+        this.watcher = watcher;
+    }
+
+    private static Set<File> newConcurrentSet()
+    {
+        Map<File, Boolean> map = CollectionFactory.newConcurrentMap();
+
+        return Collections.newSetFromMap(map);
     }
 
     /**
@@ -124,6 +192,24 @@ public class URLChangeTracker
         }
     }
 
+    /**
+     * Converts a URL, as it would be when {@linkplain #add(URL) added} to this tracker, to the file it tracks.
+     *
+     * @param url
+     *            the URL, possibly null
+     * @return the file, or null if the URL is null or is not a file URL
+     * @since 5.4
+     */
+    public File toFile(URL url)
+    {
+        if (url == null)
+            return null;
+
+        URL converted = classpathURLConverter.convert(url);
+
+        return converted.getProtocol().equals("file") ? toFileFromFileProtocolURL(converted) : null;
+    }
+
     /**
      * Stores a new URL into the tracker, or returns the previous time stamp for a previously added URL. Filters out all
      * non-file URLs.
@@ -155,20 +241,57 @@ public class URLChangeTracker
 
         fileToTimestamp.put(resourceFile, timestamp);
 
+        File dir = resourceFile.getParentFile();
+
+        track(resourceFile, dir);
+
         if (trackFolderChanges)
         {
-            File dir = resourceFile.getParentFile();
-
             if (!fileToTimestamp.containsKey(dir))
             {
                 long dirTimestamp = readTimestamp(dir);
                 fileToTimestamp.put(dir, dirTimestamp);
+
+                // Files added to (or removed from) the directory are changes to the directory itself.
+
+                track(dir, dir);
             }
         }
 
         return timestamp;
     }
 
+    private void track(File file, File directory)
+    {
+        if (watcher == null || directory == null)
+        {
+            polledFiles.add(file);
+            return;
+        }
+
+        WatchedDirectory watched = watchedDirectories.get(directory);
+
+        if (watched == null)
+        {
+            if (!watcher.watch(directory))
+            {
+                polledFiles.add(file);
+                return;
+            }
+
+            // A change may have occurred after the file's timestamp was read, but before the directory was watched,
+            // so the directory's files are checked on the next check.
+
+            WatchedDirectory existing = watchedDirectories.putIfAbsent(directory, new WatchedDirectory());
+
+            watched = existing == null ? watchedDirectories.get(directory) : existing;
+
+            watcherChangeCount = UNKNOWN_CHANGE_COUNT;
+        }
+
+        watched.files.add(file);
+    }
+
     private long timestampForNonFileURL(URL url)
     {
         long timestamp;
@@ -191,6 +314,8 @@ public class URLChangeTracker
     public void clear()
     {
         fileToTimestamp.clear();
+        polledFiles.clear();
+        watchedDirectories.clear();
     }
 
     /**
@@ -198,27 +323,139 @@ public class URLChangeTracker
      */
     public boolean containsChanges()
     {
-        boolean result = false;
+        return !findChanges().isEmpty();
+    }
+
+    /**
+     * Re-acquires the last updated timestamp for each URL and returns the files whose timestamps have changed (these
+     * may include directories, when folder changes are tracked).
+     *
+     * @return the changed files, possibly empty
+     * @since 5.4
+     */
+    public Set<File> findChanges()
+    {
+        Set<File> result = CollectionFactory.newSet();
 
         // This code would be highly suspect if this method was expected to be invoked
         // concurrently, but CheckForUpdatesFilter ensures that it will be invoked
         // synchronously.
 
-        for (Map.Entry<File, Long> entry : fileToTimestamp.entrySet())
+        if (watcher == null)
         {
-            long newTimestamp = readTimestamp(entry.getKey());
-            long current = entry.getValue();
+            for (File file : fileToTimestamp.keySet())
+            {
+                updateTimestamp(file, result);
+            }
 
-            if (current == newTimestamp)
+            return result;
+        }
+
+        for (File file : polledFiles)
+        {
+            updateTimestamp(file, result);
+        }
+
+        long changeCount = watcher.getChangeCount();
+
+        if (changeCount == watcherChangeCount)
+        {
+            return result;
+        }
+
+        // Read before checking the directories, so a change during the check is caught by the next check.
+
+        watcherChangeCount = changeCount;
+
+        for (Map.Entry<File, WatchedDirectory> entry : watchedDirectories.entrySet())
+        {
+            WatchedDirectory watched = entry.getValue();
+
+            long directoryChangeCount = watcher.getChangeCount(entry.getKey());
+
+            if (directoryChangeCount == watched.changeCount)
+            {
                 continue;
+            }
 
-            result = true;
-            entry.setValue(newTimestamp);
+            watched.changeCount = directoryChangeCount;
+
+            for (File file : watched.files)
+            {
+                updateTimestamp(file, result);
+            }
         }
 
         return result;
     }
 
+    /**
+     * Re-reads the timestamp of a file, adding the file to the changes if the timestamp has changed.
+     */
+    private void updateTimestamp(File file, Set<File> changes)
+    {
+        Long current = fileToTimestamp.get(file);
+        long newTimestamp = readTimestamp(file);
+
+        if (current == null || current == newTimestamp)
+            return;
+
+        fileToTimestamp.put(file, newTimestamp);
+
+        changes.add(file);
+    }
+
+    /**
+     * Returns true if any timestamp has changed, without updating the stored timestamps; a subsequent
+     * {@link #containsChanges()} will also return true. This may be invoked concurrently with other methods.
+     *
+     * @since 5.4
+     */
+    public boolean peekForChanges()
+    {
+        if (watcher == null)
+        {
+            return anyChanged(fileToTimestamp.keySet());
+        }
+
+        if (anyChanged(polledFiles))
+        {
+            return true;
+        }
+
+        if (watcher.getChangeCount() == watcherChangeCount)
+        {
+            return false;
+        }
+
+        for (Map.Entry<File, WatchedDirectory> entry : watchedDirectories.entrySet())
+        {
+            WatchedDirectory watched = entry.getValue();
+
+            if (watcher.getChangeCount(entry.getKey()) != watched.changeCount && anyChanged(watched.files))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean anyChanged(Set<File> files)
+    {
+        for (File file : files)
+        {
+            Long current = fileToTimestamp.get(file);
+
+            if (current != null && readTimestamp(file) != current)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * Returns the time that the specified file was last modified, possibly rounded down to the nearest second.
      */
@@ -252,6 +489,13 @@ public class URLChangeTracker
         {
             e.setValue(0l);
         }
+
+        for (WatchedDirectory watched : watchedDirectories.values())
+        {
+            watched.changeCount = UNKNOWN_CHANGE_COUNT;
+        }
+
+        watcherChangeCount = UNKNOWN_CHANGE_COUNT;
     }
 
     /**
@@ -0,0 +1,167 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.ioc.internal.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link DirectoryWatcher} using a {@link WatchService} (which requires Java 7), so that the operating system reports
+ * changes, rather than Tapestry checking each file. Events are collected (without blocking) whenever a change count is
+ * requested, so no thread is needed. A directory that can no longer be watched (because it was deleted) is reported
+ * as changed every time, so its files are checked individually from then on.
+ * <p/>
+ * This class must only be loaded by way of reflection, after checking that the Java 7 APIs are available.
+ *
+ * @since 5.4
+ */
+public class WatchServiceDirectoryWatcher implements DirectoryWatcher
+{
+    private final WatchService watchService;
+
+    private final Map<WatchKey, File> keyToDirectory = CollectionFactory.newConcurrentMap();
+
+    private final Map<File, Long> directoryToChangeCount = CollectionFactory.newConcurrentMap();
+
+    private final Set<File> unwatchedDirectories = CollectionFactory.newSet();
+
+    // Guarded by this
+
+    private long changeCount, overflowCount;
+
+    public WatchServiceDirectoryWatcher() throws IOException
+    {
+        watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    @Override
+    public boolean watch(File directory)
+    {
+        if (directoryToChangeCount.containsKey(directory))
+        {
+            return true;
+        }
+
+        try
+        {
+            WatchKey key = directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            synchronized (this)
+            {
+                keyToDirectory.put(key, directory);
+
+                if (!directoryToChangeCount.containsKey(directory))
+                {
+                    directoryToChangeCount.put(directory, 0L);
+                }
+            }
+
+            return true;
+        } catch (IOException ex)
+        {
+            return false;
+        } catch (RuntimeException ex)
+        {
+            // Such as an UnsupportedOperationException, or an InvalidPathException
+
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized long getChangeCount()
+    {
+        collectEvents();
+
+        // Unwatched directories must be checked every time
+
+        if (!unwatchedDirectories.isEmpty())
+        {
+            changeCount++;
+        }
+
+        return changeCount + overflowCount;
+    }
+
+    @Override
+    public synchronized long getChangeCount(File directory)
+    {
+        collectEvents();
+
+        if (unwatchedDirectories.contains(directory))
+        {
+            return ++changeCount;
+        }
+
+        Long count = directoryToChangeCount.get(directory);
+
+        return (count == null ? 0 : count) + overflowCount;
+    }
+
+    private void collectEvents()
+    {
+        WatchKey key;
+
+        while ((key = watchService.poll()) != null)
+        {
+            File directory = keyToDirectory.get(key);
+
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                // Events were lost, so every directory must be checked.
+
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                {
+                    overflowCount++;
+                }
+            }
+
+            changeCount++;
+
+            if (directory == null)
+            {
+                continue;
+            }
+
+            directoryToChangeCount.put(directory, directoryToChangeCount.get(directory) + 1);
+
+            if (!key.reset())
+            {
+                keyToDirectory.remove(key);
+                unwatchedDirectories.add(directory);
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            watchService.close();
+        } catch (IOException ex)
+        {
+            // Ignore
+        }
+    }
+}
@@ -0,0 +1,35 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.services;
+
+/**
+ * An {@link UpdateListener} that can report whether it has updates, without acting on them. Unlike
+ * {@link #checkForUpdates()}, {@link #hasUpdates()} may be invoked while requests are being processed; this allows
+ * request processing to be locked down only when some listener actually has something to invalidate.
+ * <p>
+ * Listeners that do not implement this interface are assumed to always have updates.
+ *
+ * @see UpdateListenerHub#hasUpdates()
+ * @since 5.4
+ */
+public interface UpdateDetector extends UpdateListener
+{
+    /**
+     * Returns true if a subsequent {@link #checkForUpdates()} would find updates. This must not change any state; it
+     * may be invoked concurrently with other operations on the receiver. An occasional false negative is allowed, as
+     * the check will be repeated.
+     */
+    boolean hasUpdates();
+}
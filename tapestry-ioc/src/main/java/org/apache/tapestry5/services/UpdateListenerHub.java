@@ -1,4 +1,4 @@
-// Copyright 2006, 2007, 2008, 2010, 2011 The Apache Software Foundation
+// Copyright 2006, 2007, 2008, 2010, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -48,4 +48,14 @@ public interface UpdateListenerHub
      * {@link org.apache.tapestry5.services.InvalidationEventHub}) when such a change occurs.
      */
     void fireCheckForUpdates();
+
+    /**
+     * Returns true if {@link #fireCheckForUpdates()} may find updates: that is, if any listener is an
+     * {@link UpdateDetector} that {@linkplain UpdateDetector#hasUpdates() has updates}, or if any listener is not an
+     * UpdateDetector at all. Unlike {@link #fireCheckForUpdates()}, this may be invoked while requests are being
+     * processed.
+     *
+     * @since 5.4
+     */
+    boolean hasUpdates();
 }
@@ -6,6 +6,10 @@ import org.apache.tapestry5.ioc.internal.services.JustInTimeObjectCreator
 import org.apache.tapestry5.ioc.services.Status
 import spock.lang.Specification
 
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
 class JustInTimeObjectCreatorSpec extends Specification {
 
   static final String SERVICE_ID = "FooBar";
@@ -50,4 +54,90 @@ class JustInTimeObjectCreatorSpec extends Specification {
 
     jit.createObject().is service
   }
+
+  def "threads that request the object while it is being created wait for it, and share it"() {
+
+    def entered = new CountDownLatch(1)
+    def release = new CountDownLatch(1)
+    def creations = new AtomicInteger()
+    ServiceActivityTracker tracker = Mock()
+
+    def creator = {
+      creations.incrementAndGet()
+      entered.countDown()
+      release.await()
+
+      return new Object()
+    } as ObjectCreator
+
+    def jit = new JustInTimeObjectCreator(tracker, creator, SERVICE_ID)
+    def objects = new CopyOnWriteArrayList()
+
+    when:
+
+    def first = Thread.start { objects << jit.createObject() }
+
+    entered.await()
+
+    def others = (1..4).collect { Thread.start { objects << jit.createObject() } }
+
+    others.each { thread ->
+      while (thread.state != Thread.State.WAITING) {
+        assert thread.alive
+        Thread.yield()
+      }
+    }
+
+    then:
+
+    objects.empty
+
+    when:
+
+    release.countDown()
+
+    ([first] + others)*.join()
+
+    then:
+
+    creations.get() == 1
+    objects.size() == 5
+    objects.every { it.is(objects[0]) }
+  }
+
+  def "a failed creation may be retried"() {
+
+    ObjectCreator creator = Mock()
+    Object service = new Object()
+    ServiceActivityTracker tracker = Mock()
+
+    def jit = new JustInTimeObjectCreator(tracker, creator, SERVICE_ID)
+
+    when:
+
+    jit.createObject()
+
+    then:
+
+    1 * creator.createObject() >> { throw new RuntimeException("Failure.") }
+
+    RuntimeException e = thrown()
+
+    e.message.contains "Exception constructing service 'FooBar': Failure."
+
+    when: "invoked from another thread, which would wait forever were the lock not released"
+
+    def result = null
+
+    def thread = Thread.start { result = jit.createObject() }
+
+    thread.join()
+
+    then:
+
+    1 * creator.createObject() >> service
+    1 * tracker.setStatus(SERVICE_ID, Status.REAL)
+
+    result.is service
+  }
 }
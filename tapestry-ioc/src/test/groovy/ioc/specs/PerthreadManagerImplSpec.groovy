@@ -179,5 +179,142 @@ class PerthreadManagerImplSpec extends Specification {
 
   }
 
+  def "many values are stored independently, and all are discarded by cleanup"() {
+    Logger logger = Mock()
+    def manager = new PerthreadManagerImpl(logger)
+
+    def values = (0..<500).collect { manager.createValue() }
+
+    when:
+
+    values.eachWithIndex { value, i -> value.set i }
+
+    then:
+
+    values.every { it.exists() }
+    values.collect { it.get() } == (0..<500).toList()
+
+    when:
+
+    manager.cleanup()
+
+    then:
+
+    values.every { !it.exists() }
+  }
+
+  def "values are stored separately for each thread"() {
+    Logger logger = Mock()
+    def manager = new PerthreadManagerImpl(logger)
+    def value = manager.createValue()
+    def seen = null
+
+    value.set "main"
+
+    when:
+
+    def thread = Thread.start {
+      seen = value.get("none")
+      value.set "other"
+    }
+
+    thread.join()
+
+    then:
+
+    seen == "none"
+    value.get() == "main"
+  }
+
+  def "slots of released values are reused without exposing their data"() {
+    Logger logger = Mock()
+    def manager = new PerthreadManagerImpl(logger)
+
+    def discarded = manager.createValue()
+
+    discarded.set "stale"
+
+    // As if the value had been garbage collected.
+
+    manager.@slotReferences.keySet().find { it.get().is(discarded) }.enqueue()
+
+    when:
+
+    def value = manager.createValue()
+
+    then:
+
+    value.slot == discarded.slot
+    !value.exists()
+
+    when:
+
+    value.set "fresh"
+
+    then:
+
+    discarded.get() == null
+    value.get() == "fresh"
+  }
+
+  def "values in a large number of slots are discarded by cleanup"() {
+    Logger logger = Mock()
+    def manager = new PerthreadManagerImpl(logger)
+
+    def values = (1..20000).collect { manager.createValue() }
+
+    values.each { it.set "value" }
+
+    when:
+
+    manager.cleanup()
+
+    then:
+
+    values.every { !it.exists() }
+
+    when:
+
+    values.last().set "again"
+    manager.cleanup()
+
+    then:
 
+    !values.last().exists()
+  }
+
+  def "pages are kept between requests when a thread uses a few high slots"() {
+    Logger logger = Mock()
+    def manager = new PerthreadManagerImpl(logger)
+
+    def values = (1..20000).collect { manager.createValue() }
+
+    def used = values[-3..-1]
+
+    used.each { it.set "first" }
+    manager.cleanup()
+
+    def slots = manager.@holder.get()
+    def pages = slots.owners.findAll { it != null }
+
+    when:
+
+    used.each { it.set "second" }
+
+    then:
+
+    used.every { it.get() == "second" }
+    values[0..-4].every { !it.exists() }
+
+    when:
+
+    manager.cleanup()
+
+    then:
+
+    manager.@holder.get().is(slots)
+    slots.owners.findAll { it != null }.size() == pages.size()
+    pages.every { page -> slots.owners.any { it.is(page) } }
+    used.every { !it.exists() }
+  }
 }
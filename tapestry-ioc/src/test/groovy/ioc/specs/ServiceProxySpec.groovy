@@ -2,6 +2,9 @@ package ioc.specs
 
 import org.apache.tapestry5.ioc.*
 
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
 class ServiceProxySpec extends AbstractRegistrySpecification {
 
   def "shutdown deactivaties proxies"() {
@@ -95,4 +98,40 @@ class ServiceProxySpec extends AbstractRegistrySpecification {
     IntegrationTestFixture.countingGreeterInstantiationCount == 1
   }
 
+  def "a proxy for an autobuilt object instantiates the implementation once, when first invoked concurrently"() {
+
+    buildRegistry()
+
+    IntegrationTestFixture.blockingGreeterInstantiationCount = 0
+    IntegrationTestFixture.blockingGreeterEntered = new CountDownLatch(1)
+    IntegrationTestFixture.blockingGreeterRelease = new CountDownLatch(1)
+
+    def g = proxy Greeter, BlockingGreeterImpl
+
+    def greetings = new CopyOnWriteArrayList()
+
+    when:
+
+    def first = Thread.start { greetings << g.greeting }
+
+    IntegrationTestFixture.blockingGreeterEntered.await()
+
+    def others = (1..4).collect { Thread.start { greetings << g.greeting } }
+
+    others.each { thread ->
+      while (thread.state != Thread.State.WAITING) {
+        assert thread.alive
+        Thread.yield()
+      }
+    }
+
+    IntegrationTestFixture.blockingGreeterRelease.countDown()
+
+    ([first] + others)*.join()
+
+    then:
+
+    IntegrationTestFixture.blockingGreeterInstantiationCount == 1
+    greetings == ["Hello"] * 5
+  }
 }
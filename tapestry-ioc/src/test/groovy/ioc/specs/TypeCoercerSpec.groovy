@@ -7,6 +7,9 @@ import org.apache.tapestry5.ioc.util.TimeInterval
 import org.apache.tapestry5.plastic.PlasticUtils
 import spock.lang.Unroll
 
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
 class TypeCoercerSpec extends AbstractSharedRegistrySpecification {
 
   TypeCoercer coercer = getService TypeCoercer
@@ -188,4 +191,73 @@ class TypeCoercerSpec extends AbstractSharedRegistrySpecification {
 
     !c1.is(c3)
   }
+
+  def "threads racing to compute a coercion all obtain the same coercion"() {
+    def mismatches = 0
+
+    when:
+
+    100.times {
+      coercer.clearCache()
+
+      def start = new CountDownLatch(1)
+      def coercions = new CopyOnWriteArrayList()
+
+      def threads = (1..8).collect {
+        Thread.start {
+          start.await()
+          coercions << coercer.getCoercion(StringBuilder, Integer)
+        }
+      }
+
+      start.countDown()
+      threads*.join()
+
+      if (coercions.size() != 8 || !coercions.every { it.is(coercions[0]) }) {
+        mismatches++
+      }
+    }
+
+    then:
+
+    mismatches == 0
+  }
+
+  def "coercions are correct while the cache is concurrently cleared"() {
+    def start = new CountDownLatch(1)
+    def failures = new CopyOnWriteArrayList()
+
+    when:
+
+    def threads = (1..8).collect { i ->
+      Thread.start {
+        start.await()
+
+        try {
+          1000.times { j ->
+            def input = new StringBuilder("${i * j}")
+
+            assert coercer.coerce(input, Long) == i * j
+            assert coercer.coerce(input, Integer) == i * j
+            assert coercer.coerce(i * j, String) == "${i * j}"
+          }
+        } catch (Throwable ex) {
+          failures << ex
+        }
+      }
+    }
+
+    threads << Thread.start {
+      start.await()
+
+      100.times { coercer.clearCache() }
+    }
+
+    start.countDown()
+    threads*.join()
+
+    then:
+
+    failures.empty
+  }
 }
@@ -63,6 +63,23 @@ class URLChangeTrackerSpec extends Specification {
     tracker.containsChanges()
   }
 
+  def "peeking for changes does not consume them"() {
+    def f = newFile()
+
+    tracker.add(f.toURL())
+
+    when:
+
+    touch(f)
+
+    then:
+
+    tracker.peekForChanges()
+    tracker.peekForChanges()
+    tracker.containsChanges()
+    !tracker.peekForChanges()
+  }
+
   def File newFile() {
     File.createTempFile("changetracker0", ".tmp")
   }
@@ -1,6 +1,7 @@
 package ioc.specs
 
 import org.apache.tapestry5.ioc.internal.services.UpdateListenerHubImpl
+import org.apache.tapestry5.services.UpdateDetector
 import org.apache.tapestry5.services.UpdateListener
 import org.apache.tapestry5.services.UpdateListenerHub
 import spock.lang.Specification
@@ -51,4 +52,49 @@ class UpdateListenerHubImplSpec extends Specification {
     noExceptionThrown()
   }
 
+  def "hasUpdates() is false when no detector has updates"() {
+
+    UpdateDetector detector = Mock()
+
+    hub.addUpdateListener(detector)
+
+    when:
+
+    def result = hub.hasUpdates()
+
+    then:
+
+    1 * detector.hasUpdates() >> false
+    0 * detector.checkForUpdates()
+
+    !result
+  }
+
+  def "hasUpdates() is true when a detector has updates"() {
+
+    UpdateDetector detector = Mock()
+
+    hub.addUpdateListener(detector)
+
+    when:
+
+    def result = hub.hasUpdates()
+
+    then:
+
+    1 * detector.hasUpdates() >> true
+
+    result
+  }
+
+  def "hasUpdates() is true when a listener can not detect updates"() {
+
+    UpdateListener listener = Mock()
+
+    hub.addUpdateListener(listener)
+
+    expect:
+
+    hub.hasUpdates()
+  }
 }
@@ -0,0 +1,168 @@
+package ioc.specs
+
+import org.apache.tapestry5.ioc.internal.services.ClasspathURLConverterImpl
+import org.apache.tapestry5.ioc.internal.util.URLChangeTracker
+import org.apache.tapestry5.ioc.internal.util.WatchServiceDirectoryWatcher
+import spock.lang.Specification
+
+class WatchedURLChangeTrackerSpec extends Specification {
+
+  def watcher = new WatchServiceDirectoryWatcher()
+
+  def tracker = new URLChangeTracker(new ClasspathURLConverterImpl(), false, true, watcher)
+
+  File dir
+
+  def setup() {
+    dir = File.createTempFile("watched", "")
+    dir.delete()
+    dir.mkdir()
+  }
+
+  def cleanup() {
+    watcher.close()
+    dir.deleteDir()
+  }
+
+  def newFile(File parent = dir) {
+    File.createTempFile("changetracker0", ".tmp", parent)
+  }
+
+  /**
+   * The watch service reports changes asynchronously.
+   */
+  def awaitChange(long initial) {
+    for (int i = 0; i < 100 && watcher.changeCount == initial; i++) {
+      Thread.sleep 50
+    }
+  }
+
+  def touch(File file) {
+    def initial = file.lastModified()
+    def changeCount = watcher.changeCount
+    def index = 0
+
+    while (true) {
+
+      file.lastModified = System.currentTimeMillis()
+
+      if (file.lastModified() != initial) { break }
+
+      Thread.sleep(50 * 2 ^ index++)
+    }
+
+    awaitChange(changeCount)
+  }
+
+  def "a touched file is noticed"() {
+    def f = newFile()
+
+    when:
+
+    tracker.add(f.toURL())
+
+    then:
+
+    tracker.trackedFileCount() == 2
+    !tracker.containsChanges()
+
+    when:
+
+    touch(f)
+
+    then:
+
+    tracker.peekForChanges()
+    tracker.containsChanges()
+    !tracker.peekForChanges()
+    !tracker.containsChanges()
+  }
+
+  def "a change in one directory does not affect the files of another"() {
+    def other = new File(dir, "other")
+    other.mkdir()
+
+    def f = newFile()
+    def g = newFile(other)
+
+    tracker.add(f.toURL())
+    tracker.add(g.toURL())
+
+    !tracker.containsChanges()
+
+    when:
+
+    touch(g)
+
+    then:
+
+    tracker.containsChanges()
+    !tracker.containsChanges()
+  }
+
+  def "creating a new file in a tracked folder is a change"() {
+    tracker.add(newFile().toURL())
+
+    !tracker.containsChanges()
+
+    def changeCount = watcher.changeCount
+    def initial = dir.lastModified()
+    def index = 0
+
+    when:
+
+    while (true) {
+      newFile()
+
+      if (dir.lastModified() != initial) { break }
+      Thread.sleep(50 * 2 ^ index++)
+    }
+
+    awaitChange(changeCount)
+
+    then:
+
+    tracker.containsChanges()
+  }
+
+  def "deleting a file is a change"() {
+    def f = newFile()
+
+    tracker.add(f.toURL())
+
+    !tracker.containsChanges()
+
+    def changeCount = watcher.changeCount
+
+    when:
+
+    f.delete()
+    awaitChange(changeCount)
+
+    then:
+
+    tracker.containsChanges()
+  }
+
+  def "files in a directory that can not be watched are checked individually"() {
+    def missing = new File(dir, "missing")
+
+    expect:
+
+    !watcher.watch(missing)
+  }
+
+  def "forcing a change is noticed"() {
+    tracker.add(newFile().toURL())
+
+    !tracker.containsChanges()
+
+    when:
+
+    tracker.forceChange()
+
+    then:
+
+    tracker.containsChanges()
+  }
+}
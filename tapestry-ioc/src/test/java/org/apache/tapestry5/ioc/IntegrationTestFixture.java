@@ -1,9 +1,17 @@
 package org.apache.tapestry5.ioc;
 
+import java.util.concurrent.CountDownLatch;
+
 /**
  * Provides a convenient places to store a few values, when communicating between text fixture classes and test specifications
  * and feature methods.
  */
 public class IntegrationTestFixture {
   public static int countingGreeterInstantiationCount;
+
+  public static int blockingGreeterInstantiationCount;
+
+  public static CountDownLatch blockingGreeterEntered;
+
+  public static CountDownLatch blockingGreeterRelease;
 }
@@ -0,0 +1,55 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.internal.jmx;
+
+import org.apache.tapestry5.jmx.RequestMetricsMXBean;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
+import org.apache.tapestry5.services.metrics.TimingSummary;
+
+import java.util.List;
+
+public class RequestMetricsMXBeanImpl implements RequestMetricsMXBean
+{
+    private final RequestMetrics metrics;
+
+    public RequestMetricsMXBeanImpl(RequestMetrics metrics)
+    {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public List<TimingSummary> getPageRenderTimings()
+    {
+        return metrics.getPageRenderTimings();
+    }
+
+    @Override
+    public List<TimingSummary> getComponentEventTimings()
+    {
+        return metrics.getComponentEventTimings();
+    }
+
+    @Override
+    public List<TimingSummary> getComponentRenderTimings()
+    {
+        return metrics.getComponentRenderTimings();
+    }
+
+    @Override
+    public void reset()
+    {
+        metrics.reset();
+    }
+}
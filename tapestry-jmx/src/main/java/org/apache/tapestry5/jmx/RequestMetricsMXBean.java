@@ -0,0 +1,40 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry5.jmx;
+
+import org.apache.tapestry5.services.metrics.TimingSummary;
+
+import java.util.List;
+
+/**
+ * Exposes the times collected by the {@link org.apache.tapestry5.services.metrics.RequestMetrics} service. Registered
+ * as "org.apache.tapestry5:service=RequestMetrics" when {@link org.apache.tapestry5.SymbolConstants#REQUEST_METRICS_ENABLED}
+ * is true.
+ *
+ * @since 5.4
+ */
+public interface RequestMetricsMXBean
+{
+    List<TimingSummary> getPageRenderTimings();
+
+    List<TimingSummary> getComponentEventTimings();
+
+    List<TimingSummary> getComponentRenderTimings();
+
+    /**
+     * Discards all times collected so far.
+     */
+    void reset();
+}
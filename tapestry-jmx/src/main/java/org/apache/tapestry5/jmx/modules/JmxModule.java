@@ -1,4 +1,4 @@
-// Copyright 2010-2013 The Apache Software Foundation
+// Copyright 2010-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,9 +14,14 @@
 
 package org.apache.tapestry5.jmx.modules;
 
+import org.apache.tapestry5.SymbolConstants;
 import org.apache.tapestry5.internal.jmx.MBeanSupportImpl;
+import org.apache.tapestry5.internal.jmx.RequestMetricsMXBeanImpl;
 import org.apache.tapestry5.ioc.ServiceBinder;
+import org.apache.tapestry5.ioc.annotations.Startup;
+import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.jmx.MBeanSupport;
+import org.apache.tapestry5.services.metrics.RequestMetrics;
 
 /**
  * Module for JMX services.
@@ -27,4 +32,21 @@ public class JmxModule
     {
         binder.bind(MBeanSupport.class, MBeanSupportImpl.class);
     }
+
+    /**
+     * Registers the {@link org.apache.tapestry5.jmx.RequestMetricsMXBean}, when request metrics are enabled.
+     *
+     * @since 5.4
+     */
+    @Startup
+    public static void registerRequestMetrics(@Symbol(SymbolConstants.REQUEST_METRICS_ENABLED)
+                                              boolean enabled,
+
+                                              RequestMetrics metrics, MBeanSupport support)
+    {
+        if (enabled)
+        {
+            support.register(new RequestMetricsMXBeanImpl(metrics), "org.apache.tapestry5:service=RequestMetrics");
+        }
+    }
 }
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2010, 2011 The Apache Software Foundation
+// Copyright 2007, 2008, 2010, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -14,11 +14,11 @@
 
 package org.apache.tapestry5.upload.internal.services;
 
-import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.fileupload.FileItemFactory;
-import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.*;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
 import org.apache.tapestry5.SymbolConstants;
+import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.services.ThreadCleanupListener;
@@ -27,7 +27,10 @@ import org.apache.tapestry5.upload.services.UploadSymbols;
 import org.apache.tapestry5.upload.services.UploadedFile;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -47,8 +50,21 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
 
     private final String requestEncoding;
 
+    private final boolean streaming;
+
+    private final File repository;
+
+    private final int streamBufferSize;
+
     private FileUploadException uploadException;
 
+    public MultipartDecoderImpl(FileItemFactory fileItemFactory, long maxRequestSize, long maxFileSize,
+                                String requestEncoding)
+    {
+        this(fileItemFactory, maxRequestSize, maxFileSize, requestEncoding, false, null, 0);
+    }
+
+    @Inject
     public MultipartDecoderImpl(
 
             FileItemFactory fileItemFactory,
@@ -60,12 +76,24 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
             long maxFileSize,
 
             @Symbol(SymbolConstants.CHARSET)
-            String requestEncoding)
+            String requestEncoding,
+
+            @Symbol(UploadSymbols.STREAMING)
+            boolean streaming,
+
+            @Symbol(UploadSymbols.REPOSITORY_LOCATION)
+            String repositoryLocation,
+
+            @Symbol(UploadSymbols.STREAM_BUFFER_SIZE)
+            int streamBufferSize)
     {
         this.fileItemFactory = fileItemFactory;
         this.maxRequestSize = maxRequestSize;
         this.maxFileSize = maxFileSize;
         this.requestEncoding = requestEncoding;
+        this.streaming = streaming;
+        this.repository = repositoryLocation == null ? null : new File(repositoryLocation);
+        this.streamBufferSize = streamBufferSize;
     }
 
     @Override
@@ -104,7 +132,7 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
     {
         try
         {
-            return createFileUpload().parseRequest(request);
+            return streaming ? streamRequest(request) : createFileUpload().parseRequest(request);
         } catch (FileUploadException ex)
         {
             uploadException = ex;
@@ -113,6 +141,68 @@ public class MultipartDecoderImpl implements MultipartDecoder, ThreadCleanupList
         }
     }
 
+    /**
+     * Reads the parts of the request, in order, using the streaming API of commons-fileupload. Form fields are read
+     * into items from the {@link FileItemFactory} (they are small), but the content of each uploaded file is written
+     * directly to a {@link StreamedFileItem}, through a single buffer of
+     * {@linkplain UploadSymbols#STREAM_BUFFER_SIZE bounded size}.
+     *
+     * @since 5.4
+     */
+    protected List<FileItem> streamRequest(HttpServletRequest request) throws FileUploadException
+    {
+        List<FileItem> items = CollectionFactory.newList();
+
+        ByteBuffer buffer = ByteBuffer.allocate(streamBufferSize);
+
+        boolean complete = false;
+
+        try
+        {
+            FileItemIterator iterator = createFileUpload().getItemIterator(request);
+
+            while (iterator.hasNext())
+            {
+                FileItemStream stream = iterator.next();
+
+                items.add(stream.isFormField()
+                        ? readFormField(stream)
+                        : StreamedFileItem.store(stream, repository, buffer));
+            }
+
+            complete = true;
+
+            return items;
+        } catch (FileUploadBase.FileUploadIOException ex)
+        {
+            // A size limit was exceeded while reading a part.
+
+            throw (FileUploadException) ex.getCause();
+        } catch (IOException ex)
+        {
+            throw new FileUploadException(ex.getMessage(), ex);
+        } finally
+        {
+            if (!complete)
+            {
+                for (FileItem item : items)
+                {
+                    item.delete();
+                }
+            }
+        }
+    }
+
+    private FileItem readFormField(FileItemStream stream) throws IOException
+    {
+        FileItem item = fileItemFactory.createItem(stream.getFieldName(), stream.getContentType(), true,
+                stream.getName());
+
+        Streams.copy(stream.openStream(), item.getOutputStream(), true);
+
+        return item;
+    }
+
     protected ServletFileUpload createFileUpload()
     {
         ServletFileUpload upload = new ServletFileUpload(fileItemFactory);
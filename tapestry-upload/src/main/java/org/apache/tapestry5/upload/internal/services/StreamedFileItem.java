@@ -0,0 +1,257 @@
+// Copyright 2015 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry5.upload.internal.services;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.FileItemHeaders;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A {@link FileItem} for a file part of a request decoded in streaming mode. The content of the part is read from the
+ * request as it arrives and written, once, to a file in the repository; {@link #write(File)} then moves that file to
+ * its final location. Streamed items are never held in memory and are read-only.
+ *
+ * @see org.apache.tapestry5.upload.services.UploadSymbols#STREAMING
+ * @since 5.4
+ */
+public class StreamedFileItem implements FileItem
+{
+    private static final long serialVersionUID = 3514620524185470862L;
+
+    private final String contentType;
+
+    private final String name;
+
+    private final File file;
+
+    private final long size;
+
+    private String fieldName;
+
+    private boolean formField;
+
+    private FileItemHeaders headers;
+
+    private StreamedFileItem(FileItemStream stream, File file, long size)
+    {
+        contentType = stream.getContentType();
+        name = stream.getName();
+        fieldName = stream.getFieldName();
+        formField = stream.isFormField();
+        headers = stream.getHeaders();
+
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * Reads the content of the stream into a new file in the repository.
+     *
+     * @param stream
+     *         the part to read, which must not yet have been opened
+     * @param repository
+     *         directory in which to create the file
+     * @param buffer
+     *         buffer used to move the content from the request to the file; it bounds the amount of the part
+     *         held in memory at any one time
+     * @return the stored item
+     * @throws IOException
+     *         if the part can not be read or stored (including when it exceeds the maximum file size); no file is
+     *         left behind
+     */
+    public static StreamedFileItem store(FileItemStream stream, File repository, ByteBuffer buffer) throws IOException
+    {
+        File file = File.createTempFile("upload_", ".tmp", repository);
+
+        boolean stored = false;
+
+        try
+        {
+            long size = copy(stream.openStream(), file, buffer);
+
+            stored = true;
+
+            return new StreamedFileItem(stream, file, size);
+        } finally
+        {
+            if (!stored)
+            {
+                file.delete();
+            }
+        }
+    }
+
+    private static long copy(InputStream input, File file, ByteBuffer buffer) throws IOException
+    {
+        ReadableByteChannel in = Channels.newChannel(input);
+        FileChannel out = new FileOutputStream(file).getChannel();
+
+        long size = 0;
+
+        try
+        {
+            buffer.clear();
+
+            // Reads block until the client sends more content, and the next read only happens once the
+            // buffer has been written out; so a slow disk slows the client down, rather than filling memory.
+
+            while (in.read(buffer) >= 0 || buffer.position() > 0)
+            {
+                buffer.flip();
+
+                size += out.write(buffer);
+
+                buffer.compact();
+            }
+        } finally
+        {
+            out.close();
+            in.close();
+        }
+
+        return size;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException
+    {
+        return new FileInputStream(file);
+    }
+
+    @Override
+    public String getContentType()
+    {
+        return contentType;
+    }
+
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    @Override
+    public boolean isInMemory()
+    {
+        return false;
+    }
+
+    @Override
+    public long getSize()
+    {
+        return size;
+    }
+
+    @Override
+    public byte[] get()
+    {
+        try
+        {
+            return FileUtils.readFileToByteArray(file);
+        } catch (IOException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public String getString(String encoding) throws UnsupportedEncodingException
+    {
+        return new String(get(), encoding);
+    }
+
+    @Override
+    public String getString()
+    {
+        try
+        {
+            return getString("ISO-8859-1");
+        } catch (UnsupportedEncodingException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Moves the content to the file, copying it only when it can not simply be renamed (for example, when the file is
+     * on a different file system than the repository).
+     */
+    @Override
+    public void write(File target) throws Exception
+    {
+        target.delete();
+
+        if (!file.renameTo(target))
+        {
+            FileUtils.copyFile(file, target);
+        }
+    }
+
+    @Override
+    public void delete()
+    {
+        file.delete();
+    }
+
+    @Override
+    public String getFieldName()
+    {
+        return fieldName;
+    }
+
+    @Override
+    public void setFieldName(String fieldName)
+    {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public boolean isFormField()
+    {
+        return formField;
+    }
+
+    @Override
+    public void setFormField(boolean formField)
+    {
+        this.formField = formField;
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException
+    {
+        throw new UnsupportedOperationException("The content of a streamed upload can not be changed.");
+    }
+
+    @Override
+    public FileItemHeaders getHeaders()
+    {
+        return headers;
+    }
+
+    @Override
+    public void setHeaders(FileItemHeaders headers)
+    {
+        this.headers = headers;
+    }
+}
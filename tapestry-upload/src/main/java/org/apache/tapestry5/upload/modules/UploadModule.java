@@ -1,4 +1,4 @@
-// Copyright 2007-2013 The Apache Software Foundation
+// Copyright 2007-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -119,5 +119,7 @@ public class UploadModule
         configuration.add(UploadSymbols.REPOSITORY_LOCATION, System.getProperty("java.io.tmpdir"));
         configuration.add(UploadSymbols.REQUESTSIZE_MAX, NO_LIMIT);
         configuration.add(UploadSymbols.FILESIZE_MAX, NO_LIMIT);
+        configuration.add(UploadSymbols.STREAMING, "false");
+        configuration.add(UploadSymbols.STREAM_BUFFER_SIZE, "65536");
     }
 }
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008 The Apache Software Foundation
+// Copyright 2007, 2008, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -39,6 +39,26 @@ public final class UploadSymbols
      */
     public static final String FILESIZE_MAX = "upload.filesize-max";
 
+    /**
+     * If true, multipart requests are decoded using the streaming API of commons-fileupload: the content of each
+     * uploaded file is written directly from the request to a file in the {@linkplain #REPOSITORY_LOCATION
+     * repository}, through a buffer of {@linkplain #STREAM_BUFFER_SIZE fixed size}, rather than being collected by the
+     * {@link org.apache.commons.fileupload.FileItemFactory} (which holds small files, up to the
+     * {@linkplain #REPOSITORY_THRESHOLD threshold}, in memory). {@link UploadedFile#write(java.io.File)} then moves the
+     * file, rather than writing its content a second time. Defaults to false.
+     *
+     * @since 5.4
+     */
+    public static final String STREAMING = "upload.streaming";
+
+    /**
+     * Size (in bytes) of the buffer used to move the content of each uploaded file from the request to the repository,
+     * when {@linkplain #STREAMING streaming}. One buffer is allocated per request. Defaults to 65536.
+     *
+     * @since 5.4
+     */
+    public static final String STREAM_BUFFER_SIZE = "upload.stream-buffer-size";
+
     private UploadSymbols()
     {
     }
@@ -1,4 +1,4 @@
-// Copyright 2007, 2008, 2011 The Apache Software Foundation
+// Copyright 2007, 2008, 2011, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -16,17 +16,24 @@ package org.apache.tapestry5.upload.internal.services;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileUploadBase;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.io.FileUtils;
 import org.apache.tapestry5.test.TapestryTestCase;
+import org.apache.tapestry5.upload.services.UploadedFile;
 import org.testng.annotations.Test;
 
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class MultipartDecoderImplTest extends TapestryTestCase
 {
@@ -196,6 +203,145 @@ public class MultipartDecoderImplTest extends TapestryTestCase
         verify();
     }
 
+    @Test
+    public void streaming_decode_writes_uploaded_file_once() throws Exception
+    {
+        File repository = createRepository();
+
+        // A tiny buffer, so that the content is moved in several steps
+        MultipartDecoderImpl decoder = new MultipartDecoderImpl(fileItemFactory, -1, -1, CHARSET, true,
+                repository.getPath(), 4);
+
+        HttpServletRequest decodedRequest = decoder.decode(multipartRequest("streamed file content"));
+
+        assertEquals(decodedRequest.getParameter("one"), "first");
+        assertEquals(decodedRequest.getParameter("two"), "second.txt");
+
+        UploadedFile uploaded = decoder.getFileUpload("two");
+
+        assertEquals(uploaded.getFileName(), "second.txt");
+        assertEquals(uploaded.getContentType(), "text/plain");
+        assertEquals(uploaded.getSize(), 21L);
+        assertFalse(uploaded.isInMemory());
+        assertEquals(repository.list().length, 1);
+
+        File target = new File(repository, "target.txt");
+
+        uploaded.write(target);
+
+        assertEquals(FileUtils.readFileToString(target, CHARSET), "streamed file content");
+        assertEquals(repository.list().length, 1);
+
+        decoder.threadDidCleanup();
+
+        FileUtils.deleteDirectory(repository);
+    }
+
+    @Test
+    public void streaming_decode_discards_files_when_size_limit_exceeded() throws Exception
+    {
+        File repository = createRepository();
+
+        MultipartDecoderImpl decoder = new MultipartDecoderImpl(fileItemFactory, -1, 10, CHARSET, true,
+                repository.getPath(), 4);
+
+        HttpServletRequest decodedRequest = decoder.decode(multipartRequest("streamed file content"));
+
+        assertTrue(decoder.getUploadException() instanceof FileUploadBase.FileSizeLimitExceededException);
+        assertNull(decodedRequest.getParameter("one"));
+        assertNull(decoder.getFileUpload("two"));
+        assertEquals(repository.list().length, 0);
+
+        FileUtils.deleteDirectory(repository);
+    }
+
+    private File createRepository() throws Exception
+    {
+        File repository = File.createTempFile("repository", "");
+
+        repository.delete();
+        repository.mkdir();
+
+        return repository;
+    }
+
+    private HttpServletRequest multipartRequest(String fileContent) throws Exception
+    {
+        String body = "--BOUNDARY\r\n" +
+                "Content-Disposition: form-data; name=\"one\"\r\n\r\n" +
+                "first\r\n" +
+                "--BOUNDARY\r\n" +
+                "Content-Disposition: form-data; name=\"two\"; filename=\"second.txt\"\r\n" +
+                "Content-Type: text/plain\r\n\r\n" +
+                fileContent + "\r\n" +
+                "--BOUNDARY--\r\n";
+
+        final byte[] bytes = body.getBytes(CHARSET);
+
+        final ByteArrayInputStream input = new ByteArrayInputStream(bytes);
+
+        HttpServletRequest request = mockHttpServletRequest();
+
+        replay();
+
+        return new HttpServletRequestWrapper(request)
+        {
+            @Override
+            public void setCharacterEncoding(String env)
+            {
+            }
+
+            @Override
+            public String getCharacterEncoding()
+            {
+                return CHARSET;
+            }
+
+            @Override
+            public String getContentType()
+            {
+                return "multipart/form-data; boundary=BOUNDARY";
+            }
+
+            @Override
+            public int getContentLength()
+            {
+                return bytes.length;
+            }
+
+            @Override
+            public String getHeader(String name)
+            {
+                return null;
+            }
+
+            @Override
+            public Map getParameterMap()
+            {
+                return Collections.EMPTY_MAP;
+            }
+
+            @Override
+            public ServletInputStream getInputStream()
+            {
+                return new ServletInputStream()
+                {
+                    @Override
+                    public int read()
+                    {
+                        return input.read();
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len)
+                    {
+                        return input.read(b, off, len);
+                    }
+                };
+            }
+        };
+    }
+
     private FileItem createValueItem(String name, String value)
     {
         StubFileItem item = new StubFileItem();
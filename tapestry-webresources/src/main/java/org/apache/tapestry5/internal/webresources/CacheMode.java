@@ -1,4 +1,4 @@
-// Copyright 2013 The Apache Software Foundation
+// Copyright 2013, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -15,21 +15,23 @@
 package org.apache.tapestry5.internal.webresources;
 
 /**
- * Controls caching for {@link ResourceTransformerFactory} in <em>development mode</em>. In production mode, caching at this
- * level is not needed, because artifacts are also cached later in the pipeline. This caching is all about avoid unwanted
+ * Controls caching for {@link ResourceTransformerFactory} in <em>development mode</em> (and in production mode, when
+ * {@link org.apache.tapestry5.webresources.WebResourcesSymbols#CACHE_IN_PRODUCTION_MODE} is enabled). In production mode,
+ * caching at this level is not normally needed, because artifacts are also cached later in the pipeline (though only in
+ * memory). This caching is all about avoid unwanted
  */
 public enum CacheMode
 {
     /**
      * Cache the content on the file system, in the directory defined by {@link org.apache.tapestry5.webresources.WebResourcesSymbols#CACHE_DIR}.
-     * This allows compilation to be avoided even after a restart, as long as the source file has not changed. This only works
-     * for compilations that operate on a single file (such as CoffeeScript, but not Less, which has an {@code @import} statement).
+     * This allows compilation to be avoided even after a restart, as long as the source file has not changed. This is for
+     * compilations that operate on a single file (such as CoffeeScript, but not Less, which has an {@code @import} statement).
      */
     SINGLE_FILE,
 
     /**
-     * The source may be multiple files (e.g., Less). Cache in memory, and invalidate the cache if any of the multiple
-     * file's content changes.
+     * The source may be multiple files (e.g., Less). Cache in memory, and on the file system (with a manifest of the
+     * dependencies and their checksums), and invalidate the cache if any of the multiple file's content changes.
      */
     MULTIPLE_FILE,
 
@@ -18,10 +18,15 @@ import org.apache.tapestry5.annotations.Path;
 import org.apache.tapestry5.internal.InternalConstants;
 import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.Resource;
+import org.apache.tapestry5.ioc.annotations.IntermediateType;
+import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.services.ParallelExecutor;
+import org.apache.tapestry5.ioc.util.TimeInterval;
 import org.apache.tapestry5.services.assets.ResourceDependencies;
 import org.apache.tapestry5.services.assets.ResourceTransformer;
+import org.apache.tapestry5.webresources.WebResourcesSymbols;
 import org.mozilla.javascript.NativeObject;
 
 import java.io.IOException;
@@ -45,10 +50,20 @@ public class CoffeeScriptCompiler implements ResourceTransformer
                                 Resource mainCompiler,
                                 @Path("classpath:org/apache/tapestry5/webresources/internal/invoke-coffeescript.js")
                                 Resource shim,
-                                OperationTracker tracker)
+                                OperationTracker tracker,
+                                ParallelExecutor parallelExecutor,
+                                @Symbol(WebResourcesSymbols.RHINO_EXECUTORS_MAX)
+                                int maxExecutors,
+                                @Symbol(WebResourcesSymbols.RHINO_EXECUTOR_IDLE_TIME)
+                                @IntermediateType(TimeInterval.class)
+                                long maxIdleTime,
+                                @Symbol(WebResourcesSymbols.RHINO_EXECUTORS_PREWARM)
+                                int prewarmExecutors)
     {
 
-        executorPool = new RhinoExecutorPool(tracker, toList(mainCompiler, shim));
+        executorPool = new RhinoExecutorPool(tracker, toList(mainCompiler, shim), maxExecutors, maxIdleTime);
+
+        executorPool.prewarm(parallelExecutor, prewarmExecutors);
     }
 
     private List<Resource> toList(Resource... resources)
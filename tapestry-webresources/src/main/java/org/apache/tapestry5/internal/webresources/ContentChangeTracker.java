@@ -1,4 +1,4 @@
-// Copyright 2013 The Apache Software Foundation
+// Copyright 2013, 2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.services.assets.ResourceDependencies;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -38,6 +39,26 @@ public class ContentChangeTracker implements ResourceDependencies
         checksums.put(dependency, checksum);
     }
 
+    /**
+     * Adds a dependency whose checksum has already been computed.
+     *
+     * @since 5.4
+     */
+    public void addDependency(Resource dependency, long checksum)
+    {
+        checksums.put(dependency, checksum);
+    }
+
+    /**
+     * Returns the tracked resources, each mapped to the checksum of its content at the time it was added.
+     *
+     * @since 5.4
+     */
+    public Map<Resource, Long> getChecksums()
+    {
+        return Collections.unmodifiableMap(checksums);
+    }
+
     /**
      * Checks all resources tracked by this instance and returns true if any resource's content has changed.
      *
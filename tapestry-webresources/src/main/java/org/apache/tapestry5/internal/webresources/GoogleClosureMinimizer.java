@@ -20,6 +20,7 @@ import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
 import org.apache.tapestry5.services.Request;
+import org.apache.tapestry5.services.RequestGlobals;
 import org.apache.tapestry5.services.assets.AssetChecksumGenerator;
 import org.apache.tapestry5.services.assets.StreamableResource;
 import org.slf4j.Logger;
@@ -41,23 +42,27 @@ public class GoogleClosureMinimizer extends AbstractMinimizer
 
     private final List<SourceFile> EXTERNS = Collections.emptyList();
 
-    private final Request request;
+    private final RequestGlobals requestGlobals;
 
     static
     {
         Compiler.setLoggingLevel(Level.SEVERE);
     }
 
-    public GoogleClosureMinimizer(Logger logger, OperationTracker tracker, AssetChecksumGenerator checksumGenerator, Request request)
+    public GoogleClosureMinimizer(Logger logger, OperationTracker tracker, AssetChecksumGenerator checksumGenerator, RequestGlobals requestGlobals)
     {
         super(logger, tracker, checksumGenerator, "text/javascript");
-        this.request = request;
+        this.requestGlobals = requestGlobals;
     }
 
     @Override
     protected boolean isEnabled(StreamableResource resource)
     {
-        return request.getAttribute(TapestryConstants.DISABLE_JAVASCRIPT_MINIMIZATION) == null;
+        // Outside of a request (when assets are preloaded at startup), minimization is always enabled.
+
+        Request request = requestGlobals.getRequest();
+
+        return request == null || request.getAttribute(TapestryConstants.DISABLE_JAVASCRIPT_MINIMIZATION) == null;
     }
 
     @Override
@@ -21,13 +21,18 @@ import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.annotations.PostInjection;
 import org.apache.tapestry5.ioc.annotations.Symbol;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
+import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.util.ExceptionUtils;
 import org.apache.tapestry5.services.assets.ResourceDependencies;
 import org.apache.tapestry5.services.assets.ResourceTransformer;
 import org.apache.tapestry5.webresources.WebResourcesSymbols;
 import org.slf4j.Logger;
 
 import java.io.*;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.Adler32;
 
 public class ResourceTransformerFactoryImpl implements ResourceTransformerFactory
 {
@@ -37,30 +42,51 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
 
     private final boolean productionMode;
 
+    private final boolean cacheInProductionMode;
+
     private final File cacheDir;
 
+    /**
+     * False in a restrictive environment, where compiled content is cached only in memory.
+     */
+    private final boolean fileSystemCaching;
+
     public ResourceTransformerFactoryImpl(Logger logger, OperationTracker tracker,
                                           @Symbol(SymbolConstants.PRODUCTION_MODE)
                                           boolean productionMode,
                                           @Symbol(WebResourcesSymbols.CACHE_DIR)
-                                          String cacheDir)
+                                          String cacheDir,
+                                          @Symbol(WebResourcesSymbols.CACHE_IN_PRODUCTION_MODE)
+                                          boolean cacheInProductionMode,
+                                          @Symbol(SymbolConstants.RESTRICTIVE_ENVIRONMENT)
+                                          boolean restrictive)
     {
         this.logger = logger;
         this.tracker = tracker;
         this.productionMode = productionMode;
+        this.cacheInProductionMode = cacheInProductionMode;
+        this.fileSystemCaching = !restrictive;
 
         this.cacheDir = new File(cacheDir);
 
+        if (restrictive)
+        {
+            return;
+        }
+
         if (!productionMode)
         {
             logger.info(String.format("Using %s to store compiled assets (development mode only).", cacheDir));
+        } else if (cacheInProductionMode)
+        {
+            logger.info(String.format("Using %s to store compiled assets.", cacheDir));
         }
     }
 
     @PostInjection
-    public void createCacheDir(@Symbol(SymbolConstants.RESTRICTIVE_ENVIRONMENT) boolean restrictive)
+    public void createCacheDir()
     {
-        if (!restrictive)
+        if (fileSystemCaching)
         {
             cacheDir.mkdirs();
         }
@@ -70,6 +96,10 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
     {
         private BytestreamCache bytestreamCache;
 
+        Compiled()
+        {
+        }
+
         Compiled(Resource root)
         {
             addDependency(root);
@@ -99,12 +129,12 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
     {
         ResourceTransformer trackingCompiler = wrapWithTracking(sourceName, targetName, transformer);
 
-        if (productionMode)
+        if (productionMode && !cacheInProductionMode)
         {
             return trackingCompiler;
         }
 
-        ResourceTransformer timingCompiler = wrapWithTiming(targetName, trackingCompiler);
+        ResourceTransformer timingCompiler = productionMode ? trackingCompiler : wrapWithTiming(targetName, trackingCompiler);
 
         switch (cacheMode)
         {
@@ -114,11 +144,11 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
 
             case SINGLE_FILE:
 
-                return wrapWithFileSystemCaching(timingCompiler, targetName);
+                return fileSystemCaching ? wrapWithFileSystemCaching(timingCompiler, targetName) : timingCompiler;
 
             case MULTIPLE_FILE:
 
-                return wrapWithInMemoryCaching(timingCompiler, targetName);
+                return wrapWithDependencyCaching(timingCompiler, targetName);
 
             default:
 
@@ -172,11 +202,13 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
     /**
      * Caching is not needed in production, because caching of streamable resources occurs at a higher level
      * (possibly after sources have been aggregated and minimized and gzipped). However, in development, it is
-     * very important to avoid costly CoffeeScript compilation (or similar operations); Tapestry's caching is
-     * somewhat primitive: a change to *any* resource in a given domain results in the cache of all of those resources
-     * being discarded.
+     * very important to avoid costly Less compilation (or similar operations). Compiled content is cached in memory,
+     * and also on the file system, so that it survives a restart: the file system cache records the checksum of each of
+     * the source's dependencies (discovered by the compiler) in a manifest file, and stores the compiled content under
+     * a key computed from all of those checksums. A change to any dependency results in recompilation. The file system
+     * is only a cache: any failure to read or write it is logged, and the content compiled (or served) as normal.
      */
-    private ResourceTransformer wrapWithInMemoryCaching( ResourceTransformer core, final String targetName)
+    private ResourceTransformer wrapWithDependencyCaching(ResourceTransformer core, final String targetName)
     {
         return new DelegatingResourceTransformer(core)
         {
@@ -195,13 +227,27 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
                     return compiled.openStream();
                 }
 
-                compiled = new Compiled(source);
+                compiled = fileSystemCaching ? readFromDependencyCache(source, dependencies) : null;
+
+                if (compiled != null)
+                {
+                    logger.info(String.format("Resource %s and dependencies are unchanged; serving compiled %s content from file system cache",
+                            source, targetName));
+                } else
+                {
+                    compiled = new Compiled(source);
+
+                    InputStream is = delegate.transform(source, new ResourceDependenciesSplitter(dependencies, compiled));
 
-                InputStream is = delegate.transform(source, new ResourceDependenciesSplitter(dependencies, compiled));
+                    compiled.store(is);
 
-                compiled.store(is);
+                    is.close();
 
-                is.close();
+                    if (fileSystemCaching)
+                    {
+                        writeToDependencyCache(source, compiled);
+                    }
+                }
 
                 cache.put(source, compiled);
 
@@ -210,6 +256,183 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
         };
     }
 
+    private File manifestFile(Resource source)
+    {
+        return new File(cacheDir, Long.toHexString(toChecksum(source.toString())) + "-" + source.getFile() + ".deps");
+    }
+
+    private File contentFile(Resource source, String manifest)
+    {
+        return new File(cacheDir, Long.toHexString(toChecksum(manifest)) + "-" + source.getFile());
+    }
+
+    /**
+     * Reads the manifest for the source, and the content it identifies, provided that the checksum of each dependency
+     * still matches.
+     *
+     * @return the compiled content, or null if not cached, out of date, or unreadable
+     */
+    private Compiled readFromDependencyCache(Resource source, ResourceDependencies dependencies)
+    {
+        try
+        {
+            return readCompiled(source, dependencies);
+        } catch (Exception ex)
+        {
+            logger.warn(String.format("Unable to read compiled content for %s from file system cache: %s",
+                    source, ExceptionUtils.toMessage(ex)), ex);
+
+            return null;
+        }
+    }
+
+    private Compiled readCompiled(Resource source, ResourceDependencies dependencies) throws IOException
+    {
+        File manifestFile = manifestFile(source);
+
+        if (!manifestFile.exists())
+        {
+            return null;
+        }
+
+        String manifest = readFile(manifestFile);
+
+        Compiled compiled = new Compiled();
+
+        for (String line : manifest.split("\n"))
+        {
+            int spacex = line.indexOf(' ');
+
+            if (spacex < 0)
+            {
+                return null;
+            }
+
+            long checksum = Long.parseLong(line.substring(0, spacex), 16);
+            Resource dependency = forPath(source, line.substring(spacex + 1));
+
+            if (!dependency.exists() || ResourceTransformUtils.toChecksum(dependency) != checksum)
+            {
+                return null;
+            }
+
+            compiled.addDependency(dependency, checksum);
+        }
+
+        File contentFile = contentFile(source, manifest);
+
+        if (!contentFile.exists())
+        {
+            return null;
+        }
+
+        compiled.store(new FileInputStream(contentFile));
+
+        // The compiler reports the dependencies, but not the source itself.
+
+        for (Resource dependency : compiled.getChecksums().keySet())
+        {
+            if (!dependency.equals(source))
+            {
+                dependencies.addDependency(dependency);
+            }
+        }
+
+        return compiled;
+    }
+
+    private void writeToDependencyCache(Resource source, Compiled compiled)
+    {
+        try
+        {
+            writeCompiled(source, compiled);
+        } catch (Exception ex)
+        {
+            logger.warn(String.format("Unable to write compiled content for %s to file system cache: %s",
+                    source, ExceptionUtils.toMessage(ex)), ex);
+        }
+    }
+
+    /**
+     * Writes the content and the manifest that identifies it; the content identified by the previous manifest (if any)
+     * is deleted, as it can never be used again.
+     */
+    private void writeCompiled(Resource source, Compiled compiled) throws IOException
+    {
+        List<String> lines = CollectionFactory.newList();
+
+        for (Map.Entry<Resource, Long> e : compiled.getChecksums().entrySet())
+        {
+            lines.add(Long.toHexString(e.getValue()) + " " + e.getKey().getPath());
+        }
+
+        // Sorted, so that the key for the content is stable.
+
+        Collections.sort(lines);
+
+        String manifest = InternalUtils.join(lines, "\n");
+
+        File manifestFile = manifestFile(source);
+
+        String previousManifest = manifestFile.exists() ? readFile(manifestFile) : null;
+
+        // Content first, so that the manifest never refers to content that is not yet present.
+
+        writeToCacheFile(contentFile(source, manifest), compiled.openStream());
+        writeToCacheFile(manifestFile, new ByteArrayInputStream(manifest.getBytes("UTF-8")));
+
+        if (previousManifest != null && !previousManifest.equals(manifest))
+        {
+            contentFile(source, previousManifest).delete();
+        }
+    }
+
+    /**
+     * Dependencies are stored by path; they are found again relative to the source (as with Less's {@code @import}).
+     */
+    private static Resource forPath(Resource source, String path)
+    {
+        StringBuilder builder = new StringBuilder();
+
+        for (String term : source.getFolder().split("/"))
+        {
+            if (term.length() > 0)
+            {
+                builder.append("../");
+            }
+        }
+
+        return source.forFile(builder.append(path).toString());
+    }
+
+    private static long toChecksum(String value)
+    {
+        Adler32 checksum = new Adler32();
+
+        try
+        {
+            checksum.update(value.getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+
+        return checksum.getValue();
+    }
+
+    private static String readFile(File file) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        InputStream is = new FileInputStream(file);
+
+        TapestryInternalUtils.copy(is, bos);
+
+        is.close();
+
+        return bos.toString("UTF-8");
+    }
+
     private ResourceTransformer wrapWithFileSystemCaching( ResourceTransformer core, final String targetName)
     {
         return new DelegatingResourceTransformer(core)
@@ -225,9 +448,18 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
 
                 if (cacheFile.exists())
                 {
-                    logger.debug(String.format("Serving up compiled %s content for %s from file system cache", targetName, source));
+                    try
+                    {
+                        InputStream cached = new BufferedInputStream(new FileInputStream(cacheFile));
+
+                        logger.debug(String.format("Serving up compiled %s content for %s from file system cache", targetName, source));
 
-                    return new BufferedInputStream(new FileInputStream(cacheFile));
+                        return cached;
+                    } catch (IOException ex)
+                    {
+                        logger.warn(String.format("Unable to read compiled %s content for %s from file system cache: %s",
+                                targetName, source, ExceptionUtils.toMessage(ex)), ex);
+                    }
                 }
 
                 InputStream compiled = delegate.transform(source, dependencies);
@@ -242,19 +474,47 @@ public class ResourceTransformerFactoryImpl implements ResourceTransformerFactor
 
                 BytestreamCache cache = new BytestreamCache(bos);
 
-                writeToCacheFile(cacheFile, cache.openStream());
+                try
+                {
+                    writeToCacheFile(cacheFile, cache.openStream());
+                } catch (IOException ex)
+                {
+                    logger.warn(String.format("Unable to write compiled %s content for %s to file system cache: %s",
+                            targetName, source, ExceptionUtils.toMessage(ex)), ex);
+                }
 
                 return cache.openStream();
             }
         };
     }
 
+    /**
+     * Writes a temporary file and then renames it, so that other JVMs sharing the cache directory never see a partially
+     * written file.
+     */
     private void writeToCacheFile(File file, InputStream stream) throws IOException
     {
-        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+        File temp = File.createTempFile(file.getName(), ".tmp", cacheDir);
+
+        try
+        {
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(temp));
+
+            TapestryInternalUtils.copy(stream, outputStream);
+
+            outputStream.close();
+        } catch (IOException ex)
+        {
+            temp.delete();
 
-        TapestryInternalUtils.copy(stream, outputStream);
+            throw ex;
+        }
+
+        // On some platforms, rename will not replace an existing file, such as one just written by another JVM.
 
-        outputStream.close();
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+        {
+            temp.delete();
+        }
     }
 }
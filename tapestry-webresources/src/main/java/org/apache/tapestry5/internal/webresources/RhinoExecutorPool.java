@@ -1,4 +1,4 @@
-// Copyright 2013-2014 The Apache Software Foundation
+// Copyright 2013-2015 The Apache Software Foundation
 //
 // Licensed under the Apache License, Version 2.0 (the "License");
 // you may not use this file except in compliance with the License.
@@ -19,122 +19,339 @@ import org.apache.tapestry5.ioc.OperationTracker;
 import org.apache.tapestry5.ioc.Resource;
 import org.apache.tapestry5.ioc.internal.util.CollectionFactory;
 import org.apache.tapestry5.ioc.internal.util.InternalUtils;
+import org.apache.tapestry5.ioc.services.ParallelExecutor;
 import org.apache.tapestry5.ioc.util.ExceptionUtils;
-import org.apache.tapestry5.ioc.util.Stack;
-import org.mozilla.javascript.Context;
-import org.mozilla.javascript.ContextFactory;
-import org.mozilla.javascript.NativeFunction;
-import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages a pool of initialized {@link RhinoExecutor} instances.  The instances are initialized for a particular
+ * set of scripts.
+ * <p/>
+ * The scripts are compiled just once, and the compiled scripts are shared by all executors. Each executor still
+ * evaluates the scripts into its own scope (with its own standard objects), since scripts (such as the CoffeeScript
+ * compiler) keep mutable state in their scope, and even modify the standard objects. The pool grows, as needed, up to a maximum number of
+ * executors; once at the maximum, threads wait for an executor to be returned. Executors are created without holding any
+ * lock, and executors that have been idle for too long are discarded (though the pool always keeps at least one).
  */
 public class RhinoExecutorPool
 {
+    private static final Logger logger = LoggerFactory.getLogger(RhinoExecutorPool.class);
+
     private final OperationTracker tracker;
 
     private final List<Resource> scripts;
 
-    private final Stack<RhinoExecutor> executors = CollectionFactory.newStack();
+    private final int maxExecutors;
+
+    private final long maxIdleMillis;
+
+    /**
+     * Idle executors; the most recently used is first, so the longest idle executor is last.
+     */
+    private final BlockingDeque<PooledExecutor> idle = new LinkedBlockingDeque<PooledExecutor>();
+
+    private final AtomicInteger executorCount = new AtomicInteger();
+
+    private final AtomicLong waitCount = new AtomicLong();
+
+    private final AtomicLong waitNanos = new AtomicLong();
 
     private final ContextFactory contextFactory = new ContextFactory();
 
+    // Compiled by the first executor, and shared from then on.
+
+    private List<Script> compiledScripts;
+
     public RhinoExecutorPool(OperationTracker tracker, List<Resource> scripts)
     {
+        this(tracker, scripts, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param tracker
+     *         used to track the creation of executors
+     * @param scripts
+     *         the scripts evaluated by each executor
+     * @param maxExecutors
+     *         the maximum number of executors the pool will create
+     * @param maxIdleMillis
+     *         the time after which an idle executor may be discarded
+     * @since 5.4
+     */
+    public RhinoExecutorPool(OperationTracker tracker, List<Resource> scripts, int maxExecutors, long maxIdleMillis)
+    {
+        assert maxExecutors > 0;
+
         this.tracker = tracker;
         this.scripts = scripts;
+        this.maxExecutors = maxExecutors;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * Creates executors in the background, so that they are ready before they are first needed.
+     *
+     * @param executor
+     *         used to create the executors
+     * @param count
+     *         the number of executors to create (limited by the pool's maximum)
+     * @since 5.4
+     */
+    public void prewarm(ParallelExecutor executor, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            executor.invoke(new Invokable<Void>()
+            {
+                @Override
+                public Void invoke()
+                {
+                    PooledExecutor created = tryCreateExecutor();
+
+                    if (created != null)
+                    {
+                        created.discard();
+                    }
+
+                    return null;
+                }
+            });
+        }
     }
 
     /**
-     * Gets or creates an available executor. It is expected that {@link #put(RhinoExecutor)} will
-     * be invoked after the executor completes.
+     * Gets or creates an available executor. It is expected that {@link RhinoExecutor#discard()} will
+     * be invoked after the executor completes. When the pool has already created its maximum number of executors,
+     * this waits for one to be discarded.
      *
      * @return executor
      */
-    public synchronized RhinoExecutor get()
+    public RhinoExecutor get()
+    {
+        PooledExecutor executor = idle.pollFirst();
+
+        if (executor != null)
+        {
+            return executor;
+        }
+
+        executor = tryCreateExecutor();
+
+        if (executor != null)
+        {
+            return executor;
+        }
+
+        long startNanos = System.nanoTime();
+
+        try
+        {
+            executor = idle.takeFirst();
+        } catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new RuntimeException("Interrupted while waiting for a Rhino executor.", ex);
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        long waits = waitCount.incrementAndGet();
+        long totalNanos = waitNanos.addAndGet(elapsedNanos);
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Waited %.2f ms for a Rhino executor (pool of %d); %d waits totalling %.2f ms.",
+                    ResourceTransformUtils.nanosToMillis(elapsedNanos), executorCount.get(),
+                    waits, ResourceTransformUtils.nanosToMillis(totalNanos)));
+        }
+
+        return executor;
+    }
+
+    private void put(PooledExecutor executor)
+    {
+        executor.lastUsed = System.currentTimeMillis();
+
+        idle.offerFirst(executor);
+
+        evictIdleExecutors(executor.lastUsed);
+    }
+
+    private void evictIdleExecutors(long now)
     {
+        while (idle.size() > 1)
+        {
+            PooledExecutor oldest = idle.peekLast();
+
+            if (oldest == null || now - oldest.lastUsed < maxIdleMillis)
+            {
+                return;
+            }
+
+            // Another thread may have taken it in the meantime.
+
+            if (idle.removeLastOccurrence(oldest))
+            {
+                executorCount.decrementAndGet();
+            }
+        }
+    }
 
-        if (executors.isEmpty())
+    /**
+     * Creates a new executor, unless the pool is already at its maximum size.
+     *
+     * @return new executor, or null
+     */
+    private PooledExecutor tryCreateExecutor()
+    {
+        while (true)
         {
-            return createExecutor();
+            int count = executorCount.get();
+
+            if (count >= maxExecutors)
+            {
+                return null;
+            }
+
+            if (executorCount.compareAndSet(count, count + 1))
+            {
+                break;
+            }
         }
 
-        return executors.pop();
+        boolean created = false;
+
+        try
+        {
+            PooledExecutor executor = createExecutor();
+
+            created = true;
+
+            return executor;
+        } finally
+        {
+            if (!created)
+            {
+                executorCount.decrementAndGet();
+            }
+        }
     }
 
-    private synchronized void put(RhinoExecutor executor)
+    private class PooledExecutor implements RhinoExecutor
     {
-        executors.push(executor);
+        private final Context context;
+
+        private final ScriptableObject scope;
+
+        private volatile long lastUsed;
+
+        PooledExecutor(Context context, ScriptableObject scope)
+        {
+            this.context = context;
+            this.scope = scope;
+        }
+
+        @Override
+        public ScriptableObject invokeFunction(String functionName, Object... arguments)
+        {
+            contextFactory.enterContext(context);
+
+            try
+            {
+                NativeFunction function = (NativeFunction) scope.get(functionName, scope);
+
+                return (ScriptableObject) function.call(context, scope, null, arguments);
+            } finally
+            {
+                Context.exit();
+            }
+        }
+
+        @Override
+        public void discard()
+        {
+            put(this);
+        }
     }
 
-    private RhinoExecutor createExecutor()
+    private PooledExecutor createExecutor()
     {
         return tracker.invoke(String.format("Creating Rhino executor for source(s) %s.",
                 InternalUtils.join(scripts)),
-                new Invokable<RhinoExecutor>()
+                new Invokable<PooledExecutor>()
                 {
                     @Override
-                    public RhinoExecutor invoke()
+                    public PooledExecutor invoke()
                     {
-                        final Context context = contextFactory.enterContext();
+                        long startNanos = System.nanoTime();
 
-                        final ScriptableObject scope = context.initStandardObjects();
+                        final Context context = contextFactory.enterContext();
 
                         try
                         {
                             context.setOptimizationLevel(-1);
 
-                            for (Resource script : scripts)
+                            ScriptableObject scope = context.initStandardObjects();
+
+                            for (Script script : getCompiledScripts(context))
                             {
-                                loadScript(context, scope, script);
+                                script.exec(context, scope);
                             }
 
+                            logger.info(String.format("Created Rhino executor %d (of at most %d) in %.2f ms.",
+                                    executorCount.get(), maxExecutors,
+                                    ResourceTransformUtils.nanosToMillis(System.nanoTime() - startNanos)));
+
+                            return new PooledExecutor(context, scope);
                         } finally
                         {
                             Context.exit();
                         }
+                    }
+                });
+    }
 
-                        return new RhinoExecutor()
-                        {
-                            @Override
-                            public ScriptableObject invokeFunction(String functionName, Object... arguments)
-                            {
-                                contextFactory.enterContext(context);
+    /**
+     * Compiles the scripts, the first time an executor is created. Scripts are compiled in interpreted mode, so the
+     * result may be executed by any executor.
+     */
+    private synchronized List<Script> getCompiledScripts(Context context)
+    {
+        if (compiledScripts == null)
+        {
+            List<Script> compiled = CollectionFactory.newList();
 
-                                try
-                                {
-                                    NativeFunction function = (NativeFunction) scope.get(functionName, scope);
+            for (Resource script : scripts)
+            {
+                compiled.add(compileScript(context, script));
+            }
 
-                                    return (ScriptableObject) function.call(context, scope, null, arguments);
-                                } finally
-                                {
-                                    Context.exit();
-                                }
-                            }
+            compiledScripts = compiled;
+        }
 
-                            @Override
-                            public void discard()
-                            {
-                                put(this);
-                            }
-                        };
-                    }
-                });
+        return compiledScripts;
     }
 
-    private void loadScript(final Context context, final ScriptableObject scope, final Resource script)
+    private Script compileScript(final Context context, final Resource script)
     {
-        tracker.run(String.format("Loading script %s.", script),
-                new Runnable()
+        return tracker.invoke(String.format("Compiling script %s.", script),
+                new Invokable<Script>()
                 {
                     @Override
-                    public void run()
+                    public Script invoke()
                     {
                         InputStream in = null;
                         Reader r = null;
@@ -144,7 +361,7 @@ public class RhinoExecutorPool
                             in = script.openStream();
                             r = new InputStreamReader(in);
 
-                            context.evaluateReader(scope, r, script.toString(), 1, null);
+                            return context.compileReader(r, script.toString(), 1, null);
                         } catch (IOException ex)
                         {
                             throw new RuntimeException(String.format("Unable to read script %s: %s",
@@ -160,6 +377,4 @@ public class RhinoExecutorPool
                 });
 
     }
-
-
 }
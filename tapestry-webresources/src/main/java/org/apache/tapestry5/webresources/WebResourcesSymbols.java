@@ -15,10 +15,44 @@ package org.apache.tapestry5.webresources;
 public class WebResourcesSymbols
 {
     /**
-     * Directory that stores cached copies of compiled CoffeeScript files. The directory will be created
+     * Directory that stores cached copies of compiled CoffeeScript and Less files. The directory will be created
      * as necessary. This allows compilation (e.g., CoffeeScript to JavaScript) to be avoided after a restart.
+     * The directory may be shared by several JVMs on the same host.
      * The default is under the {@code java.io.tmpdir} system property (which is not necessarily stable between executions).
      * It is common to set this to {@code target/asset-cache} during development.
      */
     public static final String CACHE_DIR = "tapestry.compiled-asset-cache-dir";
+
+    /**
+     * If true, then compiled assets are also cached in {@linkplain #CACHE_DIR the cache directory} in production mode,
+     * so that a restarted server can serve them without compiling them again. Defaults to false, since in production
+     * compiled assets are normally only compiled once per execution.
+     *
+     * @since 5.4
+     */
+    public static final String CACHE_IN_PRODUCTION_MODE = "tapestry.compiled-asset-cache-in-production-mode";
+
+    /**
+     * The maximum number of Rhino executors (each with its own copy of the CoffeeScript compiler) that may be created;
+     * once this many are in use, threads needing to compile must wait. Defaults to the number of available processors.
+     *
+     * @since 5.4
+     */
+    public static final String RHINO_EXECUTORS_MAX = "tapestry.rhino-executors-max";
+
+    /**
+     * The time after which an idle Rhino executor may be discarded (one executor is always kept). Defaults to
+     * "5 m" (five minutes).
+     *
+     * @since 5.4
+     */
+    public static final String RHINO_EXECUTOR_IDLE_TIME = "tapestry.rhino-executor-idle-time";
+
+    /**
+     * The number of Rhino executors to create, in the background, when the CoffeeScript compiler is first created;
+     * this avoids the cost of loading the compiler on the first request that needs it. Defaults to 0.
+     *
+     * @since 5.4
+     */
+    public static final String RHINO_EXECUTORS_PREWARM = "tapestry.rhino-executors-prewarm";
 }
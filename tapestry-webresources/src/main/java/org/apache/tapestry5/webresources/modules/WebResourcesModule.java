@@ -56,6 +56,10 @@ public class WebResourcesModule
     public static void setupDefaultCacheDirectory(MappedConfiguration<String, Object> configuration)
     {
         configuration.add(WebResourcesSymbols.CACHE_DIR, "${java.io.tmpdir}/tapestry-asset-cache");
+        configuration.add(WebResourcesSymbols.CACHE_IN_PRODUCTION_MODE, false);
+        configuration.add(WebResourcesSymbols.RHINO_EXECUTORS_MAX, Runtime.getRuntime().availableProcessors());
+        configuration.add(WebResourcesSymbols.RHINO_EXECUTOR_IDLE_TIME, "5 m");
+        configuration.add(WebResourcesSymbols.RHINO_EXECUTORS_PREWARM, 0);
     }
 
 
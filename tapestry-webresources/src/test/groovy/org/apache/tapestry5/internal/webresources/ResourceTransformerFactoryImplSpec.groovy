@@ -0,0 +1,157 @@
+package org.apache.tapestry5.internal.webresources
+
+import org.apache.tapestry5.ioc.Resource
+import org.apache.tapestry5.ioc.internal.QuietOperationTracker
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource
+import org.apache.tapestry5.services.assets.ResourceDependencies
+import org.apache.tapestry5.services.assets.ResourceTransformer
+import org.slf4j.Logger
+import spock.lang.Specification
+
+class ResourceTransformerFactoryImplSpec extends Specification {
+
+  File sourceDir
+
+  File cacheDir
+
+  Resource source
+
+  int compiles
+
+  def setup() {
+    def root = File.createTempFile("webresources", "")
+    root.delete()
+
+    sourceDir = new File(root, "sources")
+    cacheDir = new File(root, "cache")
+
+    new File(sourceDir, "styles").mkdirs()
+
+    writeSource "colors.less", "@color: #ff0000;"
+    writeSource "main.less", "@import \"colors.less\";\nbody { color: @color; }"
+
+    def loader = new URLClassLoader([sourceDir.toURI().toURL()] as URL[], (ClassLoader) null)
+
+    source = new ClasspathResource(loader, "styles/main.less")
+  }
+
+  def cleanup() {
+    sourceDir.parentFile.deleteDir()
+  }
+
+  private void writeSource(String name, String content) {
+    new File(sourceDir, "styles/$name").text = content
+  }
+
+  private ResourceTransformer createCompiler(Logger logger, boolean restrictive = false) {
+    def less = new LessResourceTransformer()
+
+    ResourceTransformer counting = new DelegatingResourceTransformer(less) {
+      @Override
+      InputStream transform(Resource source, ResourceDependencies dependencies) throws IOException {
+        compiles++
+
+        return delegate.transform(source, dependencies)
+      }
+    }
+
+    def factory = new ResourceTransformerFactoryImpl(logger, new QuietOperationTracker(), false, cacheDir.path, false, restrictive)
+
+    factory.createCacheDir()
+
+    return factory.createCompiler("text/css", "Less", "CSS", counting, CacheMode.MULTIPLE_FILE)
+  }
+
+  private String compile(ResourceTransformer compiler, ContentChangeTracker dependencies = new ContentChangeTracker()) {
+    return compiler.transform(source, dependencies).text
+  }
+
+  private List<String> contentFiles() {
+    return cacheDir.list().findAll { !it.endsWith(".deps") }
+  }
+
+  def "compiled content is served from the file system cache after a restart"() {
+    Logger logger = Mock()
+    def dependencies = new ContentChangeTracker()
+
+    def css = compile createCompiler(logger)
+
+    when:
+
+    def cached = compile createCompiler(logger), dependencies
+
+    then:
+
+    cached == css
+    css.contains "#ff0000"
+    compiles == 1
+
+    dependencies.checksums.keySet()*.path == ["styles/colors.less"]
+
+    0 * logger.warn(_, _)
+  }
+
+  def "changing an imported file forces recompilation"() {
+    Logger logger = Mock()
+
+    compile createCompiler(logger)
+
+    writeSource "colors.less", "@color: #0000ff;"
+
+    when:
+
+    def css = compile createCompiler(logger)
+
+    then:
+
+    css.contains "#0000ff"
+    compiles == 2
+
+    // The content for the previous version of colors.less is deleted
+
+    contentFiles().size() == 1
+
+    0 * logger.warn(_, _)
+  }
+
+  def "an unreadable manifest is a cache miss"() {
+    Logger logger = Mock()
+
+    compile createCompiler(logger)
+
+    cacheDir.listFiles().find { it.name.endsWith(".deps") }.text = "not-a-checksum styles/colors.less"
+
+    when:
+
+    def css = compile createCompiler(logger)
+
+    then:
+
+    css.contains "#ff0000"
+    compiles == 2
+
+    1 * logger.warn({ it.contains "Unable to read compiled content" }, _ as NumberFormatException)
+  }
+
+  def "the file system is not used in a restrictive environment"() {
+    Logger logger = Mock()
+
+    when:
+
+    def css = compile createCompiler(logger, true)
+
+    then:
+
+    css.contains "#ff0000"
+    compiles == 1
+    !cacheDir.exists()
+
+    when:
+
+    compile createCompiler(logger, true)
+
+    then:
+
+    compiles == 2
+  }
+}
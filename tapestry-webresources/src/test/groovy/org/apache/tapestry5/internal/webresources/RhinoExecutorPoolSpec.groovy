@@ -0,0 +1,146 @@
+package org.apache.tapestry5.internal.webresources
+
+import org.apache.tapestry5.ioc.internal.QuietOperationTracker
+import org.apache.tapestry5.ioc.internal.util.ClasspathResource
+import spock.lang.Specification
+
+class RhinoExecutorPoolSpec extends Specification {
+
+  private RhinoExecutorPool createPool(String script = "wrap.js", int maxExecutors = Integer.MAX_VALUE, long maxIdleMillis = Long.MAX_VALUE) {
+    def resource = new ClasspathResource("org/apache/tapestry5/internal/webresources/$script")
+
+    return new RhinoExecutorPool(new QuietOperationTracker(), [resource], maxExecutors, maxIdleMillis)
+  }
+
+  private void waitUntilWaiting(Thread thread) {
+    while (thread.state != Thread.State.WAITING) {
+      assert thread.alive
+      Thread.yield()
+    }
+  }
+
+  def "executors invoke functions defined by the scripts"() {
+    def pool = createPool()
+
+    when:
+
+    def executor = pool.get()
+    def result = executor.invokeFunction("wrap", "content")
+
+    executor.discard()
+
+    then:
+
+    result.get("value", result) == "content"
+    pool.@executorCount.get() == 1
+    pool.@idle.size() == 1
+  }
+
+  def "discarded executors are reused"() {
+    def pool = createPool()
+
+    def first = pool.get()
+    first.discard()
+
+    when:
+
+    def second = pool.get()
+
+    then:
+
+    second.is(first)
+    pool.@executorCount.get() == 1
+    pool.@idle.size() == 0
+  }
+
+  def "get() waits at the maximum, until an executor is discarded"() {
+    def pool = createPool("wrap.js", 1)
+    def executor = pool.get()
+    def obtained = null
+
+    def thread = Thread.start { obtained = pool.get() }
+
+    waitUntilWaiting thread
+
+    expect:
+
+    obtained == null
+    pool.@waitCount.get() == 0
+
+    when:
+
+    executor.discard()
+    thread.join()
+
+    then:
+
+    obtained.is(executor)
+    pool.@executorCount.get() == 1
+    pool.@waitCount.get() == 1
+    pool.@waitNanos.get() > 0
+  }
+
+  def "executors idle for too long are evicted, but one is always kept"() {
+    def pool = createPool("wrap.js", Integer.MAX_VALUE, 1)
+
+    def first = pool.get()
+    def second = pool.get()
+
+    when:
+
+    first.discard()
+
+    Thread.sleep 10
+
+    second.discard()
+
+    then:
+
+    pool.@executorCount.get() == 1
+    pool.@idle.size() == 1
+
+    when:
+
+    Thread.sleep 10
+
+    def executor = pool.get()
+
+    then:
+
+    executor.is(second)
+
+    when:
+
+    executor.discard()
+
+    then:
+
+    pool.@executorCount.get() == 1
+    pool.@idle.size() == 1
+  }
+
+  def "a failure to create an executor releases its slot"() {
+    def pool = createPool("failing.js", 1)
+
+    when:
+
+    pool.get()
+
+    then:
+
+    thrown(RuntimeException)
+    pool.@executorCount.get() == 0
+
+    when:
+
+    // Were the slot not released, this would wait forever
+
+    pool.get()
+
+    then:
+
+    thrown(RuntimeException)
+    pool.@executorCount.get() == 0
+    pool.@waitCount.get() == 0
+  }
+}
@@ -0,0 +1 @@
+throw "Executor creation failed.";
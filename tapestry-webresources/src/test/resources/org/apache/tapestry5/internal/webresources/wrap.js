@@ -0,0 +1,3 @@
+function wrap(value) {
+  return { value: value };
+}